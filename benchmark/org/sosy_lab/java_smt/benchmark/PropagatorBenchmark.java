@@ -0,0 +1,136 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanTheorySolver;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.example.theory_solving_nqueens.NQueens;
+import org.sosy_lab.java_smt.example.theory_solving_nqueens.NQueensPropagator;
+
+/**
+ * Measures the overhead of the bridge between the solver and a {@link BooleanTheorySolver}, based
+ * on the NQueens example: the classic encoding is compared with the encodings that move (parts of)
+ * the rules into a theory solver. Each invocation enumerates all solutions for one board.
+ *
+ * <p>The solver context is created once per trial, thus only the solving is measured. The
+ * auxiliary counters report the number of callbacks and consequences, run with {@code -prof gc}
+ * for the allocation rate. Usage: {@code ant run-benchmarks -Dbenchmark.args=PropagatorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropagatorBenchmark {
+
+  public enum Encoding {
+    CLASSIC,
+    COMPLETE,
+    PARTIAL,
+    PARTIAL_MIN
+  }
+
+  @Param({"Z3"})
+  public Solvers solver;
+
+  @Param({"6", "8", "10"})
+  public int n;
+
+  @Param({"CLASSIC", "COMPLETE", "PARTIAL", "PARTIAL_MIN"})
+  public Encoding encoding;
+
+  private SolverContext context;
+
+  /** Counters of the theory solver, summed over all invocations of one iteration. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Counters {
+    public long callbacks;
+    public long consequences;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      callbacks = 0;
+      consequences = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws InvalidConfigurationException {
+    context =
+        SolverContextFactory.createSolverContext(
+            Configuration.defaultConfiguration(),
+            LogManager.createNullLogManager(),
+            ShutdownNotifier.createDummy(),
+            solver);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public int solve(Counters counters) throws InterruptedException, SolverException {
+    try (ProverEnvironment prover =
+        context.newProverEnvironment(
+            ProverOptions.GENERATE_MODELS, ProverOptions.GENERATE_ALL_SAT)) {
+      NQueens queens = new NQueens(context, n);
+      final int solutions;
+      switch (encoding) {
+        case COMPLETE:
+          solutions = queens.solveComplete(prover);
+          break;
+        case PARTIAL:
+          solutions = queens.solvePartial(prover);
+          break;
+        case PARTIAL_MIN:
+          solutions = queens.solvePartialMin(prover);
+          break;
+        default:
+          solutions = queens.solveClassic(prover);
+      }
+
+      NQueensPropagator theorySolver = queens.getTheorySolver();
+      if (theorySolver != null) {
+        ImmutableMap<String, String> stats = theorySolver.getBackendStatistics();
+        counters.callbacks += Long.parseLong(stats.getOrDefault("callbacks", "0"));
+        counters.consequences +=
+            Long.parseLong(stats.getOrDefault("submitted consequences", "0"));
+      }
+      return solutions;
+    }
+  }
+}
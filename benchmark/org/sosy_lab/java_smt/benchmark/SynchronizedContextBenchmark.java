@@ -0,0 +1,130 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.IntegerFormulaManager;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * Measures the contention of several threads that use their own provers of one synchronized
+ * context, with one global lock ({@code COARSE}) and with the option {@code
+ * solver.synchronized.fineGrainedLocking} ({@code FINE}). Each thread checks a small query on its
+ * prover, thus the throughput shows how much the threads wait for each other.
+ *
+ * <p>Princess and CVC4 check the provers of one context in parallel, for the other solvers the
+ * fine-grained locks only pay off with {@code solver.synchronized.useSeperateProvers}.
+ *
+ * <p>Usage: {@code ant run-benchmarks -Dbenchmark.args=SynchronizedContextBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class SynchronizedContextBenchmark {
+
+  public enum Locking {
+    COARSE,
+    FINE
+  }
+
+  @Param({"PRINCESS"})
+  public Solvers solver;
+
+  @Param({"COARSE", "FINE"})
+  public Locking locking;
+
+  /** Number of chained variables of the query of each thread. */
+  @Param({"5", "20"})
+  public int size;
+
+  private SolverContext context;
+  private final AtomicInteger threadIds = new AtomicInteger();
+
+  @Setup(Level.Trial)
+  public void setUp() throws InvalidConfigurationException {
+    context =
+        SolverContextFactory.createSolverContext(
+            Configuration.builder()
+                .setOption("solver.synchronize", "true")
+                .setOption(
+                    "solver.synchronized.fineGrainedLocking",
+                    Boolean.toString(locking == Locking.FINE))
+                .build(),
+            LogManager.createNullLogManager(),
+            ShutdownNotifier.createDummy(),
+            solver);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  /** The prover of one thread, with a satisfiable chain of inequalities. */
+  @State(Scope.Thread)
+  public static class ThreadProver {
+    private ProverEnvironment prover;
+
+    @Setup(Level.Trial)
+    public void setUp(SynchronizedContextBenchmark benchmark) throws InterruptedException {
+      IntegerFormulaManager imgr = benchmark.context.getFormulaManager().getIntegerFormulaManager();
+      BooleanFormulaManager bmgr = benchmark.context.getFormulaManager().getBooleanFormulaManager();
+      String prefix = "t" + benchmark.threadIds.getAndIncrement() + "_";
+      IntegerFormula previous = imgr.makeVariable(prefix + 0);
+      BooleanFormula query = bmgr.makeTrue();
+      for (int i = 1; i < benchmark.size; i++) {
+        IntegerFormula next = imgr.makeVariable(prefix + i);
+        query = bmgr.and(query, imgr.lessThan(previous, next));
+        previous = next;
+      }
+      prover = benchmark.context.newProverEnvironment();
+      prover.push(query);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      prover.close();
+    }
+  }
+
+  @Benchmark
+  public boolean isUnsat(ThreadProver threadProver) throws InterruptedException, SolverException {
+    return threadProver.prover.isUnsat();
+  }
+}
@@ -0,0 +1,125 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.TransformationSession;
+
+/**
+ * Compares repeated calls of {@link FormulaManager#substitute} with a {@link TransformationSession}
+ * that keeps its results across calls. Each invocation renames all variables in a set of formulas
+ * that share one deep DAG, whose tree representation is exponentially larger than the DAG.
+ *
+ * <p>Usage: {@code ant run-benchmarks -Dbenchmark.args=TransformationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformationBenchmark {
+
+  @Param({"SMTINTERPOL", "Z3"})
+  public Solvers solver;
+
+  /** Depth of the shared DAG. */
+  @Param({"100", "1000"})
+  public int depth;
+
+  /** Number of formulas that share the DAG. */
+  @Param({"100"})
+  public int formulas;
+
+  /** Size of the cache of the session, smaller than the DAG for the first value. */
+  @Param({"100", "100000"})
+  public int cacheSize;
+
+  private SolverContext context;
+  private FormulaManager fmgr;
+  private ImmutableList<BooleanFormula> inputs;
+  private ImmutableMap<BooleanFormula, BooleanFormula> renaming;
+
+  @Setup(Level.Trial)
+  public void setUp() throws InvalidConfigurationException {
+    context =
+        SolverContextFactory.createSolverContext(
+            Configuration.defaultConfiguration(),
+            LogManager.createNullLogManager(),
+            ShutdownNotifier.createDummy(),
+            solver);
+    fmgr = context.getFormulaManager();
+    BooleanFormulaManager bmgr = fmgr.getBooleanFormulaManager();
+
+    ImmutableMap.Builder<BooleanFormula, BooleanFormula> renamingBuilder = ImmutableMap.builder();
+    BooleanFormula shared = bmgr.makeVariable("x0");
+    renamingBuilder.put(shared, bmgr.makeVariable("x0_renamed"));
+    for (int i = 1; i < depth; i++) {
+      BooleanFormula x = bmgr.makeVariable("x" + i);
+      BooleanFormula y = bmgr.makeVariable("y" + i);
+      renamingBuilder.put(x, bmgr.makeVariable("x" + i + "_renamed"));
+      renamingBuilder.put(y, bmgr.makeVariable("y" + i + "_renamed"));
+      // each level references the previous level twice
+      shared = bmgr.or(bmgr.and(shared, x), bmgr.and(bmgr.not(shared), y));
+    }
+    renaming = renamingBuilder.buildOrThrow();
+
+    ImmutableList.Builder<BooleanFormula> inputsBuilder = ImmutableList.builder();
+    for (int i = 0; i < formulas; i++) {
+      inputsBuilder.add(bmgr.and(shared, bmgr.makeVariable("z" + i)));
+    }
+    inputs = inputsBuilder.build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public void substitute(Blackhole blackhole) {
+    for (BooleanFormula input : inputs) {
+      blackhole.consume(fmgr.substitute(input, renaming));
+    }
+  }
+
+  @Benchmark
+  public void substitutionSession(Blackhole blackhole) {
+    TransformationSession session = fmgr.newSubstitutionSession(renaming, cacheSize);
+    for (BooleanFormula input : inputs) {
+      blackhole.consume(session.transform(input));
+    }
+  }
+}
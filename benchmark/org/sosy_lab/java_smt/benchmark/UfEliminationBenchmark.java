@@ -0,0 +1,131 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.FormulaType;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
+import org.sosy_lab.java_smt.api.IntegerFormulaManager;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.utils.IncrementalUfElimination;
+import org.sosy_lab.java_smt.utils.SolverUtils;
+import org.sosy_lab.java_smt.utils.UfElimination;
+
+/**
+ * Compares {@link UfElimination} with {@link IncrementalUfElimination} on the steps of an unrolled
+ * transition relation, as in bounded model checking. Each step applies the same UFs to the state of
+ * the previous step, such that the number of applications grows linearly with the number of steps.
+ *
+ * <p>Usage: {@code ant run-benchmarks -Dbenchmark.args=UfEliminationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UfEliminationBenchmark {
+
+  @Param({"SMTINTERPOL", "Z3"})
+  public Solvers solver;
+
+  /** Number of steps of the unrolling. */
+  @Param({"25", "50", "100"})
+  public int steps;
+
+  private SolverContext context;
+  private FormulaManager fmgr;
+  private ImmutableList<BooleanFormula> unrolling;
+
+  @Setup(Level.Trial)
+  public void setUp() throws InvalidConfigurationException {
+    context =
+        SolverContextFactory.createSolverContext(
+            Configuration.defaultConfiguration(),
+            LogManager.createNullLogManager(),
+            ShutdownNotifier.createDummy(),
+            solver);
+    fmgr = context.getFormulaManager();
+    BooleanFormulaManager bmgr = fmgr.getBooleanFormulaManager();
+    IntegerFormulaManager imgr = fmgr.getIntegerFormulaManager();
+    FunctionDeclaration<IntegerFormula> next =
+        fmgr.getUFManager().declareUF("next", FormulaType.IntegerType, FormulaType.IntegerType);
+    FunctionDeclaration<IntegerFormula> read =
+        fmgr.getUFManager()
+            .declareUF(
+                "read", FormulaType.IntegerType, FormulaType.IntegerType, FormulaType.IntegerType);
+
+    // x_{i+1} = next(x_i) + read(x_i, i) && read(x_{i+1}, 0) >= 0
+    ImmutableList.Builder<BooleanFormula> unrollingBuilder = ImmutableList.builder();
+    IntegerFormula x = imgr.makeVariable("x0");
+    for (int i = 0; i < steps; i++) {
+      IntegerFormula successor = imgr.makeVariable("x" + (i + 1));
+      IntegerFormula update =
+          imgr.add(fmgr.callUF(next, x), fmgr.callUF(read, x, imgr.makeNumber(i)));
+      unrollingBuilder.add(
+          bmgr.and(
+              imgr.equal(successor, update),
+              imgr.greaterOrEquals(
+                  fmgr.callUF(read, successor, imgr.makeNumber(0)), imgr.makeNumber(0))));
+      x = successor;
+    }
+    unrolling = unrollingBuilder.build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public void ufElimination(Blackhole blackhole) {
+    UfElimination ufElimination = SolverUtils.ufElimination(fmgr);
+    UfElimination.Result result = UfElimination.Result.empty(fmgr);
+    for (BooleanFormula step : unrolling) {
+      result = ufElimination.eliminateUfs(step, result);
+      blackhole.consume(result.getFormula());
+      blackhole.consume(result.getConstraints());
+    }
+  }
+
+  @Benchmark
+  public void incrementalUfElimination(Blackhole blackhole) {
+    IncrementalUfElimination ufElimination = SolverUtils.incrementalUfElimination(fmgr);
+    for (BooleanFormula step : unrolling) {
+      IncrementalUfElimination.Result result = ufElimination.eliminateUfs(step);
+      blackhole.consume(result.getFormula());
+      blackhole.consume(result.getConstraints());
+    }
+  }
+}
@@ -0,0 +1,142 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.IntegerFormulaManager;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.solvers.z3.Z3FormulaArena;
+import org.sosy_lab.java_smt.solvers.z3.Z3SolverContext;
+
+/**
+ * Compares the memory modes of Z3 on the throughput of building formulas: each invocation builds a
+ * chain of fresh terms, as a client does for each query, and then discards them.
+ *
+ * <ul>
+ *   <li>{@code NONE}: the ASTs are never released (the default).
+ *   <li>{@code PHANTOM_REFERENCES}: each formula is tracked by a PhantomReference and its AST is
+ *       released after the formula was garbage collected.
+ *   <li>{@code ARENA}: the formulas are built inside an explicit arena, which releases all ASTs at
+ *       once.
+ *   <li>{@code PUSH_LEVELS}: the formulas are built on a push level of a prover, and released with
+ *       the option {@code solver.z3.releaseFormulasOnPop} at the matching pop.
+ * </ul>
+ *
+ * <p>Usage: {@code ant run-benchmarks -Dbenchmark.args=Z3MemoryBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Z3MemoryBenchmark {
+
+  public enum MemoryMode {
+    NONE,
+    PHANTOM_REFERENCES,
+    ARENA,
+    PUSH_LEVELS
+  }
+
+  @Param({"NONE", "PHANTOM_REFERENCES", "ARENA", "PUSH_LEVELS"})
+  public MemoryMode mode;
+
+  /** Number of terms built per invocation. */
+  @Param({"1000", "10000"})
+  public int size;
+
+  private SolverContext context;
+  private BooleanFormulaManager bmgr;
+  private IntegerFormulaManager imgr;
+  private ProverEnvironment prover;
+  private int round = 0;
+
+  @Setup(Level.Trial)
+  public void setUp() throws InvalidConfigurationException {
+    context =
+        SolverContextFactory.createSolverContext(
+            Configuration.builder()
+                .setOption(
+                    "solver.z3.usePhantomReferences",
+                    Boolean.toString(mode == MemoryMode.PHANTOM_REFERENCES))
+                .setOption(
+                    "solver.z3.releaseFormulasOnPop",
+                    Boolean.toString(mode == MemoryMode.PUSH_LEVELS))
+                .build(),
+            LogManager.createNullLogManager(),
+            ShutdownNotifier.createDummy(),
+            Solvers.Z3);
+    bmgr = context.getFormulaManager().getBooleanFormulaManager();
+    imgr = context.getFormulaManager().getIntegerFormulaManager();
+    prover = context.newProverEnvironment();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    prover.close();
+    context.close();
+  }
+
+  @Benchmark
+  public void buildFormulas(Blackhole blackhole) throws InterruptedException {
+    switch (mode) {
+      case ARENA:
+        try (Z3FormulaArena arena = ((Z3SolverContext) context).openFormulaArena()) {
+          blackhole.consume(buildChain());
+          blackhole.consume(arena.size());
+        }
+        break;
+      case PUSH_LEVELS:
+        prover.push();
+        blackhole.consume(buildChain());
+        prover.pop();
+        break;
+      default:
+        blackhole.consume(buildChain());
+    }
+  }
+
+  /** Build a chain of fresh terms, such that Z3 cannot reuse the terms of previous invocations. */
+  private BooleanFormula buildChain() {
+    String prefix = "r" + round++ + "_";
+    IntegerFormula sum = imgr.makeVariable(prefix + "0");
+    BooleanFormula result = bmgr.makeTrue();
+    for (int i = 1; i < size; i++) {
+      IntegerFormula x = imgr.makeVariable(prefix + i);
+      sum = imgr.add(sum, x);
+      result = bmgr.and(result, imgr.greaterOrEquals(sum, x));
+    }
+    return result;
+  }
+}
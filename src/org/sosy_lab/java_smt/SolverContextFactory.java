@@ -26,6 +26,7 @@ import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.java_smt.api.FloatingPointRoundingMode;
 import org.sosy_lab.java_smt.api.SolverContext;
 import org.sosy_lab.java_smt.basicimpl.AbstractNumeralFormulaManager.NonLinearArithmetic;
+import org.sosy_lab.java_smt.delegate.caching.CachingSolverContext;
 import org.sosy_lab.java_smt.delegate.logging.LoggingSolverContext;
 import org.sosy_lab.java_smt.delegate.statistics.StatisticsSolverContext;
 import org.sosy_lab.java_smt.delegate.synchronize.SynchronizedSolverContext;
@@ -92,6 +93,12 @@ public class SolverContextFactory {
       description = "Counts all operations and interactions towards the SMT solver.")
   private boolean collectStatistics = false;
 
+  @Option(
+      secure = true,
+      description =
+          "Cache the results of satisfiability checks and answer repeated queries from the cache.")
+  private boolean cacheQueries = false;
+
   @Option(secure = true, description = "Default rounding mode for floating point operations.")
   private FloatingPointRoundingMode floatingPointRoundingMode =
       FloatingPointRoundingMode.NEAREST_TIES_TO_EVEN;
@@ -212,19 +219,71 @@ public class SolverContextFactory {
           e);
     }
 
+    boolean releasesFormulasOnPop =
+        context instanceof Z3SolverContext && ((Z3SolverContext) context).releasesFormulasOnPop();
+
     if (useLogger) {
       context = new LoggingSolverContext(logger, context);
     }
+    if (cacheQueries) {
+      checkFormulasAreKept(context, releasesFormulasOnPop, "solver.cacheQueries");
+      context = new CachingSolverContext(config, logger, context);
+    }
     if (synchronize) {
       context = new SynchronizedSolverContext(config, logger, shutdownNotifier, context);
     }
     if (collectStatistics) {
       // statistics need to be the most outer wrapping layer.
-      context = new StatisticsSolverContext(context);
+      StatisticsSolverContext statisticsContext =
+          new StatisticsSolverContext(config, logger, context);
+      if (statisticsContext.keepsSlowQueries()) {
+        checkFormulasAreKept(context, releasesFormulasOnPop, "solver.statistics.slowQueries");
+      }
+      context = statisticsContext;
     }
     return context;
   }
 
+  /**
+   * The query cache and the log of slow queries keep formulas across calls, while Z3 can release
+   * the formulas of a push level on pop, after which their terms are reused for new formulas.
+   */
+  private static void checkFormulasAreKept(
+      SolverContext pContext, boolean pReleasesFormulasOnPop, String pOption)
+      throws InvalidConfigurationException {
+    if (pReleasesFormulasOnPop) {
+      pContext.close();
+      throw new InvalidConfigurationException(
+          String.format(
+              "Option %s cannot be combined with solver.z3.releaseFormulasOnPop, because it keeps"
+                  + " formulas after the pop that releases them.",
+              pOption));
+    }
+  }
+
+  /**
+   * Create a pool of contexts with the solver chosen according to the supplied configuration.
+   *
+   * @see #createContextPool(Solvers, int, int)
+   */
+  public SolverContextPool createContextPool(int maxSize, int initialSize)
+      throws InvalidConfigurationException {
+    return createContextPool(solver, maxSize, initialSize);
+  }
+
+  /**
+   * Create a pool of contexts with the solver name supplied. Each context of the pool is created
+   * like with {@link #generateContext(Solvers)}.
+   *
+   * @param maxSize the maximum number of contexts in the pool, or 0 for an unbounded pool.
+   * @param initialSize the number of contexts that are created in advance.
+   */
+  public SolverContextPool createContextPool(Solvers solverToCreate, int maxSize, int initialSize)
+      throws InvalidConfigurationException {
+    checkNotNull(solverToCreate);
+    return new SolverContextPool(() -> generateContext(solverToCreate), maxSize, initialSize);
+  }
+
   private SolverContext generateContext0(Solvers solverToCreate)
       throws InvalidConfigurationException {
     switch (solverToCreate) {
@@ -0,0 +1,267 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+
+/**
+ * A bounded pool of solver contexts that can be leased by several threads. Creating a context can
+ * be expensive, e.g., for loading the native library and setting up the solver, thus contexts are
+ * reused after their lease is closed.
+ *
+ * <p>A lease gives exclusive access to one context. Provers that are requested via {@link
+ * ContextLease#getProver} are also kept in the pool: they are reset to level 0 when the lease is
+ * closed and handed out again for the next lease with the same options. All other provers of the
+ * context must be closed by the user before closing the lease.
+ *
+ * <p>Pools can be created with {@link SolverContextFactory#createContextPool}.
+ */
+public final class SolverContextPool implements AutoCloseable {
+
+  /** Creates the contexts of the pool. */
+  @FunctionalInterface
+  public interface ContextCreator {
+    SolverContext create() throws InvalidConfigurationException;
+  }
+
+  private final ContextCreator creator;
+
+  /** Maximum number of contexts, 0 for unbounded. */
+  private final int maxSize;
+
+  /** All fields below are guarded by {@code this}. */
+  private final Deque<PooledContext> idleContexts = new ArrayDeque<>();
+
+  private int numContexts = 0;
+  private boolean closed = false;
+
+  private long leases = 0;
+  private long waitingLeases = 0;
+  private long totalWaitNanos = 0;
+  private long maxWaitNanos = 0;
+  private long reusedProvers = 0;
+  private long discardedProvers = 0;
+
+  /**
+   * Create a new pool.
+   *
+   * @param pCreator creates a new context whenever no idle context is available.
+   * @param pMaxSize the maximum number of contexts, further leases wait for a returned context. Use
+   *     0 for an unbounded pool.
+   * @param pInitialSize the number of contexts that are created immediately.
+   */
+  public SolverContextPool(ContextCreator pCreator, int pMaxSize, int pInitialSize)
+      throws InvalidConfigurationException {
+    creator = checkNotNull(pCreator);
+    checkArgument(pMaxSize >= 0, "maximum size must not be negative");
+    checkArgument(
+        pInitialSize >= 0 && (pMaxSize == 0 || pInitialSize <= pMaxSize),
+        "initial size must be between 0 and the maximum size");
+    maxSize = pMaxSize;
+    try {
+      for (int i = 0; i < pInitialSize; i++) {
+        idleContexts.push(new PooledContext(creator.create()));
+        numContexts++;
+      }
+    } catch (InvalidConfigurationException | RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * Lease a context, which is either an idle context of the pool or a new one. If the pool is
+   * exhausted, this method waits until another lease is closed.
+   */
+  public ContextLease lease() throws InterruptedException, InvalidConfigurationException {
+    long start = System.nanoTime();
+    PooledContext pooled = null;
+    synchronized (this) {
+      checkState(!closed, "pool is closed");
+      boolean waited = false;
+      while (idleContexts.isEmpty() && maxSize > 0 && numContexts >= maxSize) {
+        waited = true;
+        wait();
+        checkState(!closed, "pool is closed");
+      }
+      if (!idleContexts.isEmpty()) {
+        pooled = idleContexts.pop();
+      } else {
+        numContexts++; // reserve the slot, the context is created outside the lock
+      }
+      long waitNanos = System.nanoTime() - start;
+      leases++;
+      if (waited) {
+        waitingLeases++;
+      }
+      totalWaitNanos += waitNanos;
+      maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+    }
+
+    if (pooled == null) {
+      try {
+        pooled = new PooledContext(creator.create());
+      } catch (InvalidConfigurationException | RuntimeException e) {
+        synchronized (this) {
+          numContexts--;
+          notifyAll();
+        }
+        throw e;
+      }
+    }
+    return new ContextLease(pooled);
+  }
+
+  private synchronized void release(PooledContext pooled) {
+    if (closed) {
+      pooled.close();
+      numContexts--;
+    } else {
+      idleContexts.push(pooled);
+    }
+    notifyAll();
+  }
+
+  /**
+   * Returns statistics about the pool: the number of leases and contexts, the time that leases
+   * waited for an idle context, and how often provers were reused.
+   */
+  public synchronized ImmutableMap<String, String> getStatistics() {
+    return ImmutableMap.<String, String>builder()
+        .put("contexts", Integer.toString(numContexts))
+        .put("idle contexts", Integer.toString(idleContexts.size()))
+        .put("leases", Long.toString(leases))
+        .put("waiting leases", Long.toString(waitingLeases))
+        .put("total wait time (ms)", Long.toString(TimeUnit.NANOSECONDS.toMillis(totalWaitNanos)))
+        .put("max wait time (ms)", Long.toString(TimeUnit.NANOSECONDS.toMillis(maxWaitNanos)))
+        .put("reused provers", Long.toString(reusedProvers))
+        .put("discarded provers", Long.toString(discardedProvers))
+        .buildOrThrow();
+  }
+
+  /**
+   * Close all idle contexts. Leased contexts are closed when their lease is closed, and waiting
+   * leases fail.
+   */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    for (PooledContext pooled : idleContexts) {
+      pooled.close();
+      numContexts--;
+    }
+    idleContexts.clear();
+    notifyAll();
+  }
+
+  /** A context of the pool together with its reusable provers. */
+  private final class PooledContext {
+
+    private final SolverContext context;
+    private final Map<Set<ProverOptions>, ProverEnvironment> provers = new HashMap<>();
+
+    PooledContext(SolverContext pContext) {
+      context = pContext;
+    }
+
+    /** Reset the given provers to level 0, and close the ones that can not be reset. */
+    void resetProvers(Set<Set<ProverOptions>> keys) {
+      for (Set<ProverOptions> key : keys) {
+        ProverEnvironment prover = provers.get(key);
+        // the base level is pushed when the prover is handed out,
+        // without it we can not remove the formulas that were added afterwards.
+        if (prover.size() == 0) {
+          prover.close();
+          provers.remove(key);
+          synchronized (SolverContextPool.this) {
+            discardedProvers++;
+          }
+        } else {
+          while (prover.size() > 0) {
+            prover.pop();
+          }
+        }
+      }
+    }
+
+    void close() {
+      provers.values().forEach(ProverEnvironment::close);
+      provers.clear();
+      context.close();
+    }
+  }
+
+  /** Exclusive access to a context of the pool until this lease is closed. */
+  public final class ContextLease implements AutoCloseable {
+
+    private final PooledContext pooled;
+    private final Set<Set<ProverOptions>> usedProvers = new HashSet<>();
+    private boolean released = false;
+
+    private ContextLease(PooledContext pPooled) {
+      pooled = pPooled;
+    }
+
+    public SolverContext getContext() {
+      checkState(!released, "lease is closed");
+      return pooled.context;
+    }
+
+    /**
+     * Returns a prover with the given options. The prover is owned by the pool and must not be
+     * closed by the user. Repeated calls with the same options return the same prover during one
+     * lease.
+     */
+    public ProverEnvironment getProver(ProverOptions... options) throws InterruptedException {
+      checkState(!released, "lease is closed");
+      Set<ProverOptions> key = EnumSet.noneOf(ProverOptions.class);
+      key.addAll(Arrays.asList(options));
+      ProverEnvironment prover = pooled.provers.get(key);
+      if (prover == null) {
+        prover = pooled.context.newProverEnvironment(options);
+        pooled.provers.put(key, prover);
+      } else if (!usedProvers.contains(key)) {
+        synchronized (SolverContextPool.this) {
+          reusedProvers++;
+        }
+      }
+      if (usedProvers.add(key)) {
+        prover.push(); // base level, which is removed when the lease is closed
+      }
+      return prover;
+    }
+
+    /** Reset the provers of this lease and return the context to the pool. */
+    @Override
+    public void close() {
+      if (!released) {
+        released = true;
+        pooled.resetProvers(usedProvers);
+        release(pooled);
+      }
+    }
+  }
+}
@@ -20,24 +20,73 @@
 
 package org.sosy_lab.java_smt.api;
 
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Connection between a {@link BooleanTheorySolver} and the solver that calls it.
+ *
+ * <p>Conflicts and lemmas that are reported while a callback is running are collected by the
+ * backend and submitted to the solver after the callback returns, identical ones only once. The
+ * backend may merge consequences with the same fixed expressions into one.
+ */
 public interface Backend {
 
-  void addExpressionToWatch(BooleanFormula toAdd);
+  /**
+   * Register the given expression for callbacks and return its dense id. Ids are assigned in
+   * registration order, starting with 0. Registering the same expression twice returns the same id.
+   */
+  int addExpressionToWatch(BooleanFormula toAdd);
+
+  /** Return the expression that was registered with the given id. */
+  BooleanFormula getWatchedExpression(int id);
+
+  /** Return the number of registered expressions, i.e., the upper bound for all ids. */
+  int getNumberOfWatchedExpressions();
+
+  /** Return the (cached) formula for the constant TRUE or FALSE. */
+  BooleanFormula getBooleanConstant(boolean value);
 
   void addConflict(BooleanFormula[] fixed);
 
+  /**
+   * Report a conflict over the first {@code count} watched ids of the given array. The array is
+   * copied, thus the caller can reuse it.
+   */
+  void addConflict(int[] fixedIds, int count);
+
   void addConflictEq(
       BooleanFormula[] fixed, BooleanFormula[] lhs,
       BooleanFormula[] rhs);
 
   void addTheoryLemma(BooleanFormula[] fixed, BooleanFormula conflict);
 
+  /**
+   * Propagate the consequence from the first {@code count} watched ids of the given array. The
+   * array is copied, thus the caller can reuse it.
+   */
+  void addTheoryLemma(int[] fixedIds, int count, BooleanFormula consequence);
+
   void addLearningClause(
       BooleanFormula[] fixed, BooleanFormula[] lhs,
       BooleanFormula[] rhs, BooleanFormula constraint);
 
+  /**
+   * Ask the solver to branch on the given watched expression next, with the given phase. This is
+   * only allowed during a callback, typically from {@link BooleanTheorySolver#decide}.
+   *
+   * @return whether the solver accepted the request, i.e., the expression is not yet assigned.
+   */
+  boolean nextSplit(int id, boolean phase);
+
+  /** See {@link #nextSplit(int, boolean)}. The expression does not need to be watched. */
+  boolean nextSplit(BooleanFormula expr, boolean phase);
+
+  /** Counters about the interaction with the solver, e.g., the number of native calls. */
+  ImmutableMap<String, String> getStatistics();
+
   void notifyOnUserFunction();
   void notifyOnVarAssign();
   void notifyOnEquality();
   void notifyOnFullAssign();
+  void notifyOnDecide();
 }
@@ -20,9 +20,14 @@
 
 package org.sosy_lab.java_smt.api;
 
+import com.google.common.collect.ImmutableMap;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.propagators.Trail;
+
 public abstract class BooleanTheorySolver {
 
   private Backend backend;
+  private final Trail trail = new Trail();
 
   protected BooleanTheorySolver() {
     backend = null;
@@ -32,27 +37,125 @@ public abstract class BooleanTheorySolver {
     this.backend = backend;
   }
 
+  /**
+   * Get the trail of this theory solver. Data structures from {@link
+   * org.sosy_lab.java_smt.api.propagators} that are created on this trail are restored
+   * automatically when the solver backtracks.
+   */
+  protected final Trail getTrail() {
+    return trail;
+  }
+
+  /** Called by the backend for each push of the solver. Forwards to {@link #push()}. */
+  public final void handlePush() {
+    trail.push();
+    push();
+  }
+
+  /**
+   * Called by the backend for each pop of the solver. Reverts the trail, then forwards to {@link
+   * #pop(int)}.
+   */
+  public final void handlePop(int num) {
+    trail.pop(num);
+    pop(num);
+  }
+
   public abstract void push();
   public abstract void pop(int num);
   public abstract void finish();
   public abstract void equality(BooleanFormula x, BooleanFormula y);
-  //currently not supported
-  //public abstract BooleanTheorySolver fresh(Backend newBackend);
   public abstract void created(BooleanFormula e);
   public abstract void fixed(BooleanFormula var, BooleanFormula val);
 
+  /**
+   * Create a new instance of this theory solver for a sub-solver, e.g., for a worker thread of
+   * Z3's parallel mode. The new instance gets its own backend and must not share mutable state
+   * with this instance, as both are called concurrently. Watched expressions keep their ids and do
+   * not need to be registered again. The new instance must not create formulas itself, e.g., with
+   * a formula manager, because the solver context is not thread-safe. It should only use the
+   * formulas that it gets from its backend.
+   *
+   * <p>The default implementation returns null, i.e., copying is not supported and all sub-solvers
+   * call this instance. Theory solvers that are used with parallel solving should override it.
+   */
+  public @Nullable BooleanTheorySolver fresh() {
+    return null;
+  }
+
+  /**
+   * Allocation-free variant of {@link #fixed(BooleanFormula, BooleanFormula)} for watched
+   * expressions. The id is the one returned by {@link #addExpressionToWatch}.
+   *
+   * <p>The default implementation looks up the watched expression and forwards to {@link
+   * #fixed(BooleanFormula, BooleanFormula)}. Theory solvers that handle many assignments should
+   * override this method and only use {@link #getWatchedExpression} when a formula is required.
+   */
+  public void fixed(int id, boolean value) {
+    fixed(backend.getWatchedExpression(id), backend.getBooleanConstant(value));
+  }
+
+  /**
+   * Allocation-free variant of {@link #equality(BooleanFormula, BooleanFormula)} for watched
+   * expressions, see {@link #fixed(int, boolean)}.
+   */
+  public void equality(int x, int y) {
+    equality(backend.getWatchedExpression(x), backend.getWatchedExpression(y));
+  }
+
   public final void notifyOnUserFunction() { backend.notifyOnUserFunction(); }
   public final void notifyOnVarAssign() { backend.notifyOnVarAssign(); }
   public final void notifyOnEquality() { backend.notifyOnEquality();}
   public final void notifyOnFullAssign() { backend.notifyOnFullAssign(); }
+  public final void notifyOnDecide() { backend.notifyOnDecide(); }
+
+  /**
+   * Callback before the solver branches on the watched expression with the given id and phase
+   * (only if {@link #notifyOnDecide()} was called). The theory solver can override the decision
+   * by calling {@link #nextSplit} within this callback. The default implementation keeps the
+   * decision of the solver.
+   */
+  public void decide(int id, boolean phase) {}
 
-  public final void addExpressionToWatch(BooleanFormula toAdd) {
-    backend.addExpressionToWatch(toAdd);
+  /** See {@link Backend#nextSplit(int, boolean)}. */
+  public final boolean nextSplit(int id, boolean phase) {
+    return backend.nextSplit(id, phase);
+  }
+
+  /** See {@link Backend#nextSplit(BooleanFormula, boolean)}. */
+  public final boolean nextSplit(BooleanFormula expr, boolean phase) {
+    return backend.nextSplit(expr, phase);
+  }
+
+  /**
+   * Register an expression for callbacks.
+   *
+   * @return the dense id under which the expression is reported to {@link #fixed(int, boolean)}
+   *     and {@link #equality(int, int)}.
+   */
+  public final int addExpressionToWatch(BooleanFormula toAdd) {
+    return backend.addExpressionToWatch(toAdd);
+  }
+
+  /** Return the watched expression for an id returned by {@link #addExpressionToWatch}. */
+  public final BooleanFormula getWatchedExpression(int id) {
+    return backend.getWatchedExpression(id);
+  }
+
+  /** Return the number of watched expressions. All ids are smaller than this number. */
+  public final int getNumberOfWatchedExpressions() {
+    return backend.getNumberOfWatchedExpressions();
   }
 
   public final void addConflict(BooleanFormula[] fixed) {
     backend.addConflict(fixed);
   }
+
+  /** See {@link Backend#addConflict(int[], int)}. */
+  public final void addConflict(int[] fixedIds, int count) {
+    backend.addConflict(fixedIds, count);
+  }
+
   public final void addConflictEq(BooleanFormula[] fixed, BooleanFormula[] lhs,
                                   BooleanFormula[] rhs) {
     backend.addConflictEq(fixed, lhs, rhs);
@@ -62,10 +165,20 @@ public abstract class BooleanTheorySolver {
     backend.addTheoryLemma(fixed, conflict);
   }
 
+  /** See {@link Backend#addTheoryLemma(int[], int, BooleanFormula)}. */
+  public final void addTheoryLemma(int[] fixedIds, int count, BooleanFormula consequence) {
+    backend.addTheoryLemma(fixedIds, count, consequence);
+  }
+
   public final void addLearningClause(BooleanFormula[] fixed, BooleanFormula[] lhs,
                                       BooleanFormula[] rhs, BooleanFormula constraint) {
     backend.addLearningClause(fixed, lhs, rhs, constraint);
   }
 
+  /** Counters about the interaction between this theory solver and the backend. */
+  public final ImmutableMap<String, String> getBackendStatistics() {
+    return backend.getStatistics();
+  }
+
 
 }
@@ -8,7 +8,11 @@
 
 package org.sosy_lab.java_smt.api;
 
+import com.google.common.collect.ImmutableMap;
 import java.math.BigInteger;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.rationals.Rational;
 import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
@@ -106,6 +110,22 @@ public interface Evaluator extends AutoCloseable {
    */
   @Nullable String evaluate(EnumerationFormula formula);
 
+  /**
+   * Evaluate several formulas like {@link #evaluate(Formula)}.
+   *
+   * @return the values of the given formulas, formulas without a value are not contained.
+   */
+  default ImmutableMap<Formula, Object> evaluateAll(Collection<? extends Formula> formulas) {
+    Map<Formula, Object> values = new LinkedHashMap<>();
+    for (Formula formula : formulas) {
+      Object value = evaluate(formula);
+      if (value != null) {
+        values.put(formula, value);
+      }
+    }
+    return ImmutableMap.copyOf(values);
+  }
+
   /**
    * Free resources associated with this evaluator (existing {@link Formula} instances stay valid,
    * but {@link #evaluate(Formula)} etc. must not be called again).
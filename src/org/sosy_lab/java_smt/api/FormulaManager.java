@@ -256,11 +256,36 @@ public interface FormulaManager {
    */
   <T extends Formula> T substitute(T f, Map<? extends Formula, ? extends Formula> fromToMapping);
 
+  /**
+   * Create a session that applies the transformation of the given visitor to many formulas, see
+   * {@link #transformRecursively(Formula, FormulaTransformationVisitor)}. The session keeps the
+   * transformed sub-formulas across calls, which is useful if the formulas share many parts.
+   *
+   * @param pFormulaVisitor Transformation described by the user, it must not have a state that
+   *     influences the result.
+   * @param maxCacheSize Maximal number of sub-formulas whose results are kept between calls.
+   */
+  TransformationSession newTransformationSession(
+      FormulaTransformationVisitor pFormulaVisitor, int maxCacheSize);
+
+  /**
+   * Create a session that applies the same substitution to many formulas, see {@link
+   * #substitute(Formula, Map)}. The session keeps the transformed sub-formulas across calls, which
+   * is useful if the formulas share many parts.
+   *
+   * @param fromToMapping Mapping of old and new formula parts, it must not be changed while the
+   *     session is used.
+   * @param maxCacheSize Maximal number of sub-formulas whose results are kept between calls.
+   */
+  TransformationSession newSubstitutionSession(
+      Map<? extends Formula, ? extends Formula> fromToMapping, int maxCacheSize);
+
   /**
    * Translates the formula from another context into the context represented by {@code this}.
-   * Default implementation relies on string serialization ({@link #dumpFormula(BooleanFormula)} and
-   * {@link #parse(String)}), but each solver may implement more efficient translation between its
-   * own contexts.
+   * Default implementation rebuilds the formula via the visitor of the other context and the API of
+   * this context, and falls back to string serialization ({@link #dumpFormula(BooleanFormula)} and
+   * {@link #parse(String)}) for operations that the API does not cover. Each solver may implement
+   * more efficient translation between its own contexts.
    *
    * @param formula Formula belonging to {@code otherContext}.
    * @param otherManager Formula manager belonging to the other context.
@@ -14,6 +14,7 @@ import com.google.common.collect.ImmutableList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 import org.sosy_lab.java_smt.api.Model.ValueAssignment;
 
 /**
@@ -58,6 +59,27 @@ public interface Model extends Evaluator, Iterable<ValueAssignment>, AutoCloseab
   /** Build a list of assignments that stays valid after closing the model. */
   ImmutableList<ValueAssignment> asList();
 
+  /**
+   * Stream over all values present in the model, containing the same assignments as {@link
+   * #asList()}. Some solvers compute the assignments lazily while the stream is consumed, which
+   * avoids materializing large models at once. The stream must be consumed before the model is
+   * closed, and it should be closed if it is not consumed completely, e.g., with
+   * try-with-resources.
+   */
+  default Stream<ValueAssignment> stream() {
+    return asList().stream();
+  }
+
+  /**
+   * Stream over all values in the model whose {@linkplain ValueAssignment#getName() name} starts
+   * with the given prefix. Solvers that compute the assignments lazily skip all other symbols
+   * without computing their values. The same restrictions as for {@link #stream()} apply.
+   */
+  default Stream<ValueAssignment> stream(String namePrefix) {
+    Preconditions.checkNotNull(namePrefix);
+    return stream().filter(assignment -> assignment.getName().startsWith(namePrefix));
+  }
+
   /**
    * Pretty-printing of the model values.
    *
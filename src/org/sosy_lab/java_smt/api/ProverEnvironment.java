@@ -22,5 +22,13 @@ import org.sosy_lab.common.ShutdownNotifier;
  * respond in a timely manner (or at all) to shut down or interrupt requests.
  */
 public interface ProverEnvironment extends BasicProverEnvironment<Void> {
+
+  /**
+   * Register a theory solver that is called during satisfiability checks. At most one theory solver
+   * can be registered per prover.
+   *
+   * @return whether the theory solver was registered, i.e., {@code false} if the solver does not
+   *     support theory solvers or a theory solver was already registered.
+   */
   default boolean registerTheorySolver(BooleanTheorySolver s) { return false; }
 }
@@ -38,6 +38,34 @@ public interface SolverContext extends AutoCloseable {
      */
     GENERATE_ALL_SAT,
 
+    /**
+     * Whether {@link BasicProverEnvironment#allSat} should enumerate models with a built-in {@link
+     * BooleanTheorySolver} that rejects each model with a conflict, instead of adding one blocking
+     * clause per model to the assertion stack. The callback is then called from within the solver.
+     *
+     * <p>This option requires {@link #GENERATE_ALL_SAT}. It has no effect for solvers without
+     * support for {@link ProverEnvironment#registerTheorySolver}, or if the user already registered
+     * a theory solver on the prover. Otherwise, no further theory solver can be registered. In
+     * these cases, ALLSAT falls back to blocking clauses. This also holds for CVC5 without {@link
+     * #GENERATE_MODELS}, because CVC5 checks theory solvers only on models. With {@link
+     * #GENERATE_MODELS}, CVC5 asserts each conflict like a blocking clause.
+     *
+     * <p>The important predicates of all ALLSAT queries stay watched by the solver until the prover
+     * is closed, thus many queries with distinct predicates should use separate provers.
+     */
+    GENERATE_ALL_SAT_WITH_THEORY_SOLVER,
+
+    /**
+     * Whether {@link BasicProverEnvironment#allSat} should shrink each model to a smaller cube over
+     * the important predicates before blocking it, such that one iteration covers all values of the
+     * dropped predicates. The callback then receives cubes that leave out some predicates.
+     *
+     * <p>This option requires {@link #GENERATE_ALL_SAT}. It has no effect for solvers that do not
+     * provide access to the asserted formulas, and {@link #GENERATE_ALL_SAT_WITH_THEORY_SOLVER}
+     * takes precedence.
+     */
+    GENERATE_ALL_SAT_WITH_MINIMIZED_MODELS,
+
     /**
      * Whether the solver should generate an unsat core for unsatisfiable formulas. Unsat core is
      * generated over all formulas asserted with {@link
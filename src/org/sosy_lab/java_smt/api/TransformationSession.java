@@ -0,0 +1,40 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.api;
+
+/**
+ * A transformation that is applied to many formulas, e.g., the same renaming of variables to all
+ * formulas of a program. The results for sub-formulas are cached across all calls of {@link
+ * #transform(Formula)}, such that sub-formulas that are shared between the transformed formulas
+ * are only transformed once.
+ *
+ * <p>The number of cached results is bounded, the least recently used ones are removed first. The
+ * transformation must yield the same result whenever it is applied to the same formula, otherwise
+ * the results of the session are undefined.
+ *
+ * <p>A session is not thread-safe, it can only be used by one thread at a time.
+ *
+ * @see FormulaManager#newTransformationSession
+ * @see FormulaManager#newSubstitutionSession
+ */
+public interface TransformationSession {
+
+  /**
+   * Apply the transformation to the formula, using and extending the results of previous calls.
+   *
+   * @see FormulaManager#transformRecursively
+   */
+  <T extends Formula> T transform(T f);
+
+  /** Return the number of cached results for sub-formulas. */
+  int getCacheSize();
+
+  /** Remove all cached results, e.g., to free memory. */
+  void clearCache();
+}
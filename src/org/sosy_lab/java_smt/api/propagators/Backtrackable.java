@@ -0,0 +1,16 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.api.propagators;
+
+/** A data structure whose changes are recorded on a {@link Trail}. */
+abstract class Backtrackable {
+
+  /** Revert one change that was recorded with {@link Trail#record}. */
+  abstract void undo(int key, long oldValue);
+}
@@ -0,0 +1,84 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.api.propagators;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A set of non-negative ints, e.g., the ids of all expressions that are assigned to true. Changes
+ * after a {@link Trail#push} are reverted by the matching {@link Trail#pop}.
+ */
+public final class BacktrackableBitSet extends Backtrackable {
+
+  private final Trail trail;
+  private long[] words = new long[1];
+  private int cardinality = 0;
+
+  public BacktrackableBitSet(Trail pTrail) {
+    trail = pTrail;
+  }
+
+  public boolean get(int index) {
+    int word = index >>> 6;
+    return word < words.length && (words[word] & (1L << index)) != 0;
+  }
+
+  /** Add the index to the set and return whether it was not yet contained. */
+  public boolean set(int index) {
+    if (get(index)) {
+      return false;
+    }
+    trail.record(this, index, 0);
+    flip(index);
+    return true;
+  }
+
+  /** Remove the index from the set and return whether it was contained. */
+  public boolean clear(int index) {
+    if (!get(index)) {
+      return false;
+    }
+    trail.record(this, index, 1);
+    flip(index);
+    return true;
+  }
+
+  public void set(int index, boolean value) {
+    if (value) {
+      set(index);
+    } else {
+      clear(index);
+    }
+  }
+
+  /** Get the number of elements in the set. */
+  public int cardinality() {
+    return cardinality;
+  }
+
+  /** Create an independent copy of the current content, e.g., for storing a model. */
+  public BitSet snapshot() {
+    return BitSet.valueOf(words);
+  }
+
+  private void flip(int index) {
+    int word = index >>> 6;
+    if (word >= words.length) {
+      words = Arrays.copyOf(words, Math.max(word + 1, 2 * words.length));
+    }
+    words[word] ^= 1L << index;
+    cardinality += (words[word] & (1L << index)) != 0 ? 1 : -1;
+  }
+
+  @Override
+  void undo(int key, long oldValue) {
+    flip(key);
+  }
+}
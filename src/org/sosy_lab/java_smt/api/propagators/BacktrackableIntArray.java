@@ -0,0 +1,58 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.api.propagators;
+
+import java.util.Arrays;
+
+/**
+ * A map from non-negative ints (e.g., watched-expression ids) to ints, backed by an array that
+ * grows on demand. Unset indices have a default value. Changes after a {@link Trail#push} are
+ * reverted by the matching {@link Trail#pop}.
+ */
+public final class BacktrackableIntArray extends Backtrackable {
+
+  private final Trail trail;
+  private final int defaultValue;
+  private int[] values;
+
+  public BacktrackableIntArray(Trail pTrail, int pDefaultValue) {
+    trail = pTrail;
+    defaultValue = pDefaultValue;
+    values = new int[64];
+    Arrays.fill(values, defaultValue);
+  }
+
+  public int get(int index) {
+    return index < values.length ? values[index] : defaultValue;
+  }
+
+  /** Set the value and return the previous one. */
+  public int set(int index, int value) {
+    int old = get(index);
+    if (old != value) {
+      if (index >= values.length) {
+        grow(index);
+      }
+      trail.record(this, index, old);
+      values[index] = value;
+    }
+    return old;
+  }
+
+  private void grow(int index) {
+    int oldLength = values.length;
+    values = Arrays.copyOf(values, Math.max(index + 1, 2 * oldLength));
+    Arrays.fill(values, oldLength, values.length, defaultValue);
+  }
+
+  @Override
+  void undo(int key, long oldValue) {
+    values[key] = (int) oldValue;
+  }
+}
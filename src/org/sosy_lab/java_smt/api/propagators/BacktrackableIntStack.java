@@ -0,0 +1,67 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.api.propagators;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+import java.util.Arrays;
+
+/**
+ * A stack of ints, e.g., the ids of all assigned expressions in assignment order. Elements added
+ * after a {@link Trail#push} are removed by the matching {@link Trail#pop}.
+ */
+public final class BacktrackableIntStack extends Backtrackable {
+
+  private final Trail trail;
+  private int[] elements = new int[64];
+  private int size = 0;
+
+  public BacktrackableIntStack(Trail pTrail) {
+    trail = pTrail;
+  }
+
+  public void add(int element) {
+    if (size == elements.length) {
+      elements = Arrays.copyOf(elements, 2 * size);
+    }
+    trail.record(this, 0, size);
+    elements[size++] = element;
+  }
+
+  public int get(int index) {
+    checkElementIndex(index, size);
+    return elements[index];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Get the internal array of elements. Only the first {@link #size()} elements are valid, and the
+   * array must not be modified. This allows passing the stack to methods like {@link
+   * org.sosy_lab.java_smt.api.BooleanTheorySolver#addConflict(int[], int)} without copying.
+   */
+  public int[] elements() {
+    return elements;
+  }
+
+  public int[] toArray() {
+    return Arrays.copyOf(elements, size);
+  }
+
+  @Override
+  void undo(int key, long oldValue) {
+    size = (int) oldValue;
+  }
+}
@@ -0,0 +1,77 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.api.propagators;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+
+/**
+ * An undo log for backtrackable data structures. Each change of a registered structure is recorded
+ * as (owner, key, old value). {@link #pop} reverts all changes since the matching {@link #push} in
+ * reverse order, which takes amortized constant time per change and does not box any value.
+ *
+ * <p>Changes on level 0 are never reverted and thus not recorded.
+ */
+public final class Trail {
+
+  private Backtrackable[] owners = new Backtrackable[64];
+  private int[] keys = new int[64];
+  private long[] oldValues = new long[64];
+  private int size = 0;
+
+  /** The size of the undo log at each backtracking point. */
+  private int[] levels = new int[16];
+
+  private int level = 0;
+
+  /** Create a new backtracking point. */
+  public void push() {
+    if (level == levels.length) {
+      levels = Arrays.copyOf(levels, 2 * level);
+    }
+    levels[level++] = size;
+  }
+
+  /** Revert all changes of the latest {@code num} backtracking points. */
+  public void pop(int num) {
+    checkArgument(0 <= num && num <= level, "cannot pop %s of %s levels", num, level);
+    if (num == 0) {
+      // levels[level] is not the start of the current level, but a stale entry or out of bounds
+      return;
+    }
+    level -= num;
+    int target = levels[level];
+    while (size > target) {
+      size--;
+      owners[size].undo(keys[size], oldValues[size]);
+      owners[size] = null;
+    }
+  }
+
+  /** Get the number of backtracking points. */
+  public int getLevel() {
+    return level;
+  }
+
+  void record(Backtrackable owner, int key, long oldValue) {
+    if (level == 0) {
+      return;
+    }
+    if (size == owners.length) {
+      owners = Arrays.copyOf(owners, 2 * size);
+      keys = Arrays.copyOf(keys, 2 * size);
+      oldValues = Arrays.copyOf(oldValues, 2 * size);
+    }
+    owners[size] = owner;
+    keys[size] = key;
+    oldValues[size] = oldValue;
+    size++;
+  }
+}
@@ -0,0 +1,15 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+/**
+ * Backtrackable data structures for {@link org.sosy_lab.java_smt.api.BooleanTheorySolver}s. All
+ * structures record their changes on a {@link org.sosy_lab.java_smt.api.propagators.Trail}, which
+ * is pushed and popped together with the solver, such that a theory solver does not need to undo
+ * its state manually.
+ */
+package org.sosy_lab.java_smt.api.propagators;
@@ -38,6 +38,7 @@ import org.sosy_lab.java_smt.api.RationalFormulaManager;
 import org.sosy_lab.java_smt.api.SLFormulaManager;
 import org.sosy_lab.java_smt.api.StringFormulaManager;
 import org.sosy_lab.java_smt.api.Tactic;
+import org.sosy_lab.java_smt.api.TransformationSession;
 import org.sosy_lab.java_smt.api.visitors.FormulaTransformationVisitor;
 import org.sosy_lab.java_smt.api.visitors.FormulaVisitor;
 import org.sosy_lab.java_smt.api.visitors.TraversalProcess;
@@ -405,7 +406,14 @@ public abstract class AbstractFormulaManager<TFormulaInfo, TType, TEnv, TFuncDec
     if (this == otherManager) {
       return formula; // shortcut
     }
-    return parse(otherManager.dumpFormula(formula).toString());
+    try {
+      // rebuilding the formula avoids printing and parsing a potentially large string
+      return new FormulaTranslator(otherManager, this).translate(formula);
+    } catch (UnsupportedOperationException | IllegalArgumentException e) {
+      // The formula contains an operation without counterpart in the API, or a symbol that can
+      // only be declared via SMT-LIB, or the other solver does not support visitation.
+      return parse(otherManager.dumpFormula(formula).toString());
+    }
   }
 
   @Override
@@ -457,34 +465,49 @@ public abstract class AbstractFormulaManager<TFormulaInfo, TType, TEnv, TFuncDec
   @Override
   public <T extends Formula> T substitute(
       final T pF, final Map<? extends Formula, ? extends Formula> pFromToMapping) {
-    return transformRecursively(
-        pF,
-        new FormulaTransformationVisitor(this) {
-          @Override
-          public Formula visitFreeVariable(Formula f, String name) {
-            return replace(f);
-          }
+    return transformRecursively(pF, newSubstitutionVisitor(pFromToMapping));
+  }
 
-          @Override
-          public Formula visitFunction(
-              Formula f, List<Formula> newArgs, FunctionDeclaration<?> functionDeclaration) {
-            Formula out = pFromToMapping.get(f);
-            if (out == null) {
-              return makeApplication(functionDeclaration, newArgs);
-            } else {
-              return out;
-            }
-          }
+  @Override
+  public TransformationSession newTransformationSession(
+      FormulaTransformationVisitor pFormulaVisitor, int maxCacheSize) {
+    return new TransformationSessionImpl(formulaCreator, pFormulaVisitor, maxCacheSize);
+  }
 
-          private Formula replace(Formula f) {
-            Formula out = pFromToMapping.get(f);
-            if (out == null) {
-              return f;
-            } else {
-              return out;
-            }
-          }
-        });
+  @Override
+  public TransformationSession newSubstitutionSession(
+      Map<? extends Formula, ? extends Formula> pFromToMapping, int maxCacheSize) {
+    return newTransformationSession(newSubstitutionVisitor(pFromToMapping), maxCacheSize);
+  }
+
+  private FormulaTransformationVisitor newSubstitutionVisitor(
+      final Map<? extends Formula, ? extends Formula> pFromToMapping) {
+    return new FormulaTransformationVisitor(this) {
+      @Override
+      public Formula visitFreeVariable(Formula f, String name) {
+        return replace(f);
+      }
+
+      @Override
+      public Formula visitFunction(
+          Formula f, List<Formula> newArgs, FunctionDeclaration<?> functionDeclaration) {
+        Formula out = pFromToMapping.get(f);
+        if (out == null) {
+          return makeApplication(functionDeclaration, newArgs);
+        } else {
+          return out;
+        }
+      }
+
+      private Formula replace(Formula f) {
+        Formula out = pFromToMapping.get(f);
+        if (out == null) {
+          return f;
+        } else {
+          return out;
+        }
+      }
+    };
   }
 
   /**
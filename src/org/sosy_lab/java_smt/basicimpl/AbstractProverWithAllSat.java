@@ -11,13 +11,17 @@ package org.sosy_lab.java_smt.basicimpl;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.Deque;
 import java.util.List;
 import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.BooleanFormulaManager;
 import org.sosy_lab.java_smt.api.Evaluator;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
 import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 import org.sosy_lab.java_smt.api.SolverException;
 
@@ -33,13 +37,61 @@ public abstract class AbstractProverWithAllSat<T> extends AbstractProver<T> {
 
   protected boolean closed;
 
+  private final boolean allSatWithTheorySolver;
+  private final boolean allSatWithMinimizedModels;
+
+  /** Only available if given by the solver, needed for minimizing models. */
+  private final @Nullable FormulaManager fmgr;
+
+  /** Whether a theory solver was registered on this prover, see {@link #reserveTheorySolver}. */
+  private boolean hasTheorySolver = false;
+
+  /** Theory solver for ALLSAT, registered on first use and reused for all queries. */
+  private @Nullable AllSatTheorySolver allSatTheorySolver = null;
+
   protected AbstractProverWithAllSat(
       Set<ProverOptions> pOptions,
       BooleanFormulaManager pBmgr,
       ShutdownNotifier pShutdownNotifier) {
+    this(pOptions, pBmgr, null, pShutdownNotifier);
+  }
+
+  /**
+   * Solvers that give a {@link FormulaManager} and implement {@link #getAssertedFormulas} support
+   * {@link ProverOptions#GENERATE_ALL_SAT_WITH_MINIMIZED_MODELS}.
+   */
+  protected AbstractProverWithAllSat(
+      Set<ProverOptions> pOptions, FormulaManager pFmgr, ShutdownNotifier pShutdownNotifier) {
+    this(pOptions, pFmgr.getBooleanFormulaManager(), pFmgr, pShutdownNotifier);
+  }
+
+  private AbstractProverWithAllSat(
+      Set<ProverOptions> pOptions,
+      BooleanFormulaManager pBmgr,
+      @Nullable FormulaManager pFmgr,
+      ShutdownNotifier pShutdownNotifier) {
     super(pOptions);
     bmgr = pBmgr;
+    fmgr = pFmgr;
     shutdownNotifier = pShutdownNotifier;
+    allSatWithTheorySolver = pOptions.contains(ProverOptions.GENERATE_ALL_SAT_WITH_THEORY_SOLVER);
+    allSatWithMinimizedModels =
+        pOptions.contains(ProverOptions.GENERATE_ALL_SAT_WITH_MINIMIZED_MODELS);
+  }
+
+  /**
+   * Solvers that support {@link ProverEnvironment#registerTheorySolver} must call this method
+   * before registering a theory solver. Only one theory solver can be registered per prover,
+   * including the one used for {@link ProverOptions#GENERATE_ALL_SAT_WITH_THEORY_SOLVER}.
+   *
+   * @return whether the theory solver can be registered.
+   */
+  protected final boolean reserveTheorySolver() {
+    if (hasTheorySolver) {
+      return false;
+    }
+    hasTheorySolver = true;
+    return true;
   }
 
   @Override
@@ -48,42 +100,101 @@ public abstract class AbstractProverWithAllSat<T> extends AbstractProver<T> {
     Preconditions.checkState(!closed);
     checkGenerateAllSat();
 
+    AllSatTheorySolver theorySolver = allSatWithTheorySolver ? getAllSatTheorySolver() : null;
+    ImplicantMinimizer minimizer =
+        theorySolver == null && allSatWithMinimizedModels ? getImplicantMinimizer() : null;
+    if (theorySolver != null) {
+      // Z3 forgets expressions that were watched within a popped level, thus we watch them first.
+      theorySolver.start(callback, importantPredicates);
+    }
+
     push();
     try {
-      // try model-based computation of ALLSAT
-      iterateOverAllModels(callback, importantPredicates);
-    } catch (SolverException e) {
-      // fallback to direct SAT/UNSAT-based computation of ALLSAT
-      iterateOverAllPredicateCombinations(callback, importantPredicates, new ArrayDeque<>());
-      // TODO should we completely switch to the second method?
+      if (theorySolver != null) {
+        // the theory solver reports all models from within the solver and rejects each of them
+        boolean unsat = isUnsat();
+        Preconditions.checkState(unsat, "Theory solver for ALLSAT accepted a model.");
+      } else {
+        try {
+          // try model-based computation of ALLSAT
+          iterateOverAllModels(callback, importantPredicates, minimizer);
+        } catch (SolverException e) {
+          // fallback to direct SAT/UNSAT-based computation of ALLSAT
+          iterateOverAllPredicateCombinations(callback, importantPredicates, new ArrayDeque<>());
+          // TODO should we completely switch to the second method?
+        }
+      }
+    } finally {
+      if (theorySolver != null) {
+        theorySolver.stop();
+      }
     }
 
     pop();
     return callback.getResult();
   }
 
+  /**
+   * Returns the theory solver for ALLSAT, or null if the solver does not support theory solvers or
+   * another theory solver is already registered.
+   */
+  private @Nullable AllSatTheorySolver getAllSatTheorySolver() {
+    if (allSatTheorySolver == null && !hasTheorySolver && this instanceof ProverEnvironment) {
+      AllSatTheorySolver theorySolver = new AllSatTheorySolver(bmgr);
+      if (((ProverEnvironment) this).registerTheorySolver(theorySolver)) {
+        theorySolver.initialize();
+        allSatTheorySolver = theorySolver;
+      }
+    }
+    return allSatTheorySolver;
+  }
+
+  /**
+   * Returns a minimizer for the current assertions, or null if the solver does not provide them.
+   */
+  private @Nullable ImplicantMinimizer getImplicantMinimizer() {
+    Collection<BooleanFormula> assertions = fmgr == null ? null : getAssertedFormulas();
+    return assertions == null ? null : new ImplicantMinimizer(fmgr, assertions);
+  }
+
+  /**
+   * Returns the formulas on the assertion stack, or null if the solver does not track them. This is
+   * only needed for {@link ProverOptions#GENERATE_ALL_SAT_WITH_MINIMIZED_MODELS}.
+   */
+  protected @Nullable Collection<BooleanFormula> getAssertedFormulas() {
+    return null;
+  }
+
   /**
    * This method computes all satisfiable assignments for the given predicates by iterating over all
    * models. The SMT solver can choose the ordering of variables and shortcut model generation.
+   *
+   * @param minimizer if given, each model is shrunk before it is reported and blocked.
    */
   private <R> void iterateOverAllModels(
-      AllSatCallback<R> callback, List<BooleanFormula> importantPredicates)
+      AllSatCallback<R> callback,
+      List<BooleanFormula> importantPredicates,
+      @Nullable ImplicantMinimizer minimizer)
       throws SolverException, InterruptedException {
     while (!isUnsat()) {
       shutdownNotifier.shutdownIfNecessary();
 
       ImmutableList.Builder<BooleanFormula> valuesOfModel = ImmutableList.builder();
       try (Evaluator evaluator = getEvaluatorWithoutChecks()) {
-        for (BooleanFormula formula : importantPredicates) {
-          Boolean value = evaluator.evaluate(formula);
-          if (value == null) {
-            // This is a legal return value for evaluation.
-            // The value doesn't matter. We ignore this assignment.
-            // This step aim for shortcutting the ALLSAT-loop.
-          } else if (value) {
-            valuesOfModel.add(formula);
-          } else {
-            valuesOfModel.add(bmgr.not(formula));
+        if (minimizer != null) {
+          valuesOfModel.addAll(minimizer.getMinimizedModel(evaluator, importantPredicates));
+        } else {
+          for (BooleanFormula formula : importantPredicates) {
+            Boolean value = evaluator.evaluate(formula);
+            if (value == null) {
+              // This is a legal return value for evaluation.
+              // The value doesn't matter. We ignore this assignment.
+              // This step aim for shortcutting the ALLSAT-loop.
+            } else if (value) {
+              valuesOfModel.add(formula);
+            } else {
+              valuesOfModel.add(bmgr.not(formula));
+            }
           }
         }
       }
@@ -0,0 +1,145 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.basicimpl;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment.AllSatCallback;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.BooleanTheorySolver;
+import org.sosy_lab.java_smt.api.propagators.BacktrackableBitSet;
+
+/**
+ * Theory solver that enumerates all models projected onto the important predicates of an ALLSAT
+ * query. Each final assignment is reported to the {@link AllSatCallback} and then rejected with a
+ * conflict over the assigned important predicates. In contrast to a blocking clause, the conflict
+ * does not grow the assertion stack of the prover.
+ *
+ * <p>The solver might forget learned conflicts and present a model again, thus we remember all
+ * reported projections and report each of them only once.
+ *
+ * <p>One instance is registered per prover and reused for all ALLSAT queries, see {@link
+ * AbstractProverWithAllSat}. Between queries, no models are reported. Solvers can not stop watching
+ * an expression, thus the predicates of all previous queries stay watched. Their assignments are
+ * only recorded, while the work per model only depends on the predicates of the current query.
+ */
+final class AllSatTheorySolver extends BooleanTheorySolver {
+
+  private final BooleanFormulaManager bmgr;
+
+  private BacktrackableBitSet isAssigned;
+  private BacktrackableBitSet values;
+
+  private @Nullable AllSatCallback<?> callback = null;
+  private List<BooleanFormula> predicates = ImmutableList.of();
+
+  /** Watched id of each predicate of the current query. */
+  private int[] watchedIds = new int[0];
+
+  /** Projections that were already reported, encoded as pairs of bits (assigned, value). */
+  private final Set<BitSet> reportedModels = new HashSet<>();
+
+  private int[] conflict = new int[16];
+
+  AllSatTheorySolver(BooleanFormulaManager pBmgr) {
+    bmgr = pBmgr;
+  }
+
+  /** Must be called after the registration of this theory solver, before the first query. */
+  void initialize() {
+    isAssigned = new BacktrackableBitSet(getTrail());
+    values = new BacktrackableBitSet(getTrail());
+    notifyOnVarAssign();
+    notifyOnFullAssign();
+  }
+
+  /** Start a new query. The callback is called from within the solver. */
+  void start(AllSatCallback<?> pCallback, List<BooleanFormula> pPredicates) {
+    Preconditions.checkState(callback == null, "ALLSAT queries can not be nested");
+    callback = pCallback;
+    predicates = pPredicates;
+    reportedModels.clear();
+    watchedIds = new int[predicates.size()];
+    for (int i = 0; i < predicates.size(); i++) {
+      watchedIds[i] = addExpressionToWatch(predicates.get(i));
+    }
+  }
+
+  void stop() {
+    callback = null;
+    predicates = ImmutableList.of();
+  }
+
+  /**
+   * Assignments are also tracked between queries, because the solver does not report assignments
+   * on the base level again.
+   */
+  @Override
+  public void fixed(int id, boolean value) {
+    isAssigned.set(id);
+    values.set(id, value);
+  }
+
+  @Override
+  public void finish() {
+    if (callback == null) {
+      return;
+    }
+
+    BitSet model = new BitSet(2 * predicates.size());
+    if (conflict.length < watchedIds.length) {
+      conflict = new int[watchedIds.length];
+    }
+    int numConflict = 0;
+    for (int index = 0; index < watchedIds.length; index++) {
+      int id = watchedIds[index];
+      if (isAssigned.get(id)) {
+        model.set(2 * index);
+        model.set(2 * index + 1, values.get(id));
+        conflict[numConflict++] = id;
+      }
+    }
+
+    if (reportedModels.add(model)) {
+      ImmutableList.Builder<BooleanFormula> valuesOfModel = ImmutableList.builder();
+      for (int i = 0; i < predicates.size(); i++) {
+        int id = watchedIds[i];
+        if (model.get(2 * i)) {
+          // unassigned predicates are ignored, their value does not matter.
+          valuesOfModel.add(values.get(id) ? predicates.get(i) : bmgr.not(predicates.get(i)));
+        }
+      }
+      callback.apply(valuesOfModel.build());
+    }
+    addConflict(conflict, numConflict);
+  }
+
+  @Override
+  public void push() {}
+
+  @Override
+  public void pop(int num) {}
+
+  @Override
+  public void fixed(BooleanFormula var, BooleanFormula val) {
+    // only called for expressions that are not watched, i.e., not important.
+  }
+
+  @Override
+  public void equality(BooleanFormula x, BooleanFormula y) {}
+
+  @Override
+  public void created(BooleanFormula e) {}
+}
@@ -10,7 +10,15 @@ package org.sosy_lab.java_smt.basicimpl;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.rationals.Rational;
 import org.sosy_lab.java_smt.api.BitvectorFormula;
@@ -22,66 +30,188 @@ import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
 import org.sosy_lab.java_smt.api.NumeralFormula.RationalFormula;
 import org.sosy_lab.java_smt.api.StringFormula;
 
+/**
+ * Model that caches the list of assignments and the results of evaluations, such that repeated
+ * evaluations of the same formula do not access the solver again. The number of cached
+ * evaluations is bounded, the least recently used ones are removed first.
+ */
 public class CachingModel implements Model {
 
+  private static final int MAX_CACHED_EVALUATIONS = 10000;
+
+  /** Marks a cached evaluation without value, as the maps can not contain null. */
+  private static final Object NO_VALUE = new Object();
+
   private final Model delegate;
 
+  /** The creator of the formulas if the solver can release them explicitly, otherwise null. */
+  private final @Nullable FormulaCreator<?, ?, ?, ?> creator;
+
+  /** The release count of the creator when the caches were filled, see {@link #checkReleases}. */
+  private int releaseCount;
+
   private @Nullable ImmutableList<ValueAssignment> modelAssignments = null;
 
+  /** Results of {@link #evaluate}, except for rational formulas. */
+  private final Map<Formula, Object> evaluations = newCache();
+
+  /** Results of {@link #evaluate(RationalFormula)}, which converts integral values. */
+  private final Map<Formula, Object> rationalEvaluations = newCache();
+
+  /** Results of {@link #eval}. */
+  private final Map<Formula, Object> formulaEvaluations = newCache();
+
   public CachingModel(Model pDelegate) {
+    this(pDelegate, null);
+  }
+
+  /**
+   * Create a caching model for a solver that can release formulas explicitly. The caches are
+   * dropped whenever the given creator {@link FormulaCreator#getReleaseCount() released formulas}.
+   */
+  public CachingModel(Model pDelegate, @Nullable FormulaCreator<?, ?, ?, ?> pCreator) {
     delegate = Preconditions.checkNotNull(pDelegate);
+    creator = pCreator;
+    releaseCount = pCreator == null ? 0 : pCreator.getReleaseCount();
+  }
+
+  /** Drop all cached results if the solver released formulas since they were cached. */
+  private void checkReleases() {
+    if (creator != null && creator.getReleaseCount() != releaseCount) {
+      clearCaches();
+      releaseCount = creator.getReleaseCount();
+    }
+  }
+
+  private void clearCaches() {
+    modelAssignments = null;
+    evaluations.clear();
+    rationalEvaluations.clear();
+    formulaEvaluations.clear();
+  }
+
+  private static Map<Formula, Object> newCache() {
+    return new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Formula, Object> pEldest) {
+        return size() > MAX_CACHED_EVALUATIONS;
+      }
+    };
+  }
+
+  private <F extends Formula> @Nullable Object getCached(
+      Map<Formula, Object> cache, F formula, Function<F, @Nullable Object> evaluation) {
+    checkReleases();
+    Object value = cache.get(formula);
+    if (value == null) {
+      value = evaluation.apply(formula);
+      cache.put(formula, value == null ? NO_VALUE : value);
+    }
+    return value == NO_VALUE ? null : value;
   }
 
   @Override
   public ImmutableList<ValueAssignment> asList() {
+    checkReleases();
     if (modelAssignments == null) {
       modelAssignments = delegate.asList();
     }
     return modelAssignments;
   }
 
+  @Override
+  public Stream<ValueAssignment> stream() {
+    checkReleases();
+    return modelAssignments != null ? modelAssignments.stream() : delegate.stream();
+  }
+
+  /** Uses the cached assignments if available, otherwise the filtering is left to the solver. */
+  @Override
+  public Stream<ValueAssignment> stream(String namePrefix) {
+    checkReleases();
+    if (modelAssignments != null) {
+      return Model.super.stream(namePrefix);
+    }
+    return delegate.stream(namePrefix);
+  }
+
   @Override
   public void close() {
+    clearCaches();
     delegate.close();
   }
 
+  @SuppressWarnings("unchecked")
   @Override
   public <T extends Formula> @Nullable T eval(T formula) {
-    return delegate.eval(formula);
+    return (T) getCached(formulaEvaluations, formula, delegate::eval);
   }
 
   @Override
   public @Nullable Object evaluate(Formula formula) {
-    return delegate.evaluate(formula);
+    return getCached(evaluations, formula, delegate::evaluate);
   }
 
   @Override
   public @Nullable BigInteger evaluate(IntegerFormula formula) {
-    return delegate.evaluate(formula);
+    return (BigInteger) getCached(evaluations, formula, delegate::evaluate);
   }
 
   @Override
   public @Nullable Rational evaluate(RationalFormula formula) {
-    return delegate.evaluate(formula);
+    return (Rational) getCached(rationalEvaluations, formula, delegate::evaluate);
   }
 
   @Override
   public @Nullable Boolean evaluate(BooleanFormula formula) {
-    return delegate.evaluate(formula);
+    return (Boolean) getCached(evaluations, formula, delegate::evaluate);
   }
 
   @Override
   public @Nullable BigInteger evaluate(BitvectorFormula formula) {
-    return delegate.evaluate(formula);
+    return (BigInteger) getCached(evaluations, formula, delegate::evaluate);
   }
 
   @Override
   public @Nullable String evaluate(StringFormula formula) {
-    return delegate.evaluate(formula);
+    return (String) getCached(evaluations, formula, delegate::evaluate);
   }
 
   @Override
   public @Nullable String evaluate(EnumerationFormula formula) {
-    return delegate.evaluate(formula);
+    return (String) getCached(evaluations, formula, delegate::evaluate);
+  }
+
+  /** Evaluates all formulas that are not yet cached with one call of the delegate. */
+  @Override
+  public ImmutableMap<Formula, Object> evaluateAll(Collection<? extends Formula> formulas) {
+    checkReleases();
+    List<Formula> missing = new ArrayList<>();
+    for (Formula formula : formulas) {
+      if (!evaluations.containsKey(formula)) {
+        missing.add(formula);
+      }
+    }
+    if (!missing.isEmpty()) {
+      Map<Formula, Object> values = delegate.evaluateAll(missing);
+      for (Formula formula : missing) {
+        evaluations.put(formula, values.getOrDefault(formula, NO_VALUE));
+      }
+    }
+
+    Map<Formula, Object> result = new LinkedHashMap<>();
+    for (Formula formula : formulas) {
+      // the value was evicted again if there are more formulas than cached evaluations
+      Object value = evaluations.get(formula);
+      if (value == null) {
+        value = evaluate(formula);
+      }
+      if (value != null && value != NO_VALUE) {
+        result.put(formula, value);
+      }
+    }
+    return ImmutableMap.copyOf(result);
   }
 }
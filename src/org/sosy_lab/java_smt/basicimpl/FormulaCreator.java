@@ -18,8 +18,8 @@ import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -77,6 +77,9 @@ public abstract class FormulaCreator<TFormulaInfo, TType, TEnv, TFuncDecl> {
   private final @Nullable TType regexType;
   protected final TEnv environment;
 
+  /** See {@link #getReleaseCount()}. */
+  private int releaseCount = 0;
+
   protected FormulaCreator(
       TEnv env,
       TType boolType,
@@ -270,6 +273,67 @@ public abstract class FormulaCreator<TFormulaInfo, TType, TEnv, TFuncDecl> {
 
   public abstract FormulaType<?> getFormulaType(TFormulaInfo formula);
 
+  /**
+   * Whether the solver provides {@link #getTermId ids} of terms. Recursive traversals then track
+   * visited terms by their id instead of the formulas.
+   */
+  protected boolean hasTermIds() {
+    return false;
+  }
+
+  /**
+   * Return a number that identifies the term within this context, e.g., its native address. Two
+   * terms must have the same id if and only if their formulas are equal, and the id must not change
+   * while the term is in use. Only called if {@link #hasTermIds()} returns true.
+   */
+  protected long getTermId(TFormulaInfo pTerm) {
+    throw new UnsupportedOperationException("The solver does not provide ids of terms.");
+  }
+
+  /**
+   * Whether formulas of the solver can be visited by several threads at the same time, i.e., {@link
+   * #visit(FormulaVisitor, Formula, Object)} neither modifies shared state nor depends on the
+   * thread. The variables of large formulas are then extracted in parallel, see {@link
+   * ParallelVariableExtractor}.
+   */
+  protected boolean allowsConcurrentVisits() {
+    return false;
+  }
+
+  /**
+   * Return how often the solver released the terms of existing formulas explicitly, e.g., when a
+   * formula arena of Z3 was closed. The solver can reuse released terms for new formulas, which are
+   * then equal to the released ones. Thus, caches that keep formulas across calls must drop their
+   * entries when this number changes.
+   */
+  public final int getReleaseCount() {
+    return releaseCount;
+  }
+
+  /** Notify caches that the terms of some formulas were released, see {@link #getReleaseCount}. */
+  protected final void countRelease() {
+    releaseCount++;
+  }
+
+  long getTermIdOf(Formula pFormula) {
+    return getTermId(extractInfo(pFormula));
+  }
+
+  /**
+   * Return a set of formulas, represented by its method for adding a formula, which returns whether
+   * the formula was not yet contained. Solvers with {@link #hasTermIds ids of terms} use a set of
+   * ids, which avoids calls of {@link Object#equals} and {@link Object#hashCode}.
+   */
+  private Predicate<Formula> newVisitedSet() {
+    if (hasTermIds()) {
+      TermIdSet ids = new TermIdSet();
+      return f -> ids.add(getTermIdOf(f));
+    } else {
+      Set<Formula> formulas = new HashSet<>();
+      return formulas::add;
+    }
+  }
+
   /**
    * @see org.sosy_lab.java_smt.api.FormulaManager#visit
    */
@@ -301,7 +365,7 @@ public abstract class FormulaCreator<TFormulaInfo, TType, TEnv, TFuncDecl> {
       FormulaVisitor<TraversalProcess> pFormulaVisitor,
       Formula pF,
       Predicate<Formula> shouldProcess) {
-    RecursiveFormulaVisitorImpl recVisitor = new RecursiveFormulaVisitorImpl(pFormulaVisitor);
+    RecursiveFormulaVisitorImpl recVisitor = new RecursiveFormulaVisitorImpl(this, pFormulaVisitor);
     recVisitor.addToQueue(pF);
     while (!recVisitor.isQueueEmpty()) {
       Formula tt = recVisitor.pop();
@@ -321,9 +385,21 @@ public abstract class FormulaCreator<TFormulaInfo, TType, TEnv, TFuncDecl> {
 
   public <T extends Formula> T transformRecursively(
       FormulaVisitor<? extends Formula> pFormulaVisitor, T pF, Predicate<Object> shouldProcess) {
+    return transformRecursively(pFormulaVisitor, pF, shouldProcess, new HashMap<>());
+  }
+
+  /**
+   * Transform the formula like {@link #transformRecursively(FormulaVisitor, Formula, Predicate)},
+   * but reuse the already transformed formulas in the given cache. The cache is extended with the
+   * results for all visited sub-formulas and must not drop entries during the transformation.
+   */
+  <T extends Formula> T transformRecursively(
+      FormulaVisitor<? extends Formula> pFormulaVisitor,
+      T pF,
+      Predicate<Object> shouldProcess,
+      Map<Formula, Formula> pCache) {
 
     final Deque<Formula> toProcess = new ArrayDeque<>();
-    Map<Formula, Formula> pCache = new HashMap<>();
     FormulaTransformationVisitorImpl recVisitor =
         new FormulaTransformationVisitorImpl(pFormulaVisitor, toProcess, pCache);
     toProcess.push(pF);
@@ -379,8 +455,12 @@ public abstract class FormulaCreator<TFormulaInfo, TType, TEnv, TFuncDecl> {
       final Formula pFormula,
       final boolean extractUF,
       final BiConsumer<String, Formula> pConsumer) {
+    if (allowsConcurrentVisits()) {
+      new ParallelVariableExtractor(this, extractUF).extract(pFormula, pConsumer);
+      return;
+    }
     visitRecursively(
-        new VariableAndUFExtractor(extractUF, pConsumer, ImmutableSet.of(), new LinkedHashSet<>()),
+        new VariableAndUFExtractor(extractUF, pConsumer, ImmutableSet.of(), newVisitedSet()),
         pFormula);
   }
 
@@ -392,19 +472,19 @@ public abstract class FormulaCreator<TFormulaInfo, TType, TEnv, TFuncDecl> {
 
     /**
      * let's collect all visited symbols here, to avoid redundant visitation of symbols in nested
-     * quantified formulas.
+     * quantified formulas. Testing a symbol marks it as visited and returns whether it was new.
      */
-    private final Set<Formula> alreadyVisited;
+    private final Predicate<Formula> isFirstVisit;
 
     VariableAndUFExtractor(
         boolean pExtractUF,
         BiConsumer<String, Formula> pConsumer,
         Set<Formula> pBoundVariablesInContext,
-        Set<Formula> pAlreadyVisited) {
+        Predicate<Formula> pIsFirstVisit) {
       extractUF = pExtractUF;
       consumer = pConsumer;
       boundVariablesInContext = pBoundVariablesInContext;
-      alreadyVisited = pAlreadyVisited;
+      isFirstVisit = pIsFirstVisit;
     }
 
     @Override
@@ -419,7 +499,7 @@ public abstract class FormulaCreator<TFormulaInfo, TType, TEnv, TFuncDecl> {
       if (!boundVariablesInContext.contains(f) // TODO can UFs be bounded?
           && functionDeclaration.getKind() == FunctionDeclarationKind.UF
           && extractUF) {
-        if (alreadyVisited.add(f)) {
+        if (isFirstVisit.test(f)) {
           consumer.accept(functionDeclaration.getName(), f);
         }
       }
@@ -432,7 +512,7 @@ public abstract class FormulaCreator<TFormulaInfo, TType, TEnv, TFuncDecl> {
       // If we are inside a quantified formula, bound variables appear to be free,
       // but they are actually bound by the surrounding context.
       if (!boundVariablesInContext.contains(f)) {
-        if (alreadyVisited.add(f)) {
+        if (isFirstVisit.test(f)) {
           consumer.accept(name, f);
         }
       }
@@ -450,7 +530,7 @@ public abstract class FormulaCreator<TFormulaInfo, TType, TEnv, TFuncDecl> {
               extractUF,
               consumer,
               Sets.union(boundVariablesInContext, ImmutableSet.copyOf(boundVariables)),
-              alreadyVisited),
+              isFirstVisit),
           body);
 
       // Afterwards, we skip the already finished body-formula.
@@ -0,0 +1,461 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.basicimpl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.rationals.Rational;
+import org.sosy_lab.java_smt.api.ArrayFormula;
+import org.sosy_lab.java_smt.api.BitvectorFormula;
+import org.sosy_lab.java_smt.api.BitvectorFormulaManager;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.FormulaType;
+import org.sosy_lab.java_smt.api.FormulaType.BitvectorType;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
+import org.sosy_lab.java_smt.api.FunctionDeclarationKind;
+import org.sosy_lab.java_smt.api.NumeralFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.NumeralFormulaManager;
+import org.sosy_lab.java_smt.api.QuantifiedFormulaManager.Quantifier;
+import org.sosy_lab.java_smt.api.visitors.FormulaVisitor;
+
+/**
+ * Translates formulas between two formula managers by rebuilding them operation by operation with
+ * the API of the target manager. Shared subformulas are translated only once.
+ *
+ * <p>Only operations with a counterpart in the API are supported, i.e., Boolean logic, integer and
+ * rational arithmetic, bitvectors, arrays, uninterpreted functions and quantifiers. For any other
+ * operation an {@link UnsupportedOperationException} is thrown, and the caller should fall back to
+ * dumping and parsing the formula.
+ */
+final class FormulaTranslator {
+
+  private final FormulaManager from;
+  private final FormulaManager to;
+  private final BooleanFormulaManager bmgr;
+
+  /** Translated formulas, keyed by the formula of the source manager. */
+  private final Map<Formula, Formula> cache = new HashMap<>();
+
+  FormulaTranslator(FormulaManager pFrom, FormulaManager pTo) {
+    from = checkNotNull(pFrom);
+    to = checkNotNull(pTo);
+    bmgr = pTo.getBooleanFormulaManager();
+  }
+
+  /**
+   * Translate a formula of the source manager into the target manager.
+   *
+   * @throws UnsupportedOperationException if the formula contains an unsupported operation.
+   */
+  @SuppressWarnings("unchecked")
+  <T extends Formula> T translate(T input) {
+    Deque<Formula> toProcess = new ArrayDeque<>();
+    TranslationVisitor visitor = new TranslationVisitor(toProcess);
+    toProcess.push(input);
+    while (!toProcess.isEmpty()) {
+      Formula f = toProcess.peek();
+      if (cache.containsKey(f)) {
+        toProcess.pop();
+      } else {
+        // either translates f, or pushes its untranslated operands onto the stack.
+        from.visit(f, visitor);
+      }
+    }
+    return (T) cache.get(input);
+  }
+
+  private final class TranslationVisitor implements FormulaVisitor<Void> {
+
+    private final Deque<Formula> toProcess;
+
+    TranslationVisitor(Deque<Formula> pToProcess) {
+      toProcess = pToProcess;
+    }
+
+    /** Returns the translated operands, or null if some of them are not yet translated. */
+    private @Nullable List<Formula> getTranslatedOperands(List<? extends Formula> operands) {
+      List<Formula> translated = new ArrayList<>(operands.size());
+      boolean complete = true;
+      for (Formula operand : operands) {
+        Formula newOperand = cache.get(operand);
+        if (newOperand == null) {
+          toProcess.push(operand);
+          complete = false;
+        } else {
+          translated.add(newOperand);
+        }
+      }
+      return complete ? translated : null;
+    }
+
+    @Override
+    public Void visitFreeVariable(Formula f, String name) {
+      cache.put(f, to.makeVariable(from.getFormulaType(f), name));
+      return null;
+    }
+
+    @Override
+    public Void visitBoundVariable(Formula f, int deBruijnIdx) {
+      throw new UnsupportedOperationException("can not translate bound variable " + f);
+    }
+
+    @Override
+    public Void visitConstant(Formula f, Object value) {
+      cache.put(f, makeConstant(from.getFormulaType(f), value));
+      return null;
+    }
+
+    @Override
+    public Void visitFunction(
+        Formula f, List<Formula> args, FunctionDeclaration<?> functionDeclaration) {
+      List<Formula> newArgs = getTranslatedOperands(args);
+      if (newArgs != null) {
+        cache.put(f, makeFunction(from.getFormulaType(f), functionDeclaration, args, newArgs));
+      }
+      return null;
+    }
+
+    @Override
+    public Void visitQuantifier(
+        BooleanFormula f,
+        Quantifier quantifier,
+        List<Formula> boundVariables,
+        BooleanFormula body) {
+      List<Formula> operands = new ArrayList<>(boundVariables);
+      operands.add(body);
+      List<Formula> newOperands = getTranslatedOperands(operands);
+      if (newOperands != null) {
+        BooleanFormula newBody = (BooleanFormula) newOperands.remove(newOperands.size() - 1);
+        cache.put(
+            f, to.getQuantifiedFormulaManager().mkQuantifier(quantifier, newOperands, newBody));
+      }
+      return null;
+    }
+  }
+
+  private Formula makeConstant(FormulaType<?> type, Object value) {
+    if (type.isBooleanType() && value instanceof Boolean) {
+      return bmgr.makeBoolean((Boolean) value);
+    } else if (type.isIntegerType() && value instanceof BigInteger) {
+      return to.getIntegerFormulaManager().makeNumber((BigInteger) value);
+    } else if (type.isRationalType() && value instanceof BigInteger) {
+      return to.getRationalFormulaManager().makeNumber((BigInteger) value);
+    } else if (type.isRationalType() && value instanceof Rational) {
+      return to.getRationalFormulaManager().makeNumber((Rational) value);
+    } else if (type.isBitvectorType() && value instanceof BigInteger) {
+      return to.getBitvectorFormulaManager()
+          .makeBitvector(((BitvectorType) type).getSize(), (BigInteger) value);
+    }
+    throw new UnsupportedOperationException(
+        String.format("can not translate constant %s of type %s", value, type));
+  }
+
+  /**
+   * Build the application of a function with the given kind in the target manager.
+   *
+   * @param args the operands in the source manager, only used for their types.
+   * @param newArgs the translated operands.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Formula makeFunction(
+      FormulaType<?> type,
+      FunctionDeclaration<?> declaration,
+      List<Formula> args,
+      List<Formula> newArgs) {
+    switch (declaration.getKind()) {
+      case AND:
+        return bmgr.and((List<BooleanFormula>) (List<?>) newArgs);
+      case OR:
+        return bmgr.or((List<BooleanFormula>) (List<?>) newArgs);
+      case NOT:
+        return bmgr.not((BooleanFormula) newArgs.get(0));
+      case IFF:
+        return bmgr.equivalence((BooleanFormula) newArgs.get(0), (BooleanFormula) newArgs.get(1));
+      case XOR:
+        return bmgr.xor((BooleanFormula) newArgs.get(0), (BooleanFormula) newArgs.get(1));
+      case IMPLIES:
+        return bmgr.implication((BooleanFormula) newArgs.get(0), (BooleanFormula) newArgs.get(1));
+      case ITE:
+        return bmgr.ifThenElse((BooleanFormula) newArgs.get(0), newArgs.get(1), newArgs.get(2));
+      case EQ:
+      case BV_EQ:
+        return makeChain(declaration, args, newArgs);
+      case DISTINCT:
+        {
+          List<BooleanFormula> inequalities = new ArrayList<>();
+          for (int i = 0; i < newArgs.size(); i++) {
+            for (int j = i + 1; j < newArgs.size(); j++) {
+              inequalities.add(
+                  bmgr.not(makeEquality(args.get(i), newArgs.get(i), newArgs.get(j))));
+            }
+          }
+          return bmgr.and(inequalities);
+        }
+
+      case UMINUS:
+        return getNumeralManager(type, args).negate((NumeralFormula) newArgs.get(0));
+      case ADD:
+        return getNumeralManager(type, args).sum((List<NumeralFormula>) (List<?>) newArgs);
+      case SUB:
+      case MUL:
+      case DIV:
+        {
+          NumeralFormulaManager<NumeralFormula, ?> nmgr = getNumeralManager(type, args);
+          NumeralFormula result = (NumeralFormula) newArgs.get(0);
+          for (Formula operand : newArgs.subList(1, newArgs.size())) {
+            switch (declaration.getKind()) {
+              case SUB:
+                result = nmgr.subtract(result, (NumeralFormula) operand);
+                break;
+              case MUL:
+                result = nmgr.multiply(result, (NumeralFormula) operand);
+                break;
+              default:
+                result = nmgr.divide(result, (NumeralFormula) operand);
+            }
+          }
+          return result;
+        }
+      case MODULO:
+        if (type.isIntegerType()) {
+          return to.getIntegerFormulaManager()
+              .modulo((IntegerFormula) newArgs.get(0), (IntegerFormula) newArgs.get(1));
+        }
+        break;
+      case EQ_ZERO:
+      case GTE_ZERO:
+        {
+          NumeralFormulaManager<NumeralFormula, ?> nmgr = getNumeralManager(null, args);
+          NumeralFormula operand = (NumeralFormula) newArgs.get(0);
+          NumeralFormula zero = nmgr.makeNumber(0);
+          return declaration.getKind() == FunctionDeclarationKind.EQ_ZERO
+              ? nmgr.equal(operand, zero)
+              : nmgr.greaterOrEquals(operand, zero);
+        }
+      case FLOOR:
+        return getNumeralManager(type, args).floor((NumeralFormula) newArgs.get(0));
+      case LT:
+      case LTE:
+      case GT:
+      case GTE:
+      case BV_ULT:
+      case BV_SLT:
+      case BV_ULE:
+      case BV_SLE:
+      case BV_UGT:
+      case BV_SGT:
+      case BV_UGE:
+      case BV_SGE:
+        return makeChain(declaration, args, newArgs);
+
+      case BV_NOT:
+        return getBitvectorManager().not((BitvectorFormula) newArgs.get(0));
+      case BV_NEG:
+        return getBitvectorManager().negate((BitvectorFormula) newArgs.get(0));
+      case BV_AND:
+      case BV_OR:
+      case BV_XOR:
+      case BV_ADD:
+      case BV_SUB:
+      case BV_MUL:
+      case BV_SDIV:
+      case BV_UDIV:
+      case BV_SREM:
+      case BV_UREM:
+      case BV_SHL:
+      case BV_LSHR:
+      case BV_ASHR:
+      case BV_CONCAT:
+        {
+          BitvectorFormula result = (BitvectorFormula) newArgs.get(0);
+          for (Formula operand : newArgs.subList(1, newArgs.size())) {
+            result = makeBitvectorOperation(declaration, result, (BitvectorFormula) operand);
+          }
+          return result;
+        }
+      case BV_SIGN_EXTENSION:
+      case BV_ZERO_EXTENSION:
+        {
+          // the number of added bits is only known from the types
+          FormulaType<?> argType = from.getFormulaType(args.get(0));
+          int extension = ((BitvectorType) type).getSize() - ((BitvectorType) argType).getSize();
+          return getBitvectorManager()
+              .extend(
+                  (BitvectorFormula) newArgs.get(0),
+                  extension,
+                  declaration.getKind() == FunctionDeclarationKind.BV_SIGN_EXTENSION);
+        }
+
+      case SELECT:
+        return to.getArrayFormulaManager().select((ArrayFormula) newArgs.get(0), newArgs.get(1));
+      case STORE:
+        return to.getArrayFormulaManager()
+            .store((ArrayFormula) newArgs.get(0), newArgs.get(1), newArgs.get(2));
+
+      case UF:
+        return to.getUFManager().declareAndCallUF(declaration.getName(), type, newArgs);
+
+      default:
+        break;
+    }
+    throw new UnsupportedOperationException(
+        String.format(
+            "can not translate function %s of kind %s", declaration, declaration.getKind()));
+  }
+
+  /** Build a chainable predicate, e.g., "a < b < c" as "a < b & b < c". */
+  private BooleanFormula makeChain(
+      FunctionDeclaration<?> declaration, List<Formula> args, List<Formula> newArgs) {
+    List<BooleanFormula> parts = new ArrayList<>(newArgs.size() - 1);
+    for (int i = 0; i + 1 < newArgs.size(); i++) {
+      Formula left = newArgs.get(i);
+      Formula right = newArgs.get(i + 1);
+      parts.add(makeBinaryPredicate(declaration, args.subList(i, i + 2), left, right));
+    }
+    return bmgr.and(parts);
+  }
+
+  private BooleanFormula makeBinaryPredicate(
+      FunctionDeclaration<?> declaration, List<Formula> args, Formula left, Formula right) {
+    switch (declaration.getKind()) {
+      case EQ:
+      case BV_EQ:
+        return makeEquality(args.get(0), left, right);
+      case LT:
+        return getNumeralManager(null, args)
+            .lessThan((NumeralFormula) left, (NumeralFormula) right);
+      case LTE:
+        return getNumeralManager(null, args)
+            .lessOrEquals((NumeralFormula) left, (NumeralFormula) right);
+      case GT:
+        return getNumeralManager(null, args)
+            .greaterThan((NumeralFormula) left, (NumeralFormula) right);
+      case GTE:
+        return getNumeralManager(null, args)
+            .greaterOrEquals((NumeralFormula) left, (NumeralFormula) right);
+      case BV_ULT:
+      case BV_SLT:
+        return getBitvectorManager()
+            .lessThan(
+                (BitvectorFormula) left,
+                (BitvectorFormula) right,
+                declaration.getKind() == FunctionDeclarationKind.BV_SLT);
+      case BV_ULE:
+      case BV_SLE:
+        return getBitvectorManager()
+            .lessOrEquals(
+                (BitvectorFormula) left,
+                (BitvectorFormula) right,
+                declaration.getKind() == FunctionDeclarationKind.BV_SLE);
+      case BV_UGT:
+      case BV_SGT:
+        return getBitvectorManager()
+            .greaterThan(
+                (BitvectorFormula) left,
+                (BitvectorFormula) right,
+                declaration.getKind() == FunctionDeclarationKind.BV_SGT);
+      case BV_UGE:
+      case BV_SGE:
+        return getBitvectorManager()
+            .greaterOrEquals(
+                (BitvectorFormula) left,
+                (BitvectorFormula) right,
+                declaration.getKind() == FunctionDeclarationKind.BV_SGE);
+      default:
+        throw new AssertionError("unexpected predicate " + declaration);
+    }
+  }
+
+  /** Build an equality, based on the type of the original operand. */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private BooleanFormula makeEquality(Formula arg, Formula left, Formula right) {
+    FormulaType<?> argType = from.getFormulaType(arg);
+    if (argType.isBooleanType()) {
+      return bmgr.equivalence((BooleanFormula) left, (BooleanFormula) right);
+    } else if (argType.isIntegerType() || argType.isRationalType()) {
+      // mixed equalities like "int = rational" are handled by the rational manager
+      return getNumeralManager(null, ImmutableList.of(arg))
+          .equal((NumeralFormula) left, (NumeralFormula) right);
+    } else if (argType.isBitvectorType()) {
+      return getBitvectorManager().equal((BitvectorFormula) left, (BitvectorFormula) right);
+    } else if (argType.isArrayType()) {
+      return to.getArrayFormulaManager().equivalence((ArrayFormula) left, (ArrayFormula) right);
+    }
+    throw new UnsupportedOperationException("can not translate equality of type " + argType);
+  }
+
+  private BitvectorFormula makeBitvectorOperation(
+      FunctionDeclaration<?> declaration, BitvectorFormula left, BitvectorFormula right) {
+    BitvectorFormulaManager bvmgr = getBitvectorManager();
+    FunctionDeclarationKind kind = declaration.getKind();
+    switch (kind) {
+      case BV_AND:
+        return bvmgr.and(left, right);
+      case BV_OR:
+        return bvmgr.or(left, right);
+      case BV_XOR:
+        return bvmgr.xor(left, right);
+      case BV_ADD:
+        return bvmgr.add(left, right);
+      case BV_SUB:
+        return bvmgr.subtract(left, right);
+      case BV_MUL:
+        return bvmgr.multiply(left, right);
+      case BV_SDIV:
+      case BV_UDIV:
+        return bvmgr.divide(left, right, kind == FunctionDeclarationKind.BV_SDIV);
+      case BV_SREM:
+      case BV_UREM:
+        return bvmgr.modulo(left, right, kind == FunctionDeclarationKind.BV_SREM);
+      case BV_SHL:
+        return bvmgr.shiftLeft(left, right);
+      case BV_LSHR:
+      case BV_ASHR:
+        return bvmgr.shiftRight(left, right, kind == FunctionDeclarationKind.BV_ASHR);
+      case BV_CONCAT:
+        return bvmgr.concat(left, right);
+      default:
+        throw new AssertionError("unexpected operation " + declaration);
+    }
+  }
+
+  /**
+   * Returns the rational manager if the result or any operand is rational, and the integer manager
+   * otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  private NumeralFormulaManager<NumeralFormula, ?> getNumeralManager(
+      @Nullable FormulaType<?> resultType, List<Formula> args) {
+    boolean isRational = resultType != null && resultType.isRationalType();
+    for (Formula arg : args) {
+      isRational |= from.getFormulaType(arg).isRationalType();
+    }
+    return isRational
+        ? to.getRationalFormulaManager()
+        : (NumeralFormulaManager<NumeralFormula, ?>) (NumeralFormulaManager<?, ?>)
+            to.getIntegerFormulaManager();
+  }
+
+  private BitvectorFormulaManager getBitvectorManager() {
+    return to.getBitvectorFormulaManager();
+  }
+}
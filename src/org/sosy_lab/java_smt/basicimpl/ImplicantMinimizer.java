@@ -0,0 +1,249 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.basicimpl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.Evaluator;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
+import org.sosy_lab.java_smt.api.QuantifiedFormulaManager.Quantifier;
+import org.sosy_lab.java_smt.api.visitors.BooleanFormulaVisitor;
+
+/**
+ * Shrinks a model of the asserted formulas to a small cube over the important predicates of an
+ * ALLSAT query, such that every consistent assignment of the dropped predicates can be extended to
+ * a model. Blocking the shrunk cube then removes many assignments in one iteration.
+ *
+ * <p>We first compute a justification of the assertions in the model: a set of atoms and important
+ * predicates whose values imply the assertions, e.g., only one true operand of a disjunction. An
+ * important predicate that is not part of the justification is dropped, if it shares no variable
+ * or uninterpreted function with the justification or the remaining predicates. The justification
+ * then still holds if the dropped predicates change their value.
+ *
+ * <p>The result is not necessarily minimal, because the justification depends on the operands that
+ * are chosen for disjunctions.
+ */
+final class ImplicantMinimizer {
+
+  private final FormulaManager fmgr;
+  private final BooleanFormulaManager bmgr;
+  private final ImmutableList<BooleanFormula> assertions;
+
+  /** Names of the variables and UFs of each visited formula, reused for all models. */
+  private final Map<BooleanFormula, Set<String>> symbolCache = new HashMap<>();
+
+  ImplicantMinimizer(FormulaManager pFmgr, Collection<BooleanFormula> pAssertions) {
+    fmgr = pFmgr;
+    bmgr = pFmgr.getBooleanFormulaManager();
+    assertions = ImmutableList.copyOf(pAssertions);
+  }
+
+  /**
+   * Evaluate the important predicates in the current model and return the values of the ones that
+   * are needed, i.e., each predicate as-is if it is true and negated otherwise.
+   */
+  ImmutableList<BooleanFormula> getMinimizedModel(
+      Evaluator evaluator, List<BooleanFormula> importantPredicates) {
+    Set<BooleanFormula> predicates = ImmutableSet.copyOf(importantPredicates);
+    Set<BooleanFormula> needed = new HashSet<>();
+    Set<String> neededSymbols = new HashSet<>();
+    justify(evaluator, predicates, needed, neededSymbols);
+    for (BooleanFormula predicate : needed) {
+      neededSymbols.addAll(getSymbols(predicate));
+    }
+
+    // A predicate that shares symbols with the needed formulas could influence their values,
+    // thus we also keep it, and repeat with its symbols until nothing changes.
+    List<BooleanFormula> candidates = new ArrayList<>();
+    for (BooleanFormula predicate : predicates) {
+      if (!needed.contains(predicate)) {
+        candidates.add(predicate);
+      }
+    }
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (BooleanFormula predicate : candidates) {
+        Set<String> symbols = getSymbols(predicate);
+        if (!needed.contains(predicate) && !Collections.disjoint(symbols, neededSymbols)) {
+          needed.add(predicate);
+          neededSymbols.addAll(symbols);
+          changed = true;
+        }
+      }
+    }
+
+    ImmutableList.Builder<BooleanFormula> valuesOfModel = ImmutableList.builder();
+    for (BooleanFormula predicate : importantPredicates) {
+      if (needed.contains(predicate)) {
+        Boolean value = evaluator.evaluate(predicate);
+        if (value == null) {
+          // The value doesn't matter. We ignore this assignment.
+        } else if (value) {
+          valuesOfModel.add(predicate);
+        } else {
+          valuesOfModel.add(bmgr.not(predicate));
+        }
+      }
+    }
+    return valuesOfModel.build();
+  }
+
+  /**
+   * Collect the important predicates and the symbols of all other atoms that justify the value of
+   * the assertions in the current model.
+   */
+  private void justify(
+      Evaluator evaluator,
+      Set<BooleanFormula> predicates,
+      Set<BooleanFormula> neededPredicates,
+      Set<String> neededSymbols) {
+    Set<BooleanFormula> visited = new HashSet<>();
+    Deque<BooleanFormula> waitlist = new ArrayDeque<>(assertions);
+    while (!waitlist.isEmpty()) {
+      BooleanFormula formula = waitlist.pop();
+      if (!visited.add(formula)) {
+        continue;
+      }
+      if (predicates.contains(formula)) {
+        neededPredicates.add(formula);
+        continue;
+      }
+      JustificationVisitor visitor = new JustificationVisitor(evaluator, formula);
+      waitlist.addAll(bmgr.visit(formula, visitor));
+      if (visitor.isAtom) {
+        neededSymbols.addAll(getSymbols(formula));
+      }
+    }
+  }
+
+  private Set<String> getSymbols(BooleanFormula formula) {
+    return symbolCache.computeIfAbsent(
+        formula, f -> ImmutableSet.copyOf(fmgr.extractVariablesAndUFs(f).keySet()));
+  }
+
+  /**
+   * Returns the operands of a formula that justify its value in the model. If the value is
+   * unknown, all operands are returned.
+   */
+  private static final class JustificationVisitor
+      implements BooleanFormulaVisitor<List<BooleanFormula>> {
+
+    private final Evaluator evaluator;
+    private final @Nullable Boolean value;
+    private boolean isAtom = false;
+
+    JustificationVisitor(Evaluator pEvaluator, BooleanFormula pFormula) {
+      evaluator = pEvaluator;
+      value = pEvaluator.evaluate(pFormula);
+    }
+
+    /** Returns the first operand with the given value, or all operands if there is none. */
+    private List<BooleanFormula> findOperand(List<BooleanFormula> operands, boolean pValue) {
+      for (BooleanFormula operand : operands) {
+        Boolean operandValue = evaluator.evaluate(operand);
+        if (operandValue != null && operandValue == pValue) {
+          return ImmutableList.of(operand);
+        }
+      }
+      return operands;
+    }
+
+    @Override
+    public List<BooleanFormula> visitConstant(boolean pValue) {
+      return ImmutableList.of();
+    }
+
+    @Override
+    public List<BooleanFormula> visitBoundVar(BooleanFormula var, int deBruijnIdx) {
+      return ImmutableList.of();
+    }
+
+    @Override
+    public List<BooleanFormula> visitNot(BooleanFormula operand) {
+      return ImmutableList.of(operand);
+    }
+
+    @Override
+    public List<BooleanFormula> visitAnd(List<BooleanFormula> operands) {
+      // a false conjunction is justified by one false operand
+      return Boolean.FALSE.equals(value) ? findOperand(operands, false) : operands;
+    }
+
+    @Override
+    public List<BooleanFormula> visitOr(List<BooleanFormula> operands) {
+      // a true disjunction is justified by one true operand
+      return Boolean.TRUE.equals(value) ? findOperand(operands, true) : operands;
+    }
+
+    @Override
+    public List<BooleanFormula> visitXor(BooleanFormula operand1, BooleanFormula operand2) {
+      return ImmutableList.of(operand1, operand2);
+    }
+
+    @Override
+    public List<BooleanFormula> visitEquivalence(BooleanFormula operand1, BooleanFormula operand2) {
+      return ImmutableList.of(operand1, operand2);
+    }
+
+    @Override
+    public List<BooleanFormula> visitImplication(BooleanFormula operand1, BooleanFormula operand2) {
+      if (Boolean.TRUE.equals(value)) {
+        if (Boolean.FALSE.equals(evaluator.evaluate(operand1))) {
+          return ImmutableList.of(operand1);
+        } else if (Boolean.TRUE.equals(evaluator.evaluate(operand2))) {
+          return ImmutableList.of(operand2);
+        }
+      }
+      return ImmutableList.of(operand1, operand2);
+    }
+
+    @Override
+    public List<BooleanFormula> visitIfThenElse(
+        BooleanFormula condition, BooleanFormula thenFormula, BooleanFormula elseFormula) {
+      Boolean conditionValue = evaluator.evaluate(condition);
+      if (conditionValue == null) {
+        return ImmutableList.of(condition, thenFormula, elseFormula);
+      }
+      return ImmutableList.of(condition, conditionValue ? thenFormula : elseFormula);
+    }
+
+    @Override
+    public List<BooleanFormula> visitQuantifier(
+        Quantifier quantifier,
+        BooleanFormula quantifiedAST,
+        List<Formula> boundVars,
+        BooleanFormula body) {
+      isAtom = true; // we do not look into quantified formulas
+      return ImmutableList.of();
+    }
+
+    @Override
+    public List<BooleanFormula> visitAtom(
+        BooleanFormula atom, FunctionDeclaration<BooleanFormula> funcDecl) {
+      isAtom = true;
+      return ImmutableList.of();
+    }
+  }
+}
@@ -0,0 +1,83 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.basicimpl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.FormulaType;
+
+/**
+ * The arguments of a function application for {@link
+ * org.sosy_lab.java_smt.api.visitors.FormulaVisitor#visitFunction}, which are only wrapped into
+ * formulas when they are accessed. A recursive traversal can check the {@link #getTermId ids} of
+ * the arguments first and only wraps the arguments that it has not yet visited, while visitors that
+ * prune the traversal never access the arguments at all.
+ *
+ * <p>The list is unmodifiable, and each argument is wrapped at most once.
+ *
+ * @param <TFormulaInfo> the solver specific type for formulas.
+ */
+@SuppressWarnings("ClassTypeParameterName")
+public final class LazyArgumentList<TFormulaInfo> extends AbstractList<Formula>
+    implements RandomAccess {
+
+  private final FormulaCreator<TFormulaInfo, ?, ?, ?> formulaCreator;
+
+  /** The function application, it keeps the arguments alive for solvers with reference counting. */
+  @SuppressWarnings("unused")
+  private final Formula application;
+
+  private final ImmutableList<TFormulaInfo> terms;
+  private final ImmutableList<FormulaType<?>> types;
+  private final Formula[] formulas;
+
+  /**
+   * @param pApplication the function application.
+   * @param pTerms the arguments of the function application.
+   * @param pTypes the types of the arguments, in the same order.
+   */
+  public LazyArgumentList(
+      FormulaCreator<TFormulaInfo, ?, ?, ?> pFormulaCreator,
+      Formula pApplication,
+      List<TFormulaInfo> pTerms,
+      List<FormulaType<?>> pTypes) {
+    formulaCreator = checkNotNull(pFormulaCreator);
+    application = checkNotNull(pApplication);
+    terms = ImmutableList.copyOf(pTerms);
+    types = ImmutableList.copyOf(pTypes);
+    checkArgument(terms.size() == types.size(), "each argument needs a type");
+    formulas = new Formula[terms.size()];
+  }
+
+  @Override
+  public Formula get(int index) {
+    Formula f = formulas[index];
+    if (f == null) {
+      f = formulaCreator.encapsulate(types.get(index), terms.get(index));
+      formulas[index] = f;
+    }
+    return f;
+  }
+
+  @Override
+  public int size() {
+    return terms.size();
+  }
+
+  /** Return the id of the argument without wrapping it, see {@link FormulaCreator#getTermId}. */
+  long getTermId(int index) {
+    return formulaCreator.getTermId(terms.get(index));
+  }
+}
@@ -0,0 +1,248 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.basicimpl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
+import org.sosy_lab.java_smt.api.FunctionDeclarationKind;
+import org.sosy_lab.java_smt.api.QuantifiedFormulaManager.Quantifier;
+import org.sosy_lab.java_smt.api.visitors.DefaultFormulaVisitor;
+
+/**
+ * Extracts the free variables and UFs of a formula with several threads of the common {@link
+ * ForkJoinPool}, for solvers that {@link FormulaCreator#allowsConcurrentVisits allow concurrent
+ * visits}.
+ *
+ * <p>The extraction has two phases. First, all sub-formulas are visited with the solver, and the
+ * part of each visit that matters for the extraction is stored as a {@link Node}. The first {@value
+ * #SEQUENTIAL_VISITS} sub-formulas are visited in the calling thread, such that small formulas do
+ * not pay for the pool. The remaining sub-formulas are handed over to fork-join tasks that share
+ * one concurrent set of visited sub-formulas. If a task has many sub-formulas to visit, e.g., after
+ * visiting a function with many arguments, and the pool lacks work, the task forks half of them
+ * into a new task.
+ *
+ * <p>Second, the calling thread replays the sequential extraction of {@link
+ * FormulaCreator#extractVariablesAndUFs(Formula, boolean, BiConsumer)} on the stored nodes, which
+ * only needs lookups in a map. Thus, the symbols are reported in the same order as by the
+ * sequential extraction, and the consumer is only called by the calling thread.
+ */
+final class ParallelVariableExtractor {
+
+  /** The number of sub-formulas that are visited in the calling thread before tasks are forked. */
+  private static final long SEQUENTIAL_VISITS = 100_000;
+
+  /** A task considers to fork a new task if it has more sub-formulas to visit than this. */
+  private static final int SPLIT_THRESHOLD = 64;
+
+  /** The part of the visit of a sub-formula that matters for the extraction. */
+  private static final class Node {
+
+    private static final Node LEAF = new Node(null, ImmutableList.of(), ImmutableList.of(), null);
+
+    /** The name of a free variable or of a UF application to extract, otherwise null. */
+    private final @Nullable String symbol;
+
+    /** The arguments of a function. */
+    private final List<Formula> args;
+
+    /** The bound variables of a quantifier. */
+    private final List<Formula> boundVariables;
+
+    /** The body of a quantifier, otherwise null. */
+    private final @Nullable BooleanFormula body;
+
+    private Node(
+        @Nullable String pSymbol,
+        List<Formula> pArgs,
+        List<Formula> pBoundVariables,
+        @Nullable BooleanFormula pBody) {
+      symbol = pSymbol;
+      args = pArgs;
+      boundVariables = pBoundVariables;
+      body = pBody;
+    }
+  }
+
+  private final FormulaCreator<?, ?, ?, ?> formulaCreator;
+  private final boolean extractUF;
+
+  /** The visitor is stateless and shared by all tasks. */
+  private final NodeVisitor visitor = new NodeVisitor();
+
+  /** The nodes of all visited sub-formulas. */
+  private final ConcurrentMap<Formula, Node> nodes = new ConcurrentHashMap<>();
+
+  /** The sub-formulas that were already scheduled for a visit by some task. */
+  private final Set<Formula> scheduled = ConcurrentHashMap.newKeySet();
+
+  ParallelVariableExtractor(FormulaCreator<?, ?, ?, ?> pFormulaCreator, boolean pExtractUF) {
+    formulaCreator = checkNotNull(pFormulaCreator);
+    extractUF = pExtractUF;
+  }
+
+  void extract(Formula pFormula, BiConsumer<String, Formula> pConsumer) {
+    scheduled.add(pFormula);
+    Deque<Formula> toVisit = new ArrayDeque<>();
+    toVisit.push(pFormula);
+    ExtractionTask root = new ExtractionTask(toVisit);
+    root.visitSequentially(SEQUENTIAL_VISITS);
+    if (!toVisit.isEmpty()) {
+      ForkJoinPool.commonPool().invoke(root);
+    }
+
+    replay(pFormula, ImmutableSet.of(), new HashSet<>(), pConsumer);
+  }
+
+  /**
+   * Report the symbols of the formula in the order of the sequential extraction, which traverses
+   * each quantifier scope with its own stack and visited set.
+   */
+  private void replay(
+      Formula pFormula,
+      Set<Formula> pBoundVariables,
+      Set<Formula> pReported,
+      BiConsumer<String, Formula> pConsumer) {
+    Set<Formula> seen = new HashSet<>();
+    Deque<Formula> toVisit = new ArrayDeque<>();
+    seen.add(pFormula);
+    toVisit.push(pFormula);
+    while (!toVisit.isEmpty()) {
+      Formula f = toVisit.pop();
+      Node node = checkNotNull(nodes.get(f), "sub-formula was not visited: %s", f);
+      if (node.body != null) {
+        replay(
+            node.body,
+            Sets.union(pBoundVariables, ImmutableSet.copyOf(node.boundVariables)),
+            pReported,
+            pConsumer);
+        continue;
+      }
+      // bound variables of a surrounding quantifier appear to be free
+      if (node.symbol != null && !pBoundVariables.contains(f) && pReported.add(f)) {
+        pConsumer.accept(node.symbol, f);
+      }
+      for (Formula arg : node.args) {
+        if (seen.add(arg)) {
+          toVisit.push(arg);
+        }
+      }
+    }
+  }
+
+  private final class ExtractionTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Deque<Formula> toVisit;
+    private final List<ExtractionTask> forked = new ArrayList<>();
+
+    private ExtractionTask(Deque<Formula> pToVisit) {
+      toVisit = pToVisit;
+    }
+
+    /** Visit at most the given number of sub-formulas in the current thread, without forking. */
+    private void visitSequentially(long pLimit) {
+      for (long i = 0; i < pLimit && !toVisit.isEmpty(); i++) {
+        visitNext();
+      }
+    }
+
+    @Override
+    protected void compute() {
+      while (!toVisit.isEmpty()) {
+        visitNext();
+        if (toVisit.size() > SPLIT_THRESHOLD && getSurplusQueuedTaskCount() < 2) {
+          ExtractionTask task = split();
+          forked.add(task);
+          task.fork();
+        }
+      }
+      // join the most recently forked task first, it is most likely not yet stolen
+      Collections.reverse(forked);
+      for (ExtractionTask task : forked) {
+        task.join();
+      }
+    }
+
+    private void visitNext() {
+      Formula f = toVisit.pop();
+      Node node = formulaCreator.visit(f, visitor);
+      nodes.put(f, node);
+      schedule(node.args);
+      if (node.body != null) {
+        schedule(ImmutableList.of(node.body));
+      }
+    }
+
+    private void schedule(List<? extends Formula> pFormulas) {
+      for (Formula f : pFormulas) {
+        if (scheduled.add(f)) {
+          toVisit.push(f);
+        }
+      }
+    }
+
+    /** Move the older half of the sub-formulas, which were found first, into a new task. */
+    private ExtractionTask split() {
+      Deque<Formula> stolen = new ArrayDeque<>();
+      for (int i = toVisit.size() / 2; i > 0; i--) {
+        stolen.push(toVisit.removeLast());
+      }
+      return new ExtractionTask(stolen);
+    }
+  }
+
+  private final class NodeVisitor extends DefaultFormulaVisitor<Node> {
+
+    @Override
+    protected Node visitDefault(Formula f) {
+      return Node.LEAF;
+    }
+
+    @Override
+    public Node visitFunction(
+        Formula f, List<Formula> args, FunctionDeclaration<?> functionDeclaration) {
+      String symbol =
+          extractUF && functionDeclaration.getKind() == FunctionDeclarationKind.UF
+              ? functionDeclaration.getName()
+              : null;
+      return new Node(symbol, ImmutableList.copyOf(args), ImmutableList.of(), null);
+    }
+
+    @Override
+    public Node visitFreeVariable(Formula f, String name) {
+      return new Node(name, ImmutableList.of(), ImmutableList.of(), null);
+    }
+
+    @Override
+    public Node visitQuantifier(
+        BooleanFormula f, Quantifier q, List<Formula> pBoundVariables, BooleanFormula body) {
+      return new Node(null, ImmutableList.of(), ImmutableList.copyOf(pBoundVariables), body);
+    }
+  }
+}
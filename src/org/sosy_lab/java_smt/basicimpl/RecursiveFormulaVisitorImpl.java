@@ -16,6 +16,7 @@ import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.FunctionDeclaration;
@@ -26,17 +27,32 @@ import org.sosy_lab.java_smt.api.visitors.TraversalProcess.TraversalType;
 
 final class RecursiveFormulaVisitorImpl implements FormulaVisitor<TraversalProcess> {
 
-  private final Set<Formula> seen = new HashSet<>();
+  /** The visited formulas, if the solver does not provide ids of terms. */
+  private final @Nullable Set<Formula> seen;
+
+  /** The ids of the visited formulas, if the solver provides them. */
+  private final @Nullable TermIdSet seenIds;
+
   private final Deque<Formula> toVisit = new ArrayDeque<>();
 
+  private final FormulaCreator<?, ?, ?, ?> formulaCreator;
   private final FormulaVisitor<TraversalProcess> delegate;
 
-  RecursiveFormulaVisitorImpl(FormulaVisitor<TraversalProcess> pDelegate) {
+  RecursiveFormulaVisitorImpl(
+      FormulaCreator<?, ?, ?, ?> pFormulaCreator, FormulaVisitor<TraversalProcess> pDelegate) {
+    formulaCreator = checkNotNull(pFormulaCreator);
     delegate = checkNotNull(pDelegate);
+    if (formulaCreator.hasTermIds()) {
+      seen = null;
+      seenIds = new TermIdSet();
+    } else {
+      seen = new HashSet<>();
+      seenIds = null;
+    }
   }
 
   void addToQueue(Formula f) {
-    if (seen.add(f)) {
+    if (seenIds != null ? seenIds.add(formulaCreator.getTermIdOf(f)) : seen.add(f)) {
       toVisit.push(f);
     }
   }
@@ -47,8 +63,18 @@ final class RecursiveFormulaVisitorImpl implements FormulaVisitor<TraversalProce
 
   private void addToQueueIfNecessary(TraversalProcess result, List<? extends Formula> pOperands) {
     if (result == TraversalProcess.CONTINUE) {
-      for (Formula f : pOperands) {
-        addToQueue(f);
+      if (seenIds != null && pOperands instanceof LazyArgumentList) {
+        // check the ids first, such that already visited operands are never wrapped
+        LazyArgumentList<?> operands = (LazyArgumentList<?>) pOperands;
+        for (int i = 0; i < operands.size(); i++) {
+          if (seenIds.add(operands.getTermId(i))) {
+            toVisit.push(operands.get(i));
+          }
+        }
+      } else {
+        for (Formula f : pOperands) {
+          addToQueue(f);
+        }
       }
     } else if (result.getType() == TraversalType.CUSTOM_TYPE) {
       pOperands.stream().filter(result::contains).forEach(this::addToQueue);
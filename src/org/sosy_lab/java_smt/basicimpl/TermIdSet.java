@@ -0,0 +1,93 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.basicimpl;
+
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+
+/**
+ * A set of term ids, see {@link FormulaCreator#getTermId}. In contrast to a set of formulas, adding
+ * an id neither needs a wrapper object nor calls of {@link Object#equals} or {@link
+ * Object#hashCode}, which may call the native solver. The ids are stored in one array with open
+ * addressing and linear probing.
+ */
+final class TermIdSet {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** The id that marks an empty slot, it is stored separately if it is added itself. */
+  private static final long EMPTY = 0;
+
+  private long[] slots = new long[INITIAL_CAPACITY];
+  private int size = 0;
+  private boolean containsEmpty = false;
+
+  /** Add the id and return whether it was not yet contained. */
+  @CanIgnoreReturnValue
+  boolean add(long id) {
+    if (id == EMPTY) {
+      boolean added = !containsEmpty;
+      containsEmpty = true;
+      return added;
+    }
+    int mask = slots.length - 1;
+    int index = indexOf(id, mask);
+    while (slots[index] != EMPTY) {
+      if (slots[index] == id) {
+        return false;
+      }
+      index = (index + 1) & mask;
+    }
+    slots[index] = id;
+    size++;
+    if (2 * size > slots.length) {
+      grow();
+    }
+    return true;
+  }
+
+  boolean contains(long id) {
+    if (id == EMPTY) {
+      return containsEmpty;
+    }
+    int mask = slots.length - 1;
+    int index = indexOf(id, mask);
+    while (slots[index] != EMPTY) {
+      if (slots[index] == id) {
+        return true;
+      }
+      index = (index + 1) & mask;
+    }
+    return false;
+  }
+
+  int size() {
+    return containsEmpty ? size + 1 : size;
+  }
+
+  private void grow() {
+    long[] oldSlots = slots;
+    slots = new long[2 * oldSlots.length];
+    int mask = slots.length - 1;
+    for (long id : oldSlots) {
+      if (id != EMPTY) {
+        int index = indexOf(id, mask);
+        while (slots[index] != EMPTY) {
+          index = (index + 1) & mask;
+        }
+        slots[index] = id;
+      }
+    }
+  }
+
+  /** Spread the bits of the id, because native addresses are aligned and share their high bits. */
+  private static int indexOf(long id, int mask) {
+    long hash = id * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
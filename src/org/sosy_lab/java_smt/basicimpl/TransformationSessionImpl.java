@@ -0,0 +1,117 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.basicimpl;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ForwardingMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.TransformationSession;
+import org.sosy_lab.java_smt.api.visitors.FormulaVisitor;
+
+/** Internal implementation of transformation sessions, based on recursive transformation. */
+final class TransformationSessionImpl implements TransformationSession {
+
+  private final FormulaCreator<?, ?, ?, ?> formulaCreator;
+  private final FormulaVisitor<? extends Formula> visitor;
+
+  /** Results of previous transformations, the least recently used ones are removed first. */
+  private final Map<Formula, Formula> cache;
+
+  /** The release count of the creator when the cache was filled, see {@link #checkReleases}. */
+  private int releaseCount;
+
+  TransformationSessionImpl(
+      FormulaCreator<?, ?, ?, ?> pFormulaCreator,
+      FormulaVisitor<? extends Formula> pVisitor,
+      int pMaxCacheSize) {
+    Preconditions.checkArgument(pMaxCacheSize >= 0, "cache size must not be negative");
+    formulaCreator = Preconditions.checkNotNull(pFormulaCreator);
+    visitor = Preconditions.checkNotNull(pVisitor);
+    cache =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Formula, Formula> pEldest) {
+            return size() > pMaxCacheSize;
+          }
+        };
+    releaseCount = formulaCreator.getReleaseCount();
+  }
+
+  /** Drop all results if the solver released formulas since the cache was filled. */
+  private void checkReleases() {
+    int currentReleaseCount = formulaCreator.getReleaseCount();
+    if (releaseCount != currentReleaseCount) {
+      cache.clear();
+      releaseCount = currentReleaseCount;
+    }
+  }
+
+  @Override
+  public <T extends Formula> T transform(T f) {
+    checkReleases();
+    // Results are collected separately and added to the bounded cache afterwards,
+    // such that the transformation never misses results of its own sub-formulas.
+    Map<Formula, Formula> results = new HashMap<>();
+    T out =
+        formulaCreator.transformRecursively(visitor, f, t -> true, new CacheView(results, cache));
+    cache.putAll(results);
+    return out;
+  }
+
+  @Override
+  public int getCacheSize() {
+    checkReleases();
+    return cache.size();
+  }
+
+  @Override
+  public void clearCache() {
+    cache.clear();
+  }
+
+  /** The results of the current transformation, backed by the results of previous calls. */
+  private static final class CacheView extends ForwardingMap<Formula, Formula> {
+
+    private final Map<Formula, Formula> results;
+    private final Map<Formula, Formula> previousResults;
+
+    private CacheView(Map<Formula, Formula> pResults, Map<Formula, Formula> pPreviousResults) {
+      results = pResults;
+      previousResults = pPreviousResults;
+    }
+
+    @Override
+    protected Map<Formula, Formula> delegate() {
+      return results;
+    }
+
+    @Override
+    public @Nullable Formula get(@Nullable Object key) {
+      Formula result = results.get(key);
+      if (result == null && key instanceof Formula) {
+        result = previousResults.get(key);
+        if (result != null) {
+          results.put((Formula) key, result);
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public boolean containsKey(@Nullable Object key) {
+      return get(key) != null;
+    }
+  }
+}
@@ -0,0 +1,293 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.caching;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.Model.ValueAssignment;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.delegate.caching.QueryCache.Entry;
+
+/**
+ * Prover that answers satisfiability checks from a cache if the same set of formulas was checked
+ * before. All formulas are still asserted on the wrapped prover, which solves the query only on a
+ * cache miss, or when a model is requested that is not cached.
+ */
+class CachingProverEnvironment implements ProverEnvironment {
+
+  private final ProverEnvironment delegate;
+  private final QueryCache cache;
+  private final FormulaFingerprinter fingerprinter;
+  private final boolean cacheModels;
+  private final boolean generateUnsatCores;
+
+  /** Fingerprints of the asserted formulas per level, the first element is the base level. */
+  private final List<List<HashCode>> levels = new ArrayList<>();
+
+  /** The asserted formulas per level, in the same order as their fingerprints. */
+  private final List<List<BooleanFormula>> formulas = new ArrayList<>();
+
+  /** The result of the last query, or null if the stack was modified afterwards. */
+  private @Nullable Entry lastResult = null;
+
+  /** The assumptions of the last query, if the query had assumptions. */
+  private @Nullable ImmutableList<BooleanFormula> lastAssumptions = null;
+
+  /** The unsat core of the last query, if it was answered from the cache. */
+  private @Nullable ImmutableList<BooleanFormula> lastUnsatCore = null;
+
+  /** Whether the wrapped prover has solved the last query. */
+  private boolean solved = false;
+
+  /** Whether some formula could not be fingerprinted, then all queries are passed through. */
+  private boolean uncacheable = false;
+
+  CachingProverEnvironment(
+      ProverEnvironment pDelegate,
+      QueryCache pCache,
+      FormulaFingerprinter pFingerprinter,
+      boolean pCacheModels,
+      boolean pGenerateUnsatCores) {
+    delegate = checkNotNull(pDelegate);
+    cache = checkNotNull(pCache);
+    fingerprinter = checkNotNull(pFingerprinter);
+    cacheModels = pCacheModels;
+    generateUnsatCores = pGenerateUnsatCores;
+    levels.add(new ArrayList<>());
+    formulas.add(new ArrayList<>());
+  }
+
+  private void resetResult() {
+    lastResult = null;
+    lastAssumptions = null;
+    lastUnsatCore = null;
+    solved = false;
+  }
+
+  @Override
+  public void push() throws InterruptedException {
+    resetResult();
+    delegate.push();
+    levels.add(new ArrayList<>());
+    formulas.add(new ArrayList<>());
+  }
+
+  @Override
+  public void pop() {
+    resetResult();
+    delegate.pop();
+    levels.remove(levels.size() - 1);
+    formulas.remove(formulas.size() - 1);
+  }
+
+  @Override
+  public @Nullable Void addConstraint(BooleanFormula constraint) throws InterruptedException {
+    resetResult();
+    if (!uncacheable) {
+      try {
+        levels.get(levels.size() - 1).add(fingerprinter.fingerprint(constraint));
+        formulas.get(formulas.size() - 1).add(constraint);
+      } catch (UnsupportedOperationException e) {
+        uncacheable = true; // the solver can not visit the formula
+      }
+    }
+    return delegate.addConstraint(constraint);
+  }
+
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  /** The key of a query is the set of all asserted formulas and the assumptions. */
+  private HashCode getKey(Collection<BooleanFormula> assumptions) {
+    List<HashCode> asserted = new ArrayList<>();
+    levels.forEach(asserted::addAll);
+    HashCode key = FormulaFingerprinter.combine("assertions", asserted);
+    if (assumptions.isEmpty()) {
+      return key;
+    }
+    List<HashCode> assumed = new ArrayList<>();
+    for (BooleanFormula assumption : assumptions) {
+      assumed.add(fingerprinter.fingerprint(assumption));
+    }
+    return FormulaFingerprinter.combine(
+        "assumptions", ImmutableList.of(key, FormulaFingerprinter.combine("", assumed)));
+  }
+
+  @Override
+  public boolean isUnsat() throws SolverException, InterruptedException {
+    return query(ImmutableList.of());
+  }
+
+  @Override
+  public boolean isUnsatWithAssumptions(Collection<BooleanFormula> assumptions)
+      throws SolverException, InterruptedException {
+    return query(ImmutableList.copyOf(assumptions));
+  }
+
+  private boolean query(ImmutableList<BooleanFormula> assumptions)
+      throws SolverException, InterruptedException {
+    resetResult();
+    if (uncacheable) {
+      return solve(assumptions);
+    }
+    HashCode key;
+    try {
+      key = getKey(assumptions);
+    } catch (UnsupportedOperationException e) {
+      return solve(assumptions); // the solver can not visit an assumption
+    }
+    Entry entry = cache.get(key);
+    if (entry != null) {
+      // a query without usable unsat core is solved again if an unsat core might be requested
+      if (!entry.isUnsat() || !generateUnsatCores) {
+        lastResult = entry;
+        lastAssumptions = assumptions;
+        return entry.isUnsat();
+      }
+      ImmutableList<BooleanFormula> unsatCore = entry.getUnsatCore();
+      if (unsatCore != null) {
+        unsatCore = getOwnUnsatCore(unsatCore);
+      }
+      if (unsatCore != null) {
+        lastResult = entry;
+        lastAssumptions = assumptions;
+        lastUnsatCore = unsatCore;
+        return true;
+      }
+    }
+
+    boolean unsat = solve(assumptions);
+    lastResult = cache.put(key, unsat);
+    lastAssumptions = assumptions;
+    solved = true;
+    if (unsat && generateUnsatCores && cacheModels && assumptions.isEmpty()) {
+      lastResult.setUnsatCore(delegate.getUnsatCore());
+    }
+    return unsat;
+  }
+
+  /**
+   * Returns the given unsat core in terms of the formulas asserted on this prover, or null if some
+   * formula of the core is not asserted here. The core is from the prover that solved the query
+   * first, whose formulas are only structurally equal to the ones of this prover.
+   */
+  private @Nullable ImmutableList<BooleanFormula> getOwnUnsatCore(List<BooleanFormula> unsatCore) {
+    Map<HashCode, BooleanFormula> asserted = new HashMap<>();
+    for (int level = 0; level < levels.size(); level++) {
+      for (int i = 0; i < levels.get(level).size(); i++) {
+        asserted.putIfAbsent(levels.get(level).get(i), formulas.get(level).get(i));
+      }
+    }
+    ImmutableList.Builder<BooleanFormula> result = ImmutableList.builder();
+    for (BooleanFormula formula : unsatCore) {
+      BooleanFormula own = asserted.get(fingerprinter.fingerprint(formula));
+      if (own == null) {
+        return null;
+      }
+      result.add(own);
+    }
+    return result.build();
+  }
+
+  private boolean solve(List<BooleanFormula> assumptions)
+      throws SolverException, InterruptedException {
+    return assumptions.isEmpty()
+        ? delegate.isUnsat()
+        : delegate.isUnsatWithAssumptions(assumptions);
+  }
+
+  /** Let the wrapped prover solve the last query, if it was answered from the cache. */
+  private void ensureSolved() throws SolverException {
+    if (lastResult != null && !solved) {
+      try {
+        boolean unsat = solve(checkNotNull(lastAssumptions));
+        checkState(
+            unsat == lastResult.isUnsat(),
+            "cached result of query differs from solver result, is the cache outdated?");
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SolverException("Solving the cached query was interrupted", e);
+      }
+      solved = true;
+    }
+  }
+
+  @Override
+  public Model getModel() throws SolverException {
+    ensureSolved();
+    return delegate.getModel();
+  }
+
+  @Override
+  public ImmutableList<ValueAssignment> getModelAssignments() throws SolverException {
+    if (cacheModels && lastResult != null) {
+      ImmutableList<ValueAssignment> model = lastResult.getModel();
+      if (model == null) {
+        ensureSolved();
+        model = delegate.getModelAssignments();
+        lastResult.setModel(model);
+      }
+      return model;
+    }
+    ensureSolved();
+    return delegate.getModelAssignments();
+  }
+
+  @Override
+  public List<BooleanFormula> getUnsatCore() {
+    if (lastUnsatCore != null) {
+      return lastUnsatCore;
+    }
+    // the query was not answered from the cache, as the unsat core would be known then.
+    return delegate.getUnsatCore();
+  }
+
+  @Override
+  public Optional<List<BooleanFormula>> unsatCoreOverAssumptions(
+      Collection<BooleanFormula> assumptions) throws SolverException, InterruptedException {
+    resetResult();
+    return delegate.unsatCoreOverAssumptions(assumptions);
+  }
+
+  @Override
+  public ImmutableMap<String, String> getStatistics() {
+    return ImmutableMap.<String, String>builder()
+        .putAll(delegate.getStatistics())
+        .putAll(cache.getStatistics())
+        .buildKeepingLast();
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  @Override
+  public <R> R allSat(AllSatCallback<R> callback, List<BooleanFormula> important)
+      throws InterruptedException, SolverException {
+    resetResult();
+    return delegate.allSat(callback, important);
+  }
+}
@@ -0,0 +1,137 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.caching;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
+import org.sosy_lab.java_smt.api.OptimizationProverEnvironment;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+
+/**
+ * {@link SolverContext} that wraps all prover environments in their caching versions. The cache is
+ * shared by all provers of the context. Provers with interpolation or optimization are not cached.
+ */
+@Options(prefix = "solver.caching")
+public final class CachingSolverContext implements SolverContext {
+
+  @Option(
+      secure = true,
+      description = "Maximum number of queries whose results are kept in memory.")
+  private int size = 10000;
+
+  @Option(
+      secure = true,
+      description = "Also keep the models and unsat cores of cached queries in memory.")
+  private boolean cacheModels = true;
+
+  @Option(
+      secure = true,
+      description =
+          "Store the results of queries in this file and reuse them in later runs. "
+              + "Models and unsat cores are not stored.")
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private @Nullable Path persistentFile = null;
+
+  private final LogManager logger;
+  private final SolverContext delegate;
+  private final QueryCache cache;
+  private final FormulaFingerprinter fingerprinter;
+
+  public CachingSolverContext(Configuration pConfig, LogManager pLogger, SolverContext pDelegate)
+      throws InvalidConfigurationException {
+    pConfig.inject(this, CachingSolverContext.class);
+    if (size <= 0) {
+      throw new InvalidConfigurationException("Size of query cache must be positive.");
+    }
+    logger = checkNotNull(pLogger);
+    delegate = checkNotNull(pDelegate);
+    cache = new QueryCache(size, persistentFile != null);
+    fingerprinter = new FormulaFingerprinter(delegate.getFormulaManager(), size);
+    if (persistentFile != null) {
+      try {
+        cache.load(persistentFile);
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Cannot read persistent query cache");
+      }
+    }
+  }
+
+  @Override
+  public FormulaManager getFormulaManager() {
+    return delegate.getFormulaManager();
+  }
+
+  @SuppressWarnings("resource")
+  @Override
+  public ProverEnvironment newProverEnvironment(ProverOptions... pOptions) {
+    return new CachingProverEnvironment(
+        delegate.newProverEnvironment(pOptions),
+        cache,
+        fingerprinter,
+        cacheModels,
+        Arrays.asList(pOptions).contains(ProverOptions.GENERATE_UNSAT_CORE));
+  }
+
+  @Override
+  public InterpolatingProverEnvironment<?> newProverEnvironmentWithInterpolation(
+      ProverOptions... options) {
+    return delegate.newProverEnvironmentWithInterpolation(options);
+  }
+
+  @Override
+  public OptimizationProverEnvironment newOptimizationProverEnvironment(ProverOptions... options) {
+    return delegate.newOptimizationProverEnvironment(options);
+  }
+
+  @Override
+  public String getVersion() {
+    return delegate.getVersion();
+  }
+
+  @Override
+  public Solvers getSolverName() {
+    return delegate.getSolverName();
+  }
+
+  @Override
+  public ImmutableMap<String, String> getStatistics() {
+    return ImmutableMap.<String, String>builder()
+        .putAll(delegate.getStatistics())
+        .putAll(cache.getStatistics())
+        .buildKeepingLast();
+  }
+
+  @Override
+  public void close() {
+    if (persistentFile != null) {
+      try {
+        cache.store(persistentFile);
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Cannot write persistent query cache");
+      }
+    }
+    delegate.close();
+  }
+}
@@ -0,0 +1,236 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.caching;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
+import org.sosy_lab.java_smt.api.FunctionDeclarationKind;
+import org.sosy_lab.java_smt.api.QuantifiedFormulaManager.Quantifier;
+import org.sosy_lab.java_smt.api.visitors.FormulaVisitor;
+
+/**
+ * Computes a structural hash of formulas that does not depend on the identity of the formula
+ * objects, such that equal formulas have the same fingerprint across provers and runs. The
+ * operands of commutative operations are ordered by their fingerprint.
+ *
+ * <p>Formulas with operations whose parameters are not visible through their declaration are not
+ * fingerprinted, because two different operations would get the same fingerprint.
+ */
+final class FormulaFingerprinter {
+
+  private static final HashFunction HASH_FUNCTION = Hashing.sha256();
+
+  /** Ordering of fingerprints, used for operands of commutative operations and for sets. */
+  static final Comparator<HashCode> ORDERING = Comparator.comparing(HashCode::toString);
+
+  private static final ImmutableSet<FunctionDeclarationKind> COMMUTATIVE =
+      ImmutableSet.of(
+          FunctionDeclarationKind.AND,
+          FunctionDeclarationKind.OR,
+          FunctionDeclarationKind.XOR,
+          FunctionDeclarationKind.IFF,
+          FunctionDeclarationKind.EQ,
+          FunctionDeclarationKind.DISTINCT,
+          FunctionDeclarationKind.ADD,
+          FunctionDeclarationKind.MUL,
+          FunctionDeclarationKind.BV_AND,
+          FunctionDeclarationKind.BV_OR,
+          FunctionDeclarationKind.BV_XOR,
+          FunctionDeclarationKind.BV_ADD,
+          FunctionDeclarationKind.BV_MUL,
+          FunctionDeclarationKind.BV_EQ);
+
+  /**
+   * Operations that might have parameters that are neither part of their name nor determined by
+   * their sorts. For example, Z3 names all extractions "extract", and the result sort only
+   * determines the difference of the indices. Unknown operations might be indexed as well.
+   */
+  private static final ImmutableSet<FunctionDeclarationKind> INDEXED =
+      ImmutableSet.of(FunctionDeclarationKind.BV_EXTRACT, FunctionDeclarationKind.OTHER);
+
+  private final FormulaManager fmgr;
+
+  /** Fingerprints of asserted formulas, the least recently used ones are removed. */
+  private final Map<Formula, HashCode> fingerprints;
+
+  FormulaFingerprinter(FormulaManager pFmgr, int pMaxSize) {
+    fmgr = checkNotNull(pFmgr);
+    fingerprints =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Formula, HashCode> pEldest) {
+            return size() > pMaxSize;
+          }
+        };
+  }
+
+  /**
+   * Returns the fingerprint of the given formula.
+   *
+   * @throws UnsupportedOperationException if the solver does not support visiting the formula, or
+   *     if the formula contains an operation with parameters that are not visible.
+   */
+  synchronized HashCode fingerprint(Formula input) {
+    HashCode result = fingerprints.get(input);
+    if (result == null) {
+      result = compute(input);
+      fingerprints.put(input, result);
+    }
+    return result;
+  }
+
+  /** Returns a fingerprint of a set of fingerprints, which ignores order and duplicates. */
+  static HashCode combine(String prefix, Collection<HashCode> pFingerprints) {
+    List<HashCode> sorted = new ArrayList<>(ImmutableSet.copyOf(pFingerprints));
+    sorted.sort(ORDERING);
+    Hasher hasher = HASH_FUNCTION.newHasher().putUnencodedChars(prefix).putInt(sorted.size());
+    for (HashCode fingerprint : sorted) {
+      hasher.putBytes(fingerprint.asBytes());
+    }
+    return hasher.hash();
+  }
+
+  private HashCode compute(Formula input) {
+    // subformulas are hashed bottom-up without recursion, shared subformulas only once.
+    Map<Formula, HashCode> computed = new HashMap<>();
+    Deque<Formula> toProcess = new ArrayDeque<>();
+    FingerprintVisitor visitor = new FingerprintVisitor(computed, toProcess);
+    toProcess.push(input);
+    while (!toProcess.isEmpty()) {
+      Formula f = toProcess.peek();
+      if (computed.containsKey(f)) {
+        toProcess.pop();
+      } else {
+        fmgr.visit(f, visitor);
+      }
+    }
+    return computed.get(input);
+  }
+
+  private final class FingerprintVisitor implements FormulaVisitor<Void> {
+
+    private final Map<Formula, HashCode> computed;
+    private final Deque<Formula> toProcess;
+
+    FingerprintVisitor(Map<Formula, HashCode> pComputed, Deque<Formula> pToProcess) {
+      computed = pComputed;
+      toProcess = pToProcess;
+    }
+
+    private Hasher newHasher(String tag, Formula f) {
+      return HASH_FUNCTION
+          .newHasher()
+          .putUnencodedChars(tag)
+          .putChar('\0')
+          .putUnencodedChars(fmgr.getFormulaType(f).toString())
+          .putChar('\0');
+    }
+
+    /** Returns the fingerprints of the operands, or null if some of them are not yet computed. */
+    private @Nullable List<HashCode> getOperands(List<? extends Formula> operands) {
+      List<HashCode> result = new ArrayList<>(operands.size());
+      boolean complete = true;
+      for (Formula operand : operands) {
+        HashCode fingerprint = computed.get(operand);
+        if (fingerprint == null) {
+          toProcess.push(operand);
+          complete = false;
+        } else {
+          result.add(fingerprint);
+        }
+      }
+      return complete ? result : null;
+    }
+
+    @Override
+    public Void visitFreeVariable(Formula f, String name) {
+      computed.put(f, newHasher("var", f).putUnencodedChars(name).hash());
+      return null;
+    }
+
+    @Override
+    public Void visitBoundVariable(Formula f, int deBruijnIdx) {
+      computed.put(f, newHasher("bound", f).putInt(deBruijnIdx).hash());
+      return null;
+    }
+
+    @Override
+    public Void visitConstant(Formula f, Object value) {
+      computed.put(f, newHasher("const", f).putUnencodedChars(value.toString()).hash());
+      return null;
+    }
+
+    @Override
+    public Void visitFunction(
+        Formula f, List<Formula> args, FunctionDeclaration<?> functionDeclaration) {
+      if (INDEXED.contains(functionDeclaration.getKind())) {
+        throw new UnsupportedOperationException(
+            "can not fingerprint operation with hidden parameters: " + functionDeclaration);
+      }
+      List<HashCode> operands = getOperands(args);
+      if (operands != null) {
+        if (COMMUTATIVE.contains(functionDeclaration.getKind())) {
+          operands.sort(ORDERING);
+        }
+        Hasher hasher =
+            newHasher("fun", f)
+                .putUnencodedChars(functionDeclaration.getKind().name())
+                .putChar('\0')
+                .putUnencodedChars(functionDeclaration.getName())
+                .putChar('\0')
+                .putInt(operands.size());
+        for (HashCode operand : operands) {
+          hasher.putBytes(operand.asBytes());
+        }
+        computed.put(f, hasher.hash());
+      }
+      return null;
+    }
+
+    @Override
+    public Void visitQuantifier(
+        BooleanFormula f,
+        Quantifier quantifier,
+        List<Formula> boundVariables,
+        BooleanFormula body) {
+      List<Formula> operands = new ArrayList<>(boundVariables);
+      operands.add(body);
+      List<HashCode> fingerprints = getOperands(operands);
+      if (fingerprints != null) {
+        Hasher hasher = newHasher("quantifier", f).putUnencodedChars(quantifier.name());
+        for (HashCode operand : fingerprints) {
+          hasher.putBytes(operand.asBytes());
+        }
+        computed.put(f, hasher.hash());
+      }
+      return null;
+    }
+  }
+}
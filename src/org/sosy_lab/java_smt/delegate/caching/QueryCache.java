@@ -0,0 +1,178 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.caching;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Model.ValueAssignment;
+
+/**
+ * Results of satisfiability checks, keyed by the fingerprint of the query. The most recently used
+ * results are kept in memory together with their models and unsat cores. Optionally, all results
+ * (without models and unsat cores) are also stored in a file and reused in later runs.
+ */
+final class QueryCache {
+
+  private static final String SAT = "sat";
+  private static final String UNSAT = "unsat";
+
+  /** The result of a query, guarded by the cache. */
+  final class Entry {
+
+    private final boolean unsat;
+    private @Nullable ImmutableList<ValueAssignment> model = null;
+    private @Nullable ImmutableList<BooleanFormula> unsatCore = null;
+
+    private Entry(boolean pUnsat) {
+      unsat = pUnsat;
+    }
+
+    boolean isUnsat() {
+      return unsat;
+    }
+
+    @Nullable ImmutableList<ValueAssignment> getModel() {
+      synchronized (QueryCache.this) {
+        return model;
+      }
+    }
+
+    void setModel(ImmutableList<ValueAssignment> pModel) {
+      synchronized (QueryCache.this) {
+        model = pModel;
+      }
+    }
+
+    @Nullable ImmutableList<BooleanFormula> getUnsatCore() {
+      synchronized (QueryCache.this) {
+        return unsatCore;
+      }
+    }
+
+    void setUnsatCore(List<BooleanFormula> pUnsatCore) {
+      synchronized (QueryCache.this) {
+        unsatCore = ImmutableList.copyOf(pUnsatCore);
+      }
+    }
+  }
+
+  /** All fields below are guarded by {@code this}. */
+  private final Map<HashCode, Entry> entries;
+
+  /** Results of the persistent tier, or null if there is no file. */
+  private final @Nullable Map<HashCode, Boolean> persistentEntries;
+
+  private long hits = 0;
+  private long persistentHits = 0;
+  private long misses = 0;
+  private long evictions = 0;
+
+  QueryCache(int pMaxSize, boolean pPersistent) {
+    entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<HashCode, Entry> pEldest) {
+            if (size() > pMaxSize) {
+              evictions++;
+              return true;
+            }
+            return false;
+          }
+        };
+    persistentEntries = pPersistent ? new HashMap<>() : null;
+  }
+
+  /** Returns the cached result of a query, or null if it is unknown. */
+  synchronized @Nullable Entry get(HashCode key) {
+    Entry entry = entries.get(key);
+    if (entry != null) {
+      hits++;
+      return entry;
+    }
+    Boolean unsat = persistentEntries == null ? null : persistentEntries.get(key);
+    if (unsat != null) {
+      persistentHits++;
+      entry = new Entry(unsat);
+      entries.put(key, entry);
+      return entry;
+    }
+    misses++;
+    return null;
+  }
+
+  synchronized Entry put(HashCode key, boolean unsat) {
+    Entry entry = new Entry(unsat);
+    entries.put(key, entry);
+    if (persistentEntries != null) {
+      persistentEntries.put(key, unsat);
+    }
+    return entry;
+  }
+
+  /** Read results from a file of a previous run, lines that can not be parsed are ignored. */
+  synchronized void load(Path file) throws IOException {
+    if (persistentEntries == null || !Files.exists(file)) {
+      return;
+    }
+    for (String line : Files.readAllLines(file, UTF_8)) {
+      List<String> parts = Splitter.on(' ').splitToList(line);
+      if (parts.size() == 2 && (parts.get(1).equals(SAT) || parts.get(1).equals(UNSAT))) {
+        try {
+          persistentEntries.put(HashCode.fromString(parts.get(0)), parts.get(1).equals(UNSAT));
+        } catch (IllegalArgumentException e) {
+          // no valid fingerprint, ignore line
+        }
+      }
+    }
+  }
+
+  synchronized void store(Path file) throws IOException {
+    if (persistentEntries == null) {
+      return;
+    }
+    List<String> lines = new ArrayList<>(persistentEntries.size());
+    for (Map.Entry<HashCode, Boolean> entry : persistentEntries.entrySet()) {
+      lines.add(entry.getKey() + " " + (entry.getValue() ? UNSAT : SAT));
+    }
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Files.write(file, lines, UTF_8);
+  }
+
+  synchronized ImmutableMap<String, String> getStatistics() {
+    ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+    builder.put("cache hits", Long.toString(hits));
+    builder.put("cache misses", Long.toString(misses));
+    builder.put("cache evictions", Long.toString(evictions));
+    builder.put("cached queries", Integer.toString(entries.size()));
+    if (persistentEntries != null) {
+      builder.put("persistent cache hits", Long.toString(persistentHits));
+      builder.put("persistent cached queries", Integer.toString(persistentEntries.size()));
+    }
+    return builder.buildOrThrow();
+  }
+}
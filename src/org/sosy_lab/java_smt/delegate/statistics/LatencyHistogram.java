@@ -0,0 +1,172 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.statistics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.math.IntMath;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.sosy_lab.common.time.TimeSpan;
+
+/**
+ * Histogram of latencies in nanoseconds, with buckets of logarithmic size like in HdrHistogram.
+ * Each bucket covers a range of values with a relative width of at most 1/{@value #SUB_BUCKETS},
+ * which is the precision of the reported percentiles.
+ *
+ * <p>The buckets are striped over a fixed number of stripes, which are selected by the hash of the
+ * recording thread, such that concurrent provers rarely contend on a shared counter while the
+ * memory does not grow with the number of threads. A stripe is only allocated when a thread first
+ * records into it. The stripes are merged when the histogram is read. Only completed intervals are
+ * counted.
+ */
+public final class LatencyHistogram {
+
+  /** Number of linear sub-buckets per power of two, must be a power of two. */
+  private static final int SUB_BUCKET_BITS = 5;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /** Enough buckets for all non-negative long values. */
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  /** Number of stripes, a power of two that is large enough for the available processors. */
+  private static final int STRIPES =
+      Math.min(64, IntMath.ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors()));
+
+  /** The buckets of one stripe. Several threads can write into the same stripe. */
+  private static final class Stripe {
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    private void record(long value) {
+      counts.incrementAndGet(bucketIndex(value));
+      sum.addAndGet(value);
+      max.accumulateAndGet(value, Math::max);
+    }
+  }
+
+  private final AtomicReferenceArray<Stripe> stripes = new AtomicReferenceArray<>(STRIPES);
+
+  LatencyHistogram() {}
+
+  /** Record the time that has passed since the given value of {@link System#nanoTime()}. */
+  void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /** Record an interval with the given length in nanoseconds. */
+  void record(long nanos) {
+    int hash = System.identityHashCode(Thread.currentThread());
+    int index = (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    Stripe stripe = stripes.get(index);
+    if (stripe == null) {
+      stripes.compareAndSet(index, null, new Stripe());
+      stripe = stripes.get(index);
+    }
+    stripe.record(Math.max(0, nanos));
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    // the highest SUB_BUCKET_BITS + 1 bits of the value determine its bucket
+    int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+  }
+
+  /** The largest value that is counted in the given bucket. */
+  static long highestValueInBucket(int index) {
+    if (index < 2 * SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    return lowest + ((1L << shift) - 1);
+  }
+
+  /** Return all stripes that were already allocated. */
+  private List<Stripe> allocatedStripes() {
+    List<Stripe> allocated = new ArrayList<>(STRIPES);
+    for (int i = 0; i < STRIPES; i++) {
+      Stripe stripe = stripes.get(i);
+      if (stripe != null) {
+        allocated.add(stripe);
+      }
+    }
+    return allocated;
+  }
+
+  public long getCount() {
+    long count = 0;
+    for (Stripe r : allocatedStripes()) {
+      for (int i = 0; i < BUCKETS; i++) {
+        count += r.counts.get(i);
+      }
+    }
+    return count;
+  }
+
+  public TimeSpan getSumTime() {
+    long sum = 0;
+    for (Stripe r : allocatedStripes()) {
+      sum += r.sum.get();
+    }
+    return TimeSpan.ofNanos(sum);
+  }
+
+  public TimeSpan getMaxTime() {
+    return TimeSpan.ofNanos(getMaxNanos());
+  }
+
+  private long getMaxNanos() {
+    long max = 0;
+    for (Stripe r : allocatedStripes()) {
+      max = Math.max(max, r.max.get());
+    }
+    return max;
+  }
+
+  /**
+   * Return the given percentile (between 0 and 100) of all recorded intervals, i.e., an upper bound
+   * for the given percentage of intervals. If no interval was recorded, this method returns 0.
+   */
+  public TimeSpan getPercentile(double percentile) {
+    checkArgument(0 <= percentile && percentile <= 100, "invalid percentile %s", percentile);
+    long[] merged = new long[BUCKETS];
+    long count = 0;
+    for (Stripe r : allocatedStripes()) {
+      for (int i = 0; i < BUCKETS; i++) {
+        long bucketCount = r.counts.get(i);
+        merged[i] += bucketCount;
+        count += bucketCount;
+      }
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS && count > 0; i++) {
+      seen += merged[i];
+      if (seen >= rank) {
+        return TimeSpan.ofNanos(Math.min(highestValueInBucket(i), getMaxNanos()));
+      }
+    }
+    return TimeSpan.ofNanos(count == 0 ? 0 : getMaxNanos());
+  }
+
+  @Override
+  public String toString() {
+    return getSumTime().formatAs(TimeUnit.SECONDS);
+  }
+}
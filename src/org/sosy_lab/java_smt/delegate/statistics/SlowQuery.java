@@ -0,0 +1,78 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.statistics;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+
+/** A slow satisfiability check, together with the formulas that were checked. */
+public final class SlowQuery {
+
+  private final String operation;
+  private final long nanos;
+  private final FormulaManager fmgr;
+
+  /** The asserted formulas and assumptions of the query, until the dump is created. */
+  private @Nullable ImmutableList<BooleanFormula> formulas;
+
+  private @Nullable String dump = null;
+
+  SlowQuery(
+      String pOperation,
+      long pNanos,
+      ImmutableList<BooleanFormula> pFormulas,
+      FormulaManager pMgr) {
+    operation = checkNotNull(pOperation);
+    nanos = pNanos;
+    formulas = checkNotNull(pFormulas);
+    fmgr = checkNotNull(pMgr);
+  }
+
+  /** The name of the prover operation, e.g., "isUnsat". */
+  public String getOperation() {
+    return operation;
+  }
+
+  public TimeSpan getTime() {
+    return TimeSpan.ofNanos(nanos);
+  }
+
+  long getNanos() {
+    return nanos;
+  }
+
+  /**
+   * Return an SMT-LIB script that asserts all formulas and assumptions of the query and checks
+   * them. The script is created on the first call, which needs to happen before the context is
+   * closed. Closing the {@link StatisticsSolverContext} creates the scripts of all kept queries.
+   */
+  public synchronized String getDump() {
+    if (dump == null) {
+      ImmutableList<BooleanFormula> queryFormulas = checkNotNull(formulas);
+      try {
+        BooleanFormula query = fmgr.getBooleanFormulaManager().and(queryFormulas);
+        dump = fmgr.dumpFormula(query) + "(check-sat)\n";
+      } catch (UnsupportedOperationException e) {
+        dump = "; the solver does not support dumping formulas: " + e.getMessage() + "\n";
+      }
+      formulas = null; // no longer needed
+    }
+    return dump;
+  }
+
+  @Override
+  public String toString() {
+    return operation + " (" + getTime() + ")";
+  }
+}
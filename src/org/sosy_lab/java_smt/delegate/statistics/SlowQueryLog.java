@@ -0,0 +1,85 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.statistics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.MoreFiles;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import org.sosy_lab.common.io.PathCounterTemplate;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+
+/**
+ * The slowest satisfiability checks of a context. The number of kept queries is bounded, a new
+ * query replaces the fastest kept query if it is slower.
+ */
+final class SlowQueryLog {
+
+  private static final Comparator<SlowQuery> BY_TIME =
+      Comparator.comparingLong(SlowQuery::getNanos);
+
+  private final int capacity;
+  private final FormulaManager fmgr;
+
+  /** The kept queries, the fastest one first. Guarded by {@code this}. */
+  private final PriorityQueue<SlowQuery> queries;
+
+  /**
+   * Queries that are not slower than this time would not be kept. This allows to skip the
+   * collection of formulas and the synchronization for most queries.
+   */
+  private volatile long threshold = -1;
+
+  SlowQueryLog(int pCapacity, FormulaManager pMgr) {
+    checkArgument(pCapacity > 0);
+    capacity = pCapacity;
+    fmgr = checkNotNull(pMgr);
+    queries = new PriorityQueue<>(pCapacity + 1, BY_TIME);
+  }
+
+  /** Whether a query with the given time would be kept. */
+  boolean isSlow(long nanos) {
+    return nanos > threshold;
+  }
+
+  synchronized void add(String operation, long nanos, ImmutableList<BooleanFormula> formulas) {
+    if (!isSlow(nanos)) {
+      return; // another query was added concurrently
+    }
+    queries.add(new SlowQuery(operation, nanos, formulas, fmgr));
+    if (queries.size() > capacity) {
+      queries.poll();
+    }
+    if (queries.size() == capacity) {
+      threshold = queries.element().getNanos();
+    }
+  }
+
+  /** Return the kept queries, the slowest one first. */
+  synchronized ImmutableList<SlowQuery> getQueries() {
+    return ImmutableList.sortedCopyOf(BY_TIME.reversed(), queries);
+  }
+
+  /** Create the dumps of all kept queries and write them into files, the slowest one first. */
+  void export(PathCounterTemplate files) throws IOException {
+    for (SlowQuery query : getQueries()) {
+      String dump = query.getDump();
+      Path file = files.getFreshPath();
+      MoreFiles.createParentDirectories(file);
+      Files.writeString(file, dump);
+    }
+  }
+}
@@ -8,72 +8,92 @@
 
 package org.sosy_lab.java_smt.delegate.statistics;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import com.google.common.primitives.Ints;
+import java.util.concurrent.atomic.LongAdder;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.time.TimeSpan;
 
+/**
+ * Statistics about the interaction with a solver. The counters are striped {@link LongAdder}s and
+ * the latencies are recorded in per-thread histograms, such that concurrent provers do not contend
+ * on shared counters.
+ */
 public class SolverStatistics {
 
   // prover operations
-  final AtomicInteger provers = new AtomicInteger();
-  final AtomicInteger pop = new AtomicInteger();
-  final AtomicInteger push = new AtomicInteger();
-  final AtomicInteger constraint = new AtomicInteger();
-  final AtomicInteger model = new AtomicInteger();
-  final AtomicInteger unsatCore = new AtomicInteger();
-
-  final TimerPool unsat = new TimerPool();
-  final TimerPool allSat = new TimerPool();
-  final TimerPool interpolation = new TimerPool();
+  final LongAdder provers = new LongAdder();
+  final LatencyHistogram pop = new LatencyHistogram();
+  final LatencyHistogram push = new LatencyHistogram();
+  final LatencyHistogram constraint = new LatencyHistogram();
+  final LatencyHistogram unsatCore = new LatencyHistogram();
+  final LatencyHistogram unsat = new LatencyHistogram();
+  final LatencyHistogram model = new LatencyHistogram();
+  final LatencyHistogram allSat = new LatencyHistogram();
+  final LatencyHistogram interpolation = new LatencyHistogram();
+
+  /** The slowest satisfiability checks, or null if they are not kept. */
+  final @Nullable SlowQueryLog slowQueries;
 
   // manager operations
-  final AtomicInteger visits = new AtomicInteger();
-  final AtomicInteger booleanOperations = new AtomicInteger();
-  final AtomicInteger numericOperations = new AtomicInteger();
-  final AtomicInteger arrayOperations = new AtomicInteger();
-  final AtomicInteger slOperations = new AtomicInteger();
-  final AtomicInteger ufOperations = new AtomicInteger();
-  final AtomicInteger quantifierOperations = new AtomicInteger();
-  final AtomicInteger bvOperations = new AtomicInteger();
-  final AtomicInteger fpOperations = new AtomicInteger();
-  final AtomicInteger typeOperations = new AtomicInteger();
-  final AtomicInteger stringOperations = new AtomicInteger();
-  final AtomicInteger enumerationDeclarations = new AtomicInteger();
-  final AtomicInteger enumerationOperations = new AtomicInteger();
+  final LongAdder visits = new LongAdder();
+  final LongAdder booleanOperations = new LongAdder();
+  final LongAdder numericOperations = new LongAdder();
+  final LongAdder arrayOperations = new LongAdder();
+  final LongAdder slOperations = new LongAdder();
+  final LongAdder ufOperations = new LongAdder();
+  final LongAdder quantifierOperations = new LongAdder();
+  final LongAdder bvOperations = new LongAdder();
+  final LongAdder fpOperations = new LongAdder();
+  final LongAdder typeOperations = new LongAdder();
+  final LongAdder stringOperations = new LongAdder();
+  final LongAdder enumerationDeclarations = new LongAdder();
+  final LongAdder enumerationOperations = new LongAdder();
 
   // model operations
-  final AtomicInteger modelEvaluations = new AtomicInteger();
-  final AtomicInteger modelListings = new AtomicInteger();
+  final LongAdder modelEvaluations = new LongAdder();
+  final LongAdder modelListings = new LongAdder();
+
+  SolverStatistics(@Nullable SlowQueryLog pSlowQueries) {
+    slowQueries = pSlowQueries;
+  }
 
-  SolverStatistics() {}
+  private static int count(LongAdder counter) {
+    return count(counter.sum());
+  }
+
+  private static int count(long value) {
+    return Ints.saturatedCast(value);
+  }
 
   // visible access methods
   public int getNumberOfProverEnvironments() {
-    return provers.get();
+    return count(provers);
   }
 
   public int getNumberOfPopQueries() {
-    return pop.get();
+    return count(pop.getCount());
   }
 
   public int getNumberOfPushQueries() {
-    return push.get();
+    return count(push.getCount());
   }
 
   public int getNumberOfAddConstraintQueries() {
-    return constraint.get();
+    return count(constraint.getCount());
   }
 
   public int getNumberOfModelQueries() {
-    return model.get();
+    return count(model.getCount());
   }
 
   public int getNumberOfUnsatCoreQueries() {
-    return unsatCore.get();
+    return count(unsatCore.getCount());
   }
 
   public int getNumberOfIsUnsatQueries() {
-    return unsat.getNumberOfIntervals();
+    return count(unsat.getCount());
   }
 
   public TimeSpan getSumTimeOfIsUnsatQueries() {
@@ -85,7 +105,7 @@ public class SolverStatistics {
   }
 
   public int getNumberOfAllSatQueries() {
-    return allSat.getNumberOfIntervals();
+    return count(allSat.getCount());
   }
 
   public TimeSpan getSumTimeOfAllSatQueries() {
@@ -97,7 +117,7 @@ public class SolverStatistics {
   }
 
   public int getNumberOfInterpolationQueries() {
-    return interpolation.getNumberOfIntervals();
+    return count(interpolation.getCount());
   }
 
   public TimeSpan getSumTimeOfInterpolationQueries() {
@@ -108,56 +128,101 @@ public class SolverStatistics {
     return interpolation.getMaxTime();
   }
 
+  public LatencyHistogram getPushLatencies() {
+    return push;
+  }
+
+  public LatencyHistogram getPopLatencies() {
+    return pop;
+  }
+
+  public LatencyHistogram getAddConstraintLatencies() {
+    return constraint;
+  }
+
+  /** Latencies of unsat core queries, including unsat cores over assumptions. */
+  public LatencyHistogram getUnsatCoreLatencies() {
+    return unsatCore;
+  }
+
+  /** Latencies of isUnsat queries, including checks of optimization provers. */
+  public LatencyHistogram getIsUnsatLatencies() {
+    return unsat;
+  }
+
+  /** Latencies of model queries, excluding the later evaluations in the model. */
+  public LatencyHistogram getModelLatencies() {
+    return model;
+  }
+
+  public LatencyHistogram getAllSatLatencies() {
+    return allSat;
+  }
+
+  /** Latencies of interpolation queries, including sequential and tree interpolation. */
+  public LatencyHistogram getInterpolationLatencies() {
+    return interpolation;
+  }
+
+  /**
+   * Return the slowest satisfiability checks together with their SMT-LIB dump, the slowest one
+   * first. The list is empty unless the option {@code solver.statistics.slowQueries} is set.
+   */
+  public ImmutableList<SlowQuery> getSlowQueries() {
+    return slowQueries == null ? ImmutableList.of() : slowQueries.getQueries();
+  }
+
   public int getNumberOfBooleanOperations() {
-    return booleanOperations.get();
+    return count(booleanOperations);
   }
 
   public int getNumberOfVisits() {
-    return visits.get();
+    return count(visits);
   }
 
   public int getNumberOfNumericOperations() {
-    return numericOperations.get();
+    return count(numericOperations);
   }
 
   public int getNumberOfArrayOperations() {
-    return arrayOperations.get();
+    return count(arrayOperations);
   }
 
   public int getNumberOfSLOperations() {
-    return slOperations.get();
+    return count(slOperations);
   }
 
   public int getNumberOfUFOperations() {
-    return ufOperations.get();
+    return count(ufOperations);
   }
 
   public int getNumberOfQuantifierOperations() {
-    return quantifierOperations.get();
+    return count(quantifierOperations);
   }
 
   public int getNumberOfBVOperations() {
-    return bvOperations.get();
+    return count(bvOperations);
   }
 
   public int getNumberOfFPOperations() {
-    return fpOperations.get();
+    return count(fpOperations);
   }
 
   public int getNumberOfStringOperations() {
-    return stringOperations.get();
+    return count(stringOperations);
   }
 
   public int getNumberOfModelEvaluationQueries() {
-    return modelEvaluations.get();
+    return count(modelEvaluations);
   }
 
   public int getNumberOfModelListings() {
-    return modelListings.get();
+    return count(modelListings);
   }
 
   public ImmutableMap<String, Object> asMap() {
-    return ImmutableMap.<String, Object>builder()
+    ImmutableMap.Builder<String, Object> builder = ImmutableMap.builder();
+    builder
         .put("number of prover environments", getNumberOfProverEnvironments())
         .put("number of pop queries", getNumberOfPopQueries())
         .put("number of push queries", getNumberOfPushQueries())
@@ -172,7 +237,22 @@ public class SolverStatistics {
         .put("maxTime of allSat queries", getMaxTimeOfAllSatQueries())
         .put("number of interpolation queries", getNumberOfInterpolationQueries())
         .put("sumTime of interpolation queries", getSumTimeOfInterpolationQueries())
-        .put("maxTime of interpolation queries", getMaxTimeOfInterpolationQueries())
+        .put("maxTime of interpolation queries", getMaxTimeOfInterpolationQueries());
+    builder
+        .put("maxTime of push queries", push.getMaxTime())
+        .put("maxTime of pop queries", pop.getMaxTime())
+        .put("maxTime of addConstraint queries", constraint.getMaxTime())
+        .put("maxTime of unsatCore queries", unsatCore.getMaxTime())
+        .put("maxTime of model queries", model.getMaxTime());
+    putPercentiles(builder, "push", push);
+    putPercentiles(builder, "pop", pop);
+    putPercentiles(builder, "addConstraint", constraint);
+    putPercentiles(builder, "unsatCore", unsatCore);
+    putPercentiles(builder, "model", model);
+    putPercentiles(builder, "isUnsat", unsat);
+    putPercentiles(builder, "allSat", allSat);
+    putPercentiles(builder, "interpolation", interpolation);
+    return builder
         .put("number of visits", getNumberOfVisits())
         .put("number of Boolean operations", getNumberOfBooleanOperations())
         .put("number of Numeric operations", getNumberOfNumericOperations())
@@ -187,4 +267,13 @@ public class SolverStatistics {
         .put("number of model listings", getNumberOfModelListings())
         .buildOrThrow();
   }
+
+  private static void putPercentiles(
+      ImmutableMap.Builder<String, Object> builder, String query, LatencyHistogram latencies) {
+    for (int percentile : new int[] {50, 95, 99}) {
+      builder.put(
+          "p" + percentile + " time of " + query + " queries",
+          latencies.getPercentile(percentile));
+    }
+  }
 }
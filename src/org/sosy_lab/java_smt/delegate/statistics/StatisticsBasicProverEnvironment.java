@@ -10,6 +10,9 @@ package org.sosy_lab.java_smt.delegate.statistics;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -18,39 +21,88 @@ import org.sosy_lab.java_smt.api.BasicProverEnvironment;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Model;
 import org.sosy_lab.java_smt.api.SolverException;
-import org.sosy_lab.java_smt.delegate.statistics.TimerPool.TimerWrapper;
 
 class StatisticsBasicProverEnvironment<T> implements BasicProverEnvironment<T> {
 
   private final BasicProverEnvironment<T> delegate;
   final SolverStatistics stats;
-  final TimerWrapper unsatTimer;
-  private final TimerWrapper allSatTimer;
+
+  /**
+   * The asserted formulas per level, the first element is the base level. This is only tracked if
+   * slow queries are kept, otherwise it is null.
+   */
+  private final @Nullable List<List<BooleanFormula>> levels;
 
   StatisticsBasicProverEnvironment(BasicProverEnvironment<T> pDelegate, SolverStatistics pStats) {
     delegate = checkNotNull(pDelegate);
     stats = checkNotNull(pStats);
-    unsatTimer = stats.unsat.getNewTimer();
-    allSatTimer = stats.allSat.getNewTimer();
-    stats.provers.getAndIncrement();
+    stats.provers.increment();
+    if (stats.slowQueries != null) {
+      levels = new ArrayList<>();
+      levels.add(new ArrayList<>());
+    } else {
+      levels = null;
+    }
+  }
+
+  /**
+   * Record the time of a satisfiability check and keep the query if it is one of the slowest.
+   *
+   * @param start the value of {@link System#nanoTime()} before the query
+   */
+  void recordQuery(
+      LatencyHistogram latencies,
+      String operation,
+      long start,
+      Collection<BooleanFormula> assumptions) {
+    long nanos = System.nanoTime() - start;
+    latencies.record(nanos);
+    if (stats.slowQueries != null && stats.slowQueries.isSlow(nanos)) {
+      ImmutableList.Builder<BooleanFormula> formulas = ImmutableList.builder();
+      checkNotNull(levels).forEach(formulas::addAll);
+      formulas.addAll(assumptions);
+      stats.slowQueries.add(operation, nanos, formulas.build());
+    }
   }
 
   @Override
   public void pop() {
-    stats.pop.getAndIncrement();
-    delegate.pop();
+    long start = System.nanoTime();
+    try {
+      delegate.pop();
+      if (levels != null) {
+        levels.remove(levels.size() - 1);
+      }
+    } finally {
+      stats.pop.recordSince(start);
+    }
   }
 
   @Override
   public @Nullable T addConstraint(BooleanFormula pConstraint) throws InterruptedException {
-    stats.constraint.getAndIncrement();
-    return delegate.addConstraint(pConstraint);
+    long start = System.nanoTime();
+    try {
+      T result = delegate.addConstraint(pConstraint);
+      if (levels != null) {
+        levels.get(levels.size() - 1).add(pConstraint);
+      }
+      return result;
+    } finally {
+      stats.constraint.recordSince(start);
+    }
   }
 
   @Override
   public void push() throws InterruptedException {
-    stats.push.getAndIncrement();
-    delegate.push();
+    long start = System.nanoTime();
+    try {
+      delegate.push();
+      if (levels != null) {
+        levels.add(new ArrayList<>());
+      }
+    } finally {
+      stats.push.recordSince(start);
+    }
   }
 
   @Override
@@ -60,43 +112,60 @@ class StatisticsBasicProverEnvironment<T> implements BasicProverEnvironment<T> {
 
   @Override
   public boolean isUnsat() throws SolverException, InterruptedException {
-    unsatTimer.start();
+    long start = System.nanoTime();
     try {
       return delegate.isUnsat();
     } finally {
-      unsatTimer.stop();
+      recordQuery(stats.unsat, "isUnsat", start, ImmutableList.of());
     }
   }
 
   @Override
   public boolean isUnsatWithAssumptions(Collection<BooleanFormula> pAssumptions)
       throws SolverException, InterruptedException {
-    unsatTimer.start();
+    long start = System.nanoTime();
     try {
       return delegate.isUnsatWithAssumptions(pAssumptions);
     } finally {
-      unsatTimer.stop();
+      recordQuery(stats.unsat, "isUnsatWithAssumptions", start, pAssumptions);
     }
   }
 
   @SuppressWarnings("resource")
   @Override
   public Model getModel() throws SolverException {
-    stats.model.getAndIncrement();
-    return new StatisticsModel(delegate.getModel(), stats);
+    long start = System.nanoTime();
+    try {
+      return new StatisticsModel(delegate.getModel(), stats);
+    } finally {
+      stats.model.recordSince(start);
+    }
   }
 
   @Override
   public List<BooleanFormula> getUnsatCore() {
-    stats.unsatCore.getAndIncrement();
-    return delegate.getUnsatCore();
+    long start = System.nanoTime();
+    try {
+      return delegate.getUnsatCore();
+    } finally {
+      stats.unsatCore.recordSince(start);
+    }
   }
 
   @Override
   public Optional<List<BooleanFormula>> unsatCoreOverAssumptions(
       Collection<BooleanFormula> pAssumptions) throws SolverException, InterruptedException {
-    stats.unsatCore.getAndIncrement();
-    return delegate.unsatCoreOverAssumptions(pAssumptions);
+    long start = System.nanoTime();
+    try {
+      return delegate.unsatCoreOverAssumptions(pAssumptions);
+    } finally {
+      stats.unsatCore.recordSince(start);
+    }
+  }
+
+  @Override
+  public ImmutableMap<String, String> getStatistics() {
+    return delegate.getStatistics();
   }
 
   @Override
@@ -107,11 +176,11 @@ class StatisticsBasicProverEnvironment<T> implements BasicProverEnvironment<T> {
   @Override
   public <R> R allSat(AllSatCallback<R> pCallback, List<BooleanFormula> pImportant)
       throws InterruptedException, SolverException {
-    allSatTimer.start();
+    long start = System.nanoTime();
     try {
       return delegate.allSat(pCallback, pImportant);
     } finally {
-      allSatTimer.stop();
+      recordQuery(stats.allSat, "allSat", start, ImmutableList.of());
     }
   }
 }
@@ -33,73 +33,73 @@ class StatisticsBooleanFormulaManager implements BooleanFormulaManager {
 
   @Override
   public BooleanFormula makeTrue() {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.makeTrue();
   }
 
   @Override
   public BooleanFormula makeFalse() {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.makeFalse();
   }
 
   @Override
   public BooleanFormula makeVariable(String pVar) {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.makeVariable(pVar);
   }
 
   @Override
   public BooleanFormula equivalence(BooleanFormula pFormula1, BooleanFormula pFormula2) {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.equivalence(pFormula1, pFormula2);
   }
 
   @Override
   public BooleanFormula implication(BooleanFormula pFormula1, BooleanFormula pFormula2) {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.implication(pFormula1, pFormula2);
   }
 
   @Override
   public boolean isTrue(BooleanFormula pFormula) {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.isTrue(pFormula);
   }
 
   @Override
   public boolean isFalse(BooleanFormula pFormula) {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.isFalse(pFormula);
   }
 
   @Override
   public <T extends Formula> T ifThenElse(BooleanFormula pCond, T pF1, T pF2) {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.ifThenElse(pCond, pF1, pF2);
   }
 
   @Override
   public BooleanFormula not(BooleanFormula pBits) {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.not(pBits);
   }
 
   @Override
   public BooleanFormula and(BooleanFormula pBits1, BooleanFormula pBits2) {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.and(pBits1, pBits2);
   }
 
   @Override
   public BooleanFormula and(Collection<BooleanFormula> pBits) {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.and(pBits);
   }
 
   @Override
   public BooleanFormula and(BooleanFormula... pBits) {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.and(pBits);
   }
 
@@ -110,19 +110,19 @@ class StatisticsBooleanFormulaManager implements BooleanFormulaManager {
 
   @Override
   public BooleanFormula or(BooleanFormula pBits1, BooleanFormula pBits2) {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.or(pBits1, pBits2);
   }
 
   @Override
   public BooleanFormula or(Collection<BooleanFormula> pBits) {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.or(pBits);
   }
 
   @Override
   public BooleanFormula or(BooleanFormula... pBits) {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.or(pBits);
   }
 
@@ -133,27 +133,27 @@ class StatisticsBooleanFormulaManager implements BooleanFormulaManager {
 
   @Override
   public BooleanFormula xor(BooleanFormula pBits1, BooleanFormula pBits2) {
-    stats.booleanOperations.getAndIncrement();
+    stats.booleanOperations.increment();
     return delegate.xor(pBits1, pBits2);
   }
 
   @Override
   public <R> R visit(BooleanFormula pFormula, BooleanFormulaVisitor<R> pVisitor) {
-    stats.visits.getAndIncrement();
+    stats.visits.increment();
     return delegate.visit(pFormula, pVisitor);
   }
 
   @Override
   public void visitRecursively(
       BooleanFormula pF, BooleanFormulaVisitor<TraversalProcess> pRFormulaVisitor) {
-    stats.visits.getAndIncrement();
+    stats.visits.increment();
     delegate.visitRecursively(pF, pRFormulaVisitor);
   }
 
   @Override
   public BooleanFormula transformRecursively(
       BooleanFormula pF, BooleanFormulaTransformationVisitor pVisitor) {
-    stats.visits.getAndIncrement();
+    stats.visits.increment();
     return delegate.transformRecursively(pF, pVisitor);
   }
 
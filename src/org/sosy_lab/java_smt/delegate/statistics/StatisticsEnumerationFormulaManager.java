@@ -29,26 +29,26 @@ public class StatisticsEnumerationFormulaManager implements EnumerationFormulaMa
 
   @Override
   public EnumerationFormulaType declareEnumeration(String name, Set<String> elementNames) {
-    stats.enumerationDeclarations.getAndIncrement();
+    stats.enumerationDeclarations.increment();
     return delegate.declareEnumeration(name, elementNames);
   }
 
   @Override
   public EnumerationFormula makeConstant(String pName, EnumerationFormulaType pType) {
-    stats.enumerationOperations.getAndIncrement();
+    stats.enumerationOperations.increment();
     return delegate.makeConstant(pName, pType);
   }
 
   @Override
   public EnumerationFormula makeVariable(String pVar, EnumerationFormulaType pType) {
-    stats.enumerationOperations.getAndIncrement();
+    stats.enumerationOperations.increment();
     return delegate.makeVariable(pVar, pType);
   }
 
   @Override
   public BooleanFormula equivalence(
       EnumerationFormula pEnumeration1, EnumerationFormula pEnumeration2) {
-    stats.enumerationOperations.getAndIncrement();
+    stats.enumerationOperations.increment();
     return delegate.equivalence(pEnumeration1, pEnumeration2);
   }
 }
@@ -32,6 +32,7 @@ import org.sosy_lab.java_smt.api.RationalFormulaManager;
 import org.sosy_lab.java_smt.api.SLFormulaManager;
 import org.sosy_lab.java_smt.api.StringFormulaManager;
 import org.sosy_lab.java_smt.api.Tactic;
+import org.sosy_lab.java_smt.api.TransformationSession;
 import org.sosy_lab.java_smt.api.UFManager;
 import org.sosy_lab.java_smt.api.visitors.FormulaTransformationVisitor;
 import org.sosy_lab.java_smt.api.visitors.FormulaVisitor;
@@ -185,6 +186,18 @@ class StatisticsFormulaManager implements FormulaManager {
     return delegate.substitute(pF, pFromToMapping);
   }
 
+  @Override
+  public TransformationSession newTransformationSession(
+      FormulaTransformationVisitor pFormulaVisitor, int pMaxCacheSize) {
+    return delegate.newTransformationSession(pFormulaVisitor, pMaxCacheSize);
+  }
+
+  @Override
+  public TransformationSession newSubstitutionSession(
+      Map<? extends Formula, ? extends Formula> pFromToMapping, int pMaxCacheSize) {
+    return delegate.newSubstitutionSession(pFromToMapping, pMaxCacheSize);
+  }
+
   @Override
   public BooleanFormula translateFrom(BooleanFormula pFormula, FormulaManager pOtherContext) {
     return delegate.translateFrom(pFormula, pOtherContext);
@@ -29,20 +29,20 @@ class StatisticsIntegerFormulaManager
   @Override
   public BooleanFormula modularCongruence(
       IntegerFormula pNumber1, IntegerFormula pNumber2, BigInteger pN) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.modularCongruence(pNumber1, pNumber2, pN);
   }
 
   @Override
   public BooleanFormula modularCongruence(
       IntegerFormula pNumber1, IntegerFormula pNumber2, long pN) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.modularCongruence(pNumber1, pNumber2, pN);
   }
 
   @Override
   public IntegerFormula modulo(IntegerFormula pNumber1, IntegerFormula pNumber2) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.modulo(pNumber1, pNumber2);
   }
 }
@@ -13,40 +13,37 @@ import java.util.List;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
 import org.sosy_lab.java_smt.api.SolverException;
-import org.sosy_lab.java_smt.delegate.statistics.TimerPool.TimerWrapper;
 
 class StatisticsInterpolatingProverEnvironment<T> extends StatisticsBasicProverEnvironment<T>
     implements InterpolatingProverEnvironment<T> {
 
   private final InterpolatingProverEnvironment<T> delegate;
-  private final TimerWrapper itpTimer;
 
   StatisticsInterpolatingProverEnvironment(
       InterpolatingProverEnvironment<T> pDelegate, SolverStatistics pStats) {
     super(pDelegate, pStats);
     delegate = pDelegate;
-    itpTimer = stats.interpolation.getNewTimer();
   }
 
   @Override
   public BooleanFormula getInterpolant(Collection<T> pFormulasOfA)
       throws SolverException, InterruptedException {
-    itpTimer.start();
+    long start = System.nanoTime();
     try {
       return delegate.getInterpolant(pFormulasOfA);
     } finally {
-      itpTimer.stop();
+      stats.interpolation.recordSince(start);
     }
   }
 
   @Override
   public List<BooleanFormula> getSeqInterpolants(List<? extends Collection<T>> pPartitionedFormulas)
       throws SolverException, InterruptedException {
-    itpTimer.start();
+    long start = System.nanoTime();
     try {
       return delegate.getSeqInterpolants(pPartitionedFormulas);
     } finally {
-      itpTimer.stop();
+      stats.interpolation.recordSince(start);
     }
   }
 
@@ -54,11 +51,11 @@ class StatisticsInterpolatingProverEnvironment<T> extends StatisticsBasicProverE
   public List<BooleanFormula> getTreeInterpolants(
       List<? extends Collection<T>> pPartitionedFormulas, int[] pStartOfSubTree)
       throws SolverException, InterruptedException {
-    itpTimer.start();
+    long start = System.nanoTime();
     try {
       return delegate.getTreeInterpolants(pPartitionedFormulas, pStartOfSubTree);
     } finally {
-      itpTimer.stop();
+      stats.interpolation.recordSince(start);
     }
   }
 }
@@ -11,7 +11,10 @@ package org.sosy_lab.java_smt.delegate.statistics;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import java.math.BigInteger;
+import java.util.Collection;
+import java.util.stream.Stream;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.rationals.Rational;
 import org.sosy_lab.java_smt.api.BitvectorFormula;
@@ -35,58 +38,76 @@ class StatisticsModel implements Model {
 
   @Override
   public <T extends Formula> @Nullable T eval(T pFormula) {
-    stats.modelEvaluations.getAndIncrement();
+    stats.modelEvaluations.increment();
     return delegate.eval(pFormula);
   }
 
   @Override
   public @Nullable Object evaluate(Formula pF) {
-    stats.modelEvaluations.getAndIncrement();
+    stats.modelEvaluations.increment();
     return delegate.evaluate(pF);
   }
 
   @Override
   public @Nullable BigInteger evaluate(IntegerFormula pF) {
-    stats.modelEvaluations.getAndIncrement();
+    stats.modelEvaluations.increment();
     return delegate.evaluate(pF);
   }
 
   @Override
   public @Nullable Rational evaluate(RationalFormula pF) {
-    stats.modelEvaluations.getAndIncrement();
+    stats.modelEvaluations.increment();
     return delegate.evaluate(pF);
   }
 
   @Override
   public @Nullable Boolean evaluate(BooleanFormula pF) {
-    stats.modelEvaluations.getAndIncrement();
+    stats.modelEvaluations.increment();
     return delegate.evaluate(pF);
   }
 
   @Override
   public @Nullable BigInteger evaluate(BitvectorFormula pF) {
-    stats.modelEvaluations.getAndIncrement();
+    stats.modelEvaluations.increment();
     return delegate.evaluate(pF);
   }
 
   @Override
   public @Nullable String evaluate(StringFormula pF) {
-    stats.modelEvaluations.getAndIncrement();
+    stats.modelEvaluations.increment();
     return delegate.evaluate(pF);
   }
 
   @Override
   public @Nullable String evaluate(EnumerationFormula pF) {
-    stats.modelEvaluations.getAndIncrement();
+    stats.modelEvaluations.increment();
     return delegate.evaluate(pF);
   }
 
+  @Override
+  public ImmutableMap<Formula, Object> evaluateAll(Collection<? extends Formula> pFormulas) {
+    stats.modelEvaluations.add(pFormulas.size());
+    return delegate.evaluateAll(pFormulas);
+  }
+
   @Override
   public ImmutableList<ValueAssignment> asList() {
-    stats.modelListings.getAndIncrement();
+    stats.modelListings.increment();
     return delegate.asList();
   }
 
+  @Override
+  public Stream<ValueAssignment> stream() {
+    stats.modelListings.increment();
+    return delegate.stream();
+  }
+
+  @Override
+  public Stream<ValueAssignment> stream(String namePrefix) {
+    stats.modelListings.increment();
+    return delegate.stream(namePrefix);
+  }
+
   @Override
   public void close() {
     delegate.close();
@@ -8,6 +8,7 @@
 
 package org.sosy_lab.java_smt.delegate.statistics;
 
+import com.google.common.collect.ImmutableList;
 import java.util.Optional;
 import org.sosy_lab.common.rationals.Rational;
 import org.sosy_lab.java_smt.api.Formula;
@@ -37,11 +38,11 @@ class StatisticsOptimizationProverEnvironment extends StatisticsBasicProverEnvir
 
   @Override
   public OptStatus check() throws InterruptedException, SolverException {
-    unsatTimer.start();
+    long start = System.nanoTime();
     try {
       return delegate.check();
     } finally {
-      unsatTimer.stop();
+      recordQuery(stats.unsat, "check", start, ImmutableList.of());
     }
   }
 
@@ -11,7 +11,17 @@ package org.sosy_lab.java_smt.delegate.statistics;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
 import java.util.Map;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.io.PathCounterTemplate;
+import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
 import org.sosy_lab.java_smt.api.FormulaManager;
 import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
@@ -19,13 +29,44 @@ import org.sosy_lab.java_smt.api.OptimizationProverEnvironment;
 import org.sosy_lab.java_smt.api.ProverEnvironment;
 import org.sosy_lab.java_smt.api.SolverContext;
 
+@Options(prefix = "solver.statistics")
 public class StatisticsSolverContext implements SolverContext {
 
+  @Option(
+      secure = true,
+      description =
+          "Number of the slowest satisfiability checks that are kept together with their SMT-LIB "
+              + "dump, such that they can be replayed offline. Use 0 to disable this.")
+  private int slowQueries = 0;
+
+  @Option(
+      secure = true,
+      description = "Export the kept slow queries in SMT-LIB format into these files.")
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private @Nullable PathCounterTemplate slowQueryFiles =
+      PathCounterTemplate.ofFormatString("slowquery.%03d.smt2");
+
   private final SolverContext delegate;
-  private final SolverStatistics stats = new SolverStatistics();
+  private final LogManager logger;
+  private final SolverStatistics stats;
 
   public StatisticsSolverContext(SolverContext pDelegate) {
     delegate = checkNotNull(pDelegate);
+    logger = LogManager.createNullLogManager();
+    stats = new SolverStatistics(null);
+  }
+
+  public StatisticsSolverContext(Configuration pConfig, LogManager pLogger, SolverContext pDelegate)
+      throws InvalidConfigurationException {
+    pConfig.inject(this, StatisticsSolverContext.class);
+    if (slowQueries < 0) {
+      throw new InvalidConfigurationException("Number of slow queries must not be negative.");
+    }
+    delegate = checkNotNull(pDelegate);
+    logger = checkNotNull(pLogger);
+    stats =
+        new SolverStatistics(
+            slowQueries == 0 ? null : new SlowQueryLog(slowQueries, delegate.getFormulaManager()));
   }
 
   @Override
@@ -76,9 +117,26 @@ public class StatisticsSolverContext implements SolverContext {
 
   @Override
   public void close() {
+    if (stats.slowQueries != null) {
+      // the dumps need to be created while the solver is still available
+      try {
+        if (slowQueryFiles != null) {
+          stats.slowQueries.export(slowQueryFiles);
+        } else {
+          stats.getSlowQueries().forEach(SlowQuery::getDump);
+        }
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Cannot write slow queries");
+      }
+    }
     delegate.close();
   }
 
+  /** Whether the slowest queries are kept together with their formulas. */
+  public boolean keepsSlowQueries() {
+    return stats.slowQueries != null;
+  }
+
   /** export statistics about the solver interaction. */
   public SolverStatistics getSolverStatistics() {
     return stats;
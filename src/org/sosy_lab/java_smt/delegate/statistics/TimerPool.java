@@ -18,6 +18,14 @@ import java.util.function.Function;
 import org.sosy_lab.common.time.TimeSpan;
 import org.sosy_lab.common.time.Timer;
 
+/**
+ * A pool of timers whose intervals are summed up.
+ *
+ * @deprecated The statistics of JavaSMT no longer use this class, they record their latencies in a
+ *     {@link LatencyHistogram}, which is striped over a fixed number of counters instead of keeping
+ *     one timer per user.
+ */
+@Deprecated
 public class TimerPool {
 
   /** We assume one common unit for all sub-timers. */
@@ -10,38 +10,44 @@ package org.sosy_lab.java_smt.delegate.synchronize;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.concurrent.locks.Lock;
 import org.sosy_lab.java_smt.api.ArrayFormula;
 import org.sosy_lab.java_smt.api.ArrayFormulaManager;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.FormulaType;
 import org.sosy_lab.java_smt.api.FormulaType.ArrayFormulaType;
-import org.sosy_lab.java_smt.api.SolverContext;
 
 @SuppressWarnings({"ClassTypeParameterName", "MethodTypeParameterName"})
 class SynchronizedArrayFormulaManager implements ArrayFormulaManager {
 
   private final ArrayFormulaManager delegate;
-  private final SolverContext sync;
+  private final Lock lock;
 
-  SynchronizedArrayFormulaManager(ArrayFormulaManager pDelegate, SolverContext pSync) {
+  SynchronizedArrayFormulaManager(ArrayFormulaManager pDelegate, Lock pLock) {
     delegate = checkNotNull(pDelegate);
-    sync = checkNotNull(pSync);
+    lock = checkNotNull(pLock);
   }
 
   @Override
   public <TI extends Formula, TE extends Formula> TE select(
       ArrayFormula<TI, TE> pArray, TI pIndex) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.select(pArray, pIndex);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <TI extends Formula, TE extends Formula> ArrayFormula<TI, TE> store(
       ArrayFormula<TI, TE> pArray, TI pIndex, TE pValue) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.store(pArray, pIndex, pValue);
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -52,38 +58,53 @@ class SynchronizedArrayFormulaManager implements ArrayFormulaManager {
           FTI extends FormulaType<TI>,
           FTE extends FormulaType<TE>>
       ArrayFormula<TI, TE> makeArray(String pName, FTI pIndexType, FTE pElementType) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeArray(pName, pIndexType, pElementType);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <TI extends Formula, TE extends Formula> ArrayFormula<TI, TE> makeArray(
       String pName, ArrayFormulaType<TI, TE> pType) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeArray(pName, pType);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <TI extends Formula, TE extends Formula> BooleanFormula equivalence(
       ArrayFormula<TI, TE> pArray1, ArrayFormula<TI, TE> pArray2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.equivalence(pArray1, pArray2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <TI extends Formula> FormulaType<TI> getIndexType(ArrayFormula<TI, ?> pArray) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.getIndexType(pArray);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <TE extends Formula> FormulaType<TE> getElementType(ArrayFormula<?, TE> pArray) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.getElementType(pArray);
+    } finally {
+      lock.unlock();
     }
   }
 }
@@ -14,108 +14,166 @@ import com.google.common.collect.ImmutableMap;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.java_smt.api.BasicProverEnvironment;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Model;
-import org.sosy_lab.java_smt.api.SolverContext;
 import org.sosy_lab.java_smt.api.SolverException;
 
 class SynchronizedBasicProverEnvironment<T> implements BasicProverEnvironment<T> {
 
   private final BasicProverEnvironment<T> delegate;
-  final SolverContext sync;
+  final Lock lock;
 
-  SynchronizedBasicProverEnvironment(BasicProverEnvironment<T> pDelegate, SolverContext pSync) {
+  /**
+   * Guards the satisfiability checks. This is either the lock of the context, or a lock that is
+   * shared by all provers of the context, if the solver can check several provers in parallel. In
+   * the latter case, the checks of this prover are additionally ordered by {@link #proverLock}.
+   */
+  private final Lock solvingLock;
+
+  private final Lock proverLock = new ReentrantLock();
+
+  SynchronizedBasicProverEnvironment(BasicProverEnvironment<T> pDelegate, Lock pLock) {
+    this(pDelegate, pLock, pLock);
+  }
+
+  SynchronizedBasicProverEnvironment(
+      BasicProverEnvironment<T> pDelegate, Lock pLock, Lock pSolvingLock) {
     delegate = checkNotNull(pDelegate);
-    sync = checkNotNull(pSync);
+    lock = checkNotNull(pLock);
+    solvingLock = checkNotNull(pSolvingLock);
   }
 
   @Override
   public void pop() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       delegate.pop();
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public @Nullable T addConstraint(BooleanFormula pConstraint) throws InterruptedException {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.addConstraint(pConstraint);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public void push() throws InterruptedException {
-    synchronized (sync) {
+    lock.lock();
+    try {
       delegate.push();
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public int size() {
-    synchronized (sync) {
+    solvingLock.lock();
+    proverLock.lock();
+    try {
       return delegate.size();
+    } finally {
+      proverLock.unlock();
+      solvingLock.unlock();
     }
   }
 
   @Override
   public boolean isUnsat() throws SolverException, InterruptedException {
-    synchronized (sync) {
+    solvingLock.lock();
+    proverLock.lock();
+    try {
       return delegate.isUnsat();
+    } finally {
+      proverLock.unlock();
+      solvingLock.unlock();
     }
   }
 
   @Override
   public boolean isUnsatWithAssumptions(Collection<BooleanFormula> pAssumptions)
       throws SolverException, InterruptedException {
-    synchronized (sync) {
+    solvingLock.lock();
+    proverLock.lock();
+    try {
       return delegate.isUnsatWithAssumptions(pAssumptions);
+    } finally {
+      proverLock.unlock();
+      solvingLock.unlock();
     }
   }
 
   @SuppressWarnings("resource")
   @Override
   public Model getModel() throws SolverException {
-    synchronized (sync) {
-      return new SynchronizedModel(delegate.getModel(), sync);
+    lock.lock();
+    try {
+      return new SynchronizedModel(delegate.getModel(), lock);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public List<BooleanFormula> getUnsatCore() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.getUnsatCore();
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public Optional<List<BooleanFormula>> unsatCoreOverAssumptions(
       Collection<BooleanFormula> pAssumptions) throws SolverException, InterruptedException {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.unsatCoreOverAssumptions(pAssumptions);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ImmutableMap<String, String> getStatistics() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.getStatistics();
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public void close() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       delegate.close();
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <R> R allSat(AllSatCallback<R> pCallback, List<BooleanFormula> pImportant)
       throws InterruptedException, SolverException {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.allSat(pCallback, pImportant);
+    } finally {
+      lock.unlock();
     }
   }
 }
@@ -15,12 +15,14 @@ import com.google.common.collect.ImmutableMap;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.SolverContextPool.ContextLease;
 import org.sosy_lab.java_smt.api.BasicProverEnvironment;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.FormulaManager;
 import org.sosy_lab.java_smt.api.Model;
-import org.sosy_lab.java_smt.api.SolverContext;
 import org.sosy_lab.java_smt.api.SolverException;
 
 class SynchronizedBasicProverEnvironmentWithContext<T> implements BasicProverEnvironment<T> {
@@ -28,26 +30,43 @@ class SynchronizedBasicProverEnvironmentWithContext<T> implements BasicProverEnv
   private final BasicProverEnvironment<T> delegate;
   final FormulaManager manager;
   final FormulaManager otherManager;
-  final SolverContext sync;
+  final Lock lock;
+
+  /** The separate context of this prover, returned to its pool when this prover is closed. */
+  private final ContextLease lease;
+
+  /**
+   * Guards the operations that only access the separate context. The separate context is leased
+   * exclusively for this prover, thus it does not need the lock of the shared context, unless the
+   * user requested coarse-grained locking.
+   */
+  private final Lock proverLock;
 
   SynchronizedBasicProverEnvironmentWithContext(
       BasicProverEnvironment<T> pDelegate,
-      SolverContext pSync,
+      Lock pLock,
       FormulaManager pManager,
-      FormulaManager pOtherManager) {
+      FormulaManager pOtherManager,
+      ContextLease pLease,
+      boolean pFineGrainedLocking) {
     delegate = checkNotNull(pDelegate);
-    sync = checkNotNull(pSync);
+    lock = checkNotNull(pLock);
     manager = checkNotNull(pManager);
     otherManager = checkNotNull(pOtherManager);
+    lease = checkNotNull(pLease);
+    proverLock = pFineGrainedLocking ? new ReentrantLock() : lock;
   }
 
   List<BooleanFormula> translate(
       Collection<BooleanFormula> fs, FormulaManager from, FormulaManager to) {
     ImmutableList.Builder<BooleanFormula> result = ImmutableList.builder();
-    synchronized (sync) {
+    lock.lock();
+    try {
       for (BooleanFormula f : fs) {
         result.add(to.translateFrom(f, from));
       }
+    } finally {
+      lock.unlock();
     }
     return result.build();
   }
@@ -60,8 +79,11 @@ class SynchronizedBasicProverEnvironmentWithContext<T> implements BasicProverEnv
   @Override
   public @Nullable T addConstraint(BooleanFormula pConstraint) throws InterruptedException {
     BooleanFormula constraint;
-    synchronized (sync) {
+    lock.lock();
+    try {
       constraint = otherManager.translateFrom(pConstraint, manager);
+    } finally {
+      lock.unlock();
     }
     return delegate.addConstraint(constraint);
   }
@@ -73,8 +95,11 @@ class SynchronizedBasicProverEnvironmentWithContext<T> implements BasicProverEnv
 
   @Override
   public int size() {
-    synchronized (sync) {
+    proverLock.lock();
+    try {
       return delegate.size();
+    } finally {
+      proverLock.unlock();
     }
   }
 
@@ -92,8 +117,11 @@ class SynchronizedBasicProverEnvironmentWithContext<T> implements BasicProverEnv
   @SuppressWarnings("resource")
   @Override
   public Model getModel() throws SolverException {
-    synchronized (sync) {
-      return new SynchronizedModelWithContext(delegate.getModel(), sync, manager, otherManager);
+    proverLock.lock();
+    try {
+      return new SynchronizedModelWithContext(delegate.getModel(), lock, manager, otherManager);
+    } finally {
+      proverLock.unlock();
     }
   }
 
@@ -116,24 +144,35 @@ class SynchronizedBasicProverEnvironmentWithContext<T> implements BasicProverEnv
 
   @Override
   public ImmutableMap<String, String> getStatistics() {
-    synchronized (sync) {
+    proverLock.lock();
+    try {
       return delegate.getStatistics();
+    } finally {
+      proverLock.unlock();
     }
   }
 
   @Override
   public void close() {
-    synchronized (sync) {
+    proverLock.lock();
+    try {
       delegate.close();
+    } finally {
+      proverLock.unlock();
     }
+    lease.close();
   }
 
   @Override
   public <R> R allSat(AllSatCallback<R> pCallback, List<BooleanFormula> pImportant)
       throws InterruptedException, SolverException {
     AllSatCallback<R> callback = new AllSatCallbackWithContext<>(pCallback);
-    synchronized (sync) {
+    // each translation of a model takes the lock of the shared context on its own
+    proverLock.lock();
+    try {
       return delegate.allSat(callback, translate(pImportant, manager, otherManager));
+    } finally {
+      proverLock.unlock();
     }
   }
 
@@ -12,223 +12,307 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.math.BigInteger;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 import org.sosy_lab.java_smt.api.BitvectorFormula;
 import org.sosy_lab.java_smt.api.BitvectorFormulaManager;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.FormulaType.BitvectorType;
 import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
-import org.sosy_lab.java_smt.api.SolverContext;
 
 class SynchronizedBitvectorFormulaManager implements BitvectorFormulaManager {
 
   private final BitvectorFormulaManager delegate;
-  private final SolverContext sync;
+  private final Lock lock;
 
-  SynchronizedBitvectorFormulaManager(BitvectorFormulaManager pDelegate, SolverContext pSync) {
+  SynchronizedBitvectorFormulaManager(BitvectorFormulaManager pDelegate, Lock pLock) {
     delegate = checkNotNull(pDelegate);
-    sync = checkNotNull(pSync);
+    lock = checkNotNull(pLock);
   }
 
   @Override
   public BitvectorFormula makeBitvector(int pLength, long pI) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeBitvector(pLength, pI);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula makeBitvector(int pLength, BigInteger pI) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeBitvector(pLength, pI);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula makeBitvector(int pLength, IntegerFormula pI) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeBitvector(pLength, pI);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public IntegerFormula toIntegerFormula(BitvectorFormula pI, boolean pSigned) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.toIntegerFormula(pI, pSigned);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula makeVariable(int pLength, String pVar) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeVariable(pLength, pVar);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula makeVariable(BitvectorType pType, String pVar) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeVariable(pType, pVar);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public int getLength(BitvectorFormula pNumber) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.getLength(pNumber);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula negate(BitvectorFormula pNumber) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.negate(pNumber);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula add(BitvectorFormula pNumber1, BitvectorFormula pNumber2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.add(pNumber1, pNumber2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula subtract(BitvectorFormula pNumber1, BitvectorFormula pNumber2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.subtract(pNumber1, pNumber2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula divide(
       BitvectorFormula pNumber1, BitvectorFormula pNumber2, boolean pSigned) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.divide(pNumber1, pNumber2, pSigned);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula modulo(
       BitvectorFormula pNumber1, BitvectorFormula pNumber2, boolean pSigned) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.modulo(pNumber1, pNumber2, pSigned);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula multiply(BitvectorFormula pNumber1, BitvectorFormula pNumber2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.multiply(pNumber1, pNumber2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula equal(BitvectorFormula pNumber1, BitvectorFormula pNumber2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.equal(pNumber1, pNumber2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula greaterThan(
       BitvectorFormula pNumber1, BitvectorFormula pNumber2, boolean pSigned) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.greaterThan(pNumber1, pNumber2, pSigned);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula greaterOrEquals(
       BitvectorFormula pNumber1, BitvectorFormula pNumber2, boolean pSigned) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.greaterOrEquals(pNumber1, pNumber2, pSigned);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula lessThan(
       BitvectorFormula pNumber1, BitvectorFormula pNumber2, boolean pSigned) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.lessThan(pNumber1, pNumber2, pSigned);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula lessOrEquals(
       BitvectorFormula pNumber1, BitvectorFormula pNumber2, boolean pSigned) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.lessOrEquals(pNumber1, pNumber2, pSigned);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula not(BitvectorFormula pBits) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.not(pBits);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula and(BitvectorFormula pBits1, BitvectorFormula pBits2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.and(pBits1, pBits2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula or(BitvectorFormula pBits1, BitvectorFormula pBits2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.or(pBits1, pBits2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula xor(BitvectorFormula pBits1, BitvectorFormula pBits2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.xor(pBits1, pBits2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula shiftRight(
       BitvectorFormula pNumber, BitvectorFormula pToShift, boolean pSigned) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.shiftRight(pNumber, pToShift, pSigned);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula shiftLeft(BitvectorFormula pNumber, BitvectorFormula pToShift) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.shiftLeft(pNumber, pToShift);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula concat(BitvectorFormula pNumber, BitvectorFormula pAppend) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.concat(pNumber, pAppend);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula extract(BitvectorFormula pNumber, int pMsb, int pLsb) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.extract(pNumber, pMsb, pLsb);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormula extend(BitvectorFormula pNumber, int pExtensionBits, boolean pSigned) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.extend(pNumber, pExtensionBits, pSigned);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula distinct(List<BitvectorFormula> pBits) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.distinct(pBits);
+    } finally {
+      lock.unlock();
     }
   }
 }
@@ -12,12 +12,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.BooleanFormulaManager;
 import org.sosy_lab.java_smt.api.Formula;
-import org.sosy_lab.java_smt.api.SolverContext;
 import org.sosy_lab.java_smt.api.visitors.BooleanFormulaTransformationVisitor;
 import org.sosy_lab.java_smt.api.visitors.BooleanFormulaVisitor;
 import org.sosy_lab.java_smt.api.visitors.TraversalProcess;
@@ -25,14 +25,14 @@ import org.sosy_lab.java_smt.api.visitors.TraversalProcess;
 class SynchronizedBooleanFormulaManager implements BooleanFormulaManager {
 
   private final BooleanFormulaManager delegate;
-  private final SolverContext sync;
+  private final Lock lock;
 
   private final BooleanFormula tru;
   private final BooleanFormula fls;
 
-  SynchronizedBooleanFormulaManager(BooleanFormulaManager pDelegate, SolverContext pSync) {
+  SynchronizedBooleanFormulaManager(BooleanFormulaManager pDelegate, Lock pLock) {
     delegate = checkNotNull(pDelegate);
-    sync = checkNotNull(pSync);
+    lock = checkNotNull(pLock);
     tru = delegate.makeTrue();
     fls = delegate.makeFalse();
   }
@@ -49,22 +49,31 @@ class SynchronizedBooleanFormulaManager implements BooleanFormulaManager {
 
   @Override
   public BooleanFormula makeVariable(String pVar) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeVariable(pVar);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula equivalence(BooleanFormula pFormula1, BooleanFormula pFormula2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.equivalence(pFormula1, pFormula2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula implication(BooleanFormula pFormula1, BooleanFormula pFormula2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.implication(pFormula1, pFormula2);
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -73,8 +82,11 @@ class SynchronizedBooleanFormulaManager implements BooleanFormulaManager {
     if (pFormula == tru) {
       return true;
     }
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.isTrue(pFormula);
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -83,43 +95,61 @@ class SynchronizedBooleanFormulaManager implements BooleanFormulaManager {
     if (pFormula == fls) {
       return true;
     }
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.isFalse(pFormula);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <T extends Formula> T ifThenElse(BooleanFormula pCond, T pF1, T pF2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.ifThenElse(pCond, pF1, pF2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula not(BooleanFormula pBits) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.not(pBits);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula and(BooleanFormula pBits1, BooleanFormula pBits2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.and(pBits1, pBits2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula and(Collection<BooleanFormula> pBits) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.and(pBits);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula and(BooleanFormula... pBits) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.and(pBits);
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -130,22 +160,31 @@ class SynchronizedBooleanFormulaManager implements BooleanFormulaManager {
 
   @Override
   public BooleanFormula or(BooleanFormula pBits1, BooleanFormula pBits2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.or(pBits1, pBits2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula or(Collection<BooleanFormula> pBits) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.or(pBits);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula or(BooleanFormula... pBits) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.or(pBits);
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -156,45 +195,63 @@ class SynchronizedBooleanFormulaManager implements BooleanFormulaManager {
 
   @Override
   public BooleanFormula xor(BooleanFormula pBits1, BooleanFormula pBits2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.xor(pBits1, pBits2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <R> R visit(BooleanFormula pFormula, BooleanFormulaVisitor<R> pVisitor) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.visit(pFormula, pVisitor);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public void visitRecursively(
       BooleanFormula pF, BooleanFormulaVisitor<TraversalProcess> pRFormulaVisitor) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       delegate.visitRecursively(pF, pRFormulaVisitor);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula transformRecursively(
       BooleanFormula pF, BooleanFormulaTransformationVisitor pVisitor) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.transformRecursively(pF, pVisitor);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public Set<BooleanFormula> toConjunctionArgs(BooleanFormula pF, boolean pFlatten) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.toConjunctionArgs(pF, pFlatten);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public Set<BooleanFormula> toDisjunctionArgs(BooleanFormula pF, boolean pFlatten) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.toDisjunctionArgs(pF, pFlatten);
+    } finally {
+      lock.unlock();
     }
   }
 }
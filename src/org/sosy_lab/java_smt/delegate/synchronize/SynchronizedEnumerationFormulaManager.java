@@ -11,48 +11,60 @@ package org.sosy_lab.java_smt.delegate.synchronize;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.EnumerationFormula;
 import org.sosy_lab.java_smt.api.EnumerationFormulaManager;
 import org.sosy_lab.java_smt.api.FormulaType.EnumerationFormulaType;
-import org.sosy_lab.java_smt.api.SolverContext;
 
 public class SynchronizedEnumerationFormulaManager implements EnumerationFormulaManager {
 
   private final EnumerationFormulaManager delegate;
-  private final SolverContext sync;
+  private final Lock lock;
 
-  SynchronizedEnumerationFormulaManager(EnumerationFormulaManager pDelegate, SolverContext pSync) {
+  SynchronizedEnumerationFormulaManager(EnumerationFormulaManager pDelegate, Lock pLock) {
     delegate = checkNotNull(pDelegate);
-    sync = checkNotNull(pSync);
+    lock = checkNotNull(pLock);
   }
 
   @Override
   public EnumerationFormulaType declareEnumeration(String name, Set<String> elementNames) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.declareEnumeration(name, elementNames);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public EnumerationFormula makeConstant(String pName, EnumerationFormulaType pType) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeConstant(pName, pType);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public EnumerationFormula makeVariable(String pVar, EnumerationFormulaType pType) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeVariable(pVar, pType);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula equivalence(
       EnumerationFormula pEnumeration1, EnumerationFormula pEnumeration2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.equivalence(pEnumeration1, pEnumeration2);
+    } finally {
+      lock.unlock();
     }
   }
 }
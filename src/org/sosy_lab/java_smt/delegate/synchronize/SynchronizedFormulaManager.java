@@ -14,6 +14,7 @@ import com.google.common.collect.ImmutableMap;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
 import org.sosy_lab.common.Appender;
 import org.sosy_lab.common.Appenders;
 import org.sosy_lab.java_smt.api.ArrayFormulaManager;
@@ -30,9 +31,9 @@ import org.sosy_lab.java_smt.api.IntegerFormulaManager;
 import org.sosy_lab.java_smt.api.QuantifiedFormulaManager;
 import org.sosy_lab.java_smt.api.RationalFormulaManager;
 import org.sosy_lab.java_smt.api.SLFormulaManager;
-import org.sosy_lab.java_smt.api.SolverContext;
 import org.sosy_lab.java_smt.api.StringFormulaManager;
 import org.sosy_lab.java_smt.api.Tactic;
+import org.sosy_lab.java_smt.api.TransformationSession;
 import org.sosy_lab.java_smt.api.UFManager;
 import org.sosy_lab.java_smt.api.visitors.FormulaTransformationVisitor;
 import org.sosy_lab.java_smt.api.visitors.FormulaVisitor;
@@ -41,126 +42,189 @@ import org.sosy_lab.java_smt.api.visitors.TraversalProcess;
 class SynchronizedFormulaManager implements FormulaManager {
 
   private final FormulaManager delegate;
-  private final SolverContext sync;
+  private final Lock lock;
 
-  protected SynchronizedFormulaManager(FormulaManager pDelegate, SolverContext pSync) {
+  /** Whether checking and escaping names, which does not access the solver, skips the lock. */
+  private final boolean lockFreeNames;
+
+  /** Whether reading the type of a formula skips the lock. */
+  private final boolean lockFreeTypes;
+
+  protected SynchronizedFormulaManager(
+      FormulaManager pDelegate,
+      Lock pLock,
+      boolean pLockFreeNames,
+      boolean pLockFreeTypes) {
     delegate = checkNotNull(pDelegate);
-    sync = checkNotNull(pSync);
+    lock = checkNotNull(pLock);
+    lockFreeNames = pLockFreeNames;
+    lockFreeTypes = pLockFreeTypes;
   }
 
   @Override
   public IntegerFormulaManager getIntegerFormulaManager() {
-    synchronized (sync) {
-      return new SynchronizedIntegerFormulaManager(delegate.getIntegerFormulaManager(), sync);
+    lock.lock();
+    try {
+      return new SynchronizedIntegerFormulaManager(delegate.getIntegerFormulaManager(), lock);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public RationalFormulaManager getRationalFormulaManager() {
-    synchronized (sync) {
-      return new SynchronizedRationalFormulaManager(delegate.getRationalFormulaManager(), sync);
+    lock.lock();
+    try {
+      return new SynchronizedRationalFormulaManager(delegate.getRationalFormulaManager(), lock);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormulaManager getBooleanFormulaManager() {
-    synchronized (sync) {
-      return new SynchronizedBooleanFormulaManager(delegate.getBooleanFormulaManager(), sync);
+    lock.lock();
+    try {
+      return new SynchronizedBooleanFormulaManager(delegate.getBooleanFormulaManager(), lock);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ArrayFormulaManager getArrayFormulaManager() {
-    synchronized (sync) {
-      return new SynchronizedArrayFormulaManager(delegate.getArrayFormulaManager(), sync);
+    lock.lock();
+    try {
+      return new SynchronizedArrayFormulaManager(delegate.getArrayFormulaManager(), lock);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BitvectorFormulaManager getBitvectorFormulaManager() {
-    synchronized (sync) {
-      return new SynchronizedBitvectorFormulaManager(delegate.getBitvectorFormulaManager(), sync);
+    lock.lock();
+    try {
+      return new SynchronizedBitvectorFormulaManager(delegate.getBitvectorFormulaManager(), lock);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public FloatingPointFormulaManager getFloatingPointFormulaManager() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return new SynchronizedFloatingPointFormulaManager(
-          delegate.getFloatingPointFormulaManager(), sync);
+          delegate.getFloatingPointFormulaManager(), lock);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public UFManager getUFManager() {
-    synchronized (sync) {
-      return new SynchronizedUFManager(delegate.getUFManager(), sync);
+    lock.lock();
+    try {
+      return new SynchronizedUFManager(delegate.getUFManager(), lock);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public SLFormulaManager getSLFormulaManager() {
-    synchronized (sync) {
-      return new SynchronizedSLFormulaManager(delegate.getSLFormulaManager(), sync);
+    lock.lock();
+    try {
+      return new SynchronizedSLFormulaManager(delegate.getSLFormulaManager(), lock);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public QuantifiedFormulaManager getQuantifiedFormulaManager() {
-    synchronized (sync) {
-      return new SynchronizedQuantifiedFormulaManager(delegate.getQuantifiedFormulaManager(), sync);
+    lock.lock();
+    try {
+      return new SynchronizedQuantifiedFormulaManager(delegate.getQuantifiedFormulaManager(), lock);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public StringFormulaManager getStringFormulaManager() {
-    synchronized (sync) {
-      return new SynchronizedStringFormulaManager(delegate.getStringFormulaManager(), sync);
+    lock.lock();
+    try {
+      return new SynchronizedStringFormulaManager(delegate.getStringFormulaManager(), lock);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public EnumerationFormulaManager getEnumerationFormulaManager() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return new SynchronizedEnumerationFormulaManager(
-          delegate.getEnumerationFormulaManager(), sync);
+          delegate.getEnumerationFormulaManager(), lock);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <T extends Formula> T makeVariable(FormulaType<T> pFormulaType, String pName) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeVariable(pFormulaType, pName);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <T extends Formula> T makeApplication(
       FunctionDeclaration<T> pDeclaration, List<? extends Formula> pArgs) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeApplication(pDeclaration, pArgs);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <T extends Formula> T makeApplication(
       FunctionDeclaration<T> pDeclaration, Formula... pArgs) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeApplication(pDeclaration, pArgs);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <T extends Formula> FormulaType<T> getFormulaType(T pFormula) {
-    synchronized (sync) {
+    if (lockFreeTypes) {
       return delegate.getFormulaType(pFormula);
     }
+    lock.lock();
+    try {
+      return delegate.getFormulaType(pFormula);
+    } finally {
+      lock.unlock();
+    }
   }
 
   @Override
   public BooleanFormula parse(String pS) throws IllegalArgumentException {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.parse(pS);
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -170,8 +234,11 @@ class SynchronizedFormulaManager implements FormulaManager {
       @Override
       public void appendTo(Appendable out) throws IOException {
         String dump;
-        synchronized (sync) {
+        lock.lock();
+        try {
           dump = delegate.dumpFormula(pT).toString(); // the work is done here
+        } finally {
+          lock.unlock();
         }
         out.append(dump);
       }
@@ -181,87 +248,156 @@ class SynchronizedFormulaManager implements FormulaManager {
   @Override
   public BooleanFormula applyTactic(BooleanFormula pInput, Tactic pTactic)
       throws InterruptedException {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.applyTactic(pInput, pTactic);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <T extends Formula> T simplify(T pInput) throws InterruptedException {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.simplify(pInput);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <R> R visit(Formula pF, FormulaVisitor<R> pFormulaVisitor) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.visit(pF, pFormulaVisitor);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public void visitRecursively(Formula pF, FormulaVisitor<TraversalProcess> pFormulaVisitor) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       delegate.visitRecursively(pF, pFormulaVisitor);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <T extends Formula> T transformRecursively(
       T pF, FormulaTransformationVisitor pFormulaVisitor) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.transformRecursively(pF, pFormulaVisitor);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ImmutableMap<String, Formula> extractVariables(Formula pF) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.extractVariables(pF);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ImmutableMap<String, Formula> extractVariablesAndUFs(Formula pF) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.extractVariablesAndUFs(pF);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <T extends Formula> T substitute(
       T pF, Map<? extends Formula, ? extends Formula> pFromToMapping) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.substitute(pF, pFromToMapping);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public TransformationSession newTransformationSession(
+      FormulaTransformationVisitor pFormulaVisitor, int pMaxCacheSize) {
+    lock.lock();
+    try {
+      return new SynchronizedTransformationSession(
+          delegate.newTransformationSession(pFormulaVisitor, pMaxCacheSize), lock);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public TransformationSession newSubstitutionSession(
+      Map<? extends Formula, ? extends Formula> pFromToMapping, int pMaxCacheSize) {
+    lock.lock();
+    try {
+      return new SynchronizedTransformationSession(
+          delegate.newSubstitutionSession(pFromToMapping, pMaxCacheSize), lock);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula translateFrom(BooleanFormula pFormula, FormulaManager pOtherContext) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.translateFrom(pFormula, pOtherContext);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public boolean isValidName(String pVariableName) {
-    synchronized (sync) {
+    if (lockFreeNames) {
+      return delegate.isValidName(pVariableName);
+    }
+    lock.lock();
+    try {
       return delegate.isValidName(pVariableName);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public String escape(String pVariableName) {
-    synchronized (sync) {
+    if (lockFreeNames) {
       return delegate.escape(pVariableName);
     }
+    lock.lock();
+    try {
+      return delegate.escape(pVariableName);
+    } finally {
+      lock.unlock();
+    }
   }
 
   @Override
   public String unescape(String pVariableName) {
-    synchronized (sync) {
+    if (lockFreeNames) {
+      return delegate.unescape(pVariableName);
+    }
+    lock.lock();
+    try {
       return delegate.unescape(pVariableName);
+    } finally {
+      lock.unlock();
     }
   }
 }
@@ -11,10 +11,10 @@ package org.sosy_lab.java_smt.delegate.synchronize;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.math.BigInteger;
+import java.util.concurrent.locks.Lock;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.IntegerFormulaManager;
 import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
-import org.sosy_lab.java_smt.api.SolverContext;
 
 class SynchronizedIntegerFormulaManager
     extends SynchronizedNumeralFormulaManager<IntegerFormula, IntegerFormula>
@@ -22,31 +22,40 @@ class SynchronizedIntegerFormulaManager
 
   private final IntegerFormulaManager delegate;
 
-  SynchronizedIntegerFormulaManager(IntegerFormulaManager pDelegate, SolverContext pSync) {
-    super(pDelegate, pSync);
+  SynchronizedIntegerFormulaManager(IntegerFormulaManager pDelegate, Lock pLock) {
+    super(pDelegate, pLock);
     delegate = checkNotNull(pDelegate);
   }
 
   @Override
   public BooleanFormula modularCongruence(
       IntegerFormula pNumber1, IntegerFormula pNumber2, BigInteger pN) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.modularCongruence(pNumber1, pNumber2, pN);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula modularCongruence(
       IntegerFormula pNumber1, IntegerFormula pNumber2, long pN) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.modularCongruence(pNumber1, pNumber2, pN);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public IntegerFormula modulo(IntegerFormula pNumber1, IntegerFormula pNumber2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.modulo(pNumber1, pNumber2);
+    } finally {
+      lock.unlock();
     }
   }
 }
@@ -10,9 +10,9 @@ package org.sosy_lab.java_smt.delegate.synchronize;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
-import org.sosy_lab.java_smt.api.SolverContext;
 import org.sosy_lab.java_smt.api.SolverException;
 
 class SynchronizedInterpolatingProverEnvironment<T> extends SynchronizedBasicProverEnvironment<T>
@@ -21,24 +21,30 @@ class SynchronizedInterpolatingProverEnvironment<T> extends SynchronizedBasicPro
   private final InterpolatingProverEnvironment<T> delegate;
 
   SynchronizedInterpolatingProverEnvironment(
-      InterpolatingProverEnvironment<T> pDelegate, SolverContext pSync) {
-    super(pDelegate, pSync);
+      InterpolatingProverEnvironment<T> pDelegate, Lock pLock, Lock pSolvingLock) {
+    super(pDelegate, pLock, pSolvingLock);
     delegate = pDelegate;
   }
 
   @Override
   public BooleanFormula getInterpolant(Collection<T> pFormulasOfA)
       throws SolverException, InterruptedException {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.getInterpolant(pFormulasOfA);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public List<BooleanFormula> getSeqInterpolants(List<? extends Collection<T>> pPartitionedFormulas)
       throws SolverException, InterruptedException {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.getSeqInterpolants(pPartitionedFormulas);
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -46,8 +52,11 @@ class SynchronizedInterpolatingProverEnvironment<T> extends SynchronizedBasicPro
   public List<BooleanFormula> getTreeInterpolants(
       List<? extends Collection<T>> pPartitionedFormulas, int[] pStartOfSubTree)
       throws SolverException, InterruptedException {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.getTreeInterpolants(pPartitionedFormulas, pStartOfSubTree);
+    } finally {
+      lock.unlock();
     }
   }
 }
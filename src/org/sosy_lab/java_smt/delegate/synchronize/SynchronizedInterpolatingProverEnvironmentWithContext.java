@@ -12,10 +12,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import org.sosy_lab.java_smt.SolverContextPool.ContextLease;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.FormulaManager;
 import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
-import org.sosy_lab.java_smt.api.SolverContext;
 import org.sosy_lab.java_smt.api.SolverException;
 
 class SynchronizedInterpolatingProverEnvironmentWithContext<T>
@@ -26,10 +27,12 @@ class SynchronizedInterpolatingProverEnvironmentWithContext<T>
 
   SynchronizedInterpolatingProverEnvironmentWithContext(
       InterpolatingProverEnvironment<T> pDelegate,
-      SolverContext pSync,
+      Lock pLock,
       FormulaManager pManager,
-      FormulaManager pOtherManager) {
-    super(pDelegate, pSync, pManager, pOtherManager);
+      FormulaManager pOtherManager,
+      ContextLease pLease,
+      boolean pFineGrainedLocking) {
+    super(pDelegate, pLock, pManager, pOtherManager, pLease, pFineGrainedLocking);
     delegate = checkNotNull(pDelegate);
   }
 
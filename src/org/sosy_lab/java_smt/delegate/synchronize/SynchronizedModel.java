@@ -11,7 +11,11 @@ package org.sosy_lab.java_smt.delegate.synchronize;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import java.math.BigInteger;
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.rationals.Rational;
 import org.sosy_lab.java_smt.api.BitvectorFormula;
@@ -21,86 +25,146 @@ import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.Model;
 import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
 import org.sosy_lab.java_smt.api.NumeralFormula.RationalFormula;
-import org.sosy_lab.java_smt.api.SolverContext;
 import org.sosy_lab.java_smt.api.StringFormula;
 
 class SynchronizedModel implements Model {
 
   private final Model delegate;
-  private final SolverContext sync;
+  private final Lock lock;
 
-  SynchronizedModel(Model pDelegate, SolverContext pSync) {
+  SynchronizedModel(Model pDelegate, Lock pLock) {
     delegate = checkNotNull(pDelegate);
-    sync = checkNotNull(pSync);
+    lock = checkNotNull(pLock);
   }
 
   @Override
   public <T extends Formula> @Nullable T eval(T pFormula) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.eval(pFormula);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public @Nullable Object evaluate(Formula pF) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.evaluate(pF);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public @Nullable BigInteger evaluate(IntegerFormula pF) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.evaluate(pF);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public @Nullable Rational evaluate(RationalFormula pF) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.evaluate(pF);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public @Nullable Boolean evaluate(BooleanFormula pF) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.evaluate(pF);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public @Nullable BigInteger evaluate(BitvectorFormula pF) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.evaluate(pF);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public @Nullable String evaluate(StringFormula pF) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.evaluate(pF);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public @Nullable String evaluate(EnumerationFormula pF) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.evaluate(pF);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public ImmutableMap<Formula, Object> evaluateAll(Collection<? extends Formula> pFormulas) {
+    lock.lock();
+    try {
+      return delegate.evaluateAll(pFormulas);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ImmutableList<ValueAssignment> asList() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.asList();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Stream<ValueAssignment> stream() {
+    return stream("");
+  }
+
+  /**
+   * The assignments are collected while holding the lock, as a lazy stream would access the solver
+   * without synchronization. Filtering by name is still done by the solver.
+   */
+  @Override
+  public Stream<ValueAssignment> stream(String namePrefix) {
+    lock.lock();
+    try {
+      try (Stream<ValueAssignment> assignments = delegate.stream(namePrefix)) {
+        return assignments.collect(ImmutableList.toImmutableList()).stream();
+      }
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public void close() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       delegate.close();
+    } finally {
+      lock.unlock();
     }
   }
 }
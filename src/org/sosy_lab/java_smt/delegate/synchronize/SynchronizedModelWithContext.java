@@ -12,6 +12,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.collect.ImmutableList;
 import java.math.BigInteger;
+import java.util.concurrent.locks.Lock;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.rationals.Rational;
 import org.sosy_lab.java_smt.api.BitvectorFormula;
@@ -22,7 +23,6 @@ import org.sosy_lab.java_smt.api.FormulaManager;
 import org.sosy_lab.java_smt.api.Model;
 import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
 import org.sosy_lab.java_smt.api.NumeralFormula.RationalFormula;
-import org.sosy_lab.java_smt.api.SolverContext;
 import org.sosy_lab.java_smt.api.StringFormula;
 
 class SynchronizedModelWithContext implements Model {
@@ -31,14 +31,14 @@ class SynchronizedModelWithContext implements Model {
       "translating non-boolean formulae is not supported";
 
   private final Model delegate;
-  private final SolverContext sync;
+  private final Lock lock;
   private final FormulaManager manager;
   private final FormulaManager otherManager;
 
   SynchronizedModelWithContext(
-      Model pDelegate, SolverContext pSync, FormulaManager pManager, FormulaManager pOtherManager) {
+      Model pDelegate, Lock pLock, FormulaManager pManager, FormulaManager pOtherManager) {
     delegate = checkNotNull(pDelegate);
-    sync = checkNotNull(pSync);
+    lock = checkNotNull(pLock);
     manager = checkNotNull(pManager);
     otherManager = checkNotNull(pOtherManager);
   }
@@ -66,8 +66,11 @@ class SynchronizedModelWithContext implements Model {
   @Override
   public @Nullable Boolean evaluate(BooleanFormula pF) {
     BooleanFormula f;
-    synchronized (sync) {
+    lock.lock();
+    try {
       f = otherManager.translateFrom(pF, manager);
+    } finally {
+      lock.unlock();
     }
     return delegate.evaluate(f);
   }
@@ -92,7 +95,7 @@ class SynchronizedModelWithContext implements Model {
     throw new UnsupportedOperationException(UNSUPPORTED_OPERATION);
     // ImmutableList.Builder<ValueAssignment> builder = ImmutableList.builder();
     // ImmutableList<ValueAssignment> lst = delegate.asList();
-    // synchronized (sync) {
+    // synchronized (lock) {
     // for (ValueAssignment va : lst) {
     // if (va.getKey() instanceof BooleanFormula) {
     // builder.add(
@@ -113,8 +116,11 @@ class SynchronizedModelWithContext implements Model {
 
   @Override
   public void close() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       delegate.close();
+    } finally {
+      lock.unlock();
     }
   }
 }
@@ -13,13 +13,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 import org.sosy_lab.common.rationals.Rational;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.FormulaType;
 import org.sosy_lab.java_smt.api.NumeralFormula;
 import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
 import org.sosy_lab.java_smt.api.NumeralFormulaManager;
-import org.sosy_lab.java_smt.api.SolverContext;
 
 @SuppressWarnings("ClassTypeParameterName")
 class SynchronizedNumeralFormulaManager<
@@ -27,158 +27,221 @@ class SynchronizedNumeralFormulaManager<
     implements NumeralFormulaManager<ParamFormulaType, ResultFormulaType> {
 
   private final NumeralFormulaManager<ParamFormulaType, ResultFormulaType> delegate;
-  final SolverContext sync;
+  final Lock lock;
 
   SynchronizedNumeralFormulaManager(
-      NumeralFormulaManager<ParamFormulaType, ResultFormulaType> pDelegate, SolverContext pSync) {
+      NumeralFormulaManager<ParamFormulaType, ResultFormulaType> pDelegate, Lock pLock) {
     delegate = checkNotNull(pDelegate);
-    sync = checkNotNull(pSync);
+    lock = checkNotNull(pLock);
   }
 
   @Override
   public ResultFormulaType makeNumber(long pNumber) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeNumber(pNumber);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ResultFormulaType makeNumber(BigInteger pNumber) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeNumber(pNumber);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ResultFormulaType makeNumber(double pNumber) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeNumber(pNumber);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ResultFormulaType makeNumber(BigDecimal pNumber) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeNumber(pNumber);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ResultFormulaType makeNumber(String pI) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeNumber(pI);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ResultFormulaType makeNumber(Rational pRational) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeNumber(pRational);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ResultFormulaType makeVariable(String pVar) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeVariable(pVar);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public FormulaType<ResultFormulaType> getFormulaType() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.getFormulaType();
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ResultFormulaType negate(ParamFormulaType pNumber) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.negate(pNumber);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ResultFormulaType add(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.add(pNumber1, pNumber2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ResultFormulaType sum(List<ParamFormulaType> pOperands) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.sum(pOperands);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ResultFormulaType subtract(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.subtract(pNumber1, pNumber2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ResultFormulaType divide(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.divide(pNumber1, pNumber2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ResultFormulaType multiply(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.multiply(pNumber1, pNumber2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula equal(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.equal(pNumber1, pNumber2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula distinct(List<ParamFormulaType> pNumbers) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.distinct(pNumbers);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula greaterThan(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.greaterThan(pNumber1, pNumber2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula greaterOrEquals(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.greaterOrEquals(pNumber1, pNumber2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula lessThan(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.lessThan(pNumber1, pNumber2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula lessOrEquals(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.lessOrEquals(pNumber1, pNumber2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public IntegerFormula floor(ParamFormulaType pNumber) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.floor(pNumber);
+    } finally {
+      lock.unlock();
     }
   }
 }
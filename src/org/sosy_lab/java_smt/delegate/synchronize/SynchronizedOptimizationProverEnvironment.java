@@ -9,10 +9,10 @@
 package org.sosy_lab.java_smt.delegate.synchronize;
 
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
 import org.sosy_lab.common.rationals.Rational;
 import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.OptimizationProverEnvironment;
-import org.sosy_lab.java_smt.api.SolverContext;
 import org.sosy_lab.java_smt.api.SolverException;
 
 class SynchronizedOptimizationProverEnvironment extends SynchronizedBasicProverEnvironment<Void>
@@ -21,43 +21,58 @@ class SynchronizedOptimizationProverEnvironment extends SynchronizedBasicProverE
   private final OptimizationProverEnvironment delegate;
 
   SynchronizedOptimizationProverEnvironment(
-      OptimizationProverEnvironment pDelegate, SolverContext pSync) {
-    super(pDelegate, pSync);
+      OptimizationProverEnvironment pDelegate, Lock pLock) {
+    super(pDelegate, pLock);
     delegate = pDelegate;
   }
 
   @Override
   public int maximize(Formula pObjective) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.maximize(pObjective);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public int minimize(Formula pObjective) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.minimize(pObjective);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public OptStatus check() throws InterruptedException, SolverException {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.check();
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public Optional<Rational> upper(int pHandle, Rational pEpsilon) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.upper(pHandle, pEpsilon);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public Optional<Rational> lower(int pHandle, Rational pEpsilon) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.lower(pHandle, pEpsilon);
+    } finally {
+      lock.unlock();
     }
   }
 }
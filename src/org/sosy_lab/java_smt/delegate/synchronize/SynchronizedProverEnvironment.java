@@ -8,14 +8,15 @@
 
 package org.sosy_lab.java_smt.delegate.synchronize;
 
+import java.util.concurrent.locks.Lock;
 import org.sosy_lab.java_smt.api.BasicProverEnvironment;
 import org.sosy_lab.java_smt.api.ProverEnvironment;
-import org.sosy_lab.java_smt.api.SolverContext;
 
 class SynchronizedProverEnvironment extends SynchronizedBasicProverEnvironment<Void>
     implements ProverEnvironment {
 
-  SynchronizedProverEnvironment(BasicProverEnvironment<Void> pDelegate, SolverContext pSync) {
-    super(pDelegate, pSync);
+  SynchronizedProverEnvironment(
+      BasicProverEnvironment<Void> pDelegate, Lock pLock, Lock pSolvingLock) {
+    super(pDelegate, pLock, pSolvingLock);
   }
 }
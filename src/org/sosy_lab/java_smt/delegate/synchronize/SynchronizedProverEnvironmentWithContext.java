@@ -8,18 +8,21 @@
 
 package org.sosy_lab.java_smt.delegate.synchronize;
 
+import java.util.concurrent.locks.Lock;
+import org.sosy_lab.java_smt.SolverContextPool.ContextLease;
 import org.sosy_lab.java_smt.api.FormulaManager;
 import org.sosy_lab.java_smt.api.ProverEnvironment;
-import org.sosy_lab.java_smt.api.SolverContext;
 
 class SynchronizedProverEnvironmentWithContext
     extends SynchronizedBasicProverEnvironmentWithContext<Void> implements ProverEnvironment {
 
   SynchronizedProverEnvironmentWithContext(
       ProverEnvironment pDelegate,
-      SolverContext pSync,
+      Lock pLock,
       FormulaManager pManager,
-      FormulaManager pOtherManager) {
-    super(pDelegate, pSync, pManager, pOtherManager);
+      FormulaManager pOtherManager,
+      ContextLease pLease,
+      boolean pFineGrainedLocking) {
+    super(pDelegate, pLock, pManager, pOtherManager, pLease, pFineGrainedLocking);
   }
 }
@@ -11,35 +11,41 @@ package org.sosy_lab.java_smt.delegate.synchronize;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.QuantifiedFormulaManager;
-import org.sosy_lab.java_smt.api.SolverContext;
 import org.sosy_lab.java_smt.api.SolverException;
 
 class SynchronizedQuantifiedFormulaManager implements QuantifiedFormulaManager {
 
   private final QuantifiedFormulaManager delegate;
-  private final SolverContext sync;
+  private final Lock lock;
 
-  SynchronizedQuantifiedFormulaManager(QuantifiedFormulaManager pDelegate, SolverContext pSync) {
+  SynchronizedQuantifiedFormulaManager(QuantifiedFormulaManager pDelegate, Lock pLock) {
     delegate = checkNotNull(pDelegate);
-    sync = checkNotNull(pSync);
+    lock = checkNotNull(pLock);
   }
 
   @Override
   public BooleanFormula mkQuantifier(
       Quantifier pQ, List<? extends Formula> pVariables, BooleanFormula pBody) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.mkQuantifier(pQ, pVariables, pBody);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula eliminateQuantifiers(BooleanFormula pF)
       throws InterruptedException, SolverException {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.eliminateQuantifiers(pF);
+    } finally {
+      lock.unlock();
     }
   }
 }
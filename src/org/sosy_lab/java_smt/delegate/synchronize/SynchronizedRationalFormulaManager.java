@@ -9,15 +9,15 @@
 package org.sosy_lab.java_smt.delegate.synchronize;
 
 import org.sosy_lab.java_smt.api.NumeralFormula;
+import java.util.concurrent.locks.Lock;
 import org.sosy_lab.java_smt.api.NumeralFormula.RationalFormula;
 import org.sosy_lab.java_smt.api.RationalFormulaManager;
-import org.sosy_lab.java_smt.api.SolverContext;
 
 class SynchronizedRationalFormulaManager
     extends SynchronizedNumeralFormulaManager<NumeralFormula, RationalFormula>
     implements RationalFormulaManager {
 
-  SynchronizedRationalFormulaManager(RationalFormulaManager pDelegate, SolverContext pSync) {
-    super(pDelegate, pSync);
+  SynchronizedRationalFormulaManager(RationalFormulaManager pDelegate, Lock pLock) {
+    super(pDelegate, pLock);
   }
 }
@@ -10,41 +10,50 @@ package org.sosy_lab.java_smt.delegate.synchronize;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.concurrent.locks.Lock;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.FormulaType;
 import org.sosy_lab.java_smt.api.SLFormulaManager;
-import org.sosy_lab.java_smt.api.SolverContext;
 
 @SuppressWarnings({"ClassTypeParameterName", "MethodTypeParameterName"})
 class SynchronizedSLFormulaManager implements SLFormulaManager {
 
   private final SLFormulaManager delegate;
-  private final SolverContext sync;
+  private final Lock lock;
 
-  SynchronizedSLFormulaManager(SLFormulaManager pDelegate, SolverContext pSync) {
+  SynchronizedSLFormulaManager(SLFormulaManager pDelegate, Lock pLock) {
     delegate = checkNotNull(pDelegate);
-    sync = checkNotNull(pSync);
+    lock = checkNotNull(pLock);
   }
 
   @Override
   public BooleanFormula makeStar(BooleanFormula pF1, BooleanFormula pF2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeStar(pF1, pF2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <AF extends Formula, VF extends Formula> BooleanFormula makePointsTo(AF pPtr, VF pTo) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makePointsTo(pPtr, pTo);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula makeMagicWand(BooleanFormula pF1, BooleanFormula pF2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeMagicWand(pF1, pF2);
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -55,15 +64,21 @@ class SynchronizedSLFormulaManager implements SLFormulaManager {
           AT extends FormulaType<AF>,
           VT extends FormulaType<VF>>
       BooleanFormula makeEmptyHeap(AT pAdressType, VT pValueType) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeEmptyHeap(pAdressType, pValueType);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <AF extends Formula, AT extends FormulaType<AF>> AF makeNilElement(AT pAdressType) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeNilElement(pAdressType);
+    } finally {
+      lock.unlock();
     }
   }
 }
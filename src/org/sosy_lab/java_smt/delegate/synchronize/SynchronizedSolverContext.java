@@ -12,6 +12,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -20,6 +24,8 @@ import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.java_smt.SolverContextFactory;
 import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.SolverContextPool;
+import org.sosy_lab.java_smt.SolverContextPool.ContextLease;
 import org.sosy_lab.java_smt.api.FormulaManager;
 import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
 import org.sosy_lab.java_smt.api.OptimizationProverEnvironment;
@@ -36,12 +42,35 @@ public class SynchronizedSolverContext implements SolverContext {
               + "This allows more parallelity when solving larger queries.")
   private boolean useSeperateProvers = false;
 
+  @Option(
+      secure = true,
+      description =
+          "Lock only the parts of the solver that an operation accesses, instead of the whole "
+              + "context: The context is guarded by a read/write lock, and provers of solvers "
+              + "with independent stacks (Princess, CVC4) solve in parallel under the read "
+              + "lock. Provers from a seperate context only lock their own context while "
+              + "solving, checks of symbol names never lock, and Java-based solvers "
+              + "determine the type of a formula without locking.")
+  private boolean fineGrainedLocking = false;
+
   private final SolverContext delegate;
-  private final SolverContext sync;
+
+  /** Guards all operations that create formulas or change the state of the context. */
+  private final Lock lock;
+
+  /**
+   * Guards the satisfiability checks of provers on the shared context. This is the read lock of
+   * {@link #lock} if the solver can check several provers in parallel, and {@link #lock} otherwise.
+   */
+  private final Lock solvingLock;
+
   private final Configuration config;
   private final LogManager logger;
   private final ShutdownNotifier shutdownNotifier;
 
+  /** Separate contexts, which are reused after their prover is closed. */
+  private final SolverContextPool otherContexts;
+
   public SynchronizedSolverContext(
       Configuration pConfig,
       LogManager pLogger,
@@ -50,10 +79,19 @@ public class SynchronizedSolverContext implements SolverContext {
       throws InvalidConfigurationException {
     pConfig.inject(this, SynchronizedSolverContext.class);
     delegate = checkNotNull(pDelegate);
-    sync = delegate;
+    if (fineGrainedLocking) {
+      ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+      lock = readWriteLock.writeLock();
+      solvingLock =
+          hasIndependentStacks(delegate.getSolverName()) ? readWriteLock.readLock() : lock;
+    } else {
+      lock = new ReentrantLock();
+      solvingLock = lock;
+    }
     config = pConfig;
     logger = pLogger;
     shutdownNotifier = pShutdownNotifier;
+    otherContexts = new SolverContextPool(this::createOtherContext, 0, 0);
   }
 
   @SuppressWarnings("resource")
@@ -72,25 +110,65 @@ public class SynchronizedSolverContext implements SolverContext {
     return ((SynchronizedSolverContext) otherContext).delegate;
   }
 
+  /**
+   * Java-based solvers represent formulas as immutable objects, thus reading them needs no lock.
+   * Native solvers might update internal data, e.g., reference counters, on any access.
+   */
+  private static boolean hasImmutableFormulas(Solvers solver) {
+    return solver == Solvers.SMTINTERPOL || solver == Solvers.PRINCESS;
+  }
+
+  /**
+   * The provers of these solvers keep their solving state apart from the context, e.g., Princess
+   * creates a separate API instance for each prover. They can be checked in parallel, as long as no
+   * formula is created in the meantime, which might register new symbols with all provers.
+   */
+  private static boolean hasIndependentStacks(Solvers solver) {
+    return solver == Solvers.PRINCESS || solver == Solvers.CVC4;
+  }
+
+  private ContextLease leaseOtherContext() {
+    try {
+      return otherContexts.lease();
+    } catch (InterruptedException e) {
+      // the pool is unbounded, thus it never waits.
+      Thread.currentThread().interrupt();
+      throw new AssertionError(e);
+    } catch (InvalidConfigurationException e) {
+      throw new AssertionError("should not happen, current context was already created before.");
+    }
+  }
+
   @Override
   public FormulaManager getFormulaManager() {
-    return new SynchronizedFormulaManager(delegate.getFormulaManager(), delegate);
+    return new SynchronizedFormulaManager(
+        delegate.getFormulaManager(),
+        lock,
+        fineGrainedLocking,
+        fineGrainedLocking && hasImmutableFormulas(delegate.getSolverName()));
   }
 
   @SuppressWarnings("resource")
   @Override
   public ProverEnvironment newProverEnvironment(ProverOptions... pOptions) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       if (useSeperateProvers) {
-        SolverContext otherContext = createOtherContext();
+        ContextLease lease = leaseOtherContext();
+        SolverContext otherContext = lease.getContext();
         return new SynchronizedProverEnvironmentWithContext(
             otherContext.newProverEnvironment(pOptions),
-            sync,
+            lock,
             delegate.getFormulaManager(),
-            otherContext.getFormulaManager());
+            otherContext.getFormulaManager(),
+            lease,
+            fineGrainedLocking);
       } else {
-        return new SynchronizedProverEnvironment(delegate.newProverEnvironment(pOptions), delegate);
+        return new SynchronizedProverEnvironment(
+            delegate.newProverEnvironment(pOptions), lock, solvingLock);
       }
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -98,57 +176,79 @@ public class SynchronizedSolverContext implements SolverContext {
   @Override
   public InterpolatingProverEnvironment<?> newProverEnvironmentWithInterpolation(
       ProverOptions... pOptions) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       if (useSeperateProvers) {
-        SolverContext otherContext = createOtherContext();
+        ContextLease lease = leaseOtherContext();
+        SolverContext otherContext = lease.getContext();
         return new SynchronizedInterpolatingProverEnvironmentWithContext<>(
             otherContext.newProverEnvironmentWithInterpolation(pOptions),
-            sync,
+            lock,
             delegate.getFormulaManager(),
-            otherContext.getFormulaManager());
+            otherContext.getFormulaManager(),
+            lease,
+            fineGrainedLocking);
       } else {
         return new SynchronizedInterpolatingProverEnvironment<>(
-            delegate.newProverEnvironmentWithInterpolation(pOptions), delegate);
+            delegate.newProverEnvironmentWithInterpolation(pOptions), lock, solvingLock);
       }
+    } finally {
+      lock.unlock();
     }
   }
 
   @SuppressWarnings("resource")
   @Override
   public OptimizationProverEnvironment newOptimizationProverEnvironment(ProverOptions... pOptions) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       // seperate prover environment not available, because we can not translate arbitrary formulae.
       // if (useSeperateProvers) { }
       return new SynchronizedOptimizationProverEnvironment(
-          delegate.newOptimizationProverEnvironment(pOptions), delegate);
+          delegate.newOptimizationProverEnvironment(pOptions), lock);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public String getVersion() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.getVersion();
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public Solvers getSolverName() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.getSolverName();
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public ImmutableMap<String, String> getStatistics() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.getStatistics();
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public void close() {
-    synchronized (sync) {
+    lock.lock();
+    try {
+      otherContexts.close();
       delegate.close();
+    } finally {
+      lock.unlock();
     }
   }
 }
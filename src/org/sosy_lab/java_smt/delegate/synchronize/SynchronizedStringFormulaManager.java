@@ -11,261 +11,363 @@ package org.sosy_lab.java_smt.delegate.synchronize;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.NumeralFormula;
 import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
 import org.sosy_lab.java_smt.api.RegexFormula;
-import org.sosy_lab.java_smt.api.SolverContext;
 import org.sosy_lab.java_smt.api.StringFormula;
 import org.sosy_lab.java_smt.api.StringFormulaManager;
 
 class SynchronizedStringFormulaManager implements StringFormulaManager {
 
   private final StringFormulaManager delegate;
-  private final SolverContext sync;
+  private final Lock lock;
 
-  SynchronizedStringFormulaManager(StringFormulaManager pDelegate, SolverContext pSync) {
+  SynchronizedStringFormulaManager(StringFormulaManager pDelegate, Lock pLock) {
     delegate = checkNotNull(pDelegate);
-    sync = checkNotNull(pSync);
+    lock = checkNotNull(pLock);
   }
 
   @Override
   public StringFormula makeString(String value) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeString(value);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public StringFormula makeVariable(String pVar) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeVariable(pVar);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula equal(StringFormula str1, StringFormula str2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.equal(str1, str2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula greaterThan(StringFormula str1, StringFormula str2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.greaterThan(str1, str2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula greaterOrEquals(StringFormula str1, StringFormula str2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.greaterOrEquals(str1, str2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula lessThan(StringFormula str1, StringFormula str2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.lessThan(str1, str2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula lessOrEquals(StringFormula str1, StringFormula str2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.lessOrEquals(str1, str2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public NumeralFormula.IntegerFormula length(StringFormula str) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.length(str);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public StringFormula concat(List<StringFormula> parts) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.concat(parts);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula prefix(StringFormula str1, StringFormula str2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.prefix(str1, str2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula suffix(StringFormula str1, StringFormula str2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.suffix(str1, str2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula contains(StringFormula str, StringFormula part) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.contains(str, part);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public IntegerFormula indexOf(StringFormula str, StringFormula part, IntegerFormula startIndex) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.indexOf(str, part, startIndex);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public StringFormula charAt(StringFormula str, IntegerFormula index) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.charAt(str, index);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public StringFormula substring(StringFormula str, IntegerFormula index, IntegerFormula length) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.substring(str, index, length);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public StringFormula replace(
       StringFormula fullStr, StringFormula target, StringFormula replacement) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.replace(fullStr, target, replacement);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public StringFormula replaceAll(
       StringFormula fullStr, StringFormula target, StringFormula replacement) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.replaceAll(fullStr, target, replacement);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public BooleanFormula in(StringFormula str, RegexFormula regex) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.in(str, regex);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public RegexFormula makeRegex(String value) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.makeRegex(value);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public RegexFormula none() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.none();
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public RegexFormula all() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.all();
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public RegexFormula allChar() {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.allChar();
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public RegexFormula range(StringFormula start, StringFormula end) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.range(start, end);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public RegexFormula concatRegex(List<RegexFormula> parts) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.concatRegex(parts);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public RegexFormula union(RegexFormula regex1, RegexFormula regex2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.union(regex1, regex2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public RegexFormula intersection(RegexFormula regex1, RegexFormula regex2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.intersection(regex1, regex2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public RegexFormula closure(RegexFormula regex) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.closure(regex);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public RegexFormula complement(RegexFormula regex) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.complement(regex);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public RegexFormula difference(RegexFormula regex1, RegexFormula regex2) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.difference(regex1, regex2);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public RegexFormula cross(RegexFormula regex) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.cross(regex);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public RegexFormula optional(RegexFormula regex) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.optional(regex);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public RegexFormula times(RegexFormula regex, int repetitions) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.times(regex, repetitions);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public IntegerFormula toIntegerFormula(StringFormula str) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.toIntegerFormula(str);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public StringFormula toStringFormula(IntegerFormula number) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.toStringFormula(number);
+    } finally {
+      lock.unlock();
     }
   }
 }
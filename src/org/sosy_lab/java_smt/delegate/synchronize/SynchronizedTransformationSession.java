@@ -0,0 +1,56 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.synchronize;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.locks.Lock;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.TransformationSession;
+
+class SynchronizedTransformationSession implements TransformationSession {
+
+  private final TransformationSession delegate;
+  private final Lock lock;
+
+  SynchronizedTransformationSession(TransformationSession pDelegate, Lock pLock) {
+    delegate = checkNotNull(pDelegate);
+    lock = checkNotNull(pLock);
+  }
+
+  @Override
+  public <T extends Formula> T transform(T pF) {
+    lock.lock();
+    try {
+      return delegate.transform(pF);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int getCacheSize() {
+    lock.lock();
+    try {
+      return delegate.getCacheSize();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void clearCache() {
+    lock.lock();
+    try {
+      delegate.clearCache();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -11,66 +11,84 @@ package org.sosy_lab.java_smt.delegate.synchronize;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.FormulaType;
 import org.sosy_lab.java_smt.api.FunctionDeclaration;
-import org.sosy_lab.java_smt.api.SolverContext;
 import org.sosy_lab.java_smt.api.UFManager;
 
 class SynchronizedUFManager implements UFManager {
 
   private final UFManager delegate;
-  private final SolverContext sync;
+  private final Lock lock;
 
-  SynchronizedUFManager(UFManager pDelegate, SolverContext pSync) {
+  SynchronizedUFManager(UFManager pDelegate, Lock pLock) {
     delegate = checkNotNull(pDelegate);
-    sync = checkNotNull(pSync);
+    lock = checkNotNull(pLock);
   }
 
   @Override
   public <T extends Formula> FunctionDeclaration<T> declareUF(
       String pName, FormulaType<T> pReturnType, List<FormulaType<?>> pArgs) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.declareUF(pName, pReturnType, pArgs);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <T extends Formula> FunctionDeclaration<T> declareUF(
       String pName, FormulaType<T> pReturnType, FormulaType<?>... pArgs) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.declareUF(pName, pReturnType, pArgs);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <T extends Formula> T callUF(
       FunctionDeclaration<T> pFuncType, List<? extends Formula> pArgs) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.callUF(pFuncType, pArgs);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <T extends Formula> T callUF(FunctionDeclaration<T> pFuncType, Formula... pArgs) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.callUF(pFuncType, pArgs);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <T extends Formula> T declareAndCallUF(
       String pName, FormulaType<T> pReturnType, List<Formula> pArgs) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.declareAndCallUF(pName, pReturnType, pArgs);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public <T extends Formula> T declareAndCallUF(
       String pName, FormulaType<T> pReturnType, Formula... pArgs) {
-    synchronized (sync) {
+    lock.lock();
+    try {
       return delegate.declareAndCallUF(pName, pReturnType, pArgs);
+    } finally {
+      lock.unlock();
     }
   }
 }
@@ -22,6 +22,9 @@ package org.sosy_lab.java_smt.example.theory_solving;
 
 import static com.google.common.base.Verify.verify;
 
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.Locale;
 import java.util.logging.Level;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
@@ -44,33 +47,42 @@ public class TheorySolving {
   private final ProverEnvironment prover;
   private final SolverContext context;
 
-  public static void main (String[] args) throws InvalidConfigurationException,
-                                                 InterruptedException, SolverException {
+  /**
+   * Runs the example with the solver given as first argument, or with all solvers that support
+   * theory solvers if no argument is given.
+   */
+  public static void main(String[] args)
+      throws InvalidConfigurationException, InterruptedException, SolverException {
     Configuration config = Configuration.defaultConfiguration();
     LogManager logger = BasicLogManager.create(config);
     ShutdownNotifier notifier = ShutdownNotifier.createDummy();
 
-    try (SolverContext context = SolverContextFactory.createSolverContext(config, logger, notifier,
-        Solvers.Z3);
-        ProverEnvironment prover = context.newProverEnvironment(ProverOptions.GENERATE_MODELS,
-            ProverOptions.GENERATE_ALL_SAT)) {
+    List<Solvers> solvers =
+        args.length > 0
+            ? ImmutableList.of(Solvers.valueOf(args[0].toUpperCase(Locale.ROOT)))
+            : ImmutableList.of(Solvers.Z3, Solvers.CVC5);
+    for (Solvers solver : solvers) {
+      try (SolverContext context =
+              SolverContextFactory.createSolverContext(config, logger, notifier, solver);
+          ProverEnvironment prover =
+              context.newProverEnvironment(
+                  ProverOptions.GENERATE_MODELS, ProverOptions.GENERATE_ALL_SAT)) {
         TheorySolving example = new TheorySolving(context, prover);
 
         prover.push();
-        var sat = example.solve(logger);
-        logger.log(Level.INFO, "Result is " + sat);
+        boolean sat = example.solve(logger);
+        logger.log(Level.INFO, solver, "result is", sat);
         if (sat) {
-          Model m = prover.getModel();
-          logger.log(Level.INFO, m.asList());
-          m.close();
+          try (Model m = prover.getModel()) {
+            logger.log(Level.INFO, m.asList());
+          }
         }
+      } catch (InvalidConfigurationException | UnsatisfiedLinkError e) {
+        logger.logUserException(Level.INFO, e, solver + " is not available.");
+      } catch (UnsupportedOperationException e) {
+        logger.logUserException(Level.INFO, e, e.getMessage());
+      }
     }
-    catch (InvalidConfigurationException | UnsatisfiedLinkError e) {
-      logger.logUserException(Level.INFO, e, "Z3 is not available.");
-    } catch (UnsupportedOperationException e) {
-      logger.logUserException(Level.INFO, e, e.getMessage());
-    }
-
   }
 
   private boolean solve(LogManager logger) throws InterruptedException, SolverException {
@@ -20,48 +20,55 @@
 
 package org.sosy_lab.java_smt.example.theory_solving_nqueens;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
+import java.util.BitSet;
 import java.util.Set;
-import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.propagators.BacktrackableBitSet;
+import org.sosy_lab.java_smt.api.propagators.BacktrackableIntStack;
 
 public class CompletePropagator extends NQueensPropagator {
-  protected final Stack<Integer> fixedCount;
-  protected final List<BooleanFormula> fixedValues;
-  protected final HashMap<BooleanFormula, BooleanFormula> currentModel;
-  protected final Set<HashMap<BooleanFormula, BooleanFormula>> modelSet;
+  /** The ids of all fixed symbols in assignment order. */
+  protected final BacktrackableIntStack fixedIds;
+
+  /** The ids of all symbols that are fixed to true. */
+  protected final BacktrackableBitSet currentModel;
+
+  protected final Set<BitSet> modelSet;
 
   public CompletePropagator() {
-    fixedCount = new Stack<>();
-    fixedValues = new ArrayList<>();
-    currentModel = new HashMap<>();
-    modelSet = new HashSet<>();
+    fixedIds = new BacktrackableIntStack(getTrail());
+    currentModel = new BacktrackableBitSet(getTrail());
+    modelSet = ConcurrentHashMap.newKeySet();
     initNum();
   }
 
+  /** Create a copy for a sub-solver that shares the found models with the original. */
+  protected CompletePropagator(CompletePropagator original) {
+    super(original);
+    fixedIds = new BacktrackableIntStack(getTrail());
+    currentModel = new BacktrackableBitSet(getTrail());
+    modelSet = original.modelSet;
+  }
+
+  @Override
+  public CompletePropagator fresh() {
+    return new CompletePropagator(this);
+  }
+
 
   @Override
   public void push() {
-    fixedCount.push(fixedValues.size());
   }
 
   @Override
   public void pop(int num) {
-    for (int i = 0; i < num; i++) {
-      int lastCount = fixedCount.pop();
-      for (int size = fixedValues.size(); size > lastCount; size--) {
-        currentModel.remove(fixedValues.remove(size - 1));
-      }
-    }
   }
 
   @Override
   public void finish() {
-    addConflict(fixedValues.toArray(new BooleanFormula[0]));
-    if (modelSet.add(currentModel)) {
+    addConflict(fixedIds.elements(), fixedIds.size());
+    if (modelSet.add(currentModel.snapshot())) {
       incrementNum();
     }
   }
@@ -78,7 +85,12 @@ public class CompletePropagator extends NQueensPropagator {
 
   @Override
   public void fixed(BooleanFormula var, BooleanFormula val) {
-    fixedValues.add(var);
-    currentModel.put(var, val);
+    // all symbols are watched, thus only the indexed callback is used
+  }
+
+  @Override
+  public void fixed(int id, boolean value) {
+    fixedIds.add(id);
+    currentModel.set(id, value);
   }
 }
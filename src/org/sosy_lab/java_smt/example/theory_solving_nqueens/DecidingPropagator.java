@@ -0,0 +1,90 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Unlicense OR Apache-2.0 OR MIT
+
+package org.sosy_lab.java_smt.example.theory_solving_nqueens;
+
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.propagators.BacktrackableBitSet;
+
+/**
+ * Extends the {@link PartialPropagator} with a branching heuristic: queens are placed row by row,
+ * each in the first cell that is neither assigned nor attacked by another queen.
+ */
+public class DecidingPropagator extends PartialPropagator {
+  /** The ids of all assigned symbols, regardless of their value. */
+  private final BacktrackableBitSet assigned;
+
+  /** The rows that contain a queen, maintained incrementally to keep the decide callback cheap. */
+  private final BacktrackableBitSet occupiedRows;
+
+  private int decisions = 0;
+
+  public DecidingPropagator() {
+    assigned = new BacktrackableBitSet(getTrail());
+    occupiedRows = new BacktrackableBitSet(getTrail());
+  }
+
+  private DecidingPropagator(DecidingPropagator original) {
+    super(original);
+    assigned = new BacktrackableBitSet(getTrail());
+    occupiedRows = new BacktrackableBitSet(getTrail());
+  }
+
+  @Override
+  public DecidingPropagator fresh() {
+    return new DecidingPropagator(this);
+  }
+
+  @Override
+  public void watchSymbols(BooleanFormula[][] symbols) {
+    super.watchSymbols(symbols);
+    notifyOnDecide();
+  }
+
+  @Override
+  public void fixed(int id, boolean value) {
+    super.fixed(id, value);
+    assigned.set(id);
+    if (value) {
+      occupiedRows.set(rows[id]);
+    }
+  }
+
+  @Override
+  public void decide(int id, boolean phase) {
+    int candidate = findFreeCell();
+    if (candidate >= 0 && nextSplit(candidate, true)) {
+      decisions++;
+    }
+  }
+
+  /** Returns the first free and unattacked cell in the first row without a queen, or -1. */
+  private int findFreeCell() {
+    for (int id = 0; id < rows.length; id++) {
+      if (!occupiedRows.get(rows[id]) && !assigned.get(id) && !isAttackedByQueen(id)) {
+        return id;
+      }
+    }
+    return -1;
+  }
+
+  private boolean isAttackedByQueen(int id) {
+    for (int i = 0; i < fixedIds.size(); i++) {
+      int other = fixedIds.get(i);
+      if (currentModel.get(other) && isAttacking(id, other)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns the number of decisions that were overridden by this propagator. */
+  public int getDecisionNumber() {
+    return decisions;
+  }
+}
@@ -12,6 +12,7 @@ import com.google.common.collect.ImmutableList;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.logging.Level;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
@@ -58,9 +59,12 @@ public class NQueens {
     Configuration config = Configuration.defaultConfiguration();
     LogManager logger = BasicLogManager.create(config);
     ShutdownNotifier notifier = ShutdownNotifier.createDummy();
+    // the solver can be given as optional third argument, e.g., CVC5
+    Solvers solver =
+        args.length > 2 ? Solvers.valueOf(args[2].toUpperCase(Locale.ROOT)) : Solvers.Z3;
 
     try (SolverContext context =
-        SolverContextFactory.createSolverContext(config, logger, notifier, Solvers.Z3);
+        SolverContextFactory.createSolverContext(config, logger, notifier, solver);
          ProverEnvironment prover = context.newProverEnvironment(ProverOptions.GENERATE_MODELS,
              ProverOptions.GENERATE_ALL_SAT)) {
       int n = Integer.parseInt(args[0]);
@@ -74,6 +78,8 @@ public class NQueens {
         solutions = myQueen.solvePartialMin(prover);
       } else if (method == 3) {
         solutions = myQueen.solvePartial(prover);
+      } else if (method == 4) {
+        solutions = myQueen.solveDeciding(prover);
       } else {
         solutions = myQueen.solveClassic(prover);
       }
@@ -86,7 +92,7 @@ public class NQueens {
         System.out.println("Something went wrong :(");
       }
     } catch (InvalidConfigurationException | UnsatisfiedLinkError e) {
-      logger.logUserException(Level.INFO, e, "Solver Z3 is not available.");
+      logger.logUserException(Level.INFO, e, "Solver " + solver + " is not available.");
     } catch (UnsupportedOperationException e) {
       logger.logUserException(Level.INFO, e, e.getMessage());
     }
@@ -281,17 +287,18 @@ public class NQueens {
     prover.push(bmgr.and(rules));
   }
 
+  /** Returns the theory solver of the last solving run, or null if none was used. */
+  public NQueensPropagator getTheorySolver() {
+    return theorySolver;
+  }
+
   private int solveWithTheory(
       NQueensPropagator theorySolver, ProverEnvironment prover,
       BooleanFormula[][] symbols) throws InterruptedException,
                                                                  SolverException {
     this.theorySolver = theorySolver;
     prover.registerTheorySolver(theorySolver);
-    for (BooleanFormula[] symbolRow : symbols) {
-      for (BooleanFormula singleSymbol : symbolRow) {
-        theorySolver.addExpressionToWatch(singleSymbol);
-      }
-    }
+    theorySolver.watchSymbols(symbols);
     theorySolver.notifyOnVarAssign();
     theorySolver.notifyOnFullAssign();
 
@@ -315,13 +322,23 @@ public class NQueens {
         .addAll(rowRule1(symbols))
         .build();
     prover.push(bmgr.and(rules));
-    return solveWithTheory(new PartialPropagator(symbols, bmgr), prover, symbols);
+    return solveWithTheory(new PartialPropagator(), prover, symbols);
   }
 
   public int solvePartial(ProverEnvironment prover) throws InterruptedException, SolverException {
     BooleanFormula[][] symbols = getSymbols();
     addConstraints(prover, symbols);
-    return solveWithTheory(new PartialPropagator(symbols, bmgr), prover, symbols);
+    return solveWithTheory(new PartialPropagator(), prover, symbols);
+  }
+
+  public int solveDeciding(ProverEnvironment prover)
+      throws InterruptedException, SolverException {
+    BooleanFormula[][] symbols = getSymbols();
+    List<BooleanFormula> rules = ImmutableList.<BooleanFormula>builder()
+        .addAll(rowRule1(symbols))
+        .build();
+    prover.push(bmgr.and(rules));
+    return solveWithTheory(new DecidingPropagator(), prover, symbols);
   }
 
   public int solveClassic(ProverEnvironment prover) throws InterruptedException, SolverException {
@@ -348,11 +365,7 @@ public class NQueens {
     addConstraints(prover, symbols);
     this.theorySolver = new PartialObservantPropagator(bmgr);
     prover.registerTheorySolver(theorySolver);
-    for (BooleanFormula[] symbolRow : symbols) {
-      for (BooleanFormula singleSymbol : symbolRow) {
-        theorySolver.addExpressionToWatch(singleSymbol);
-      }
-    }
+    theorySolver.watchSymbols(symbols);
     theorySolver.notifyOnVarAssign();
     theorySolver.notifyOnFullAssign();
 
@@ -20,20 +20,68 @@
 
 package org.sosy_lab.java_smt.example.theory_solving_nqueens;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.BooleanTheorySolver;
 
 public abstract class NQueensPropagator extends BooleanTheorySolver {
-  private int solutionNumber;
+  private final AtomicInteger solutionNumber;
+
+  /** Number of copies for sub-solvers, shared by the original and all its copies. */
+  private final AtomicInteger copies;
+
+  /** Row and column of each symbol, indexed by its watched id. */
+  protected int[] rows = new int[0];
+
+  protected int[] columns = new int[0];
+
+  protected NQueensPropagator() {
+    solutionNumber = new AtomicInteger();
+    copies = new AtomicInteger();
+  }
+
+  /**
+   * Create a copy for a sub-solver (see {@link #fresh()}) that shares the coordinates and the
+   * solution counter with the original.
+   */
+  protected NQueensPropagator(NQueensPropagator original) {
+    solutionNumber = original.solutionNumber;
+    copies = original.copies;
+    copies.incrementAndGet();
+    rows = original.rows;
+    columns = original.columns;
+  }
+
+  /** Register all symbols for callbacks and remember their coordinates. */
+  public void watchSymbols(BooleanFormula[][] symbols) {
+    for (int row = 0; row < symbols.length; row++) {
+      for (int col = 0; col < symbols[row].length; col++) {
+        int id = addExpressionToWatch(symbols[row][col]);
+        if (id >= rows.length) {
+          rows = Arrays.copyOf(rows, id + 1);
+          columns = Arrays.copyOf(columns, id + 1);
+        }
+        rows[id] = row;
+        columns[id] = col;
+      }
+    }
+  }
 
   protected void initNum() {
-    solutionNumber = 0;
+    solutionNumber.set(0);
   }
 
   protected void incrementNum() {
-    solutionNumber++;
+    solutionNumber.incrementAndGet();
   }
 
   public int getSolutionNumber() {
-    return solutionNumber;
+    return solutionNumber.get();
+  }
+
+  /** Return how many copies for sub-solvers were created from the original propagator. */
+  public int getNumberOfCopies() {
+    return copies.get();
   }
 }
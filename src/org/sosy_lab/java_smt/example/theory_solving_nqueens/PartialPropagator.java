@@ -20,55 +20,45 @@
 
 package org.sosy_lab.java_smt.example.theory_solving_nqueens;
 
-import io.github.cvc5.Pair;
-import java.util.HashMap;
-import java.util.Objects;
-import org.sosy_lab.java_smt.api.BooleanFormula;
-import org.sosy_lab.java_smt.api.BooleanFormulaManager;
-
 public class PartialPropagator extends CompletePropagator{
-  private final BooleanFormula[][] symbols;
-  private final HashMap<BooleanFormula, Pair<Integer, Integer>> symbolToCoordinates;
-  private final BooleanFormulaManager bmgr;
-  public PartialPropagator(BooleanFormula[][] symbols, BooleanFormulaManager bmgr) {
+  /** Reused buffer for reporting conflicts between two queens. */
+  private final int[] conflict = new int[2];
+
+  public PartialPropagator() {
     super();
-    this.symbols = symbols;
-    this.bmgr = bmgr;
-    symbolToCoordinates = new HashMap<>();
-    fillCoordinateMap();
   }
 
-  private void fillCoordinateMap() {
-    for (int i = 0; i < symbols[0].length; i++) {
-      for (int j = 0; j < symbols[0].length; j++) {
-        symbolToCoordinates.put(symbols[i][j], new Pair<>(i, j));
-      }
-    }
+  protected PartialPropagator(PartialPropagator original) {
+    super(original);
   }
 
   @Override
-  public void fixed(BooleanFormula var, BooleanFormula value) {
-    if (bmgr.isTrue(value)) {
-      Pair<Integer, Integer> coordinates = symbolToCoordinates.get(var);
-      for (BooleanFormula other : fixedValues) {
-        BooleanFormula otherValue = currentModel.get(other);
-        if (bmgr.isTrue(otherValue)) {
-          Pair<Integer, Integer> otherCoordinates = symbolToCoordinates.get(other);
-          if (coordinates.first == otherCoordinates.first || coordinates.second == otherCoordinates.second) {
-            addConflict(new BooleanFormula[]{var, other});
-            continue;
-          }
-          int diffx = Math.abs(coordinates.first - otherCoordinates.first);
-          int diffy = Math.abs(coordinates.second - otherCoordinates.second);
-          if (diffx == diffy) {
-            addConflict(new BooleanFormula[]{var, other});
-          }
+  public PartialPropagator fresh() {
+    return new PartialPropagator(this);
+  }
+
+  @Override
+  public void fixed(int id, boolean value) {
+    if (value) {
+      for (int i = 0; i < fixedIds.size(); i++) {
+        int other = fixedIds.get(i);
+        if (currentModel.get(other) && isAttacking(id, other)) {
+          conflict[0] = id;
+          conflict[1] = other;
+          addConflict(conflict, 2);
         }
       }
     }
 
-    fixedValues.add(var);
-    currentModel.put(var, value);
+    super.fixed(id, value);
   }
 
+  protected boolean isAttacking(int id, int other) {
+    if (rows[id] == rows[other] || columns[id] == columns[other]) {
+      return true;
+    }
+    int diffx = Math.abs(rows[id] - rows[other]);
+    int diffy = Math.abs(columns[id] - columns[other]);
+    return diffx == diffy;
+  }
 }
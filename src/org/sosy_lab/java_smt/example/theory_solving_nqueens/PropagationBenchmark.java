@@ -0,0 +1,92 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Unlicense OR Apache-2.0 OR MIT
+
+package org.sosy_lab.java_smt.example.theory_solving_nqueens;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.BasicLogManager;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * Measures how many native calls the propagator bridge needs for submitting consequences when
+ * solving NQueens with the partial and the complete propagator, once with consequences submitted
+ * immediately and once with consequences batched per callback (option {@code
+ * solver.z3.batchPropagatorConsequences}).
+ *
+ * <p>Usage: {@code PropagationBenchmark <minimal N> <maximal N>}
+ */
+public class PropagationBenchmark {
+
+  private PropagationBenchmark() {}
+
+  public static void main(String... args)
+      throws InvalidConfigurationException, SolverException, InterruptedException {
+    Configuration unbatched =
+        Configuration.builder()
+            .setOption("solver.z3.batchPropagatorConsequences", "false")
+            .build();
+    Configuration batched =
+        Configuration.builder()
+            .setOption("solver.z3.batchPropagatorConsequences", "true")
+            .build();
+    LogManager logger = BasicLogManager.create(Configuration.defaultConfiguration());
+    ShutdownNotifier notifier = ShutdownNotifier.createDummy();
+
+    System.out.println(
+        "n,propagator,solutions,submitted consequences,"
+            + "native calls without batching,time without batching (ms),"
+            + "native calls with batching,time with batching (ms)");
+    for (int n = Integer.parseInt(args[0]); n <= Integer.parseInt(args[1]); n++) {
+      for (String method : new String[] {"partial", "complete"}) {
+        List<String> row = new ArrayList<>();
+        row.add(Integer.toString(n));
+        row.add(method);
+        row.addAll(run(unbatched, logger, notifier, n, method));
+        // both runs have the same solutions and submitted consequences
+        row.addAll(run(batched, logger, notifier, n, method).subList(2, 4));
+        System.out.println(String.join(",", row));
+      }
+    }
+  }
+
+  /** Returns the solutions, submitted consequences, native calls and the time in ms. */
+  private static List<String> run(
+      Configuration config, LogManager logger, ShutdownNotifier notifier, int n, String method)
+      throws InvalidConfigurationException, SolverException, InterruptedException {
+    try (SolverContext context =
+            SolverContextFactory.createSolverContext(config, logger, notifier, Solvers.Z3);
+        ProverEnvironment prover =
+            context.newProverEnvironment(
+                ProverOptions.GENERATE_MODELS, ProverOptions.GENERATE_ALL_SAT)) {
+      NQueens myQueen = new NQueens(context, n);
+      long starttime = System.nanoTime();
+      int solutions =
+          method.equals("partial") ? myQueen.solvePartial(prover) : myQueen.solveComplete(prover);
+      long endtime = System.nanoTime();
+
+      ImmutableMap<String, String> stats = myQueen.getTheorySolver().getBackendStatistics();
+      return ImmutableList.of(
+          Integer.toString(solutions),
+          stats.get("submitted consequences"),
+          stats.get("native calls"),
+          Long.toString((endtime - starttime) / 1000000));
+    }
+  }
+}
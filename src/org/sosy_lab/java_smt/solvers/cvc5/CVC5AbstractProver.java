@@ -51,7 +51,7 @@ public class CVC5AbstractProver<T> extends AbstractProverWithAllSat<T> {
       @SuppressWarnings("unused") int randomSeed,
       Set<ProverOptions> pOptions,
       FormulaManager pMgr) {
-    super(pOptions, pMgr.getBooleanFormulaManager(), pShutdownNotifier);
+    super(pOptions, pMgr, pShutdownNotifier);
 
     mgr = pMgr;
     creator = pFormulaCreator;
@@ -173,7 +173,7 @@ public class CVC5AbstractProver<T> extends AbstractProverWithAllSat<T> {
     closeAllEvaluators();
     changedSinceLastSatQuery = false;
     if (!incremental) {
-      getAssertedExpressions().forEach(solver::assertFormula);
+      getExpressionsForCheck().forEach(solver::assertFormula);
     }
 
     /* Shutdown currently not possible in CVC5. */
@@ -218,6 +218,23 @@ public class CVC5AbstractProver<T> extends AbstractProverWithAllSat<T> {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  protected Collection<BooleanFormula> getAssertedFormulas() {
+    List<BooleanFormula> result = new ArrayList<>();
+    for (Term term : getAssertedExpressions()) {
+      result.add(creator.encapsulateBoolean(term));
+    }
+    return result;
+  }
+
+  /**
+   * Return the expressions that are given to the solver before each check in non-incremental mode.
+   * These are the asserted expressions, and subclasses can add further ones.
+   */
+  protected Collection<Term> getExpressionsForCheck() {
+    return getAssertedExpressions();
+  }
+
   protected Collection<Term> getAssertedExpressions() {
     List<Term> result = new ArrayList<>();
     assertedFormulas.forEach(result::addAll);
@@ -10,13 +10,16 @@ package org.sosy_lab.java_smt.solvers.cvc5;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableSet;
 import io.github.cvc5.CVC5ApiException;
 import io.github.cvc5.Kind;
 import io.github.cvc5.Solver;
 import io.github.cvc5.Sort;
 import io.github.cvc5.Term;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.FormulaManager;
@@ -24,7 +27,7 @@ import org.sosy_lab.java_smt.basicimpl.AbstractModel;
 
 public class CVC5Model extends AbstractModel<Term, Sort, Solver> {
 
-  private final ImmutableList<ValueAssignment> model;
+  private @Nullable ImmutableList<ValueAssignment> model = null;
   private final Solver solver;
   private final ImmutableList<Term> assertedExpressions;
 
@@ -41,10 +44,9 @@ public class CVC5Model extends AbstractModel<Term, Sort, Solver> {
     mgr = pMgr;
     assertedExpressions = ImmutableList.copyOf(pAssertedExpressions);
 
-    // We need to generate and save this at construction time as CVC4 has no functionality to give a
-    // persistent reference to the model. If the SMT engine is used somewhere else, the values we
-    // get out of it might change!
-    model = generateModel();
+    // CVC5 has no functionality to give a persistent reference to the model. If the SMT engine is
+    // used somewhere else, the values we get out of it might change! The prover closes this model
+    // before any change of its stack, thus the assignments can be generated lazily until then.
   }
 
   @Override
@@ -53,19 +55,28 @@ public class CVC5Model extends AbstractModel<Term, Sort, Solver> {
     return solver.getValue(f);
   }
 
-  private ImmutableList<ValueAssignment> generateModel() {
-    ImmutableSet.Builder<ValueAssignment> builder = ImmutableSet.builder();
+  /**
+   * Walks lazily through the asserted expressions. Only the values of variables and UF applications
+   * whose name starts with the prefix are retrieved from the solver.
+   */
+  private Stream<ValueAssignment> generateModel(String namePrefix) {
     // Using creator.extractVariablesAndUFs we wouldn't get accurate information anymore as we
     // translate all bound vars back to their free counterparts in the visitor!
-    for (Term expr : assertedExpressions) {
-      // creator.extractVariablesAndUFs(expr, true, (name, f) -> builder.add(getAssignment(f)));
-      recursiveAssignmentFinder(builder, expr);
-    }
-    return builder.build().asList();
+    return assertedExpressions.stream()
+        .flatMap(
+            expr -> {
+              List<Term> keys = new ArrayList<>();
+              recursiveAssignmentFinder(keys, expr);
+              return keys.stream();
+            })
+        .distinct()
+        .filter(key -> getName(key).startsWith(namePrefix))
+        .map(this::getAssignment)
+        .distinct();
   }
 
   // TODO this method is highly recursive and should be rewritten with a proper visitor
-  private void recursiveAssignmentFinder(ImmutableSet.Builder<ValueAssignment> builder, Term expr) {
+  private void recursiveAssignmentFinder(List<Term> keys, Term expr) {
     try {
       Sort sort = expr.getSort();
       Kind kind = expr.getKind();
@@ -78,11 +89,11 @@ public class CVC5Model extends AbstractModel<Term, Sort, Solver> {
         // Vars and UFs, as well as bound vars in UFs!
         // In CVC5 consts are variables! Free variables (in CVC5s notation, we call them bound
         // variables, created with mkVar() can never have a value!)
-        builder.add(getAssignment(expr));
+        keys.add(expr);
       } else if (kind == Kind.FORALL || kind == Kind.EXISTS) {
         // Body of the quantifier, with bound vars!
         Term body = expr.getChild(1);
-        recursiveAssignmentFinder(builder, body);
+        recursiveAssignmentFinder(keys, body);
       } else if (kind == Kind.CONST_STRING
           || kind == Kind.CONST_ARRAY
           || kind == Kind.CONST_BITVECTOR
@@ -93,12 +104,12 @@ public class CVC5Model extends AbstractModel<Term, Sort, Solver> {
           || kind == Kind.CONST_SEQUENCE) {
         // Constants, do nothing
       } else if (kind == Kind.APPLY_UF) {
-        builder.add(getAssignmentForUf(expr));
+        keys.add(expr);
 
       } else {
         // Only nested terms (AND, OR, ...) are left
         for (Term child : expr) {
-          recursiveAssignmentFinder(builder, child);
+          recursiveAssignmentFinder(keys, child);
         }
       }
     } catch (CVC5ApiException e) {
@@ -130,17 +141,7 @@ public class CVC5Model extends AbstractModel<Term, Sort, Solver> {
       }
     }
 
-    // In applied UFs the child with the name is the 0th child (as it is the declaration)
-    String nameStr;
-    try {
-      nameStr = pKeyTerm.getChild(0).getSymbol();
-    } catch (CVC5ApiException e) {
-      nameStr = "UF";
-    }
-
-    if (nameStr.startsWith("|") && nameStr.endsWith("|")) {
-      nameStr = nameStr.substring(1, nameStr.length() - 1);
-    }
+    String nameStr = getName(pKeyTerm);
 
     Term valueTerm;
     // You can't get a value if there is a bound variable present
@@ -166,19 +167,17 @@ public class CVC5Model extends AbstractModel<Term, Sort, Solver> {
         keyFormula, valueFormula, equation, nameStr, value, argumentInterpretationBuilder.build());
   }
 
-  private ValueAssignment getAssignment(Term pKeyTerm) {
-    ImmutableList.Builder<Object> argumentInterpretationBuilder = ImmutableList.builder();
-    for (int i = 0; i < pKeyTerm.getNumChildren(); i++) {
+  /** The name of a variable or of the function of a UF application. */
+  private static String getName(Term pKeyTerm) {
+    String nameStr;
+    if (pKeyTerm.getKind() == Kind.APPLY_UF) {
+      // In applied UFs the child with the name is the 0th child (as it is the declaration)
       try {
-        argumentInterpretationBuilder.add(evaluateImpl(pKeyTerm.getChild(i)));
+        nameStr = pKeyTerm.getChild(0).getSymbol();
       } catch (CVC5ApiException e) {
-        throw new IndexOutOfBoundsException(
-            "Accessed a non existing UF value while creating a CVC5 model.");
+        nameStr = "UF";
       }
-    }
-
-    String nameStr = "";
-    if (pKeyTerm.hasSymbol()) {
+    } else if (pKeyTerm.hasSymbol()) {
       nameStr = pKeyTerm.getSymbol();
     } else {
       // Default if there is no name
@@ -188,6 +187,24 @@ public class CVC5Model extends AbstractModel<Term, Sort, Solver> {
     if (nameStr.startsWith("|") && nameStr.endsWith("|")) {
       nameStr = nameStr.substring(1, nameStr.length() - 1);
     }
+    return nameStr;
+  }
+
+  private ValueAssignment getAssignment(Term pKeyTerm) {
+    if (pKeyTerm.getKind() == Kind.APPLY_UF) {
+      return getAssignmentForUf(pKeyTerm);
+    }
+    ImmutableList.Builder<Object> argumentInterpretationBuilder = ImmutableList.builder();
+    for (int i = 0; i < pKeyTerm.getNumChildren(); i++) {
+      try {
+        argumentInterpretationBuilder.add(evaluateImpl(pKeyTerm.getChild(i)));
+      } catch (CVC5ApiException e) {
+        throw new IndexOutOfBoundsException(
+            "Accessed a non existing UF value while creating a CVC5 model.");
+      }
+    }
+
+    String nameStr = getName(pKeyTerm);
 
     Term valueTerm = solver.getValue(pKeyTerm);
     Formula keyFormula = creator.encapsulateWithTypeOf(pKeyTerm);
@@ -201,6 +218,25 @@ public class CVC5Model extends AbstractModel<Term, Sort, Solver> {
 
   @Override
   public ImmutableList<ValueAssignment> asList() {
+    if (model == null) {
+      Preconditions.checkState(!isClosed());
+      model = generateModel("").collect(ImmutableList.toImmutableList());
+    }
     return model;
   }
+
+  @Override
+  public Stream<ValueAssignment> stream() {
+    return stream("");
+  }
+
+  @Override
+  public Stream<ValueAssignment> stream(String namePrefix) {
+    Preconditions.checkNotNull(namePrefix);
+    if (model != null) {
+      return model.stream().filter(assignment -> assignment.getName().startsWith(namePrefix));
+    }
+    Preconditions.checkState(!isClosed());
+    return generateModel(namePrefix);
+  }
 }
@@ -8,16 +8,37 @@
 
 package org.sosy_lab.java_smt.solvers.cvc5;
 
+import io.github.cvc5.Term;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.java_smt.api.BasicProverEnvironment;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanTheorySolver;
 import org.sosy_lab.java_smt.api.FormulaManager;
 import org.sosy_lab.java_smt.api.ProverEnvironment;
 import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
 
 class CVC5TheoremProver extends CVC5AbstractProver<Void>
     implements ProverEnvironment, BasicProverEnvironment<Void> {
 
+  private final boolean generateModels;
+
+  private @Nullable CVC5UserPropagator propagator = null;
+
+  /**
+   * The lemmas of the theory solver for each level of the assertion stack. They are asserted on the
+   * solver, but are not part of the asserted formulas, and are removed from unsat cores.
+   */
+  private final Deque<List<Term>> lemmas = new ArrayDeque<>();
+
   protected CVC5TheoremProver(
       CVC5FormulaCreator pFormulaCreator,
       ShutdownNotifier pShutdownNotifier,
@@ -25,5 +46,97 @@ class CVC5TheoremProver extends CVC5AbstractProver<Void>
       Set<ProverOptions> pOptions,
       FormulaManager pMgr) {
     super(pFormulaCreator, pShutdownNotifier, randomSeed, pOptions, pMgr);
+    generateModels = pOptions.contains(ProverOptions.GENERATE_MODELS);
+    lemmas.push(new ArrayList<>());
+  }
+
+  @Override
+  public void push() {
+    super.push();
+    lemmas.push(new ArrayList<>());
+  }
+
+  @Override
+  public void pop() {
+    super.pop();
+    lemmas.pop();
+  }
+
+  /**
+   * CVC5 has no native user propagators, thus the theory solver is only consulted for each model,
+   * see {@link CVC5UserPropagator}. This requires the prover option {@link
+   * ProverOptions#GENERATE_MODELS}.
+   */
+  @Override
+  public boolean registerTheorySolver(BooleanTheorySolver pTheorySolver) {
+    if (!generateModels || !reserveTheorySolver()) {
+      return false;
+    }
+    propagator = new CVC5UserPropagator(creator, pTheorySolver);
+    pTheorySolver.injectBackend(propagator);
+    return true;
+  }
+
+  @Override
+  public boolean isUnsat() throws InterruptedException, SolverException {
+    if (propagator == null) {
+      return super.isUnsat();
+    }
+    while (!super.isUnsat()) {
+      shutdownNotifier.shutdownIfNecessary();
+      List<Term> newLemmas = getViolatedLemmas(propagator.finalCheck(solver));
+      if (newLemmas.isEmpty()) {
+        return false; // the theory solver accepts the model
+      }
+      lemmas.peek().addAll(newLemmas);
+      if (incremental) {
+        newLemmas.forEach(solver::assertFormula);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Return the reported lemmas that are violated by the current model and not yet asserted. Other
+   * lemmas would not change the model, and checking again would report them forever.
+   */
+  private List<Term> getViolatedLemmas(List<Term> pReported) {
+    Set<Term> known = new HashSet<>();
+    lemmas.forEach(known::addAll);
+    List<Term> violated = new ArrayList<>();
+    for (Term lemma : pReported) {
+      if (known.add(lemma) && !solver.getValue(lemma).getBooleanValue()) {
+        violated.add(lemma);
+      }
+    }
+    return violated;
+  }
+
+  @Override
+  protected Collection<Term> getExpressionsForCheck() {
+    List<Term> result = new ArrayList<>(getAssertedExpressions());
+    lemmas.forEach(result::addAll);
+    return result;
+  }
+
+  /**
+   * The unsat core consists of the asserted formulas only, i.e., it is unsatisfiable together with
+   * the theory of the registered theory solver.
+   */
+  @Override
+  public List<BooleanFormula> getUnsatCore() {
+    List<BooleanFormula> core = super.getUnsatCore();
+    Set<Term> allLemmas = new HashSet<>();
+    lemmas.forEach(allLemmas::addAll);
+    if (allLemmas.isEmpty()) {
+      return core;
+    }
+    List<BooleanFormula> result = new ArrayList<>();
+    for (BooleanFormula f : core) {
+      if (!allLemmas.contains(creator.extractInfo(f))) {
+        result.add(f);
+      }
+    }
+    return result;
   }
 }
@@ -0,0 +1,275 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.solvers.cvc5;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import io.github.cvc5.Kind;
+import io.github.cvc5.Solver;
+import io.github.cvc5.Term;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.Backend;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanTheorySolver;
+
+/**
+ * Backend for a {@link BooleanTheorySolver} on top of CVC5.
+ *
+ * <p>The bundled version of CVC5 does not provide an interface for user propagators. Thus, the
+ * theory solver is only consulted after CVC5 found a model: we report the values of all watched
+ * expressions via {@link BooleanTheorySolver#fixed(int, boolean)}, followed by {@link
+ * BooleanTheorySolver#finish()}, and convert all reported conflicts and lemmas into clauses that
+ * are asserted on the prover before the next check, see {@link #finalCheck}. This is complete for
+ * theory solvers that judge full assignments, but the theory solver can not prune the search
+ * early.
+ *
+ * <p>Equalities, user functions and decisions are never reported, and {@link #nextSplit} is
+ * ignored.
+ */
+final class CVC5UserPropagator implements Backend {
+
+  private final CVC5FormulaCreator creator;
+  private final BooleanTheorySolver theorySolver;
+
+  /** Used for building clauses, must be the solver that created all terms. */
+  private final Solver termManager;
+
+  /** Watched expressions, indexed by the id that is reported to the theory solver. */
+  private final List<BooleanFormula> watched = new ArrayList<>();
+
+  private final List<Term> watchedTerms = new ArrayList<>();
+  private final Map<Term, Integer> termToWatchedId = new HashMap<>();
+
+  private final BooleanFormula trueFormula;
+  private final BooleanFormula falseFormula;
+
+  private boolean notifyOnVarAssign = false;
+  private boolean notifyOnFullAssign = false;
+
+  /** The prover whose model is currently checked, only set during {@link #finalCheck}. */
+  private @Nullable Solver currentSolver = null;
+
+  /** The values of all watched expressions in the currently checked model. */
+  private final BitSet currentValues = new BitSet();
+
+  /** Clauses that were reported during the current final check. */
+  private final List<Term> lemmas = new ArrayList<>();
+
+  private long callbacks = 0;
+  private long submittedConsequences = 0;
+  private long finalChecks = 0;
+
+  CVC5UserPropagator(CVC5FormulaCreator pCreator, BooleanTheorySolver pTheorySolver) {
+    creator = pCreator;
+    theorySolver = pTheorySolver;
+    termManager = pCreator.getEnv();
+    trueFormula = pCreator.encapsulateBoolean(termManager.mkTrue());
+    falseFormula = pCreator.encapsulateBoolean(termManager.mkFalse());
+  }
+
+  /**
+   * Let the theory solver check the current model of the given solver, which must have returned
+   * SAT for its last query.
+   *
+   * @return the clauses that the theory solver reported, an empty list if it accepts the model.
+   */
+  List<Term> finalCheck(Solver pSolver) {
+    finalChecks++;
+    currentSolver = pSolver;
+    lemmas.clear();
+    for (int id = 0; id < watchedTerms.size(); id++) {
+      currentValues.set(id, pSolver.getValue(watchedTerms.get(id)).getBooleanValue());
+    }
+
+    // all callbacks of one check are placed on their own level,
+    // such that the theory solver starts from a clean state for the next model.
+    theorySolver.handlePush();
+    try {
+      if (notifyOnVarAssign) {
+        for (int id = 0; id < watchedTerms.size(); id++) {
+          theorySolver.fixed(id, currentValues.get(id));
+        }
+        callbacks += watchedTerms.size();
+      }
+      if (notifyOnFullAssign) {
+        theorySolver.finish();
+        callbacks++;
+      }
+    } finally {
+      theorySolver.handlePop(1);
+      currentSolver = null;
+    }
+    return lemmas;
+  }
+
+  @Override
+  public int addExpressionToWatch(BooleanFormula toWatch) {
+    Term term = creator.extractInfo(toWatch);
+    Integer id = termToWatchedId.get(term);
+    if (id == null) {
+      id = watched.size();
+      watched.add(toWatch);
+      watchedTerms.add(term);
+      termToWatchedId.put(term, id);
+    }
+    return id;
+  }
+
+  @Override
+  public BooleanFormula getWatchedExpression(int id) {
+    return watched.get(id);
+  }
+
+  @Override
+  public int getNumberOfWatchedExpressions() {
+    return watched.size();
+  }
+
+  @Override
+  public BooleanFormula getBooleanConstant(boolean value) {
+    return value ? trueFormula : falseFormula;
+  }
+
+  @Override
+  public void addConflict(BooleanFormula[] fixed) {
+    addClause(fixed, null, null, null);
+  }
+
+  @Override
+  public void addConflict(int[] fixedIds, int count) {
+    addClause(fixedIds, count, null);
+  }
+
+  @Override
+  public void addConflictEq(BooleanFormula[] fixed, BooleanFormula[] lhs, BooleanFormula[] rhs) {
+    addClause(fixed, lhs, rhs, null);
+  }
+
+  @Override
+  public void addTheoryLemma(BooleanFormula[] fixed, BooleanFormula conflict) {
+    addClause(fixed, null, null, conflict);
+  }
+
+  @Override
+  public void addTheoryLemma(int[] fixedIds, int count, BooleanFormula consequence) {
+    addClause(fixedIds, count, consequence);
+  }
+
+  @Override
+  public void addLearningClause(
+      BooleanFormula[] fixed, BooleanFormula[] lhs, BooleanFormula[] rhs,
+      BooleanFormula constraint) {
+    addClause(fixed, lhs, rhs, constraint);
+  }
+
+  /**
+   * Build the clause "some fixed expression has a different value, or some equality does not
+   * hold, or the consequence holds".
+   */
+  private void addClause(
+      BooleanFormula @Nullable [] fixed,
+      BooleanFormula @Nullable [] lhs,
+      BooleanFormula @Nullable [] rhs,
+      @Nullable BooleanFormula consequence) {
+    List<Term> literals = new ArrayList<>();
+    if (fixed != null) {
+      for (BooleanFormula f : fixed) {
+        Term term = creator.extractInfo(f);
+        Integer id = termToWatchedId.get(term);
+        literals.add(negateValue(term, id == null ? getValue(term) : currentValues.get(id)));
+      }
+    }
+    if (lhs != null) {
+      Preconditions.checkArgument(rhs != null && lhs.length == rhs.length);
+      for (int i = 0; i < lhs.length; i++) {
+        Term equality =
+            termManager.mkTerm(
+                Kind.EQUAL, creator.extractInfo(lhs[i]), creator.extractInfo(rhs[i]));
+        literals.add(termManager.mkTerm(Kind.NOT, equality));
+      }
+    }
+    submit(literals, consequence);
+  }
+
+  private void addClause(int[] fixedIds, int count, @Nullable BooleanFormula consequence) {
+    List<Term> literals = new ArrayList<>(count + 1);
+    for (int i = 0; i < count; i++) {
+      literals.add(negateValue(watchedTerms.get(fixedIds[i]), currentValues.get(fixedIds[i])));
+    }
+    submit(literals, consequence);
+  }
+
+  private void submit(List<Term> literals, @Nullable BooleanFormula consequence) {
+    submittedConsequences++;
+    if (consequence != null && consequence != falseFormula) {
+      literals.add(creator.extractInfo(consequence));
+    }
+    final Term clause;
+    if (literals.isEmpty()) {
+      clause = termManager.mkFalse();
+    } else if (literals.size() == 1) {
+      clause = literals.get(0);
+    } else {
+      clause = termManager.mkTerm(Kind.OR, literals.toArray(new Term[0]));
+    }
+    lemmas.add(clause);
+  }
+
+  private boolean getValue(Term term) {
+    Preconditions.checkState(
+        currentSolver != null, "CVC5 only supports consequences during a callback.");
+    return currentSolver.getValue(term).getBooleanValue();
+  }
+
+  private Term negateValue(Term term, boolean value) {
+    return value ? termManager.mkTerm(Kind.NOT, term) : term;
+  }
+
+  @Override
+  public boolean nextSplit(int id, boolean phase) {
+    return false;
+  }
+
+  @Override
+  public boolean nextSplit(BooleanFormula expr, boolean phase) {
+    return false;
+  }
+
+  @Override
+  public ImmutableMap<String, String> getStatistics() {
+    return ImmutableMap.of(
+        "callbacks", Long.toString(callbacks),
+        "submitted consequences", Long.toString(submittedConsequences),
+        "final checks", Long.toString(finalChecks));
+  }
+
+  @Override
+  public void notifyOnUserFunction() {}
+
+  @Override
+  public void notifyOnVarAssign() {
+    notifyOnVarAssign = true;
+  }
+
+  @Override
+  public void notifyOnEquality() {}
+
+  @Override
+  public void notifyOnFullAssign() {
+    notifyOnFullAssign = true;
+  }
+
+  @Override
+  public void notifyOnDecide() {}
+}
@@ -131,6 +131,7 @@ import org.sosy_lab.java_smt.api.FunctionDeclarationKind;
 import org.sosy_lab.java_smt.api.visitors.FormulaVisitor;
 import org.sosy_lab.java_smt.basicimpl.FormulaCreator;
 import org.sosy_lab.java_smt.basicimpl.FunctionDeclarationImpl;
+import org.sosy_lab.java_smt.basicimpl.LazyArgumentList;
 import org.sosy_lab.java_smt.solvers.mathsat5.Mathsat5Formula.Mathsat5ArrayFormula;
 import org.sosy_lab.java_smt.solvers.mathsat5.Mathsat5Formula.Mathsat5BitvectorFormula;
 import org.sosy_lab.java_smt.solvers.mathsat5.Mathsat5Formula.Mathsat5BooleanFormula;
@@ -198,6 +199,17 @@ class Mathsat5FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
     return getFormulaTypeFromTermType(type);
   }
 
+  @Override
+  protected boolean hasTermIds() {
+    return true;
+  }
+
+  /** MathSAT shares structurally equal terms, such that the address of a term identifies it. */
+  @Override
+  protected long getTermId(Long pTerm) {
+    return pTerm;
+  }
+
   private FormulaType<?> getFormulaTypeFromTermType(Long type) {
     long env = getEnv();
     if (msat_is_bool_type(env, type)) {
@@ -344,13 +356,14 @@ class Mathsat5FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
         return visitor.visitFreeVariable(formula, name);
       }
 
-      ImmutableList.Builder<Formula> args = ImmutableList.builder();
+      ImmutableList.Builder<Long> args = ImmutableList.builder();
+      ImmutableList.Builder<FormulaType<?>> argumentTypes = ImmutableList.builder();
       ImmutableList.Builder<FormulaType<?>> argTypes = ImmutableList.builder();
       for (int i = 0; i < arity; i++) {
         // argumentType can be sub-type of parameterType, e.g., int < rational
         long arg = msat_term_get_arg(f, i);
-        FormulaType<?> argumentType = getFormulaType(arg);
-        args.add(encapsulate(argumentType, arg));
+        args.add(arg);
+        argumentTypes.add(getFormulaType(arg));
         long argType = msat_decl_get_arg_type(declaration, i);
         FormulaType<?> parameterType = getFormulaTypeFromTermType(argType);
         argTypes.add(parameterType);
@@ -358,7 +371,7 @@ class Mathsat5FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
 
       return visitor.visitFunction(
           formula,
-          args.build(),
+          new LazyArgumentList<>(this, formula, args.build(), argumentTypes.build()),
           FunctionDeclarationImpl.of(
               name,
               getDeclarationKind(f),
@@ -23,13 +23,17 @@ import static org.sosy_lab.java_smt.solvers.mathsat5.Mathsat5NativeApi.msat_term
 import static org.sosy_lab.java_smt.solvers.mathsat5.Mathsat5NativeApi.msat_term_is_array_write;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Streams;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.stream.Stream;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.java_smt.basicimpl.AbstractModel;
 
 class Mathsat5Model extends AbstractModel<Long, Long, Long> {
@@ -49,26 +53,72 @@ class Mathsat5Model extends AbstractModel<Long, Long, Long> {
 
   @Override
   public ImmutableList<ValueAssignment> asList() {
+    try (Stream<ValueAssignment> assignments = stream()) {
+      return assignments.collect(ImmutableList.toImmutableList());
+    }
+  }
+
+  @Override
+  public Stream<ValueAssignment> stream() {
+    return stream("");
+  }
+
+  /**
+   * Walks lazily through the native model iterator. The name of each symbol is checked against the
+   * prefix before its value is converted. The native iterator is destroyed when it is exhausted or
+   * when the stream is closed.
+   */
+  @Override
+  public Stream<ValueAssignment> stream(String namePrefix) {
     Preconditions.checkState(!isClosed());
     Preconditions.checkState(!prover.closed, "cannot use model after prover is closed");
-    ImmutableList.Builder<ValueAssignment> assignments = ImmutableList.builder();
-
-    long modelIterator = msat_model_create_iterator(model);
-    while (msat_model_iterator_has_next(modelIterator)) {
-      long[] key = new long[1];
-      long[] value = new long[1];
-      if (msat_model_iterator_next(modelIterator, key, value)) {
-        throw new NoSuchElementException();
+    Preconditions.checkNotNull(namePrefix);
+    ModelIterator iterator = new ModelIterator(namePrefix);
+    return Streams.stream(iterator).flatMap(Collection::stream).onClose(iterator::close);
+  }
+
+  /** Iterates over the assignments of each symbol of the model whose name has a given prefix. */
+  private final class ModelIterator extends AbstractIterator<Collection<ValueAssignment>> {
+
+    private final String namePrefix;
+    private final long modelIterator;
+    private boolean destroyed = false;
+
+    private ModelIterator(String pNamePrefix) {
+      namePrefix = pNamePrefix;
+      modelIterator = msat_model_create_iterator(model);
+    }
+
+    @Override
+    protected @Nullable Collection<ValueAssignment> computeNext() {
+      while (!destroyed && msat_model_iterator_has_next(modelIterator)) {
+        Preconditions.checkState(!isClosed());
+        Preconditions.checkState(!prover.closed, "cannot use model after prover is closed");
+        long[] key = new long[1];
+        long[] value = new long[1];
+        if (msat_model_iterator_next(modelIterator, key, value)) {
+          throw new NoSuchElementException();
+        }
+
+        if (!formulaCreator.getName(key[0]).startsWith(namePrefix)) {
+          continue;
+        }
+        if (msat_is_array_type(creator.getEnv(), msat_term_get_type(value[0]))) {
+          return getArrayAssignments(key[0], key[0], value[0], ImmutableList.of());
+        } else {
+          return ImmutableList.of(getAssignment(key[0], value[0]));
+        }
       }
+      close();
+      return endOfData();
+    }
 
-      if (msat_is_array_type(creator.getEnv(), msat_term_get_type(value[0]))) {
-        assignments.addAll(getArrayAssignments(key[0], key[0], value[0], ImmutableList.of()));
-      } else {
-        assignments.add(getAssignment(key[0], value[0]));
+    private void close() {
+      if (!destroyed) {
+        destroyed = true;
+        msat_destroy_model_iterator(modelIterator);
       }
     }
-    msat_destroy_model_iterator(modelIterator);
-    return assignments.build();
   }
 
   private ValueAssignment getAssignment(long key, long value) {
@@ -55,6 +55,12 @@ class SmtInterpolFormulaCreator extends FormulaCreator<Term, Sort, Script, Funct
     return getFormulaTypeOfSort(pFormula.getSort());
   }
 
+  /** SMTInterpol terms are immutable, visiting them does not modify the script. */
+  @Override
+  protected boolean allowsConcurrentVisits() {
+    return true;
+  }
+
   private FormulaType<?> getFormulaTypeOfSort(final Sort pSort) {
     if (pSort == getIntegerType()) {
       return FormulaType.IntegerType;
@@ -18,8 +18,10 @@ import com.microsoft.z3.enumerations.Z3_lbool;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -54,6 +56,9 @@ abstract class Z3AbstractProver<T> extends AbstractProverWithAllSat<T> {
 
   private final ShutdownRequestListener interruptListener;
 
+  /** The arenas of the push levels, if formulas are released on pop. */
+  private final Deque<Z3FormulaArena> levelArenas = new ArrayDeque<>();
+
   Z3AbstractProver(
       Z3FormulaCreator pCreator,
       Z3FormulaManager pMgr,
@@ -61,8 +66,9 @@ abstract class Z3AbstractProver<T> extends AbstractProverWithAllSat<T> {
       ImmutableMap<String, Object> pSolverOptions,
       @Nullable PathCounterTemplate pLogfile,
       ShutdownNotifier pShutdownNotifier) {
-    super(pOptions, pMgr.getBooleanFormulaManager(), pShutdownNotifier);
+    super(pOptions, pMgr, pShutdownNotifier);
     creator = pCreator;
+    creator.registerProver();
     z3context = creator.getEnv();
     z3solver = Native.mkSolver(z3context);
 
@@ -172,7 +178,7 @@ abstract class Z3AbstractProver<T> extends AbstractProverWithAllSat<T> {
   public Model getModel() {
     Preconditions.checkState(!closed);
     checkGenerateModels();
-    return new CachingModel(getEvaluatorWithoutChecks());
+    return new CachingModel(getEvaluatorWithoutChecks(), creator);
   }
 
   @Override
@@ -211,9 +217,11 @@ abstract class Z3AbstractProver<T> extends AbstractProverWithAllSat<T> {
   @Override
   public void push() throws InterruptedException {
     Preconditions.checkState(!closed);
+    openLevelArena();
     try {
       Native.solverPush(z3context, z3solver);
     } catch (Z3Exception exception) {
+      closeLevelArena();
       throw creator.handleZ3Exception(exception);
     }
   }
@@ -223,6 +231,32 @@ abstract class Z3AbstractProver<T> extends AbstractProverWithAllSat<T> {
     Preconditions.checkState(!closed);
     Preconditions.checkState(Native.solverGetNumScopes(z3context, z3solver) >= 1);
     Native.solverPop(z3context, z3solver, 1);
+    closeLevelArena();
+  }
+
+  /**
+   * Open an arena for the formulas of a new push level, if formulas are released on pop.
+   *
+   * @throws IllegalStateException if another prover is open.
+   */
+  protected void openLevelArena() {
+    if (creator.releasesFormulasOnPop()) {
+      levelArenas.push(creator.openLevelArena());
+    }
+  }
+
+  /** Release the formulas of the popped level. */
+  protected void closeLevelArena() {
+    if (!levelArenas.isEmpty()) {
+      creator.closeLevelArena(levelArenas.pop());
+    }
+  }
+
+  /** Release the formulas of all remaining levels. */
+  protected void closeAllLevelArenas() {
+    while (!levelArenas.isEmpty()) {
+      creator.closeLevelArena(levelArenas.pop());
+    }
   }
 
   @Override
@@ -324,6 +358,8 @@ abstract class Z3AbstractProver<T> extends AbstractProverWithAllSat<T> {
 
       Native.solverReset(z3context, z3solver); // remove all assertions from the solver
       Native.solverDecRef(z3context, z3solver);
+      closeAllLevelArenas();
+      creator.unregisterProver();
 
       shutdownNotifier.unregister(interruptListener);
 
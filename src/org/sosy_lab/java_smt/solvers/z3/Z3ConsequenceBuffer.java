@@ -0,0 +1,235 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.solvers.z3;
+
+import com.microsoft.z3.Native;
+import java.util.Arrays;
+
+/**
+ * Collects the consequences that a user propagator reports during one callback, such that they can
+ * be submitted to Z3 in one go after the callback returns. All data is stored in flat primitive
+ * arrays that are reused across callbacks, so buffering a consequence does not allocate.
+ *
+ * <p>Each entry consists of a number of fixed literals, a number of equalities (pairs of lhs and
+ * rhs), which form the antecedent, and the AST of the consequence. Identical entries within one
+ * batch are only stored once, and entries with the same antecedent can be found with {@link
+ * #hasSameAntecedent}.
+ *
+ * <p>The buffer holds a Z3 reference on each AST of its entries until {@link #clear}, because the
+ * formulas from which the ASTs were taken can be released before the entries are submitted, e.g.,
+ * with phantom references or by closing a formula arena.
+ */
+final class Z3ConsequenceBuffer {
+
+  private static final int FIELDS = 5; // start, numFixed, numEqs, hash, antecedent hash
+
+  /** Fixed literals, lhs and rhs of all entries, stored consecutively. */
+  private long[] literals = new long[256];
+
+  private int usedLiterals = 0;
+
+  /** Per entry the start index in {@link #literals}, the sizes, and hashes for deduplication. */
+  private int[] entries = new int[FIELDS * 32];
+
+  private long[] consequences = new long[32];
+  private int size = 0;
+
+  /** Scratch arrays that hold the content of one entry, see {@link #load}. */
+  private long[] fixed = new long[16];
+
+  private long[] lhs = new long[16];
+  private long[] rhs = new long[16];
+
+  private final long z3context;
+
+  Z3ConsequenceBuffer(long pZ3context) {
+    z3context = pZ3context;
+  }
+
+  /**
+   * Add an entry to the buffer.
+   *
+   * @return whether the entry was new, i.e., {@code false} if an identical entry was already added
+   *     since the last call to {@link #clear}.
+   */
+  boolean add(
+      long[] pFixed, int numFixed, long[] pLhs, long[] pRhs, int numEqs, long consequence) {
+    int antecedentHash = hashAntecedent(pFixed, numFixed, pLhs, pRhs, numEqs);
+    int hash = 31 * antecedentHash + Long.hashCode(consequence);
+    for (int i = 0; i < size; i++) {
+      if (entries[FIELDS * i + 3] == hash
+          && isEqual(i, pFixed, numFixed, pLhs, pRhs, numEqs, consequence)) {
+        return false;
+      }
+    }
+
+    int needed = numFixed + 2 * numEqs;
+    if (usedLiterals + needed > literals.length) {
+      literals = Arrays.copyOf(literals, Math.max(usedLiterals + needed, 2 * literals.length));
+    }
+    if (size == consequences.length) {
+      consequences = Arrays.copyOf(consequences, 2 * size);
+      entries = Arrays.copyOf(entries, FIELDS * 2 * size);
+    }
+
+    entries[FIELDS * size] = usedLiterals;
+    entries[FIELDS * size + 1] = numFixed;
+    entries[FIELDS * size + 2] = numEqs;
+    entries[FIELDS * size + 3] = hash;
+    entries[FIELDS * size + 4] = antecedentHash;
+    consequences[size] = consequence;
+    System.arraycopy(pFixed, 0, literals, usedLiterals, numFixed);
+    usedLiterals += numFixed;
+    if (numEqs > 0) {
+      System.arraycopy(pLhs, 0, literals, usedLiterals, numEqs);
+      usedLiterals += numEqs;
+      System.arraycopy(pRhs, 0, literals, usedLiterals, numEqs);
+      usedLiterals += numEqs;
+    }
+    for (int i = entries[FIELDS * size]; i < usedLiterals; i++) {
+      incRef(literals[i]);
+    }
+    incRef(consequence);
+    size++;
+    return true;
+  }
+
+  private void incRef(long ast) {
+    // missing formulas are passed as null pointers
+    if (ast != 0) {
+      Native.incRef(z3context, ast);
+    }
+  }
+
+  private void decRef(long ast) {
+    if (ast != 0) {
+      Native.decRef(z3context, ast);
+    }
+  }
+
+  private static int hashAntecedent(
+      long[] pFixed, int numFixed, long[] pLhs, long[] pRhs, int numEqs) {
+    int hash = 1;
+    for (int i = 0; i < numFixed; i++) {
+      hash = 31 * hash + Long.hashCode(pFixed[i]);
+    }
+    for (int i = 0; i < numEqs; i++) {
+      hash = 31 * hash + Long.hashCode(pLhs[i]);
+      hash = 31 * hash + Long.hashCode(pRhs[i]);
+    }
+    return hash;
+  }
+
+  private boolean isEqual(
+      int entry,
+      long[] pFixed,
+      int numFixed,
+      long[] pLhs,
+      long[] pRhs,
+      int numEqs,
+      long consequence) {
+    if (consequences[entry] != consequence
+        || entries[FIELDS * entry + 1] != numFixed
+        || entries[FIELDS * entry + 2] != numEqs) {
+      return false;
+    }
+    int start = entries[FIELDS * entry];
+    return Arrays.equals(literals, start, start + numFixed, pFixed, 0, numFixed)
+        && Arrays.equals(
+            literals, start + numFixed, start + numFixed + numEqs, pLhs, 0, numEqs)
+        && Arrays.equals(
+            literals,
+            start + numFixed + numEqs,
+            start + numFixed + 2 * numEqs,
+            pRhs,
+            0,
+            numEqs);
+  }
+
+  /** Return whether the given entries have the same fixed literals and equalities. */
+  boolean hasSameAntecedent(int entry, int other) {
+    int numFixed = entries[FIELDS * entry + 1];
+    int numEqs = entries[FIELDS * entry + 2];
+    if (entries[FIELDS * entry + 4] != entries[FIELDS * other + 4]
+        || entries[FIELDS * other + 1] != numFixed
+        || entries[FIELDS * other + 2] != numEqs) {
+      return false;
+    }
+    int start = entries[FIELDS * entry];
+    int otherStart = entries[FIELDS * other];
+    int length = numFixed + 2 * numEqs;
+    return Arrays.equals(
+        literals, start, start + length, literals, otherStart, otherStart + length);
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Remove all entries and release their ASTs. */
+  void clear() {
+    for (int i = 0; i < usedLiterals; i++) {
+      decRef(literals[i]);
+    }
+    for (int i = 0; i < size; i++) {
+      decRef(consequences[i]);
+    }
+    size = 0;
+    usedLiterals = 0;
+  }
+
+  /**
+   * Copy the given entry into the scratch arrays {@link #getFixed}, {@link #getLhs} and {@link
+   * #getRhs}. The arrays might be larger than the entry, only the first {@link #getNumFixed} and
+   * {@link #getNumEqs} elements are valid.
+   */
+  void load(int entry) {
+    int start = entries[FIELDS * entry];
+    int numFixed = entries[FIELDS * entry + 1];
+    int numEqs = entries[FIELDS * entry + 2];
+    if (numFixed > fixed.length) {
+      fixed = new long[Math.max(numFixed, 2 * fixed.length)];
+    }
+    if (numEqs > lhs.length) {
+      lhs = new long[Math.max(numEqs, 2 * lhs.length)];
+      rhs = new long[lhs.length];
+    }
+    System.arraycopy(literals, start, fixed, 0, numFixed);
+    System.arraycopy(literals, start + numFixed, lhs, 0, numEqs);
+    System.arraycopy(literals, start + numFixed + numEqs, rhs, 0, numEqs);
+  }
+
+  int getNumFixed(int entry) {
+    return entries[FIELDS * entry + 1];
+  }
+
+  int getNumEqs(int entry) {
+    return entries[FIELDS * entry + 2];
+  }
+
+  long getConsequence(int entry) {
+    return consequences[entry];
+  }
+
+  long[] getFixed() {
+    return fixed;
+  }
+
+  long[] getLhs() {
+    return lhs;
+  }
+
+  long[] getRhs() {
+    return rhs;
+  }
+}
@@ -0,0 +1,82 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.solvers.z3;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.microsoft.z3.Native;
+import java.util.Arrays;
+
+/**
+ * A scope for the formulas of Z3. The Z3 ASTs of all formulas that are created while the arena is
+ * the most recently opened arena that is still open are released together when the arena is
+ * closed. This avoids the overhead of tracking each formula with a {@link
+ * java.lang.ref.PhantomReference}, but the formulas created inside the arena must not be used after
+ * it was closed, neither directly nor as part of another formula or in a solver.
+ *
+ * <p>Arenas are opened with {@link Z3SolverContext#openFormulaArena()} and are meant to be used in
+ * a try-with-resources statement. Arenas are also opened and closed with the push levels of a
+ * prover if the option {@code solver.z3.releaseFormulasOnPop} is enabled. As an arena receives the
+ * formulas of the whole context, push levels are then only allowed while a single prover is open.
+ * An arena is not thread-safe.
+ */
+public final class Z3FormulaArena implements AutoCloseable {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final Z3FormulaCreator creator;
+
+  /** The ASTs of the formulas of this arena, each with one reference owned by the arena. */
+  private long[] asts = new long[INITIAL_CAPACITY];
+
+  private int size = 0;
+  private boolean closed = false;
+
+  Z3FormulaArena(Z3FormulaCreator pCreator) {
+    creator = checkNotNull(pCreator);
+  }
+
+  void add(long pAst) {
+    if (size == asts.length) {
+      asts = Arrays.copyOf(asts, 2 * size);
+    }
+    asts[size++] = pAst;
+  }
+
+  /** Release all ASTs of this arena, without unregistering it from its creator. */
+  void release(long pEnv) {
+    for (int i = 0; i < size; i++) {
+      Native.decRef(pEnv, asts[i]);
+    }
+    asts = new long[0];
+    size = 0;
+    closed = true;
+  }
+
+  /** Return the number of formulas that this arena releases when it is closed. */
+  public int size() {
+    return size;
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Release the formulas of this arena. Formulas created afterwards belong to the next arena that
+   * is still open, or are not released at all if there is none. Closing an arena twice has no
+   * effect.
+   */
+  @Override
+  public void close() {
+    if (!closed) {
+      creator.closeArena(this);
+    }
+  }
+}
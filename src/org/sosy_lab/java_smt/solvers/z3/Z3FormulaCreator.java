@@ -9,6 +9,7 @@
 package org.sosy_lab.java_smt.solvers.z3;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
@@ -26,7 +27,9 @@ import java.lang.ref.PhantomReference;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.math.BigInteger;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -56,6 +59,7 @@ import org.sosy_lab.java_smt.api.StringFormula;
 import org.sosy_lab.java_smt.api.visitors.FormulaVisitor;
 import org.sosy_lab.java_smt.basicimpl.FormulaCreator;
 import org.sosy_lab.java_smt.basicimpl.FunctionDeclarationImpl;
+import org.sosy_lab.java_smt.basicimpl.LazyArgumentList;
 import org.sosy_lab.java_smt.solvers.z3.Z3Formula.Z3ArrayFormula;
 import org.sosy_lab.java_smt.solvers.z3.Z3Formula.Z3BitvectorFormula;
 import org.sosy_lab.java_smt.solvers.z3.Z3Formula.Z3BooleanFormula;
@@ -106,6 +110,23 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
   @Option(secure = true, description = "Whether to use PhantomReferences for discarding Z3 AST")
   private boolean usePhantomReferences = false;
 
+  @Option(
+      secure = true,
+      description =
+          "Whether to release the Z3 ASTs of all formulas that were created after a push of a"
+              + " prover when the matching pop is called. The formulas must not be used after the"
+              + " pop. Only one prover may be open while it has pushed levels. Cannot be combined"
+              + " with usePhantomReferences.")
+  private boolean releaseFormulasOnPop = false;
+
+  @Option(
+      secure = true,
+      description =
+          "Whether a user propagator collects the consequences reported during a callback and"
+              + " submits them together after the callback returns, instead of submitting each"
+              + " consequence immediately.")
+  private boolean batchPropagatorConsequences = true;
+
   /**
    * We need to track all created symbols for parsing.
    *
@@ -121,6 +142,18 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
   private final IdentityHashMap<PhantomReference<? extends Z3Formula>, Long> referenceMap =
       new IdentityHashMap<>();
 
+  /** Scoped clean-up of Z3 ASTs, the most recently opened arena is the first element. */
+  private final Deque<Z3FormulaArena> openArenas = new ArrayDeque<>();
+
+  /**
+   * The number of open provers. The arenas of push levels are shared by the whole context, thus
+   * they are only allowed while a single prover is open.
+   */
+  private int openProvers = 0;
+
+  /** The number of open arenas of push levels. */
+  private int openLevelArenas = 0;
+
   // todo: getters for statistic.
   private final Timer cleanupTimer = new Timer();
   protected final ShutdownNotifier shutdownNotifier;
@@ -139,6 +172,11 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
     super(pEnv, pBoolType, pIntegerType, pRealType, pStringType, pRegexType);
     shutdownNotifier = pShutdownNotifier;
     config.inject(this);
+    if (usePhantomReferences && releaseFormulasOnPop) {
+      throw new InvalidConfigurationException(
+          "Options solver.z3.usePhantomReferences and solver.z3.releaseFormulasOnPop"
+              + " cannot be used together.");
+    }
   }
 
   final Z3Exception handleZ3Exception(Z3Exception e) throws Z3Exception, InterruptedException {
@@ -233,6 +271,17 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
     return getFormulaTypeFromSort(sort);
   }
 
+  @Override
+  protected boolean hasTermIds() {
+    return true;
+  }
+
+  /** Z3 shares structurally equal terms, such that the address of a term identifies it. */
+  @Override
+  protected long getTermId(Long pTerm) {
+    return pTerm;
+  }
+
   @Override
   @SuppressWarnings("MethodTypeParameterName")
   protected <TD extends Formula, TR extends Formula> FormulaType<TR> getArrayFormulaElementType(
@@ -253,18 +302,81 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
       Long pTerm, FormulaType<TD> pIndexType, FormulaType<TR> pElementType) {
     assert getFormulaType(pTerm).equals(FormulaType.getArrayType(pIndexType, pElementType));
     cleanupReferences();
-    return storePhantomReference(
-        new Z3ArrayFormula<>(getEnv(), pTerm, pIndexType, pElementType), pTerm);
+    return trackReference(new Z3ArrayFormula<>(getEnv(), pTerm, pIndexType, pElementType), pTerm);
   }
 
-  private <T extends Z3Formula> T storePhantomReference(T out, Long pTerm) {
+  private <T extends Z3Formula> T trackReference(T out, Long pTerm) {
     if (usePhantomReferences) {
       PhantomReference<T> ref = new PhantomReference<>(out, referenceQueue);
       referenceMap.put(ref, pTerm);
+    } else if (!openArenas.isEmpty()) {
+      openArenas.peek().add(pTerm);
     }
     return out;
   }
 
+  boolean batchesPropagatorConsequences() {
+    return batchPropagatorConsequences;
+  }
+
+  boolean releasesFormulasOnPop() {
+    return releaseFormulasOnPop;
+  }
+
+  /** Open a new arena, which receives all formulas created until it or a newer arena is closed. */
+  Z3FormulaArena openArena() {
+    checkState(
+        !usePhantomReferences, "formula arenas cannot be combined with PhantomReference tracking");
+    Z3FormulaArena arena = new Z3FormulaArena(this);
+    openArenas.push(arena);
+    return arena;
+  }
+
+  /** Register a new prover, which must not share the context with released push levels. */
+  void registerProver() {
+    checkState(
+        openLevelArenas == 0,
+        "a prover cannot be created while another prover has pushed levels and the option"
+            + " solver.z3.releaseFormulasOnPop is enabled");
+    openProvers++;
+  }
+
+  void unregisterProver() {
+    openProvers--;
+  }
+
+  /**
+   * Open the arena of a new push level. All formulas created until the matching pop belong to it,
+   * including those created for other provers, thus only a single prover may be open.
+   */
+  Z3FormulaArena openLevelArena() {
+    checkState(
+        openProvers == 1,
+        "the option solver.z3.releaseFormulasOnPop requires that only one prover is open, but"
+            + " there are %s",
+        openProvers);
+    Z3FormulaArena arena = openArena();
+    openLevelArenas++;
+    return arena;
+  }
+
+  void closeLevelArena(Z3FormulaArena pArena) {
+    openLevelArenas--;
+    pArena.close();
+  }
+
+  void closeArena(Z3FormulaArena pArena) {
+    // explicit arenas can be closed in any order
+    openArenas.removeFirstOccurrence(pArena);
+    cleanupTimer.start();
+    try {
+      pArena.release(environment);
+    } finally {
+      cleanupTimer.stop();
+    }
+    countRelease();
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public <T extends Formula> T encapsulate(FormulaType<T> pType, Long pTerm) {
@@ -275,30 +387,29 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
             "Trying to encapsulate formula of type %s as %s", getFormulaType(pTerm), pType);
     cleanupReferences();
     if (pType.isBooleanType()) {
-      return (T) storePhantomReference(new Z3BooleanFormula(getEnv(), pTerm), pTerm);
+      return (T) trackReference(new Z3BooleanFormula(getEnv(), pTerm), pTerm);
     } else if (pType.isIntegerType()) {
-      return (T) storePhantomReference(new Z3IntegerFormula(getEnv(), pTerm), pTerm);
+      return (T) trackReference(new Z3IntegerFormula(getEnv(), pTerm), pTerm);
     } else if (pType.isRationalType()) {
-      return (T) storePhantomReference(new Z3RationalFormula(getEnv(), pTerm), pTerm);
+      return (T) trackReference(new Z3RationalFormula(getEnv(), pTerm), pTerm);
     } else if (pType.isStringType()) {
-      return (T) storePhantomReference(new Z3StringFormula(getEnv(), pTerm), pTerm);
+      return (T) trackReference(new Z3StringFormula(getEnv(), pTerm), pTerm);
     } else if (pType.isRegexType()) {
-      return (T) storePhantomReference(new Z3RegexFormula(getEnv(), pTerm), pTerm);
+      return (T) trackReference(new Z3RegexFormula(getEnv(), pTerm), pTerm);
     } else if (pType.isBitvectorType()) {
-      return (T) storePhantomReference(new Z3BitvectorFormula(getEnv(), pTerm), pTerm);
+      return (T) trackReference(new Z3BitvectorFormula(getEnv(), pTerm), pTerm);
     } else if (pType.isFloatingPointType()) {
-      return (T) storePhantomReference(new Z3FloatingPointFormula(getEnv(), pTerm), pTerm);
+      return (T) trackReference(new Z3FloatingPointFormula(getEnv(), pTerm), pTerm);
     } else if (pType.isFloatingPointRoundingModeType()) {
-      return (T)
-          storePhantomReference(new Z3FloatingPointRoundingModeFormula(getEnv(), pTerm), pTerm);
+      return (T) trackReference(new Z3FloatingPointRoundingModeFormula(getEnv(), pTerm), pTerm);
     } else if (pType.isArrayType()) {
       ArrayFormulaType<?, ?> arrFt = (ArrayFormulaType<?, ?>) pType;
       return (T)
-          storePhantomReference(
+          trackReference(
               new Z3ArrayFormula<>(getEnv(), pTerm, arrFt.getIndexType(), arrFt.getElementType()),
               pTerm);
     } else if (pType.isEnumerationType()) {
-      return (T) storePhantomReference(new Z3EnumerationFormula(getEnv(), pTerm), pTerm);
+      return (T) trackReference(new Z3EnumerationFormula(getEnv(), pTerm), pTerm);
     }
 
     throw new IllegalArgumentException("Cannot create formulas of type " + pType + " in Z3");
@@ -308,21 +419,21 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
   public BooleanFormula encapsulateBoolean(Long pTerm) {
     assert getFormulaType(pTerm).isBooleanType();
     cleanupReferences();
-    return storePhantomReference(new Z3BooleanFormula(getEnv(), pTerm), pTerm);
+    return trackReference(new Z3BooleanFormula(getEnv(), pTerm), pTerm);
   }
 
   @Override
   public BitvectorFormula encapsulateBitvector(Long pTerm) {
     assert getFormulaType(pTerm).isBitvectorType();
     cleanupReferences();
-    return storePhantomReference(new Z3BitvectorFormula(getEnv(), pTerm), pTerm);
+    return trackReference(new Z3BitvectorFormula(getEnv(), pTerm), pTerm);
   }
 
   @Override
   protected FloatingPointFormula encapsulateFloatingPoint(Long pTerm) {
     assert getFormulaType(pTerm).isFloatingPointType();
     cleanupReferences();
-    return storePhantomReference(new Z3FloatingPointFormula(getEnv(), pTerm), pTerm);
+    return trackReference(new Z3FloatingPointFormula(getEnv(), pTerm), pTerm);
   }
 
   @Override
@@ -333,7 +444,7 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
             Native.astToString(getEnv(), pTerm),
             Native.sortToString(getEnv(), Native.getSort(getEnv(), pTerm)));
     cleanupReferences();
-    return storePhantomReference(new Z3StringFormula(getEnv(), pTerm), pTerm);
+    return trackReference(new Z3StringFormula(getEnv(), pTerm), pTerm);
   }
 
   @Override
@@ -344,7 +455,7 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
             Native.astToString(getEnv(), pTerm),
             Native.sortToString(getEnv(), Native.getSort(getEnv(), pTerm)));
     cleanupReferences();
-    return storePhantomReference(new Z3RegexFormula(getEnv(), pTerm), pTerm);
+    return trackReference(new Z3RegexFormula(getEnv(), pTerm), pTerm);
   }
 
   @Override
@@ -355,7 +466,7 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
             Native.astToString(getEnv(), pTerm),
             Native.sortToString(getEnv(), Native.getSort(getEnv(), pTerm)));
     cleanupReferences();
-    return storePhantomReference(new Z3EnumerationFormula(getEnv(), pTerm), pTerm);
+    return trackReference(new Z3EnumerationFormula(getEnv(), pTerm), pTerm);
   }
 
   @Override
@@ -445,21 +556,21 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
         }
 
         // Function application with zero or more parameters
-        ImmutableList.Builder<Formula> args = ImmutableList.builder();
+        ImmutableList.Builder<Long> args = ImmutableList.builder();
         ImmutableList.Builder<FormulaType<?>> argTypes = ImmutableList.builder();
         for (int i = 0; i < arity; i++) {
           long arg = Native.getAppArg(environment, f, i);
-          FormulaType<?> argumentType = getFormulaType(arg);
-          args.add(encapsulate(argumentType, arg));
-          argTypes.add(argumentType);
+          args.add(arg);
+          argTypes.add(getFormulaType(arg));
         }
+        ImmutableList<FormulaType<?>> argumentTypes = argTypes.build();
         return visitor.visitFunction(
             formula,
-            args.build(),
+            new LazyArgumentList<>(this, formula, args.build(), argumentTypes),
             FunctionDeclarationImpl.of(
                 getAppName(f),
                 getDeclarationKind(f),
-                argTypes.build(),
+                argumentTypes,
                 getFormulaType(f),
                 Native.getAppDecl(environment, f)));
       case Z3_VAR_AST:
@@ -931,6 +1042,11 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
     for (long ast : referenceMap.values()) {
       Native.decRef(getEnv(), ast);
     }
+    for (Z3FormulaArena arena : openArenas) {
+      arena.release(getEnv());
+    }
+    openArenas.clear();
+    openLevelArenas = 0;
   }
 
   /**
@@ -21,6 +21,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import org.sosy_lab.java_smt.basicimpl.AbstractModel;
 import org.sosy_lab.java_smt.basicimpl.AbstractProver;
 
@@ -42,29 +44,69 @@ final class Z3Model extends AbstractModel<Long, Long, Long> {
 
   @Override
   public ImmutableList<ValueAssignment> asList() {
+    return stream().collect(ImmutableList.toImmutableList());
+  }
+
+  @Override
+  public Stream<ValueAssignment> stream() {
+    return stream("");
+  }
+
+  /**
+   * Walks lazily through the declarations of the model. The name of each declaration is checked
+   * against the prefix before any value is retrieved from the model.
+   */
+  @Override
+  public Stream<ValueAssignment> stream(String namePrefix) {
     Preconditions.checkState(!isClosed());
-    ImmutableList.Builder<ValueAssignment> out = ImmutableList.builder();
+    Preconditions.checkNotNull(namePrefix);
 
     // Iterate through constants.
-    for (int constIdx = 0; constIdx < Native.modelGetNumConsts(z3context, model); constIdx++) {
-      long keyDecl = Native.modelGetConstDecl(z3context, model, constIdx);
-      Native.incRef(z3context, keyDecl);
-      out.addAll(getConstAssignments(keyDecl));
+    Stream<ValueAssignment> constants =
+        IntStream.range(0, Native.modelGetNumConsts(z3context, model))
+            .mapToObj(constIdx -> getConstAssignmentsAt(constIdx, namePrefix))
+            .flatMap(Collection::stream);
+
+    // Iterate through function applications.
+    Stream<ValueAssignment> functions =
+        IntStream.range(0, Native.modelGetNumFuncs(z3context, model))
+            .mapToObj(funcIdx -> getFunctionAssignmentsAt(funcIdx, namePrefix))
+            .flatMap(Collection::stream);
+
+    return Stream.concat(constants, functions);
+  }
+
+  private Collection<ValueAssignment> getConstAssignmentsAt(int constIdx, String namePrefix) {
+    Preconditions.checkState(!isClosed());
+    long keyDecl = Native.modelGetConstDecl(z3context, model, constIdx);
+    Native.incRef(z3context, keyDecl);
+    try {
+      if (!getDeclName(keyDecl).startsWith(namePrefix)) {
+        return ImmutableList.of();
+      }
+      return getConstAssignments(keyDecl);
+    } finally {
       Native.decRef(z3context, keyDecl);
     }
+  }
 
-    // Iterate through function applications.
-    for (int funcIdx = 0; funcIdx < Native.modelGetNumFuncs(z3context, model); funcIdx++) {
-      long funcDecl = Native.modelGetFuncDecl(z3context, model, funcIdx);
-      Native.incRef(z3context, funcDecl);
-      if (!isInternalSymbol(funcDecl)) {
-        String functionName = z3creator.symbolToString(Native.getDeclName(z3context, funcDecl));
-        out.addAll(getFunctionAssignments(funcDecl, funcDecl, functionName));
+  private Collection<ValueAssignment> getFunctionAssignmentsAt(int funcIdx, String namePrefix) {
+    Preconditions.checkState(!isClosed());
+    long funcDecl = Native.modelGetFuncDecl(z3context, model, funcIdx);
+    Native.incRef(z3context, funcDecl);
+    try {
+      String functionName = getDeclName(funcDecl);
+      if (!functionName.startsWith(namePrefix) || isInternalSymbol(funcDecl)) {
+        return ImmutableList.of();
       }
+      return getFunctionAssignments(funcDecl, funcDecl, functionName);
+    } finally {
       Native.decRef(z3context, funcDecl);
     }
+  }
 
-    return out.build();
+  private String getDeclName(long decl) {
+    return z3creator.symbolToString(Native.getDeclName(z3context, decl));
   }
 
   /**
@@ -77,9 +119,7 @@ final class Z3Model extends AbstractModel<Long, Long, Long> {
       case Z3_OP_ARRAY_EXT:
         return true;
       default:
-        return Z3_IRRELEVANT_MODEL_TERM_PATTERN
-            .matcher(z3creator.symbolToString(Native.getDeclName(z3context, funcDecl)))
-            .matches();
+        return Z3_IRRELEVANT_MODEL_TERM_PATTERN.matcher(getDeclName(funcDecl)).matches();
     }
   }
 
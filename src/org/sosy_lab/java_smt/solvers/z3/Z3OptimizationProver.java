@@ -114,6 +114,7 @@ class Z3OptimizationProver extends Z3AbstractProver<Void> implements Optimizatio
   @Override
   public void push() {
     Preconditions.checkState(!closed);
+    openLevelArena();
     Native.optimizePush(z3context, z3optSolver);
   }
 
@@ -121,6 +122,7 @@ class Z3OptimizationProver extends Z3AbstractProver<Void> implements Optimizatio
   public void pop() {
     Preconditions.checkState(!closed);
     Native.optimizePop(z3context, z3optSolver);
+    closeLevelArena();
   }
 
   @Override
@@ -208,6 +210,8 @@ class Z3OptimizationProver extends Z3AbstractProver<Void> implements Optimizatio
   public void close() {
     Preconditions.checkState(!closed);
     Native.optimizeDecRef(z3context, z3optSolver);
+    closeAllLevelArenas();
+    creator.unregisterProver();
     closed = true;
   }
 
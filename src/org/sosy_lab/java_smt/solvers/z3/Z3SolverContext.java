@@ -78,6 +78,13 @@ public final class Z3SolverContext extends AbstractSolverContext {
         values = {"lex", "pareto", "box"})
     String objectivePrioritizationMode = "box";
 
+    @Option(
+        secure = true,
+        description =
+            "Number of threads that Z3 uses for solving a query (parameter smt.threads)."
+                + " With more than one thread, user propagators are copied for each worker.")
+    int threads = 1;
+
     private final @Nullable PathCounterTemplate logfile;
 
     private final int randomSeed;
@@ -85,6 +92,10 @@ public final class Z3SolverContext extends AbstractSolverContext {
     ExtraOptions(Configuration config, @Nullable PathCounterTemplate pLogfile, int pRandomSeed)
         throws InvalidConfigurationException {
       config.inject(this);
+      if (threads < 1) {
+        throw new InvalidConfigurationException(
+            "Option solver.z3.threads must be at least 1, but is " + threads);
+      }
       randomSeed = pRandomSeed;
       logfile = pLogfile;
     }
@@ -216,7 +227,7 @@ public final class Z3SolverContext extends AbstractSolverContext {
   @Override
   protected ProverEnvironment newProverEnvironment0(Set<ProverOptions> options) {
     Preconditions.checkState(!closed, "solver context is already closed");
-    final ImmutableMap<String, Object> solverOptions =
+    final ImmutableMap.Builder<String, Object> solverOptions =
         ImmutableMap.<String, Object>builder()
             .put(":random-seed", extraOptions.randomSeed)
             .put(
@@ -226,10 +237,17 @@ public final class Z3SolverContext extends AbstractSolverContext {
             .put(
                 ":unsat_core",
                 options.contains(ProverOptions.GENERATE_UNSAT_CORE)
-                    || options.contains(ProverOptions.GENERATE_UNSAT_CORE_OVER_ASSUMPTIONS))
-            .buildOrThrow();
+                    || options.contains(ProverOptions.GENERATE_UNSAT_CORE_OVER_ASSUMPTIONS));
+    if (extraOptions.threads > 1) {
+      solverOptions.put(":threads", extraOptions.threads);
+    }
     return new Z3TheoremProver(
-        creator, manager, options, solverOptions, extraOptions.logfile, shutdownNotifier);
+        creator,
+        manager,
+        options,
+        solverOptions.buildOrThrow(),
+        extraOptions.logfile,
+        shutdownNotifier);
   }
 
   @Override
@@ -269,6 +287,34 @@ public final class Z3SolverContext extends AbstractSolverContext {
     return "Z3 " + major.value + "." + minor.value + "." + build.value + "." + revision.value;
   }
 
+  /**
+   * Open a scope for formulas: the Z3 ASTs of all formulas that are created until the returned
+   * arena is closed are released together when it is closed. This is an alternative to the option
+   * {@code solver.z3.usePhantomReferences} for code with a clear lifetime of its formulas, e.g.,
+   * a single query. The formulas created inside the arena must not be used after it was closed.
+   *
+   * <p>Models and transformation sessions of this context drop their cached formulas when an arena
+   * is closed. The query cache ({@code solver.cacheQueries}) and the log of slow queries ({@code
+   * solver.statistics.slowQueries}) keep formulas beyond the arena, thus they must not wrap a
+   * context whose arenas are used.
+   *
+   * <p>Usage: {@code try (Z3FormulaArena arena = context.openFormulaArena()) { ... }}
+   *
+   * @throws IllegalStateException if the option {@code solver.z3.usePhantomReferences} is enabled.
+   */
+  public Z3FormulaArena openFormulaArena() {
+    Preconditions.checkState(!closed);
+    return creator.openArena();
+  }
+
+  /**
+   * Whether the option {@code solver.z3.releaseFormulasOnPop} is enabled, i.e., formulas must not
+   * be kept beyond the pop of the level in which they were created.
+   */
+  public boolean releasesFormulasOnPop() {
+    return creator.releasesFormulasOnPop();
+  }
+
   @Override
   public Solvers getSolverName() {
     return Solvers.Z3;
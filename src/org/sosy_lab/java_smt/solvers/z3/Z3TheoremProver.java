@@ -8,7 +8,10 @@
 
 package org.sosy_lab.java_smt.solvers.z3;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.microsoft.z3.Native;
+import java.util.Collection;
 import java.util.Set;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
@@ -37,8 +40,23 @@ class Z3TheoremProver extends Z3AbstractProver<Void> implements ProverEnvironmen
     return null;
   }
 
+  @Override
+  protected Collection<BooleanFormula> getAssertedFormulas() {
+    ImmutableList.Builder<BooleanFormula> assertions = ImmutableList.builder();
+    long vector = Native.solverGetAssertions(z3context, z3solver);
+    Native.astVectorIncRef(z3context, vector);
+    for (int i = 0; i < Native.astVectorSize(z3context, vector); i++) {
+      assertions.add(creator.encapsulateBoolean(Native.astVectorGet(z3context, vector, i)));
+    }
+    Native.astVectorDecRef(z3context, vector);
+    return assertions.build();
+  }
+
   @Override
   public boolean registerTheorySolver(BooleanTheorySolver prop) {
+    if (!reserveTheorySolver()) {
+      return false;
+    }
     Z3UserPropagator internalProp = new Z3UserPropagator(z3context, z3solver, creator, mgr, prop);
     prop.injectBackend(internalProp);
     return true;
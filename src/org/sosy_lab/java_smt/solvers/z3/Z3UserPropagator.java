@@ -21,58 +21,209 @@
 package org.sosy_lab.java_smt.solvers.z3;
 
 
+import com.google.common.collect.ImmutableMap;
 import com.microsoft.z3.Native;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import org.sosy_lab.java_smt.api.Backend;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.BooleanTheorySolver;
 import org.sosy_lab.java_smt.api.Formula;
 
 public final class Z3UserPropagator extends Native.UserPropagatorBase implements Backend {
+
+  /** Bound for the size of {@link #localAsts}. */
+  private static final int MAX_CACHED_TRANSLATIONS = 4096;
+
   private Z3FormulaCreator creator;
   private Z3FormulaManager manager;
   private BooleanTheorySolver theorySolver;
 
+  /**
+   * The propagator that was registered on the prover, or this instance itself. Propagators for
+   * fresh contexts (e.g., for a worker thread of Z3's parallel mode) use their own context for all
+   * ASTs, but return formulas of the root context to the theory solver.
+   */
+  private final Z3UserPropagator root;
+
+  /**
+   * For a propagator of a fresh context, the translations of formulas of the root context into the
+   * fresh context, indexed by the AST in the root context and in access order. Each translated AST
+   * holds one reference, which is released when the entry is evicted, see {@link
+   * #trimTranslations}. The cache avoids the lock of the root context for formulas that the theory
+   * solver reports repeatedly.
+   */
+  private final LinkedHashMap<Long, Translation> localAsts = new LinkedHashMap<>(16, 0.75f, true);
+
+  private static final class Translation {
+
+    /** Keeps the AST in the root context alive, such that its address is not reused. */
+    @SuppressWarnings("unused")
+    private final BooleanFormula formula;
+
+    private final long localAst;
+
+    private Translation(BooleanFormula pFormula, long pLocalAst) {
+      formula = pFormula;
+      localAst = pLocalAst;
+    }
+  }
+
+  /** Watched expressions, indexed by the id that is reported to the theory solver. */
+  private final List<BooleanFormula> watched = new ArrayList<>();
+
+  /**
+   * Maps Z3's internal AST id of a watched expression to its watched id (shifted by one, such that
+   * 0 denotes an unwatched AST). Z3's AST ids are dense, so a plain array suffices and the
+   * callbacks do not need to wrap the AST.
+   */
+  private int[] astIdToWatchedId = new int[64];
+
+  /**
+   * The AST of each watched expression, indexed by watched id. Each AST holds one reference, which
+   * lives as long as the context of this propagator.
+   */
+  private long[] watchedAsts = new long[64];
+
+  private final BooleanFormula trueFormula;
+  private final BooleanFormula falseFormula;
+  private final long trueAst;
+  private final long falseAst;
+
+  /**
+   * Consequences reported during a callback are buffered and sent to Z3 when the callback
+   * returns, see {@link #endCallback}, unless batching is disabled. The buffer references its
+   * ASTs in the context of this propagator.
+   */
+  private final Z3ConsequenceBuffer consequences = new Z3ConsequenceBuffer(ctx);
+
+  private final boolean batching;
+
+  private int callbackDepth = 0;
+
+  /** Reused arrays for converting the arguments of a consequence into ASTs. */
+  private long[] fixedScratch = new long[16];
+
+  private long[] lhsScratch = new long[16];
+  private long[] rhsScratch = new long[16];
+
+  /** Reused arrays for merging the buffered consequences with the same antecedent. */
+  private long[] groupScratch = new long[16];
+
+  private boolean[] merged = new boolean[32];
+
+  private long callbacks = 0;
+  private long submittedConsequences = 0;
+  private long nativeCalls = 0;
+
   // function calls from z3's side
   // (forwarding callbacks to the theory solver)
   @Override
   public void pushWrapper() {
-    theorySolver.push();
+    theorySolver.handlePush();
   }
 
   @Override
   public void popWrapper(int num) {
-    theorySolver.pop(num);
+    theorySolver.handlePop(num);
   }
 
   @Override
   public void finWrapper() {
-    theorySolver.finish();
+    beginCallback();
+    try {
+      theorySolver.finish();
+    } finally {
+      endCallback();
+    }
   }
 
   @Override
   public void eqWrapper(long lx, long ly) {
-    theorySolver.equality(creator.encapsulateBoolean(lx), creator.encapsulateBoolean(ly));
+    beginCallback();
+    try {
+      int x = getWatchedId(lx);
+      int y = getWatchedId(ly);
+      if (x >= 0 && y >= 0) {
+        theorySolver.equality(x, y);
+      } else {
+        theorySolver.equality(toRootFormula(lx), toRootFormula(ly));
+      }
+    } finally {
+      endCallback();
+    }
   }
 
-  // to function correctly, new prop and context are needed
-  // currently, there is no support for delegating subproblems to new user propagators
+  /**
+   * Z3 calls this method when it creates a new context for a sub-solver, e.g., for each worker in
+   * parallel mode or for checking candidate models of quantified formulas. Z3 copies all watched
+   * expressions into the new context, thus the new propagator only needs to know their ids. If the
+   * theory solver does not support {@link BooleanTheorySolver#fresh()}, we keep the old behavior
+   * and share this instance.
+   */
   @Override
   public Z3UserPropagator freshWrapper(long lctx) {
-    return this;
+    BooleanTheorySolver freshTheorySolver = theorySolver.fresh();
+    if (freshTheorySolver == null) {
+      return this;
+    }
+    Z3UserPropagator freshPropagator = new Z3UserPropagator(lctx, this, freshTheorySolver);
+    freshTheorySolver.injectBackend(freshPropagator);
+    return freshPropagator;
   }
 
   @Override
   public void createdWrapper(long le) {
-    theorySolver.created(creator.encapsulateBoolean(le));
+    // Z3 watches created expressions automatically, we only need an id for them.
+    BooleanFormula created = toRootFormula(le);
+    if (getWatchedId(le) < 0) {
+      Native.incRef(ctx, le);
+      registerWatched(le, created);
+    }
+    beginCallback();
+    try {
+      theorySolver.created(created);
+    } finally {
+      endCallback();
+    }
   }
 
   @Override
   public void fixedWrapper(long lvar, long lvalue) {
-    theorySolver.fixed(creator.encapsulateBoolean(lvar),
-        creator.encapsulateBoolean(lvalue));
+    // Z3 uses unique ASTs for the constants, thus comparing the pointers is sufficient.
+    boolean value = lvalue == trueAst;
+    int id = getWatchedId(lvar);
+    beginCallback();
+    try {
+      if (id >= 0) {
+        theorySolver.fixed(id, value);
+      } else {
+        theorySolver.fixed(toRootFormula(lvar), getBooleanConstant(value));
+      }
+    } finally {
+      endCallback();
+    }
   }
 
-  public void decideWrapper(long expr, int i, int j) {}
+  /**
+   * Z3 is about to branch on the given expression. Z3 uses the bit index only for bitvectors,
+   * which can not be watched here.
+   */
+  public void decideWrapper(long expr, int bit, int isPos) {
+    int id = getWatchedId(expr);
+    if (id < 0) {
+      return;
+    }
+    beginCallback();
+    try {
+      theorySolver.decide(id, isPos > 0);
+    } finally {
+      endCallback();
+    }
+  }
 
 
   // function calls from java-smt's side (mostly calls to Backend)
@@ -84,54 +235,343 @@ public final class Z3UserPropagator extends Native.UserPropagatorBase implements
     this.creator = creator;
     this.theorySolver = theorySolver;
     this.manager = manager;
+    root = this;
+    batching = creator.batchesPropagatorConsequences();
+    trueFormula = manager.getBooleanFormulaManager().makeTrue();
+    falseFormula = manager.getBooleanFormulaManager().makeFalse();
+    trueAst = creator.extractInfo(trueFormula);
+    falseAst = creator.extractInfo(falseFormula);
+  }
+
+  /** Create a propagator for the fresh context of a sub-solver, see {@link #freshWrapper}. */
+  private Z3UserPropagator(
+      long freshCtx, Z3UserPropagator parent, BooleanTheorySolver freshTheorySolver) {
+    super(freshCtx, mkSolverForFreshContext(freshCtx));
+    creator = parent.creator;
+    manager = parent.manager;
+    theorySolver = freshTheorySolver;
+    root = parent.root;
+    batching = parent.batching;
+    trueFormula = parent.trueFormula;
+    falseFormula = parent.falseFormula;
+    // The fresh context is owned by Z3 and released together with all its ASTs,
+    // thus the ASTs that live as long as this propagator are never released explicitly.
+    trueAst = Native.mkTrue(freshCtx);
+    Native.incRef(freshCtx, trueAst);
+    falseAst = Native.mkFalse(freshCtx);
+    Native.incRef(freshCtx, falseAst);
+    // The watched formulas belong to the root context, which is the only one we need to lock.
+    for (int i = 0; i < parent.watched.size(); i++) {
+      BooleanFormula formula = parent.watched.get(i);
+      long ast;
+      synchronized (root) {
+        ast = Native.translate(root.ctx, creator.extractInfo(formula), freshCtx);
+      }
+      Native.incRef(freshCtx, ast);
+      registerWatched(ast, formula);
+    }
+  }
+
+  /**
+   * The base class registers the propagator on the given solver. Z3 does not pass the sub-solver
+   * to {@link #freshWrapper}, and during the search all calls of the fresh propagator go through
+   * the callback of the sub-solver. Thus, we create an unused solver in the fresh context instead
+   * of registering the propagator again on the solver of the prover, which is in the middle of a
+   * search. The solver is released together with the fresh context.
+   */
+  private static long mkSolverForFreshContext(long freshCtx) {
+    long solver = Native.mkSimpleSolver(freshCtx);
+    Native.solverIncRef(freshCtx, solver);
+    return solver;
+  }
+
+  /**
+   * Convert an AST of this propagator's context into a formula of the root context. Sub-solvers
+   * run in parallel, thus every formula of the root context is created under its lock, also by
+   * the root propagator itself.
+   */
+  private BooleanFormula toRootFormula(long ast) {
+    if (root == this) {
+      synchronized (root) {
+        return creator.encapsulateBoolean(ast);
+      }
+    }
+    synchronized (root) {
+      return creator.encapsulateBoolean(Native.translate(ctx, ast, root.ctx));
+    }
+  }
+
+  /**
+   * Convert a formula of the root context into an AST of this propagator's context. Only the
+   * translation itself is done under the lock of the root context. The result stays valid until
+   * the next call of {@link #trimTranslations}.
+   */
+  private long toLocalAst(BooleanFormula formula) {
+    if (root == this) {
+      return creator.extractInfo(formula);
+    }
+    long rootAst = creator.extractInfo(formula);
+    Translation translation = localAsts.get(rootAst);
+    if (translation == null) {
+      long localAst;
+      synchronized (root) {
+        localAst = Native.translate(root.ctx, rootAst, ctx);
+      }
+      Native.incRef(ctx, localAst);
+      translation = new Translation(formula, localAst);
+      localAsts.put(rootAst, translation);
+    }
+    return translation.localAst;
+  }
+
+  /**
+   * Release the least recently used translations beyond the bound. Buffered consequences keep their
+   * own reference on translated ASTs.
+   */
+  private void trimTranslations() {
+    Iterator<Translation> it = localAsts.values().iterator();
+    while (localAsts.size() > MAX_CACHED_TRANSLATIONS && it.hasNext()) {
+      Native.decRef(ctx, it.next().localAst);
+      it.remove();
+    }
+  }
+
+  @Override
+  public int addExpressionToWatch(BooleanFormula toWatch) {
+    long ast = toLocalAst(toWatch);
+    int id = getWatchedId(ast);
+    if (id < 0) {
+      // Watched ASTs must survive the eviction from the translation cache,
+      // and the release of the watched formula by a formula arena.
+      Native.incRef(ctx, ast);
+      id = registerWatched(ast, toWatch);
+      Native.propagateAdd(this, ctx, solver, javainfo, ast);
+    }
+    return id;
+  }
+
+  @Override
+  public BooleanFormula getWatchedExpression(int id) {
+    return watched.get(id);
   }
+
+  @Override
+  public int getNumberOfWatchedExpressions() {
+    return watched.size();
+  }
+
+  @Override
+  public BooleanFormula getBooleanConstant(boolean value) {
+    return value ? trueFormula : falseFormula;
+  }
+
+  private int registerWatched(long ast, BooleanFormula formula) {
+    int astId = Native.getAstId(ctx, ast);
+    if (astId >= astIdToWatchedId.length) {
+      astIdToWatchedId =
+          Arrays.copyOf(astIdToWatchedId, Math.max(astId + 1, 2 * astIdToWatchedId.length));
+    }
+    if (astIdToWatchedId[astId] == 0) {
+      if (watched.size() == watchedAsts.length) {
+        watchedAsts = Arrays.copyOf(watchedAsts, 2 * watchedAsts.length);
+      }
+      watchedAsts[watched.size()] = ast;
+      watched.add(formula);
+      astIdToWatchedId[astId] = watched.size();
+    }
+    return astIdToWatchedId[astId] - 1;
+  }
+
+  /** Returns the watched id of the given AST, or -1 if the AST is not watched. */
+  private int getWatchedId(long ast) {
+    int astId = Native.getAstId(ctx, ast);
+    return astId < astIdToWatchedId.length ? astIdToWatchedId[astId] - 1 : -1;
+  }
+
   @Override
-  public void addExpressionToWatch(BooleanFormula toWatch) {
-    Native.propagateAdd(this, ctx, solver, javainfo, creator.extractInfo(toWatch));
+  public void addConflict(BooleanFormula[] fixed) {
+    fixedScratch = toAsts(fixed, fixedScratch);
+    submit(fixedScratch, length(fixed), lhsScratch, rhsScratch, 0, falseAst);
   }
 
   @Override
-  public void addConflict(
-      BooleanFormula[] fixed) {
-    BooleanFormula conflict = manager.getBooleanFormulaManager().makeFalse();
-    BooleanFormula[] empty = new BooleanFormula[0];
-    Native.propagateConflict(this, ctx, solver, javainfo, fixed.length, formulaArrayToLong(fixed)
-        , 0, formulaArrayToLong(empty), formulaArrayToLong(empty),
-        creator.extractInfo(conflict));
+  public void addConflict(int[] fixedIds, int count) {
+    fixedScratch = toAsts(fixedIds, count, fixedScratch);
+    submit(fixedScratch, count, lhsScratch, rhsScratch, 0, falseAst);
   }
 
   @Override
-  public void addConflictEq(
-      BooleanFormula[] fixed, BooleanFormula[] lhs,
-      BooleanFormula[] rhs) {
-    BooleanFormula conflict = manager.getBooleanFormulaManager().makeFalse();
-    Native.propagateConflict(this, ctx, solver, javainfo, fixed.length, formulaArrayToLong(fixed)
-        , lhs.length, formulaArrayToLong(lhs), formulaArrayToLong(rhs),
-        creator.extractInfo(conflict));
+  public void addConflictEq(BooleanFormula[] fixed, BooleanFormula[] lhs, BooleanFormula[] rhs) {
+    fixedScratch = toAsts(fixed, fixedScratch);
+    lhsScratch = toAsts(lhs, lhsScratch);
+    rhsScratch = toAsts(rhs, rhsScratch);
+    submit(fixedScratch, length(fixed), lhsScratch, rhsScratch, length(lhs), falseAst);
   }
 
   @Override
   public void addTheoryLemma(BooleanFormula[] fixed, BooleanFormula conflict) {
-    BooleanFormula[] empty = new BooleanFormula[0];
-    Native.propagateConflict(this, ctx, solver, javainfo, fixed.length, formulaArrayToLong(fixed)
-        , 0, formulaArrayToLong(empty), formulaArrayToLong(empty), creator.extractInfo(conflict));
+    fixedScratch = toAsts(fixed, fixedScratch);
+    submit(
+        fixedScratch, length(fixed), lhsScratch, rhsScratch, 0, toLocalAst(conflict));
+  }
+
+  @Override
+  public void addTheoryLemma(int[] fixedIds, int count, BooleanFormula consequence) {
+    fixedScratch = toAsts(fixedIds, count, fixedScratch);
+    submit(fixedScratch, count, lhsScratch, rhsScratch, 0, toLocalAst(consequence));
   }
 
   @Override
   public void addLearningClause(BooleanFormula[] fixed, BooleanFormula[] lhs,
                                 BooleanFormula[] rhs, BooleanFormula constraint) {
-    Native.propagateConflict(this, ctx, solver, javainfo, fixed.length, formulaArrayToLong(fixed)
-        , 0, formulaArrayToLong(lhs), formulaArrayToLong(rhs), creator.extractInfo(constraint));
+    fixedScratch = toAsts(fixed, fixedScratch);
+    submit(
+        fixedScratch, length(fixed), lhsScratch, rhsScratch, 0, toLocalAst(constraint));
+  }
+
+  /**
+   * Buffer a consequence while a callback is running, or send it directly to Z3 if the theory
+   * solver reports it from outside a callback or batching is disabled.
+   */
+  private void submit(
+      long[] fixed, int numFixed, long[] lhs, long[] rhs, int numEqs, long consequence) {
+    submittedConsequences++;
+    if (!batching) {
+      propagate(numFixed, fixed, numEqs, lhs, rhs, consequence);
+      trimTranslations();
+      return;
+    }
+    consequences.add(fixed, numFixed, lhs, rhs, numEqs, consequence);
+    if (callbackDepth == 0) {
+      flush();
+    }
+  }
+
+  /**
+   * Send all buffered consequences to Z3. Identical consequences were already merged, and
+   * consequences with the same antecedent are sent in one native call: as a conflict if one of
+   * them is a conflict, which makes the others redundant, and as their conjunction otherwise.
+   */
+  private void flush() {
+    int size = consequences.size();
+    if (merged.length < size) {
+      merged = new boolean[Math.max(size, 2 * merged.length)];
+    }
+    groupScratch = grow(groupScratch, size);
+    for (int i = 0; i < size; i++) {
+      if (merged[i]) {
+        continue;
+      }
+      int groupSize = 0;
+      boolean isConflict = false;
+      for (int j = i; j < size; j++) {
+        if (j == i || (!merged[j] && consequences.hasSameAntecedent(i, j))) {
+          merged[j] = true;
+          long consequence = consequences.getConsequence(j);
+          isConflict |= consequence == falseAst;
+          groupScratch[groupSize++] = consequence;
+        }
+      }
+
+      long consequence;
+      if (isConflict) {
+        consequence = falseAst;
+      } else if (groupSize == 1) {
+        consequence = groupScratch[0];
+      } else {
+        // The new AST is only used by the next native call, thus it needs no reference.
+        consequence = Native.mkAnd(ctx, groupSize, groupScratch);
+        nativeCalls++;
+      }
+      consequences.load(i);
+      // The JNI layer only reads as many elements as given by the sizes,
+      // thus we can pass the (larger) reused arrays directly.
+      propagate(
+          consequences.getNumFixed(i),
+          consequences.getFixed(),
+          consequences.getNumEqs(i),
+          consequences.getLhs(),
+          consequences.getRhs(),
+          consequence);
+    }
+    Arrays.fill(merged, 0, size, false);
+    consequences.clear();
+    trimTranslations();
+  }
+
+  private void propagate(
+      int numFixed, long[] fixed, int numEqs, long[] lhs, long[] rhs, long consequence) {
+    Native.propagateConflict(
+        this, ctx, solver, javainfo, numFixed, fixed, numEqs, lhs, rhs, consequence);
+    nativeCalls++;
   }
-  private long[] formulaArrayToLong(BooleanFormula[] formulaArray) {
-    if (formulaArray == null)
-          return new long[0];
-    long[] formulaInfos = new long[formulaArray.length];
-    for (int i = 0; i < formulaArray.length; i++) {
-      if (formulaArray[i] != null)
-        formulaInfos[i] = creator.extractInfo(formulaArray[i]);
+
+  private void beginCallback() {
+    callbacks++;
+    callbackDepth++;
+  }
+
+  private void endCallback() {
+    callbackDepth--;
+    if (callbackDepth == 0 && !consequences.isEmpty()) {
+      flush();
+    }
+  }
+
+  private static int length(BooleanFormula[] formulas) {
+    return formulas == null ? 0 : formulas.length;
+  }
+
+  /** Write the ASTs of the given formulas into the scratch array, growing it if necessary. */
+  private long[] toAsts(BooleanFormula[] formulas, long[] scratch) {
+    long[] asts = grow(scratch, length(formulas));
+    for (int i = 0; i < length(formulas); i++) {
+      asts[i] = formulas[i] == null ? 0 : toLocalAst(formulas[i]);
+    }
+    return asts;
+  }
+
+  /** Write the ASTs of the given watched ids into the scratch array, growing it if necessary. */
+  private long[] toAsts(int[] ids, int count, long[] scratch) {
+    long[] asts = grow(scratch, count);
+    for (int i = 0; i < count; i++) {
+      asts[i] = watchedAsts[ids[i]];
     }
-    return formulaInfos;
+    return asts;
+  }
+
+  private static long[] grow(long[] scratch, int capacity) {
+    return scratch.length >= capacity
+        ? scratch
+        : new long[Math.max(capacity, 2 * scratch.length)];
+  }
+
+  @Override
+  public boolean nextSplit(int id, boolean phase) {
+    return nextSplitAst(watchedAsts[id], phase);
+  }
+
+  @Override
+  public boolean nextSplit(BooleanFormula expr, boolean phase) {
+    return nextSplitAst(toLocalAst(expr), phase);
+  }
+
+  private boolean nextSplitAst(long ast, boolean phase) {
+    // the phase is given as Z3_lbool
+    boolean accepted =
+        Native.propagateNextSplit(this, ctx, solver, javainfo, ast, 0, phase ? 1 : -1);
+    if (consequences.isEmpty()) {
+      trimTranslations();
+    }
+    return accepted;
+  }
+
+  @Override
+  public ImmutableMap<String, String> getStatistics() {
+    return ImmutableMap.of(
+        "callbacks", Long.toString(callbacks),
+        "submitted consequences", Long.toString(submittedConsequences),
+        "native calls", Long.toString(nativeCalls));
   }
 
   @Override
@@ -145,4 +585,7 @@ public final class Z3UserPropagator extends Native.UserPropagatorBase implements
 
   @Override
   public void notifyOnFullAssign() { registerFinal(); }
+
+  @Override
+  public void notifyOnDecide() { registerDecide(); }
 }
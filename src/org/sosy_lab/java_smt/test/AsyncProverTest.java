@@ -0,0 +1,132 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Model.ValueAssignment;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.utils.AsyncProver;
+
+public class AsyncProverTest extends SolverBasedTest0.ParameterizedSolverBasedTest0 {
+
+  private static final int TIMEOUT_SECONDS = 30;
+
+  private ExecutorService executor;
+  private ProverEnvironment prover;
+  private AsyncProver<ProverEnvironment> asyncProver;
+
+  @Before
+  public void createAsyncProver() {
+    executor = Executors.newSingleThreadExecutor();
+    prover = context.newProverEnvironment(ProverOptions.GENERATE_MODELS);
+    asyncProver = new AsyncProver<>(prover, executor, null);
+  }
+
+  @After
+  public void closeAsyncProver() throws InterruptedException {
+    if (executor != null) {
+      executor.shutdown();
+      executor.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    if (prover != null) {
+      prover.close();
+    }
+  }
+
+  private static <T> T getResult(CompletableFuture<T> future)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void queriesAreExecutedInOrder()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    BooleanFormula x = bmgr.makeVariable("x");
+    CompletableFuture<Void> push1 = asyncProver.submit(p -> p.push(x));
+    CompletableFuture<Boolean> first = asyncProver.isUnsatAsync();
+    CompletableFuture<Void> push2 = asyncProver.submit(p -> p.push(bmgr.not(x)));
+    CompletableFuture<Boolean> second = asyncProver.isUnsatAsync();
+
+    assertThat(getResult(first)).isFalse();
+    assertThat(getResult(second)).isTrue();
+    assertThat(push1.isDone() && push2.isDone()).isTrue();
+  }
+
+  @Test
+  public void modelIsRetrieved() throws InterruptedException, ExecutionException, TimeoutException {
+    BooleanFormula x = bmgr.makeVariable("x");
+    CompletableFuture<Void> push = asyncProver.submit(p -> p.push(x));
+    assertThat(getResult(asyncProver.isUnsatAsync())).isFalse();
+    assertThat(push.isDone()).isTrue();
+
+    boolean found = false;
+    for (ValueAssignment assignment : getResult(asyncProver.getModelAsync())) {
+      if (assignment.getKey().equals(x)) {
+        assertThat(assignment.getValue()).isEqualTo(true);
+        found = true;
+      }
+    }
+    assertThat(found).isTrue();
+  }
+
+  @Test
+  public void failedQueryDoesNotAffectOthers()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    CompletableFuture<Object> failing =
+        asyncProver.submit(
+            p -> {
+              throw new IllegalStateException("expected failure");
+            });
+    CompletableFuture<Boolean> next = asyncProver.isUnsatAsync();
+
+    ExecutionException e = assertThrows(ExecutionException.class, () -> getResult(failing));
+    assertThat(e).hasCauseThat().isInstanceOf(IllegalStateException.class);
+    assertThat(getResult(next)).isFalse();
+  }
+
+  @Test
+  public void pendingQueryIsCancelled()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    CountDownLatch blocker = new CountDownLatch(1);
+    AtomicBoolean executed = new AtomicBoolean(false);
+
+    CompletableFuture<Boolean> blocking =
+        asyncProver.submit(p -> blocker.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    CompletableFuture<Boolean> pending =
+        asyncProver.submit(
+            p -> {
+              executed.set(true);
+              return p.isUnsat();
+            });
+    CompletableFuture<Boolean> last = asyncProver.isUnsatAsync();
+
+    assertThat(pending.cancel(true)).isTrue();
+    blocker.countDown();
+
+    assertThat(getResult(blocking)).isTrue();
+    assertThat(getResult(last)).isFalse();
+    assertThat(pending.isCancelled()).isTrue();
+    assertThat(executed.get()).isFalse();
+  }
+}
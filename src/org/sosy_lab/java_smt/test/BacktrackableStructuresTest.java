@@ -0,0 +1,123 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.sosy_lab.java_smt.api.propagators.BacktrackableBitSet;
+import org.sosy_lab.java_smt.api.propagators.BacktrackableIntArray;
+import org.sosy_lab.java_smt.api.propagators.BacktrackableIntStack;
+import org.sosy_lab.java_smt.api.propagators.Trail;
+
+public class BacktrackableStructuresTest {
+
+  private final Trail trail = new Trail();
+
+  @Test
+  public void testIntStack() {
+    BacktrackableIntStack stack = new BacktrackableIntStack(trail);
+    stack.add(1);
+    trail.push();
+    stack.add(2);
+    stack.add(3);
+    trail.push();
+    for (int i = 0; i < 100; i++) {
+      stack.add(i);
+    }
+    assertThat(stack.size()).isEqualTo(103);
+
+    trail.pop(1);
+    assertThat(stack.toArray()).asList().containsExactly(1, 2, 3).inOrder();
+    trail.pop(1);
+    assertThat(stack.toArray()).asList().containsExactly(1);
+    assertThat(trail.getLevel()).isEqualTo(0);
+  }
+
+  @Test
+  public void testBitSet() {
+    BacktrackableBitSet set = new BacktrackableBitSet(trail);
+    set.set(3);
+    trail.push();
+    assertThat(set.set(3)).isFalse();
+    assertThat(set.set(200)).isTrue();
+    assertThat(set.clear(3)).isTrue();
+    trail.push();
+    set.set(5);
+    assertThat(set.cardinality()).isEqualTo(2);
+
+    trail.pop(2);
+    assertThat(set.get(3)).isTrue();
+    assertThat(set.get(5)).isFalse();
+    assertThat(set.get(200)).isFalse();
+    assertThat(set.cardinality()).isEqualTo(1);
+  }
+
+  @Test
+  public void testIntArray() {
+    BacktrackableIntArray array = new BacktrackableIntArray(trail, -1);
+    array.set(0, 10);
+    trail.push();
+    array.set(0, 20);
+    array.set(0, 30);
+    array.set(500, 7);
+    assertThat(array.get(0)).isEqualTo(30);
+    assertThat(array.get(500)).isEqualTo(7);
+    assertThat(array.get(1000)).isEqualTo(-1);
+
+    trail.pop(1);
+    assertThat(array.get(0)).isEqualTo(10);
+    assertThat(array.get(500)).isEqualTo(-1);
+  }
+
+  @Test
+  public void testPopNothing() {
+    BacktrackableIntArray array = new BacktrackableIntArray(trail, -1);
+    trail.push();
+    trail.push();
+    array.set(0, 1);
+    trail.pop(2);
+
+    // the levels of the previous cycle must not be reverted again
+    trail.push();
+    array.set(0, 3);
+    trail.pop(0);
+    assertThat(array.get(0)).isEqualTo(3);
+    assertThat(trail.getLevel()).isEqualTo(1);
+
+    // all slots for levels are in use
+    for (int i = 1; i < 16; i++) {
+      trail.push();
+      array.set(i, i);
+    }
+    trail.pop(0);
+    assertThat(trail.getLevel()).isEqualTo(16);
+    assertThat(array.get(15)).isEqualTo(15);
+
+    trail.pop(16);
+    assertThat(array.get(0)).isEqualTo(-1);
+    assertThat(array.get(15)).isEqualTo(-1);
+  }
+
+  @Test
+  public void testSharedTrail() {
+    BacktrackableIntStack stack = new BacktrackableIntStack(trail);
+    BacktrackableBitSet set = new BacktrackableBitSet(trail);
+    for (int i = 0; i < 10; i++) {
+      trail.push();
+      stack.add(i);
+      set.set(i, i % 2 == 0);
+    }
+    trail.pop(5);
+    assertThat(stack.size()).isEqualTo(5);
+    assertThat(set.cardinality()).isEqualTo(3);
+    assertThat(set.get(4)).isTrue();
+    assertThat(set.get(6)).isFalse();
+  }
+}
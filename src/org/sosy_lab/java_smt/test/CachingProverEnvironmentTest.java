@@ -0,0 +1,165 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.api.BitvectorFormula;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+
+public class CachingProverEnvironmentTest extends SolverBasedTest0.ParameterizedSolverBasedTest0 {
+
+  @Override
+  protected ConfigurationBuilder createTestConfigBuilder() {
+    return super.createTestConfigBuilder().setOption("solver.cacheQueries", "true");
+  }
+
+  @Before
+  public void setup() {
+    // queries are identified by visiting their formulas
+    requireVisitor();
+  }
+
+  @Test
+  public void repeatedQueryIsAnsweredFromCache() throws SolverException, InterruptedException {
+    BooleanFormula a = bmgr.makeVariable("a");
+    BooleanFormula b = bmgr.makeVariable("b");
+    try (ProverEnvironment prover = context.newProverEnvironment()) {
+      prover.push(bmgr.and(a, b));
+      assertThat(prover.isUnsat()).isFalse();
+      prover.pop();
+      prover.push(bmgr.and(b, a));
+      assertThat(prover.isUnsat()).isFalse();
+      assertThat(prover.getStatistics()).containsEntry("cache hits", "1");
+      assertThat(prover.getStatistics()).containsEntry("cache misses", "1");
+    }
+  }
+
+  @Test
+  public void differentQueriesAreNotConfused() throws SolverException, InterruptedException {
+    BooleanFormula x = bmgr.makeVariable("x");
+    try (ProverEnvironment prover = context.newProverEnvironment()) {
+      prover.push(x);
+      assertThat(prover.isUnsat()).isFalse();
+      prover.push(bmgr.not(x));
+      assertThat(prover.isUnsat()).isTrue();
+      prover.pop();
+      assertThat(prover.isUnsat()).isFalse();
+      assertThat(prover.getStatistics()).containsEntry("cache hits", "1");
+    }
+  }
+
+  @Test
+  public void modelAfterCacheHit() throws SolverException, InterruptedException {
+    requireModel();
+    BooleanFormula x = bmgr.makeVariable("x");
+    BooleanFormula y = bmgr.makeVariable("y");
+    BooleanFormula query = bmgr.and(x, bmgr.not(y));
+    try (ProverEnvironment prover = context.newProverEnvironment(ProverOptions.GENERATE_MODELS)) {
+      prover.push(query);
+      assertThat(prover.isUnsat()).isFalse();
+    }
+    try (ProverEnvironment prover = context.newProverEnvironment(ProverOptions.GENERATE_MODELS)) {
+      prover.push(query);
+      assertThat(prover.isUnsat()).isFalse();
+      assertThat(prover.getStatistics()).containsEntry("cache hits", "1");
+      try (Model model = prover.getModel()) {
+        assertThat(model.evaluate(x)).isTrue();
+        assertThat(model.evaluate(y)).isFalse();
+      }
+    }
+  }
+
+  @Test
+  public void extractionsOfDifferentBitsAreNotConfused()
+      throws SolverException, InterruptedException {
+    requireBitvectors();
+    BitvectorFormula x = bvmgr.makeVariable(16, "x");
+    BooleanFormula lowIsZero = bvmgr.equal(bvmgr.extract(x, 7, 0), bvmgr.makeBitvector(8, 0));
+    BooleanFormula lowIsOne = bvmgr.equal(bvmgr.extract(x, 7, 0), bvmgr.makeBitvector(8, 1));
+    BooleanFormula highIsOne = bvmgr.equal(bvmgr.extract(x, 15, 8), bvmgr.makeBitvector(8, 1));
+    try (ProverEnvironment prover = context.newProverEnvironment()) {
+      prover.push(lowIsZero);
+      prover.push(lowIsOne);
+      assertThat(prover.isUnsat()).isTrue();
+      prover.pop();
+      // both extractions have the same width, but they must not have the same fingerprint
+      prover.push(highIsOne);
+      assertThat(prover.isUnsat()).isFalse();
+    }
+  }
+
+  @Test
+  public void unsatCoreFromCacheContainsOwnFormulas()
+      throws SolverException, InterruptedException {
+    requireUnsatCore();
+    BooleanFormula a = bmgr.makeVariable("a");
+    BooleanFormula b = bmgr.makeVariable("b");
+    BooleanFormula notA = bmgr.not(a);
+    try (ProverEnvironment prover =
+        context.newProverEnvironment(ProverOptions.GENERATE_UNSAT_CORE)) {
+      prover.addConstraint(bmgr.and(a, b));
+      prover.addConstraint(notA);
+      assertThat(prover.isUnsat()).isTrue();
+    }
+    // the same query with structurally equal formulas, which might be different objects
+    BooleanFormula bAndA = bmgr.and(b, a);
+    try (ProverEnvironment prover =
+        context.newProverEnvironment(ProverOptions.GENERATE_UNSAT_CORE)) {
+      prover.addConstraint(bAndA);
+      prover.addConstraint(notA);
+      assertThat(prover.isUnsat()).isTrue();
+      assertThat(prover.getStatistics()).containsEntry("cache hits", "1");
+      assertThat(prover.getUnsatCore()).containsExactly(bAndA, notA);
+    }
+  }
+
+  @Test
+  public void persistentCacheIsReusedInNewContext()
+      throws IOException, InvalidConfigurationException, SolverException, InterruptedException {
+    Path file = Files.createTempFile("query-cache", ".txt");
+    try {
+      Configuration persistentConfig =
+          createTestConfigBuilder()
+              .setOption("solver.caching.persistentFile", file.toString())
+              .build();
+      SolverContextFactory persistentFactory =
+          new SolverContextFactory(persistentConfig, logger, shutdownNotifierToUse());
+
+      for (String expectedHits : new String[] {"0", "1"}) {
+        try (SolverContext persistentContext = persistentFactory.generateContext();
+            ProverEnvironment prover = persistentContext.newProverEnvironment()) {
+          BooleanFormulaManager persistentBmgr =
+              persistentContext.getFormulaManager().getBooleanFormulaManager();
+          BooleanFormula x = persistentBmgr.makeVariable("x");
+          prover.push(persistentBmgr.and(x, persistentBmgr.not(x)));
+          assertThat(prover.isUnsat()).isTrue();
+          assertThat(prover.getStatistics()).containsEntry("persistent cache hits", expectedHits);
+        }
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -28,6 +28,7 @@ import org.sosy_lab.java_smt.api.FormulaType;
 import org.sosy_lab.java_smt.api.FunctionDeclaration;
 import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
 import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.api.TransformationSession;
 
 public class FormulaManagerTest extends SolverBasedTest0.ParameterizedSolverBasedTest0 {
 
@@ -125,6 +126,37 @@ public class FormulaManagerTest extends SolverBasedTest0.ParameterizedSolverBase
     assertThatFormula(out2).isEquivalentTo(out);
   }
 
+  @Test
+  public void testSubstitutionSession() throws SolverException, InterruptedException {
+    // Boolector does not support substitution
+    assume().that(solverToUse()).isNotEqualTo(Solvers.BOOLECTOR);
+    BooleanFormula a = bmgr.makeVariable("a");
+    BooleanFormula b = bmgr.makeVariable("b");
+    BooleanFormula c = bmgr.makeVariable("c");
+    BooleanFormula a1 = bmgr.makeVariable("a1");
+    BooleanFormula shared = bmgr.and(a, b);
+    ImmutableMap<BooleanFormula, BooleanFormula> substitution = ImmutableMap.of(a, a1);
+
+    TransformationSession session = mgr.newSubstitutionSession(substitution, 100);
+    BooleanFormula out1 = session.transform(bmgr.or(shared, c));
+    assertThat(session.getCacheSize()).isGreaterThan(0);
+    // the second formula reuses the result for the shared part
+    BooleanFormula out2 = session.transform(bmgr.xor(shared, c));
+    assertThatFormula(out1).isEquivalentTo(bmgr.or(bmgr.and(a1, b), c));
+    assertThatFormula(out2).isEquivalentTo(bmgr.xor(bmgr.and(a1, b), c));
+
+    session.clearCache();
+    assertThat(session.getCacheSize()).isEqualTo(0);
+
+    // evicting results from a small cache does not change the results
+    TransformationSession smallSession = mgr.newSubstitutionSession(substitution, 1);
+    for (int i = 0; i < 2; i++) {
+      assertThatFormula(smallSession.transform(bmgr.or(shared, c)))
+          .isEquivalentTo(bmgr.or(bmgr.and(a1, b), c));
+      assertThat(smallSession.getCacheSize()).isAtMost(1);
+    }
+  }
+
   @Test
   public void formulaEqualsAndHashCode() {
     // Solvers without integers (Boolector) get their own test below
@@ -8,12 +8,15 @@
 
 package org.sosy_lab.java_smt.test;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.sosy_lab.java_smt.test.ProverEnvironmentSubject.assertThat;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.junit.Test;
 import org.sosy_lab.common.configuration.ConfigurationBuilder;
@@ -21,7 +24,9 @@ import org.sosy_lab.common.rationals.Rational;
 import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Evaluator;
+import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
 import org.sosy_lab.java_smt.api.ProverEnvironment;
 import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 import org.sosy_lab.java_smt.api.SolverException;
@@ -177,6 +182,32 @@ public class ModelEvaluationTest extends SolverBasedTest0.ParameterizedSolverBas
     }
   }
 
+  @Test
+  public void testEvaluateAll() throws SolverException, InterruptedException {
+    requireIntegers();
+    IntegerFormula x = imgr.makeVariable("x");
+    IntegerFormula y = imgr.makeVariable("y");
+    BooleanFormula b = bmgr.makeVariable("b");
+    try (ProverEnvironment prover = context.newProverEnvironment(ProverOptions.GENERATE_MODELS)) {
+      prover.push(imgr.equal(x, imgr.makeNumber(10)));
+      prover.push(imgr.equal(y, imgr.add(x, imgr.makeNumber(1))));
+      prover.push(b);
+      assertThat(prover).isSatisfiable();
+
+      try (Model m = prover.getModel()) {
+        // repeated evaluations are answered from the cache of the model
+        assertThat(m.evaluate(x)).isEqualTo(BigInteger.TEN);
+        assertThat(m.evaluate(x)).isEqualTo(BigInteger.TEN);
+
+        Map<Formula, Object> values = m.evaluateAll(ImmutableList.of(x, y, b, x));
+        assertThat(values)
+            .containsExactly(x, BigInteger.TEN, y, BigInteger.valueOf(11), b, true)
+            .inOrder();
+        assertThat(m.evaluate(y)).isEqualTo(BigInteger.valueOf(11));
+      }
+    }
+  }
+
   @NonNull
   private List<BooleanFormula> getConstraints() {
     List<BooleanFormula> constraints = new ArrayList<>();
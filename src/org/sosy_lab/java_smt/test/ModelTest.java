@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.junit.Before;
 import org.junit.Test;
@@ -725,6 +726,50 @@ public class ModelTest extends SolverBasedTest0.ParameterizedSolverBasedTest0 {
     }
   }
 
+  @Test
+  public void testStreamModelAssignments() throws SolverException, InterruptedException {
+    BooleanFormula f;
+    if (imgr != null) {
+      f =
+          bmgr.and(
+              imgr.equal(imgr.makeVariable("a_x"), imgr.makeNumber(1)),
+              imgr.equal(imgr.makeVariable("a_y"), imgr.makeNumber(2)),
+              imgr.equal(imgr.makeVariable("b_z"), imgr.makeNumber(3)));
+    } else {
+      f =
+          bmgr.and(
+              bvmgr.equal(bvmgr.makeVariable(8, "a_x"), bvmgr.makeBitvector(8, 1)),
+              bvmgr.equal(bvmgr.makeVariable(8, "a_y"), bvmgr.makeBitvector(8, 2)),
+              bvmgr.equal(bvmgr.makeVariable(8, "b_z"), bvmgr.makeBitvector(8, 3)));
+    }
+
+    try (ProverEnvironment prover = context.newProverEnvironment(ProverOptions.GENERATE_MODELS)) {
+      prover.push(f);
+      assertThat(prover).isSatisfiable();
+
+      try (Model m = prover.getModel()) {
+        ImmutableList<ValueAssignment> all = m.asList();
+        List<ValueAssignment> streamed;
+        try (Stream<ValueAssignment> assignments = m.stream()) {
+          streamed = assignments.collect(Collectors.toList());
+        }
+        assertThat(streamed).containsExactlyElementsIn(all);
+
+        List<String> names;
+        try (Stream<ValueAssignment> assignments = m.stream("a_")) {
+          names = assignments.map(ValueAssignment::getName).collect(Collectors.toList());
+        }
+        assertThat(names).containsExactly("a_x", "a_y");
+
+        // a partially consumed stream can be closed without consuming the rest
+        try (Stream<ValueAssignment> assignments = m.stream()) {
+          assertThat(assignments.findFirst()).isPresent();
+        }
+        assertThat(m.stream("c_").count()).isEqualTo(0);
+      }
+    }
+  }
+
   @Test
   public void testEmptyStackModel() throws SolverException, InterruptedException {
     if (imgr != null) {
@@ -0,0 +1,147 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment.AllSatCallback;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.utils.ParallelAllSat;
+
+@RunWith(Parameterized.class)
+public class ParallelAllSatTest extends SolverBasedTest0 {
+
+  @Parameters(name = "solver {0} with {1} threads")
+  public static Iterable<Object[]> getAllSolvers() {
+    List<Object[]> junitParams = new ArrayList<>();
+    for (Solvers solver : Solvers.values()) {
+      junitParams.add(new Object[] {solver, 1});
+      junitParams.add(new Object[] {solver, 3});
+    }
+    return junitParams;
+  }
+
+  @Parameter(0)
+  public Solvers solver;
+
+  @Parameter(1)
+  public int numThreads;
+
+  @Override
+  protected Solvers solverToUse() {
+    return solver;
+  }
+
+  private ParallelAllSat parallelAllSat;
+
+  @Before
+  public void setupParallelAllSat() {
+    // formulas are rebuilt in the worker contexts by translateFrom, which visits them
+    requireVisitor();
+    parallelAllSat =
+        new ParallelAllSat(context, config, logger, shutdownNotifierToUse(), numThreads);
+  }
+
+  @After
+  public void closeParallelAllSat() {
+    if (parallelAllSat != null) {
+      parallelAllSat.close();
+    }
+  }
+
+  private static class CollectingCallback implements AllSatCallback<List<List<BooleanFormula>>> {
+
+    private final List<List<BooleanFormula>> models = new ArrayList<>();
+
+    @Override
+    public void apply(List<BooleanFormula> pModel) {
+      models.add(ImmutableList.copyOf(pModel));
+    }
+
+    @Override
+    public List<List<BooleanFormula>> getResult() {
+      return models;
+    }
+  }
+
+  private List<BooleanFormula> makeVariables(int num) {
+    List<BooleanFormula> variables = new ArrayList<>();
+    for (int i = 0; i < num; i++) {
+      variables.add(bmgr.makeVariable("b" + i));
+    }
+    return variables;
+  }
+
+  @Test
+  public void unsat() throws SolverException, InterruptedException {
+    List<BooleanFormula> vars = makeVariables(4);
+    BooleanFormula query = bmgr.and(vars.get(0), bmgr.not(vars.get(0)));
+
+    assertThat(parallelAllSat.allSat(ImmutableList.of(query), new CollectingCallback(), vars))
+        .isEmpty();
+  }
+
+  @Test
+  public void sameModelsAsSequential() throws SolverException, InterruptedException {
+    List<BooleanFormula> vars = makeVariables(6);
+
+    // exactly one of the first three variables and at least one of the last three is true
+    BooleanFormula query =
+        bmgr.and(
+            bmgr.or(vars.get(0), vars.get(1), vars.get(2)),
+            bmgr.not(bmgr.and(vars.get(0), vars.get(1))),
+            bmgr.not(bmgr.and(vars.get(0), vars.get(2))),
+            bmgr.not(bmgr.and(vars.get(1), vars.get(2))),
+            bmgr.or(vars.get(3), vars.get(4), vars.get(5)));
+
+    List<List<BooleanFormula>> expected;
+    try (ProverEnvironment prover = context.newProverEnvironment(ProverOptions.GENERATE_ALL_SAT)) {
+      prover.push(query);
+      expected = prover.allSat(new CollectingCallback(), vars);
+    }
+    assertThat(expected).hasSize(3 * 7);
+
+    List<List<BooleanFormula>> models =
+        parallelAllSat.allSat(ImmutableList.of(query), new CollectingCallback(), vars);
+    assertThat(models).containsExactlyElementsIn(expected);
+  }
+
+  @Test
+  public void lessPredicatesThanThreads() throws SolverException, InterruptedException {
+    List<BooleanFormula> vars = makeVariables(2);
+    BooleanFormula query = bmgr.xor(vars.get(0), vars.get(1));
+    List<BooleanFormula> predicates = ImmutableList.of(vars.get(0));
+
+    List<List<BooleanFormula>> models =
+        parallelAllSat.allSat(ImmutableList.of(query), new CollectingCallback(), predicates);
+    if (numThreads == 1) {
+      assertThat(models)
+          .containsExactly(ImmutableList.of(bmgr.not(vars.get(0))), ImmutableList.of(vars.get(0)));
+    } else {
+      // the only predicate is split, and the models are reported in the order of the cubes
+      assertThat(models)
+          .containsExactly(ImmutableList.of(bmgr.not(vars.get(0))), ImmutableList.of(vars.get(0)))
+          .inOrder();
+    }
+  }
+}
@@ -0,0 +1,133 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.utils.PortfolioProverEnvironment;
+
+public class PortfolioProverEnvironmentTest extends SolverBasedTest0.ParameterizedSolverBasedTest0 {
+
+  @Before
+  public void requireTranslation() {
+    // formulas are translated into the contexts of the portfolio
+    requireParser();
+  }
+
+  private ProverEnvironment newPortfolio(ProverOptions... options)
+      throws InvalidConfigurationException {
+    // the tested solver races against a Java-based solver, which is always available
+    Solvers otherSolver =
+        solverToUse() == Solvers.SMTINTERPOL ? Solvers.PRINCESS : Solvers.SMTINTERPOL;
+    return new PortfolioProverEnvironment(
+        context,
+        config,
+        logger,
+        shutdownNotifierToUse(),
+        ImmutableList.of(solverToUse(), otherSolver),
+        options);
+  }
+
+  @Test
+  public void stackIsReplicated()
+      throws InvalidConfigurationException, SolverException, InterruptedException {
+    BooleanFormula x = bmgr.makeVariable("x");
+    try (ProverEnvironment prover = newPortfolio()) {
+      prover.push(x);
+      assertThat(prover.isUnsat()).isFalse();
+      prover.push(bmgr.not(x));
+      assertThat(prover.size()).isEqualTo(2);
+      assertThat(prover.isUnsat()).isTrue();
+      prover.pop();
+      assertThat(prover.isUnsat()).isFalse();
+      // each query stops the slower solver, which is replaced in the background
+      assertThat(prover.isUnsat()).isFalse();
+      assertThat(prover.getStatistics()).containsEntry("races", "4");
+    }
+  }
+
+  @Test
+  public void replacedSolversCatchUpWithTheStack()
+      throws InvalidConfigurationException, SolverException, InterruptedException {
+    List<BooleanFormula> vars = new ArrayList<>();
+    try (ProverEnvironment prover = newPortfolio()) {
+      for (int i = 0; i < 20; i++) {
+        BooleanFormula x = bmgr.makeVariable("x" + i);
+        vars.add(x);
+        prover.push(x);
+        assertThat(prover.isUnsat()).isFalse();
+        // a contradiction on top of the stack, which is removed again
+        prover.push(bmgr.not(vars.get(i / 2)));
+        assertThat(prover.isUnsat()).isTrue();
+        prover.pop();
+        if (i % 3 == 2) {
+          // change the stack below the levels that replacements might have replayed
+          prover.pop();
+          prover.pop();
+          prover.push(bmgr.not(vars.get(i - 1)));
+          assertThat(prover.isUnsat()).isFalse();
+          prover.push(vars.get(i - 1));
+          assertThat(prover.isUnsat()).isTrue();
+          prover.pop();
+          prover.pop();
+          prover.push(vars.get(i - 1));
+          prover.push(x);
+        }
+      }
+      assertThat(prover.size()).isEqualTo(20);
+      assertThat(prover.isUnsat()).isFalse();
+      prover.addConstraint(bmgr.not(vars.get(0)));
+      assertThat(prover.isUnsat()).isTrue();
+    }
+  }
+
+  @Test
+  public void modelIsTranslatedBack()
+      throws InvalidConfigurationException, SolverException, InterruptedException {
+    requireModel();
+    BooleanFormula x = bmgr.makeVariable("x");
+    BooleanFormula y = bmgr.makeVariable("y");
+    try (ProverEnvironment prover = newPortfolio(ProverOptions.GENERATE_MODELS)) {
+      prover.push(bmgr.and(x, bmgr.not(y)));
+      assertThat(prover.isUnsat()).isFalse();
+      try (Model model = prover.getModel()) {
+        assertThat(model.evaluate(x)).isTrue();
+        assertThat(model.evaluate(y)).isFalse();
+      }
+    }
+  }
+
+  @Test
+  public void unsatCoreContainsOriginalFormulas()
+      throws InvalidConfigurationException, SolverException, InterruptedException {
+    requireUnsatCore();
+    BooleanFormula x = bmgr.makeVariable("x");
+    BooleanFormula notX = bmgr.not(x);
+    BooleanFormula y = bmgr.makeVariable("y");
+    try (ProverEnvironment prover = newPortfolio(ProverOptions.GENERATE_UNSAT_CORE)) {
+      prover.addConstraint(x);
+      prover.addConstraint(y);
+      prover.addConstraint(notX);
+      assertThat(prover.isUnsat()).isTrue();
+      assertThat(prover.getUnsatCore()).containsAtLeast(x, notX);
+    }
+  }
+}
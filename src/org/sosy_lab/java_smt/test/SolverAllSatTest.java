@@ -14,7 +14,9 @@ import static com.google.common.truth.TruthJUnit.assume;
 
 import com.google.common.collect.ImmutableList;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -41,6 +43,8 @@ public class SolverAllSatTest extends SolverBasedTest0 {
       junitParams.add(new Object[] {solver, "normal"});
       junitParams.add(new Object[] {solver, "itp"});
       junitParams.add(new Object[] {solver, "opt"});
+      junitParams.add(new Object[] {solver, "theory"});
+      junitParams.add(new Object[] {solver, "minimized"});
     }
     return junitParams;
   }
@@ -76,6 +80,20 @@ public class SolverAllSatTest extends SolverBasedTest0 {
         env = context.newProverEnvironmentWithInterpolation(ProverOptions.GENERATE_ALL_SAT);
         break;
 
+      case "theory":
+        // solvers without support for theory solvers use the default ALLSAT computation
+        env =
+            context.newProverEnvironment(
+                ProverOptions.GENERATE_ALL_SAT, ProverOptions.GENERATE_ALL_SAT_WITH_THEORY_SOLVER);
+        break;
+
+      case "minimized":
+        // solvers without access to their assertions report unminimized models
+        env =
+            context.newProverEnvironment(
+                ProverOptions.GENERATE_ALL_SAT, ProverOptions.GENERATE_ALL_SAT_WITH_MINIMIZED_MODELS);
+        break;
+
       case "opt":
         requireOptimization();
         env = context.newOptimizationProverEnvironment(ProverOptions.GENERATE_ALL_SAT);
@@ -172,6 +190,32 @@ public class SolverAllSatTest extends SolverBasedTest0 {
         .containsExactly(ImmutableList.of(v1, bmgr.not(v2)), ImmutableList.of(bmgr.not(v1), v2));
   }
 
+  @Test
+  public void allSatTest_repeatedQueries() throws SolverException, InterruptedException {
+    BooleanFormula v1 = bmgr.makeVariable("b1");
+    BooleanFormula v2 = bmgr.makeVariable("b2");
+    BooleanFormula v3 = bmgr.makeVariable("b3");
+
+    env.push(bmgr.xor(v1, v2));
+    env.push(bmgr.equivalence(v3, v1));
+
+    // the predicates of the first query must not influence the later queries
+    TestAllSatCallback callback = new TestAllSatCallback();
+    assertThat(env.allSat(callback, ImmutableList.of(v1, v2))).isEqualTo(EXPECTED_RESULT);
+    assertThat(callback.models)
+        .containsExactly(ImmutableList.of(v1, bmgr.not(v2)), ImmutableList.of(bmgr.not(v1), v2));
+
+    callback = new TestAllSatCallback();
+    assertThat(env.allSat(callback, ImmutableList.of(v3, v2))).isEqualTo(EXPECTED_RESULT);
+    assertThat(callback.models)
+        .containsExactly(ImmutableList.of(v3, bmgr.not(v2)), ImmutableList.of(bmgr.not(v3), v2));
+
+    callback = new TestAllSatCallback();
+    assertThat(env.allSat(callback, ImmutableList.of(v1, v2))).isEqualTo(EXPECTED_RESULT);
+    assertThat(callback.models)
+        .containsExactly(ImmutableList.of(v1, bmgr.not(v2)), ImmutableList.of(bmgr.not(v1), v2));
+  }
+
   @Test
   public void allSatTest_nondetValue() throws SolverException, InterruptedException {
     BooleanFormula v1 = bmgr.makeVariable("b1");
@@ -190,6 +234,46 @@ public class SolverAllSatTest extends SolverBasedTest0 {
             ImmutableList.of(ImmutableList.of(v1, bmgr.not(v2)), ImmutableList.of(v1, v2)));
   }
 
+  @Test
+  public void allSatTest_cubesCoverAllModels() throws SolverException, InterruptedException {
+    BooleanFormula v1 = bmgr.makeVariable("b1");
+    BooleanFormula v2 = bmgr.makeVariable("b2");
+    BooleanFormula v3 = bmgr.makeVariable("b3");
+    ImmutableList<BooleanFormula> predicates = ImmutableList.of(v1, v2, v3);
+
+    // b3 does not occur in the assertions, thus it can be left out of each model.
+    env.push(bmgr.or(v1, v2));
+
+    TestAllSatCallback callback = new TestAllSatCallback();
+    assertThat(env.allSat(callback, predicates)).isEqualTo(EXPECTED_RESULT);
+
+    // expand each reported cube to all assignments it covers
+    Set<List<Boolean>> covered = new HashSet<>();
+    for (List<BooleanFormula> model : callback.models) {
+      for (int i = 0; i < 8; i++) {
+        List<Boolean> assignment = new ArrayList<>();
+        for (int j = 0; j < 3; j++) {
+          assignment.add((i & (1 << j)) != 0);
+        }
+        boolean matches = true;
+        for (int j = 0; j < 3; j++) {
+          // the cube covers the assignment if it does not contain the opposite literal
+          BooleanFormula opposite =
+              assignment.get(j) ? bmgr.not(predicates.get(j)) : predicates.get(j);
+          matches &= !model.contains(opposite);
+        }
+        if (matches) {
+          covered.add(assignment);
+        }
+      }
+    }
+
+    // all assignments where b1 or b2 is true
+    assertThat(covered).hasSize(6);
+    assertThat(covered).doesNotContain(ImmutableList.of(false, false, false));
+    assertThat(covered).doesNotContain(ImmutableList.of(false, false, true));
+  }
+
   @Test
   public void allSatTest_withQuantifier() throws SolverException, InterruptedException {
     requireBitvectors();
@@ -372,6 +372,76 @@ public class SolverConcurrencyTest {
     closeSolver(context);
   }
 
+  /**
+   * Test that the fine-grained locking of a synchronized context does not serialize the provers:
+   * while one prover solves a hard query, the other provers of the same context still answer their
+   * queries. With one global lock, these queries would wait until the hard query is finished and
+   * the test would fail with a timeout.
+   */
+  @Test
+  public void testProversDoNotSerializeWithFineGrainedLocking() throws Exception {
+    requireIntegers();
+    // Princess and CVC4 check the provers of the shared context in parallel, all other solvers
+    // need provers from a separate context, and thus the translation of formulas.
+    boolean sharedContext = solver == Solvers.PRINCESS || solver == Solvers.CVC4;
+    assume()
+        .withMessage("Solver does not support translation of formulas")
+        .that(solver)
+        .isNotEqualTo(Solvers.CVC5);
+
+    ShutdownManager shutdownManager = ShutdownManager.create();
+    SolverContext context =
+        initSolver(
+            shutdownManager.getNotifier(),
+            "solver.synchronize",
+            "true",
+            "solver.synchronized.useSeperateProvers",
+            Boolean.toString(!sharedContext),
+            "solver.synchronized.fineGrainedLocking",
+            "true");
+    FormulaManager mgr = context.getFormulaManager();
+    IntegerFormulaManager imgr = mgr.getIntegerFormulaManager();
+    HardIntegerFormulaGenerator gen =
+        new HardIntegerFormulaGenerator(imgr, mgr.getBooleanFormulaManager());
+
+    // all formulas are created before solving, because creating formulas excludes solving.
+    List<BasicProverEnvironment<?>> easyProvers = new ArrayList<>();
+    for (int i = 0; i < NUMBER_OF_THREADS; i++) {
+      BasicProverEnvironment<?> easyProver = context.newProverEnvironment();
+      easyProver.push(imgr.greaterThan(imgr.makeVariable("x" + i), imgr.makeNumber(i)));
+      easyProvers.add(easyProver);
+    }
+    BasicProverEnvironment<?> hardProver = context.newProverEnvironment();
+    hardProver.push(gen.generate(2 * INTEGER_FORMULA_GEN.getOrDefault(solver, 9)));
+
+    ExecutorService threadPool = Executors.newFixedThreadPool(2);
+    try {
+      Future<Boolean> hardResult = threadPool.submit(hardProver::isUnsat);
+      for (int round = 0; round < 3; round++) {
+        // give the hard query the time to take any lock that the easy queries might wait for
+        TimeUnit.MILLISECONDS.sleep(100);
+        for (BasicProverEnvironment<?> easyProver : easyProvers) {
+          Future<Boolean> easyResult = threadPool.submit(easyProver::isUnsat);
+          assertWithMessage("Solver %s serialized the provers of one context", solverToUse())
+              .that(easyResult.get(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+              .isFalse();
+        }
+      }
+      assume()
+          .withMessage("hard query was solved before the easy queries, test is inconclusive")
+          .that(hardResult.isDone())
+          .isFalse();
+    } finally {
+      // stop the hard query, the provers can only be closed after it was finished.
+      shutdownManager.requestShutdown("test is finished");
+      threadPool.shutdownNow();
+      assertThat(threadPool.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+      hardProver.close();
+      easyProvers.forEach(BasicProverEnvironment::close);
+      closeSolver(context);
+    }
+  }
+
   /**
    * Uses HardBitvectorFormulaGenerator for longer test-cases to assess concurrency problems. Length
    * is very solver depended, so make sure you choose an appropriate number for the used solver.
@@ -554,6 +624,11 @@ public class SolverConcurrencyTest {
    */
   private SolverContext initSolver(String... additionalOptions)
       throws InvalidConfigurationException {
+    return initSolver(ShutdownManager.create().getNotifier(), additionalOptions);
+  }
+
+  private SolverContext initSolver(ShutdownNotifier shutdownNotifier, String... additionalOptions)
+      throws InvalidConfigurationException {
     try {
       ConfigurationBuilder options =
           Configuration.builder().setOption("solver.solver", solverToUse().toString());
@@ -562,7 +637,6 @@ public class SolverConcurrencyTest {
       }
       Configuration config = options.build();
       LogManager logger = LogManager.createTestLogManager();
-      ShutdownNotifier shutdownNotifier = ShutdownManager.create().getNotifier();
 
       SolverContextFactory factory = new SolverContextFactory(config, logger, shutdownNotifier);
       return factory.generateContext();
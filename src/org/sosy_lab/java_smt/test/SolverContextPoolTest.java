@@ -0,0 +1,125 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.java_smt.SolverContextPool;
+import org.sosy_lab.java_smt.SolverContextPool.ContextLease;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+
+public class SolverContextPoolTest extends SolverBasedTest0.ParameterizedSolverBasedTest0 {
+
+  private SolverContextPool pool;
+
+  @Before
+  public void createPool() throws InvalidConfigurationException {
+    pool = factory.createContextPool(solverToUse(), 2, 1);
+  }
+
+  @After
+  public void closePool() {
+    if (pool != null) {
+      pool.close();
+    }
+  }
+
+  @Test
+  public void contextIsReused() throws InterruptedException, InvalidConfigurationException {
+    SolverContext first;
+    try (ContextLease lease = pool.lease()) {
+      first = lease.getContext();
+    }
+    try (ContextLease lease = pool.lease()) {
+      assertThat(lease.getContext()).isSameInstanceAs(first);
+    }
+    assertThat(pool.getStatistics()).containsEntry("contexts", "1");
+    assertThat(pool.getStatistics()).containsEntry("leases", "2");
+  }
+
+  @Test
+  public void proverIsResetOnReturn()
+      throws InterruptedException, InvalidConfigurationException, SolverException {
+    ProverEnvironment first;
+    try (ContextLease lease = pool.lease()) {
+      BooleanFormulaManager poolBmgr =
+          lease.getContext().getFormulaManager().getBooleanFormulaManager();
+      first = lease.getProver(ProverOptions.GENERATE_MODELS);
+      first.addConstraint(poolBmgr.makeFalse());
+      first.push(poolBmgr.makeVariable("x"));
+      assertThat(first.isUnsat()).isTrue();
+    }
+
+    try (ContextLease lease = pool.lease()) {
+      ProverEnvironment prover = lease.getProver(ProverOptions.GENERATE_MODELS);
+      assertThat(prover).isSameInstanceAs(first);
+      assertThat(prover.size()).isEqualTo(1); // only the base level
+      assertThat(prover.isUnsat()).isFalse();
+    }
+    assertThat(pool.getStatistics()).containsEntry("reused provers", "1");
+  }
+
+  @Test
+  public void leaseWaitsForReturnedContext()
+      throws InterruptedException, InvalidConfigurationException, ExecutionException,
+          TimeoutException {
+    ContextLease lease1 = pool.lease();
+    ContextLease lease2 = pool.lease();
+    assertThat(lease2.getContext()).isNotSameInstanceAs(lease1.getContext());
+
+    // the pool is exhausted, thus the third lease has to wait
+    CompletableFuture<SolverContext> third =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try (ContextLease lease3 = pool.lease()) {
+                return lease3.getContext();
+              } catch (InterruptedException | InvalidConfigurationException e) {
+                throw new AssertionError(e);
+              }
+            });
+    assertThat(third.isDone()).isFalse();
+
+    SolverContext returned = lease1.getContext();
+    lease1.close();
+    assertThat(third.get(10, TimeUnit.SECONDS)).isSameInstanceAs(returned);
+    lease2.close();
+
+    assertThat(pool.getStatistics()).containsEntry("contexts", "2");
+  }
+
+  @Test
+  public void leasedContextsAreIndependent()
+      throws InterruptedException, InvalidConfigurationException, SolverException {
+    try (ContextLease lease1 = pool.lease();
+        ContextLease lease2 = pool.lease()) {
+      BooleanFormulaManager bmgr1 =
+          lease1.getContext().getFormulaManager().getBooleanFormulaManager();
+      BooleanFormulaManager bmgr2 =
+          lease2.getContext().getFormulaManager().getBooleanFormulaManager();
+      ProverEnvironment prover1 = lease1.getProver();
+      ProverEnvironment prover2 = lease2.getProver();
+      prover1.push(bmgr1.makeVariable("x"));
+      prover2.push(bmgr2.not(bmgr2.makeVariable("x")));
+      assertThat(prover1.isUnsat()).isFalse();
+      assertThat(prover2.isUnsat()).isFalse();
+    }
+  }
+}
@@ -10,10 +10,27 @@ package org.sosy_lab.java_smt.test;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.TruthJUnit.assume;
+import static org.junit.Assert.assertThrows;
 
+import com.google.common.collect.ImmutableMap;
+import java.math.BigInteger;
 import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.java_smt.SolverContextFactory;
 import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
 import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.IntegerFormulaManager;
+import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.api.TransformationSession;
+import org.sosy_lab.java_smt.solvers.z3.Z3FormulaArena;
+import org.sosy_lab.java_smt.solvers.z3.Z3SolverContext;
 
 public class SolverContextTest extends SolverBasedTest0.ParameterizedSolverBasedTest0 {
 
@@ -118,4 +135,159 @@ public class SolverContextTest extends SolverBasedTest0.ParameterizedSolverBased
     assertThat(bmgr.isTrue(opTerm)).isFalse();
     assertThat(bmgr.isFalse(opTerm)).isFalse();
   }
+
+  @Test
+  public void testZ3FormulaArena() throws SolverException, InterruptedException {
+    assume().that(solverToUse()).isEqualTo(Solvers.Z3);
+    assume().that(context).isInstanceOf(Z3SolverContext.class);
+
+    IntegerFormula x = imgr.makeVariable("x");
+    BooleanFormula outside = imgr.greaterThan(x, imgr.makeNumber(0));
+    try (ProverEnvironment prover = context.newProverEnvironment()) {
+      Z3FormulaArena arena = ((Z3SolverContext) context).openFormulaArena();
+      try (arena) {
+        prover.push(imgr.lessThan(x, imgr.makeNumber(1)));
+        prover.push(outside);
+        assertThat(prover.isUnsat()).isTrue();
+        prover.pop();
+        prover.pop();
+        assertThat(arena.size()).isGreaterThan(0);
+      }
+      assertThat(arena.isClosed()).isTrue();
+      assertThat(arena.size()).isEqualTo(0);
+
+      // formulas created before or after the arena are still usable
+      prover.push(bmgr.and(outside, imgr.lessThan(x, imgr.makeNumber(2))));
+      assertThat(prover.isUnsat()).isFalse();
+    }
+  }
+
+  @Test
+  public void testZ3ReleaseFormulasOnPopWithInterleavedProvers()
+      throws InvalidConfigurationException, SolverException, InterruptedException {
+    assume().that(solverToUse()).isEqualTo(Solvers.Z3);
+
+    Configuration releasingConfig =
+        createTestConfigBuilder().setOption("solver.z3.releaseFormulasOnPop", "true").build();
+    SolverContextFactory releasingFactory =
+        new SolverContextFactory(releasingConfig, logger, shutdownNotifierToUse());
+    try (SolverContext releasingContext = releasingFactory.generateContext()) {
+      IntegerFormulaManager releasingImgr =
+          releasingContext.getFormulaManager().getIntegerFormulaManager();
+      IntegerFormula x = releasingImgr.makeVariable("x");
+      BooleanFormula positive = releasingImgr.greaterThan(x, releasingImgr.makeNumber(0));
+
+      try (ProverEnvironment prover1 = releasingContext.newProverEnvironment()) {
+        try (ProverEnvironment prover2 = releasingContext.newProverEnvironment()) {
+          // a level of prover1 would also release the formulas of prover2
+          assertThrows(IllegalStateException.class, prover1::push);
+          prover2.addConstraint(releasingImgr.lessThan(x, releasingImgr.makeNumber(2)));
+          assertThrows(IllegalStateException.class, prover2::push);
+          prover2.addConstraint(positive);
+          assertThat(prover2.isUnsat()).isFalse();
+        }
+
+        // with a single open prover, its levels release their formulas
+        prover1.push(releasingImgr.lessThan(x, releasingImgr.makeNumber(0)));
+        prover1.addConstraint(positive);
+        assertThrows(IllegalStateException.class, releasingContext::newProverEnvironment);
+        assertThat(prover1.isUnsat()).isTrue();
+        prover1.pop();
+
+        // the formulas of the base level are still usable, also by a new prover
+        try (ProverEnvironment prover3 = releasingContext.newProverEnvironment()) {
+          prover3.addConstraint(positive);
+          assertThat(prover3.isUnsat()).isFalse();
+        }
+        prover1.addConstraint(positive);
+        assertThat(prover1.isUnsat()).isFalse();
+      }
+    }
+  }
+
+  /** Create a factory for Z3 contexts that release formulas on pop, with additional options. */
+  private SolverContextFactory newReleasingFactory(ImmutableMap<String, String> pOptions)
+      throws InvalidConfigurationException {
+    ConfigurationBuilder builder =
+        createTestConfigBuilder().setOption("solver.z3.releaseFormulasOnPop", "true");
+    pOptions.forEach(builder::setOption);
+    return new SolverContextFactory(builder.build(), logger, shutdownNotifierToUse());
+  }
+
+  @Test
+  public void testZ3ReleaseFormulasOnPopRejectsQueryCache() throws InvalidConfigurationException {
+    assume().that(solverToUse()).isEqualTo(Solvers.Z3);
+
+    SolverContextFactory factory =
+        newReleasingFactory(ImmutableMap.of("solver.cacheQueries", "true"));
+    assertThrows(InvalidConfigurationException.class, factory::generateContext);
+  }
+
+  @Test
+  public void testZ3ReleaseFormulasOnPopRejectsSlowQueryLog()
+      throws InvalidConfigurationException {
+    assume().that(solverToUse()).isEqualTo(Solvers.Z3);
+
+    SolverContextFactory factory =
+        newReleasingFactory(
+            ImmutableMap.of(
+                "solver.collectStatistics", "true", "solver.statistics.slowQueries", "5"));
+    assertThrows(InvalidConfigurationException.class, factory::generateContext);
+
+    // statistics without slow queries keep no formulas
+    try (SolverContext statisticsContext =
+        newReleasingFactory(ImmutableMap.of("solver.collectStatistics", "true"))
+            .generateContext()) {
+      assertThat(statisticsContext.getSolverName()).isEqualTo(Solvers.Z3);
+    }
+  }
+
+  @Test
+  public void testZ3FormulaArenaClearsTransformationSession() {
+    assume().that(solverToUse()).isEqualTo(Solvers.Z3);
+    assume().that(context).isInstanceOf(Z3SolverContext.class);
+
+    IntegerFormula x = imgr.makeVariable("x");
+    IntegerFormula y = imgr.makeVariable("y");
+    TransformationSession session = mgr.newSubstitutionSession(ImmutableMap.of(x, y), 100);
+    try (Z3FormulaArena arena = ((Z3SolverContext) context).openFormulaArena()) {
+      BooleanFormula f = imgr.lessThan(x, imgr.add(x, imgr.makeNumber(1)));
+      assertThat(session.transform(f)).isEqualTo(imgr.lessThan(y, imgr.add(y, imgr.makeNumber(1))));
+      assertThat(session.getCacheSize()).isGreaterThan(0);
+      assertThat(arena.size()).isGreaterThan(0);
+    }
+    // the cached sub-formulas were released with the arena
+    assertThat(session.getCacheSize()).isEqualTo(0);
+
+    BooleanFormula g = imgr.lessThan(x, imgr.add(x, imgr.makeNumber(1)));
+    assertThat(session.transform(g)).isEqualTo(imgr.lessThan(y, imgr.add(y, imgr.makeNumber(1))));
+  }
+
+  @Test
+  public void testZ3FormulaArenaClearsCachedEvaluations()
+      throws SolverException, InterruptedException {
+    assume().that(solverToUse()).isEqualTo(Solvers.Z3);
+    assume().that(context).isInstanceOf(Z3SolverContext.class);
+
+    IntegerFormula x = imgr.makeVariable("x");
+    try (ProverEnvironment prover = context.newProverEnvironment(ProverOptions.GENERATE_MODELS)) {
+      prover.push(imgr.equal(x, imgr.makeNumber(3)));
+      assertThat(prover.isUnsat()).isFalse();
+      try (Model model = prover.getModel()) {
+        for (int i = 0; i < 10; i++) {
+          try (Z3FormulaArena arena = ((Z3SolverContext) context).openFormulaArena()) {
+            // the terms of the previous iteration were released and can be reused
+            IntegerFormula sum = imgr.add(x, imgr.makeNumber(i));
+            assertThat(model.evaluate(sum)).isEqualTo(BigInteger.valueOf(3 + i));
+            assertThat(model.eval(sum)).isEqualTo(imgr.makeNumber(3 + i));
+            assertThat(arena.size()).isGreaterThan(0);
+          }
+        }
+        IntegerFormula sum = imgr.add(x, imgr.makeNumber(1));
+        assertThat(model.eval(sum)).isEqualTo(imgr.makeNumber(4));
+        prover.push(imgr.equal(model.eval(sum), sum));
+        assertThat(prover.isUnsat()).isFalse();
+      }
+    }
+  }
 }
@@ -0,0 +1,130 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.delegate.statistics.LatencyHistogram;
+import org.sosy_lab.java_smt.delegate.statistics.SlowQuery;
+import org.sosy_lab.java_smt.delegate.statistics.SolverStatistics;
+import org.sosy_lab.java_smt.delegate.statistics.StatisticsSolverContext;
+
+public class SolverStatisticsTest extends SolverBasedTest0.ParameterizedSolverBasedTest0 {
+
+  @Override
+  protected ConfigurationBuilder createTestConfigBuilder() {
+    return super.createTestConfigBuilder().setOption("solver.collectStatistics", "true");
+  }
+
+  @Test
+  public void countersAndLatencies() throws SolverException, InterruptedException {
+    requireModel();
+    BooleanFormula x = bmgr.makeVariable("x");
+    try (ProverEnvironment prover = context.newProverEnvironment(ProverOptions.GENERATE_MODELS)) {
+      prover.push(x);
+      for (int i = 0; i < 10; i++) {
+        assertThat(prover.isUnsat()).isFalse();
+      }
+      try (Model model = prover.getModel()) {
+        assertThat(model.evaluate(x)).isTrue();
+      }
+    }
+
+    SolverStatistics stats = ((StatisticsSolverContext) context).getSolverStatistics();
+    assertThat(stats.getNumberOfProverEnvironments()).isEqualTo(1);
+    assertThat(stats.getNumberOfPushQueries()).isEqualTo(1);
+    assertThat(stats.getNumberOfIsUnsatQueries()).isEqualTo(10);
+    assertThat(stats.getNumberOfModelQueries()).isEqualTo(1);
+    assertThat(stats.getNumberOfModelEvaluationQueries()).isEqualTo(1);
+
+    LatencyHistogram latencies = stats.getIsUnsatLatencies();
+    assertThat(latencies.getCount()).isEqualTo(10);
+    long p50 = latencies.getPercentile(50).asNanos();
+    long p99 = latencies.getPercentile(99).asNanos();
+    assertThat(p50).isAtMost(p99);
+    assertThat(p99).isAtMost(latencies.getMaxTime().asNanos());
+    assertThat(latencies.getMaxTime().asNanos()).isAtMost(latencies.getSumTime().asNanos());
+
+    assertThat(context.getStatistics()).containsEntry("number of isUnsat queries", "10");
+    assertThat(context.getStatistics()).containsKey("p99 time of isUnsat queries");
+  }
+
+  @Test
+  public void emptyLatencies() {
+    LatencyHistogram latencies =
+        ((StatisticsSolverContext) context).getSolverStatistics().getAllSatLatencies();
+    assertThat(latencies.getCount()).isEqualTo(0);
+    assertThat(latencies.getPercentile(99).asNanos()).isEqualTo(0);
+  }
+
+  @Test
+  public void slowQueriesAreKept()
+      throws IOException, InvalidConfigurationException, SolverException, InterruptedException {
+    requireParser();
+    Path dir = Files.createTempDirectory("slow-queries");
+    try {
+      Configuration slowQueryConfig =
+          createTestConfigBuilder()
+              .setOption("solver.statistics.slowQueries", "2")
+              .setOption("solver.statistics.slowQueryFiles", dir.resolve("q.%d.smt2").toString())
+              .build();
+      SolverContextFactory slowQueryFactory =
+          new SolverContextFactory(slowQueryConfig, logger, shutdownNotifierToUse());
+
+      ImmutableList<SlowQuery> slowQueries;
+      try (SolverContext slowQueryContext = slowQueryFactory.generateContext()) {
+        BooleanFormulaManager slowQueryBmgr =
+            slowQueryContext.getFormulaManager().getBooleanFormulaManager();
+        BooleanFormula x = slowQueryBmgr.makeVariable("x");
+        BooleanFormula y = slowQueryBmgr.makeVariable("y");
+        try (ProverEnvironment prover = slowQueryContext.newProverEnvironment()) {
+          prover.push(slowQueryBmgr.or(x, y));
+          for (int i = 0; i < 5; i++) {
+            assertThat(prover.isUnsat()).isFalse();
+          }
+          assertThat(prover.isUnsatWithAssumptions(ImmutableList.of(slowQueryBmgr.not(x))))
+              .isFalse();
+        }
+        slowQueries =
+            ((StatisticsSolverContext) slowQueryContext).getSolverStatistics().getSlowQueries();
+      }
+
+      assertThat(slowQueries).hasSize(2);
+      assertThat(slowQueries.get(0).getTime().asNanos())
+          .isAtLeast(slowQueries.get(1).getTime().asNanos());
+      for (SlowQuery query : slowQueries) {
+        assertThat(query.getDump()).contains("(check-sat)");
+      }
+      try (Stream<Path> files = Files.list(dir)) {
+        assertThat(files.count()).isEqualTo(2);
+      }
+    } finally {
+      MoreFiles.deleteRecursively(dir, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+  }
+}
@@ -12,6 +12,8 @@ import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.TruthJUnit.assume;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.common.truth.Truth;
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -630,6 +632,37 @@ public class SolverVisitorTest extends SolverBasedTest0.ParameterizedSolverBased
     assertThat(usedVariables).containsExactly("x", "y", "z");
   }
 
+  @Test
+  public void testVisitSharedSubformulasOnce() {
+    // the tree representation of this formula has about 2^100 nodes
+    BooleanFormula shared = bmgr.makeVariable("x0");
+    for (int i = 1; i < 100; i++) {
+      BooleanFormula x = bmgr.makeVariable("x" + i);
+      shared = bmgr.or(bmgr.and(shared, x), bmgr.and(bmgr.not(shared), bmgr.not(x)));
+    }
+
+    final List<Formula> visited = new ArrayList<>();
+    final Set<String> usedVariables = new HashSet<>();
+    mgr.visitRecursively(
+        shared,
+        new DefaultFormulaVisitor<>() {
+          @Override
+          protected TraversalProcess visitDefault(Formula formula) {
+            visited.add(formula);
+            return TraversalProcess.CONTINUE;
+          }
+
+          @Override
+          public TraversalProcess visitFreeVariable(Formula formula, String name) {
+            usedVariables.add(name);
+            return visitDefault(formula);
+          }
+        });
+    assertThat(visited).containsNoDuplicates();
+    assertThat(usedVariables).isNotEmpty();
+    assertThat(mgr.extractVariables(shared).keySet()).containsExactlyElementsIn(usedVariables);
+  }
+
   @Test
   public void testBooleanFormulaQuantifierHandling() throws Exception {
     requireQuantifiers();
@@ -1009,6 +1042,68 @@ public class SolverVisitorTest extends SolverBasedTest0.ParameterizedSolverBased
     }
   }
 
+  @Test
+  public void extractionFromLargeFormula() {
+    requireIntegers();
+
+    // large enough to be traversed in parallel by solvers that allow it
+    int size = 40_000;
+    FunctionDeclaration<IntegerFormula> f =
+        fmgr.declareUF("f", FormulaType.IntegerType, FormulaType.IntegerType);
+    List<IntegerFormula> vars = new ArrayList<>();
+    List<BooleanFormula> atoms = new ArrayList<>();
+    for (int i = 0; i <= size; i++) {
+      vars.add(imgr.makeVariable("x" + i));
+    }
+    for (int i = 0; i < size; i++) {
+      atoms.add(imgr.lessThan(fmgr.callUF(f, vars.get(i)), vars.get(i + 1)));
+    }
+    BooleanFormula formula = bmgr.and(atoms);
+
+    Map<String, Formula> variables = mgr.extractVariables(formula);
+    assertThat(variables).hasSize(size + 1);
+    for (int i = 0; i <= size; i++) {
+      assertThat(variables.get("x" + i)).isEqualTo(vars.get(i));
+    }
+
+    Map<String, Formula> symbols = mgr.extractVariablesAndUFs(formula);
+    assertThat(symbols).hasSize(size + 2);
+    assertThat(symbols).containsAtLeastEntriesIn(variables);
+    assertThat(symbols).containsKey("f");
+
+    // the symbols are found in the order of a sequential traversal, the last application of f wins
+    ImmutableMap.Builder<String, Formula> expected = ImmutableMap.builder();
+    mgr.visitRecursively(
+        formula,
+        new DefaultFormulaVisitor<>() {
+          @Override
+          protected TraversalProcess visitDefault(Formula pF) {
+            return TraversalProcess.CONTINUE;
+          }
+
+          @Override
+          public TraversalProcess visitFreeVariable(Formula pF, String pName) {
+            expected.put(pName, pF);
+            return TraversalProcess.CONTINUE;
+          }
+
+          @Override
+          public TraversalProcess visitFunction(
+              Formula pF, List<Formula> pArgs, FunctionDeclaration<?> pDeclaration) {
+            if (pDeclaration.getKind() == FunctionDeclarationKind.UF) {
+              expected.put(pDeclaration.getName(), pF);
+            }
+            return TraversalProcess.CONTINUE;
+          }
+        });
+    assertThat(symbols.entrySet())
+        .containsExactlyElementsIn(expected.buildKeepingLast().entrySet())
+        .inOrder();
+    assertThat(variables.entrySet())
+        .containsExactlyElementsIn(Maps.filterKeys(symbols, name -> !name.equals("f")).entrySet())
+        .inOrder();
+  }
+
   private final FormulaVisitor<Formula> plainFunctionVisitor =
       new DefaultFormulaVisitor<>() {
 
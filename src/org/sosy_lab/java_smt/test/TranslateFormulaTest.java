@@ -11,6 +11,7 @@ package org.sosy_lab.java_smt.test;
 import static com.google.common.truth.TruthJUnit.assume;
 import static org.sosy_lab.java_smt.test.BooleanFormulaSubject.assertUsing;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import java.util.Arrays;
 import java.util.List;
@@ -27,9 +28,12 @@ import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.java_smt.SolverContextFactory;
 import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BitvectorFormula;
+import org.sosy_lab.java_smt.api.BitvectorFormulaManager;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.BooleanFormulaManager;
 import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.FormulaType;
 import org.sosy_lab.java_smt.api.IntegerFormulaManager;
 import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
 import org.sosy_lab.java_smt.api.SolverContext;
@@ -172,6 +176,52 @@ public class TranslateFormulaTest {
     assertUsing(from).that(inputFrom).isEquivalentTo(translatedReverseInput);
   }
 
+  @Test
+  public void testTranslatingWithoutParser() throws SolverException, InterruptedException {
+    assume()
+        .withMessage("Solver does not support integers or visiting formulae")
+        .that(ImmutableList.of(translateFrom, translateTo))
+        .doesNotContain(Solvers.BOOLECTOR);
+
+    // formulas with basic operations are rebuilt without dumping and parsing them
+    BooleanFormula inputFrom = createTestFormula(managerFrom);
+    BooleanFormula inputTo = createTestFormula(managerTo);
+    BooleanFormula translatedInput = managerTo.translateFrom(inputFrom, managerFrom);
+
+    assertUsing(to).that(inputTo).isEquivalentTo(translatedInput);
+  }
+
+  @Test
+  public void testTranslatingBitvectorsAndUFs() throws SolverException, InterruptedException {
+    assume()
+        .withMessage("Solver does not support bitvectors or visiting formulae")
+        .that(ImmutableList.of(translateFrom, translateTo))
+        .containsNoneOf(Solvers.BOOLECTOR, Solvers.SMTINTERPOL);
+
+    BooleanFormula inputFrom = createBitvectorTestFormula(managerFrom);
+    BooleanFormula inputTo = createBitvectorTestFormula(managerTo);
+    BooleanFormula translatedInput = managerTo.translateFrom(inputFrom, managerFrom);
+
+    assertUsing(to).that(inputTo).isEquivalentTo(translatedInput);
+  }
+
+  private BooleanFormula createBitvectorTestFormula(FormulaManager mgr) {
+    BooleanFormulaManager bfmgr = mgr.getBooleanFormulaManager();
+    BitvectorFormulaManager bvmgr = mgr.getBitvectorFormulaManager();
+    BitvectorFormula x = bvmgr.makeVariable(8, "x");
+    BitvectorFormula y = bvmgr.makeVariable(8, "y");
+
+    // the sum is shared between several operations
+    BitvectorFormula sum = bvmgr.add(x, y);
+    BitvectorFormula f =
+        mgr.getUFManager()
+            .declareAndCallUF("f", FormulaType.getBitvectorTypeWithSize(16), bvmgr.concat(sum, x));
+    return bfmgr.and(
+        bvmgr.lessThan(sum, bvmgr.makeBitvector(8, 100), true),
+        bfmgr.or(bvmgr.equal(sum, x), bvmgr.greaterOrEquals(bvmgr.not(sum), y, false)),
+        bvmgr.equal(f, bvmgr.extend(bvmgr.multiply(sum, y), 8, false)));
+  }
+
   private BooleanFormula createTestFormula(FormulaManager mgr) {
     requireIntegers();
 
@@ -26,6 +26,7 @@ import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.FunctionDeclaration;
 import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
 import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.utils.IncrementalUfElimination;
 import org.sosy_lab.java_smt.utils.SolverUtils;
 import org.sosy_lab.java_smt.utils.UfElimination;
 import org.sosy_lab.java_smt.utils.UfElimination.Result;
@@ -271,4 +272,105 @@ public class UfEliminationTest extends SolverBasedTest0.ParameterizedSolverBased
         mgr.substitute(withOutUfs.getFormula(), inverseSubstitution);
     assertThatFormula(f).isEquivalentTo(revertedSubstitution);
   }
+
+  @Test
+  public void incrementalTest() throws SolverException, InterruptedException {
+    requireIntegers();
+
+    // f := uf(v1, v3) XOR uf(v2, v4), eliminated in two steps
+    IntegerFormula variable1 = imgr.makeVariable("variable1");
+    IntegerFormula variable2 = imgr.makeVariable("variable2");
+    IntegerFormula variable3 = imgr.makeVariable("variable3");
+    IntegerFormula variable4 = imgr.makeVariable("variable4");
+    BooleanFormula v1EqualsV2 = imgr.equal(variable1, variable2);
+    BooleanFormula v3EqualsV4 = imgr.equal(variable3, variable4);
+
+    FunctionDeclaration<BooleanFormula> uf2Decl =
+        fmgr.declareUF("uf", BooleanType, IntegerType, IntegerType);
+    BooleanFormula f1 = fmgr.callUF(uf2Decl, variable1, variable3);
+    BooleanFormula f2 = fmgr.callUF(uf2Decl, variable2, variable4);
+    BooleanFormula f = bmgr.xor(f1, f2);
+    BooleanFormula argsEqual = bmgr.and(v1EqualsV2, v3EqualsV4);
+
+    IncrementalUfElimination incremental = SolverUtils.incrementalUfElimination(mgr);
+    IncrementalUfElimination.Result result1 = incremental.eliminateUfs(f1);
+    IncrementalUfElimination.Result result2 = incremental.eliminateUfs(f2);
+    assertThatFormula(result1.getConstraints()).isTautological();
+    BooleanFormula withOutUfs =
+        bmgr.and(bmgr.xor(result1.getFormula(), result2.getFormula()), result2.getConstraints());
+    assertThatFormula(withOutUfs).isSatisfiable();
+    assertThatFormula(bmgr.and(argsEqual, f)).isUnsatisfiable(); // sanity check
+    assertThatFormula(bmgr.and(argsEqual, withOutUfs)).isUnsatisfiable();
+    Truth.assertThat(incremental.getSubstitution()).hasSize(2);
+
+    // check that UFs were really eliminated
+    Map<String, Formula> variablesAndUFs = mgr.extractVariablesAndUFs(withOutUfs);
+    Map<String, Formula> variables = mgr.extractVariables(withOutUfs);
+    Truth.assertThat(variablesAndUFs).doesNotContainKey("uf");
+    Truth.assertThat(variablesAndUFs).isEqualTo(variables);
+  }
+
+  @Test
+  public void incrementalNestedUfs() throws SolverException, InterruptedException {
+    requireIntegers();
+
+    // f := uf(uf(v1)) < uf(uf(v2)), eliminated in two steps
+    IntegerFormula variable1 = imgr.makeVariable("variable1");
+    IntegerFormula variable2 = imgr.makeVariable("variable2");
+
+    FunctionDeclaration<IntegerFormula> ufDecl = fmgr.declareUF("uf", IntegerType, IntegerType);
+    IntegerFormula f1 = fmgr.callUF(ufDecl, fmgr.callUF(ufDecl, variable1));
+    IntegerFormula f2 = fmgr.callUF(ufDecl, fmgr.callUF(ufDecl, variable2));
+    BooleanFormula argsEqual = imgr.equal(variable1, variable2);
+
+    IncrementalUfElimination incremental = SolverUtils.incrementalUfElimination(mgr);
+    IncrementalUfElimination.Result result1 =
+        incremental.eliminateUfs(imgr.lessThan(f1, imgr.makeNumber(0)));
+    IncrementalUfElimination.Result result2 =
+        incremental.eliminateUfs(imgr.greaterThan(f2, imgr.makeNumber(0)));
+    BooleanFormula withOutUfs =
+        bmgr.and(
+            result1.getFormula(),
+            result1.getConstraints(),
+            result2.getFormula(),
+            result2.getConstraints());
+    assertThatFormula(withOutUfs).isSatisfiable();
+    assertThatFormula(bmgr.and(argsEqual, withOutUfs)).isUnsatisfiable();
+  }
+
+  @Test
+  public void incrementalPruning() throws SolverException, InterruptedException {
+    requireIntegers();
+
+    IntegerFormula variable1 = imgr.makeVariable("variable1");
+    FunctionDeclaration<IntegerFormula> ufDecl = fmgr.declareUF("uf", IntegerType, IntegerType);
+    IntegerFormula uf1 = fmgr.callUF(ufDecl, imgr.makeNumber(1));
+    IntegerFormula uf2 = fmgr.callUF(ufDecl, imgr.makeNumber(2));
+    IntegerFormula ufVar = fmgr.callUF(ufDecl, variable1);
+
+    IncrementalUfElimination incremental = SolverUtils.incrementalUfElimination(mgr);
+    IncrementalUfElimination.Result result1 =
+        incremental.eliminateUfs(bmgr.not(imgr.equal(uf1, uf2)));
+    IncrementalUfElimination.Result result2 =
+        incremental.eliminateUfs(
+            bmgr.and(imgr.equal(uf1, imgr.makeNumber(0)), bmgr.not(imgr.equal(ufVar, uf2))));
+
+    // applications with distinct constant arguments need no constraint
+    Truth.assertThat(result1.getConstraints()).isEqualTo(bmgr.makeTrue());
+    assertThatFormula(result1.getFormula()).isSatisfiable();
+
+    // applications with equal arguments are replaced by the same variable
+    Truth.assertThat(incremental.getSubstitution()).hasSize(3);
+    Truth.assertThat(incremental.getSubstitution().get(uf1))
+        .isNotEqualTo(incremental.getSubstitution().get(uf2));
+
+    BooleanFormula all =
+        bmgr.and(
+            result1.getFormula(),
+            result1.getConstraints(),
+            result2.getFormula(),
+            result2.getConstraints());
+    assertThatFormula(bmgr.and(all, imgr.equal(variable1, imgr.makeNumber(1)))).isSatisfiable();
+    assertThatFormula(bmgr.and(all, imgr.equal(variable1, imgr.makeNumber(2)))).isUnsatisfiable();
+  }
 }
@@ -0,0 +1,339 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.TruthJUnit.assume;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanTheorySolver;
+import org.sosy_lab.java_smt.api.FormulaType;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
+import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.api.propagators.BacktrackableIntStack;
+import org.sosy_lab.java_smt.example.theory_solving_nqueens.CompletePropagator;
+import org.sosy_lab.java_smt.example.theory_solving_nqueens.NQueens;
+import org.sosy_lab.java_smt.solvers.z3.Z3FormulaArena;
+import org.sosy_lab.java_smt.solvers.z3.Z3SolverContext;
+import org.sosy_lab.java_smt.test.SolverBasedTest0.ParameterizedSolverBasedTest0;
+
+/** Tests for {@link BooleanTheorySolver}s, based on the NQueens example. */
+public class UserPropagatorTest extends ParameterizedSolverBasedTest0 {
+
+  private static final int N = 8;
+  private static final int SOLUTIONS = 92;
+
+  private void requireUserPropagators() {
+    try (ProverEnvironment prover = newProver()) {
+      assume()
+          .withMessage("Solver %s does not support user propagators", solverToUse())
+          .that(prover.registerTheorySolver(new CompletePropagator()))
+          .isTrue();
+    }
+  }
+
+  private ProverEnvironment newProver() {
+    return context.newProverEnvironment(
+        ProverOptions.GENERATE_MODELS, ProverOptions.GENERATE_ALL_SAT);
+  }
+
+  @Test
+  public void testClassicAndPropagatorsAgree() throws SolverException, InterruptedException {
+    requireUserPropagators();
+    try (ProverEnvironment prover = newProver()) {
+      assertThat(new NQueens(context, N).solveClassic(prover)).isEqualTo(SOLUTIONS);
+    }
+    try (ProverEnvironment prover = newProver()) {
+      assertThat(new NQueens(context, N).solveComplete(prover)).isEqualTo(SOLUTIONS);
+    }
+    try (ProverEnvironment prover = newProver()) {
+      assertThat(new NQueens(context, N).solvePartial(prover)).isEqualTo(SOLUTIONS);
+    }
+    try (ProverEnvironment prover = newProver()) {
+      assertThat(new NQueens(context, N).solvePartialMin(prover)).isEqualTo(SOLUTIONS);
+    }
+  }
+
+  @Test
+  public void testDecideReducesConflicts() throws SolverException, InterruptedException {
+    requireUserPropagators();
+    assume().that(solverToUse()).isEqualTo(Solvers.Z3); // statistics key is solver-specific
+
+    long conflictsWithoutDecide;
+    try (ProverEnvironment prover = newProver()) {
+      assertThat(new NQueens(context, N).solvePartialMin(prover)).isEqualTo(SOLUTIONS);
+      conflictsWithoutDecide = Long.parseLong(prover.getStatistics().get("conflicts"));
+    }
+
+    long conflictsWithDecide;
+    try (ProverEnvironment prover = newProver()) {
+      assertThat(new NQueens(context, N).solveDeciding(prover)).isEqualTo(SOLUTIONS);
+      conflictsWithDecide = Long.parseLong(prover.getStatistics().get("conflicts"));
+    }
+
+    assertThat(conflictsWithDecide).isLessThan(conflictsWithoutDecide);
+  }
+
+  /** A theory that forbids that two watched expressions are true at the same time. */
+  private static final class AtMostOneTheorySolver extends BooleanTheorySolver {
+
+    private final BacktrackableIntStack trueIds = new BacktrackableIntStack(getTrail());
+
+    /** Number of copies for sub-solvers, shared by the original and all its copies. */
+    private final AtomicInteger copies;
+
+    AtMostOneTheorySolver() {
+      this(new AtomicInteger());
+    }
+
+    private AtMostOneTheorySolver(AtomicInteger pCopies) {
+      copies = pCopies;
+    }
+
+    @Override
+    public AtMostOneTheorySolver fresh() {
+      copies.incrementAndGet();
+      return new AtMostOneTheorySolver(copies);
+    }
+
+    @Override
+    public void fixed(int id, boolean value) {
+      if (value) {
+        trueIds.add(id);
+        if (trueIds.size() == 2) {
+          addConflict(trueIds.elements(), 2);
+        }
+      }
+    }
+
+    @Override
+    public void push() {}
+
+    @Override
+    public void pop(int num) {}
+
+    @Override
+    public void finish() {}
+
+    @Override
+    public void equality(BooleanFormula x, BooleanFormula y) {}
+
+    @Override
+    public void created(BooleanFormula e) {}
+
+    @Override
+    public void fixed(BooleanFormula var, BooleanFormula val) {}
+  }
+
+  @Test
+  public void testLemmasAreNotAssertedFormulas() throws SolverException, InterruptedException {
+    requireUserPropagators();
+    BooleanFormula p = bmgr.makeVariable("p");
+    BooleanFormula q = bmgr.makeVariable("q");
+    BooleanFormula r = bmgr.makeVariable("r");
+    try (ProverEnvironment prover =
+        context.newProverEnvironment(
+            ProverOptions.GENERATE_MODELS, ProverOptions.GENERATE_UNSAT_CORE)) {
+      BooleanTheorySolver theorySolver = new AtMostOneTheorySolver();
+      assertThat(prover.registerTheorySolver(theorySolver)).isTrue();
+      theorySolver.addExpressionToWatch(p);
+      theorySolver.addExpressionToWatch(q);
+      theorySolver.notifyOnVarAssign();
+      theorySolver.notifyOnFullAssign();
+
+      prover.addConstraint(bmgr.or(p, q));
+      prover.addConstraint(r);
+      assertThat(prover.isUnsat()).isFalse();
+
+      prover.push(p);
+      prover.push(q);
+      assertThat(prover.isUnsat()).isTrue();
+      List<BooleanFormula> core = prover.getUnsatCore();
+      assertThat(core).containsAtLeast(p, q);
+      assertThat(ImmutableList.of(bmgr.or(p, q), r, p, q)).containsAtLeastElementsIn(core);
+
+      prover.pop();
+      prover.pop();
+      assertThat(prover.isUnsat()).isFalse();
+    }
+  }
+
+  @Test
+  public void testFreshPropagatorInQuantifierSubSolver()
+      throws SolverException, InterruptedException {
+    requireUserPropagators();
+    requireQuantifiers();
+    requireIntegers();
+    // Z3 checks a candidate model of quantified formulas in a sub-solver with a fresh context
+    assume().that(solverToUse()).isEqualTo(Solvers.Z3);
+
+    FunctionDeclaration<IntegerFormula> f =
+        fmgr.declareUF("f", FormulaType.IntegerType, FormulaType.IntegerType);
+    IntegerFormula x = imgr.makeVariable("x");
+    IntegerFormula zero = imgr.makeNumber(0);
+    BooleanFormula p = bmgr.makeVariable("p");
+    BooleanFormula q = bmgr.makeVariable("q");
+    try (ProverEnvironment prover = newProver()) {
+      AtMostOneTheorySolver theorySolver = new AtMostOneTheorySolver();
+      assertThat(prover.registerTheorySolver(theorySolver)).isTrue();
+      theorySolver.addExpressionToWatch(p);
+      theorySolver.addExpressionToWatch(q);
+      theorySolver.notifyOnVarAssign();
+
+      prover.addConstraint(qmgr.forall(x, imgr.greaterOrEquals(fmgr.callUF(f, x), zero)));
+      prover.addConstraint(bmgr.or(imgr.lessThan(fmgr.callUF(f, imgr.makeNumber(1)), zero), p));
+      prover.addConstraint(bmgr.or(p, q));
+      assertThat(prover.isUnsat()).isFalse();
+      assertThat(theorySolver.copies.get()).isGreaterThan(0);
+      try (Model model = prover.getModel()) {
+        assertThat(model.evaluate(p)).isTrue();
+        assertThat(model.evaluate(q)).isFalse();
+      }
+
+      prover.push(bmgr.or(imgr.lessThan(fmgr.callUF(f, imgr.makeNumber(2)), zero), q));
+      assertThat(prover.isUnsat()).isTrue();
+      prover.pop();
+      assertThat(prover.isUnsat()).isFalse();
+    }
+  }
+
+  @Test
+  public void testWatchedExpressionsSurviveFormulaArena()
+      throws SolverException, InterruptedException {
+    requireUserPropagators();
+    assume().that(context).isInstanceOf(Z3SolverContext.class);
+
+    BooleanFormula a = bmgr.makeVariable("a");
+    BooleanFormula b = bmgr.makeVariable("b");
+    BooleanFormula c = bmgr.makeVariable("c");
+    try (ProverEnvironment prover = newProver()) {
+      AtMostOneTheorySolver theorySolver = new AtMostOneTheorySolver();
+      assertThat(prover.registerTheorySolver(theorySolver)).isTrue();
+      try (Z3FormulaArena arena = ((Z3SolverContext) context).openFormulaArena()) {
+        theorySolver.addExpressionToWatch(bmgr.and(a, b));
+        assertThat(arena.size()).isGreaterThan(0);
+      }
+      theorySolver.addExpressionToWatch(c);
+      theorySolver.notifyOnVarAssign();
+
+      // the propagator keeps the watched term alive, thus it is found again
+      BooleanFormula ab = bmgr.and(a, b);
+      assertThat(theorySolver.getWatchedExpression(0)).isEqualTo(ab);
+      prover.push(bmgr.or(ab, c));
+      assertThat(prover.isUnsat()).isFalse();
+      prover.push(ab);
+      prover.push(c);
+      assertThat(prover.isUnsat()).isTrue();
+    }
+  }
+
+  /** A theory that reports the lemma (watched 0) implies (watched 1) for each full assignment. */
+  private static final class ImplicationTheorySolver extends BooleanTheorySolver {
+
+    @Override
+    public void finish() {
+      addTheoryLemma(new BooleanFormula[] {getWatchedExpression(0)}, getWatchedExpression(1));
+    }
+
+    @Override
+    public void fixed(int id, boolean value) {}
+
+    @Override
+    public void push() {}
+
+    @Override
+    public void pop(int num) {}
+
+    @Override
+    public void equality(BooleanFormula x, BooleanFormula y) {}
+
+    @Override
+    public void created(BooleanFormula e) {}
+
+    @Override
+    public void fixed(BooleanFormula var, BooleanFormula val) {}
+  }
+
+  @Test
+  public void testSatisfiedLemmaDoesNotRepeatFinalCheck()
+      throws SolverException, InterruptedException {
+    requireUserPropagators();
+    // the final check of this solver is implemented by JavaSMT and repeated for each new model
+    assume().that(solverToUse()).isEqualTo(Solvers.CVC5);
+
+    BooleanFormula p = bmgr.makeVariable("p");
+    BooleanFormula q = bmgr.makeVariable("q");
+    try (ProverEnvironment prover = newProver()) {
+      BooleanTheorySolver theorySolver = new ImplicationTheorySolver();
+      assertThat(prover.registerTheorySolver(theorySolver)).isTrue();
+      theorySolver.addExpressionToWatch(p);
+      theorySolver.addExpressionToWatch(q);
+      theorySolver.notifyOnFullAssign();
+
+      // the lemma is satisfied by every model, thus it can not change the model
+      prover.push(bmgr.and(p, q));
+      assertThat(prover.isUnsat()).isFalse();
+      assertThat(theorySolver.getBackendStatistics()).containsEntry("final checks", "1");
+      prover.pop();
+
+      // the lemma is violated at most once, afterwards it is reported again but already asserted
+      prover.addConstraint(p);
+      assertThat(prover.isUnsat()).isFalse();
+      assertThat(Long.parseLong(theorySolver.getBackendStatistics().get("final checks")))
+          .isAtMost(3);
+      try (Model model = prover.getModel()) {
+        assertThat(model.evaluate(q)).isTrue();
+      }
+
+      prover.push(bmgr.not(q));
+      assertThat(prover.isUnsat()).isTrue();
+    }
+  }
+
+  @Test
+  public void testParallelWorkersWithFreshPropagators()
+      throws SolverException, InterruptedException, InvalidConfigurationException {
+    requireUserPropagators();
+    assume().that(solverToUse()).isEqualTo(Solvers.Z3); // option is solver-specific
+
+    SolverContextFactory parallelFactory =
+        new SolverContextFactory(
+            createTestConfigBuilder().setOption("solver.z3.threads", "4").build(),
+            logger,
+            shutdownNotifierToUse());
+    try (SolverContext parallelContext = parallelFactory.generateContext()) {
+      try (ProverEnvironment prover =
+          parallelContext.newProverEnvironment(
+              ProverOptions.GENERATE_MODELS, ProverOptions.GENERATE_ALL_SAT)) {
+        NQueens queens = new NQueens(parallelContext, N);
+        assertThat(queens.solveComplete(prover)).isEqualTo(SOLUTIONS);
+        assertThat(queens.getTheorySolver().getNumberOfCopies()).isGreaterThan(0);
+      }
+      try (ProverEnvironment prover =
+          parallelContext.newProverEnvironment(
+              ProverOptions.GENERATE_MODELS, ProverOptions.GENERATE_ALL_SAT)) {
+        NQueens queens = new NQueens(parallelContext, N);
+        assertThat(queens.solvePartial(prover)).isEqualTo(SOLUTIONS);
+        assertThat(queens.getTheorySolver().getNumberOfCopies()).isGreaterThan(0);
+      }
+    }
+  }
+}
@@ -0,0 +1,156 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.utils;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment.AllSatCallback;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Model.ValueAssignment;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * Asynchronous access to a prover. Queries are executed by the given executor and return a {@link
+ * CompletableFuture}, such that the calling thread is not blocked while the solver runs.
+ *
+ * <p>The queries of one instance are executed one after another in the order in which they were
+ * submitted, thus a query always sees the assertions of all queries that were submitted before. A
+ * query that fails does not affect the following queries. The prover and its context must not be
+ * used by other threads while queries are pending, unless the context is synchronized.
+ *
+ * <p>Cancelling a future removes a pending query. A running query can only be interrupted if a
+ * {@link ShutdownManager} was given whose notifier (or a parent of it) was used to create the
+ * context of the prover. Note that a shutdown request can not be undone, thus the prover and all
+ * other provers of its context can not be used afterwards.
+ *
+ * @param <P> the type of the prover.
+ */
+public final class AsyncProver<P extends BasicProverEnvironment<?>> {
+
+  /** A query that is executed with the prover. */
+  @FunctionalInterface
+  public interface ProverTask<P, T> {
+    T apply(P prover) throws SolverException, InterruptedException;
+  }
+
+  private final P prover;
+  private final Executor executor;
+  private final @Nullable ShutdownManager shutdownManager;
+
+  /** The query that was submitted last, guarded by {@code this}. */
+  private CompletableFuture<?> lastQuery = CompletableFuture.completedFuture(null);
+
+  /**
+   * Create a new instance for the given prover.
+   *
+   * @param pExecutor executes the queries, can be shared by several instances.
+   * @param pShutdownManager is used to interrupt running queries when they are cancelled, or null
+   *     if running queries should not be interrupted.
+   */
+  public AsyncProver(P pProver, Executor pExecutor, @Nullable ShutdownManager pShutdownManager) {
+    prover = checkNotNull(pProver);
+    executor = checkNotNull(pExecutor);
+    shutdownManager = pShutdownManager;
+  }
+
+  public P getProver() {
+    return prover;
+  }
+
+  /** See {@link BasicProverEnvironment#isUnsat()}. */
+  public CompletableFuture<Boolean> isUnsatAsync() {
+    return submit(BasicProverEnvironment::isUnsat);
+  }
+
+  /**
+   * See {@link BasicProverEnvironment#getModelAssignments()}. The model is retrieved as a list of
+   * assignments, which can be used by the caller without accessing the prover.
+   */
+  public CompletableFuture<ImmutableList<ValueAssignment>> getModelAsync() {
+    return submit(BasicProverEnvironment::getModelAssignments);
+  }
+
+  /**
+   * See {@link BasicProverEnvironment#allSat}. The callback is applied in the thread of the
+   * executor.
+   */
+  public <R> CompletableFuture<R> allSatAsync(
+      AllSatCallback<R> callback, List<BooleanFormula> important) {
+    return submit(p -> p.allSat(callback, important));
+  }
+
+  /**
+   * Submit an arbitrary query, e.g., for adding constraints in the order of the other queries. The
+   * task must not keep a reference to the prover after it returns.
+   */
+  public synchronized <T> CompletableFuture<T> submit(ProverTask<? super P, T> task) {
+    Query<T> query = new Query<>(checkNotNull(task));
+    // the next query starts after the previous one, regardless of its result
+    lastQuery =
+        lastQuery.handleAsync(
+            (result, error) -> {
+              query.run();
+              return null;
+            },
+            executor);
+    return query;
+  }
+
+  /** A submitted query that can be cancelled while it is pending or running. */
+  private final class Query<T> extends CompletableFuture<T> {
+
+    private final ProverTask<? super P, T> task;
+
+    /** Whether the task is executed at the moment, guarded by {@code this}. */
+    private boolean running = false;
+
+    private Query(ProverTask<? super P, T> pTask) {
+      task = pTask;
+    }
+
+    private void run() {
+      synchronized (this) {
+        if (isDone()) {
+          return; // cancelled before it was started
+        }
+        running = true;
+      }
+      try {
+        complete(task.apply(prover));
+      } catch (InterruptedException e) {
+        completeExceptionally(e);
+        Thread.currentThread().interrupt(); // keep the interrupt for the executing thread
+      } catch (SolverException | RuntimeException | Error e) {
+        completeExceptionally(e);
+      } finally {
+        synchronized (this) {
+          running = false;
+        }
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      synchronized (this) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled && running && mayInterruptIfRunning && shutdownManager != null) {
+          shutdownManager.requestShutdown("Asynchronous query was cancelled");
+        }
+        return cancelled;
+      }
+    }
+  }
+}
@@ -0,0 +1,231 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.utils;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Verify;
+import com.google.common.collect.ImmutableList;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.rationals.Rational;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
+import org.sosy_lab.java_smt.api.FunctionDeclarationKind;
+import org.sosy_lab.java_smt.api.NumeralFormula;
+import org.sosy_lab.java_smt.api.QuantifiedFormulaManager.Quantifier;
+import org.sosy_lab.java_smt.api.visitors.DefaultFormulaVisitor;
+import org.sosy_lab.java_smt.api.visitors.FormulaTransformationVisitor;
+
+/**
+ * Incremental variant of {@link UfElimination} for a sequence of formulas, e.g., the steps of an
+ * unrolling in bounded model checking. Each call of {@link #eliminateUfs(BooleanFormula)} replaces
+ * the UFs of the given formula by fresh variables and returns only the constraints for functional
+ * consistency that are new, i.e., that relate the new applications of UFs to each other and to the
+ * applications of all previous calls. The previous constraints stay valid and need not be repeated.
+ *
+ * <p>The applications of each function are indexed by their arguments, after the UFs in the
+ * arguments were eliminated as well. Applications with equal arguments are replaced by the same
+ * variable and need no constraint, and no constraint is created for two applications with distinct
+ * constant values as arguments at the same position.
+ *
+ * <p>Quantified formulas are not supported. An instance is not thread-safe.
+ */
+public final class IncrementalUfElimination {
+
+  /** The formula without UFs and the new constraints of one call of {@link #eliminateUfs}. */
+  public static final class Result {
+
+    private final BooleanFormula formula;
+    private final BooleanFormula constraints;
+
+    private Result(BooleanFormula pFormula, BooleanFormula pConstraints) {
+      formula = pFormula;
+      constraints = pConstraints;
+    }
+
+    /**
+     * @return the new {@link Formula} without UFs
+     */
+    public BooleanFormula getFormula() {
+      return formula;
+    }
+
+    /**
+     * @return the new constraints enforcing the functional consistency.
+     */
+    public BooleanFormula getConstraints() {
+      return constraints;
+    }
+  }
+
+  /** An application of an UF with arguments without UFs, and the variable that replaces it. */
+  private static final class Application {
+
+    private final ImmutableList<Formula> arguments;
+
+    /** The values of the arguments that are constants, or null for other arguments. */
+    private final @Nullable Object[] constantValues;
+
+    private final Formula variable;
+
+    private Application(
+        ImmutableList<Formula> pArguments, @Nullable Object[] pConstantValues, Formula pVariable) {
+      arguments = pArguments;
+      constantValues = pConstantValues;
+      variable = pVariable;
+    }
+  }
+
+  private final FormulaManager fmgr;
+  private final BooleanFormulaManager bfmgr;
+
+  /** For each function, its applications indexed by their arguments, in the order of creation. */
+  private final Map<FunctionDeclaration<?>, Map<ImmutableList<Formula>, Application>> index =
+      new HashMap<>();
+
+  /** The replaced applications of UFs and the variables that replace them. */
+  private final Map<Formula, Formula> substitution = new LinkedHashMap<>();
+
+  /** The constraints of the current call. */
+  private final List<BooleanFormula> newConstraints = new ArrayList<>();
+
+  IncrementalUfElimination(FormulaManager pFmgr) {
+    fmgr = checkNotNull(pFmgr);
+    bfmgr = pFmgr.getBooleanFormulaManager();
+  }
+
+  /**
+   * Applies the Ackermann transformation to the given {@link Formula}, with respect to the formulas
+   * of all previous calls.
+   *
+   * @param pF the {@link Formula} to remove all UFs from
+   * @return the {@link Formula} without UFs and the new constraints
+   */
+  public Result eliminateUfs(BooleanFormula pF) {
+    newConstraints.clear();
+    BooleanFormula formulaWithoutUfs =
+        fmgr.transformRecursively(
+            pF,
+            new FormulaTransformationVisitor(fmgr) {
+              @Override
+              public Formula visitFunction(
+                  Formula f, List<Formula> newArgs, FunctionDeclaration<?> functionDeclaration) {
+                if (functionDeclaration.getKind() == FunctionDeclarationKind.UF) {
+                  return getVariable(f, functionDeclaration, newArgs);
+                }
+                return super.visitFunction(f, newArgs, functionDeclaration);
+              }
+
+              @Override
+              public BooleanFormula visitQuantifier(
+                  BooleanFormula f,
+                  Quantifier quantifier,
+                  List<Formula> boundVariables,
+                  BooleanFormula transformedBody) {
+                throw new IllegalArgumentException("Quantified formulas are not supported: " + f);
+              }
+            });
+    BooleanFormula constraints = bfmgr.and(newConstraints);
+    newConstraints.clear();
+    return new Result(formulaWithoutUfs, constraints);
+  }
+
+  /**
+   * @return the replaced applications of UFs of all calls, and the variables that replace them.
+   */
+  public Map<Formula, Formula> getSubstitution() {
+    return Collections.unmodifiableMap(substitution);
+  }
+
+  /** Return the variable for the application, and create it and its constraints if it is new. */
+  private Formula getVariable(
+      Formula pApplication, FunctionDeclaration<?> pFunction, List<Formula> pArgs) {
+    Map<ImmutableList<Formula>, Application> applications =
+        index.computeIfAbsent(pFunction, f -> new LinkedHashMap<>());
+    ImmutableList<Formula> args = ImmutableList.copyOf(pArgs);
+    Application application = applications.get(args);
+    if (application == null) {
+      application =
+          new Application(
+              args,
+              getConstantValues(args),
+              UfElimination.freshUfReplaceVariable(fmgr, pFunction.getType()));
+      for (Application other : applications.values()) {
+        addConstraint(application, other);
+      }
+      applications.put(args, application);
+    }
+    substitution.putIfAbsent(pApplication, application.variable);
+    return application.variable;
+  }
+
+  private void addConstraint(Application pApplication, Application pOther) {
+    Verify.verify(pApplication.arguments.size() == pOther.arguments.size());
+    List<BooleanFormula> argumentEqualities = new ArrayList<>();
+    for (int i = 0; i < pApplication.arguments.size(); i++) {
+      Object value = pApplication.constantValues[i];
+      Object otherValue = pOther.constantValues[i];
+      if (value != null
+          && otherValue != null
+          && value.getClass() == otherValue.getClass()
+          && !value.equals(otherValue)) {
+        return; // the arguments are never equal
+      }
+      Formula arg = pApplication.arguments.get(i);
+      Formula otherArg = pOther.arguments.get(i);
+      if (!arg.equals(otherArg)) {
+        argumentEqualities.add(UfElimination.makeEqual(fmgr, arg, otherArg));
+      }
+    }
+    BooleanFormula functionEquality =
+        UfElimination.makeEqual(fmgr, pApplication.variable, pOther.variable);
+    newConstraints.add(bfmgr.implication(bfmgr.and(argumentEqualities), functionEquality));
+  }
+
+  /**
+   * Return the values of the arguments that are constants of a type whose values are only equal if
+   * their representations are equal, i.e., booleans and numbers, but not bitvectors or
+   * floating-point numbers. Integral numbers may be represented by {@link BigInteger} or {@link
+   * Rational}, thus only values of the same class can be compared.
+   */
+  private @Nullable Object[] getConstantValues(List<Formula> pArgs) {
+    @Nullable Object[] values = new Object[pArgs.size()];
+    for (int i = 0; i < pArgs.size(); i++) {
+      values[i] =
+          fmgr.visit(
+              pArgs.get(i),
+              new DefaultFormulaVisitor<@Nullable Object>() {
+                @Override
+                protected @Nullable Object visitDefault(Formula f) {
+                  return null;
+                }
+
+                @Override
+                public @Nullable Object visitConstant(Formula f, Object value) {
+                  boolean isPrecise =
+                      f instanceof BooleanFormula
+                          || (f instanceof NumeralFormula
+                              && (value instanceof BigInteger || value instanceof Rational));
+                  return isPrecise ? value : null;
+                }
+              });
+    }
+    return values;
+  }
+}
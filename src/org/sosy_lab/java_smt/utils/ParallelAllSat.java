@@ -0,0 +1,332 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.utils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment.AllSatCallback;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * Parallel ALLSAT computation. The first important predicates are split into cubes, i.e., all
+ * combinations of their values, and each cube is solved with {@link ProverEnvironment#allSat} on a
+ * separate solver context. A solver context is used by only one thread at a time, formulas are
+ * translated between the contexts with {@link FormulaManager#translateFrom}.
+ *
+ * <p>The models are reported to the callback in the calling thread, after all cubes are solved, in
+ * the order of the cubes. Thus, the result does not depend on the scheduling of the threads.
+ *
+ * <p>The worker contexts are created on first use and reused for all queries, so instances should
+ * be closed after use.
+ */
+public final class ParallelAllSat implements AutoCloseable {
+
+  /** Number of cubes per thread, more cubes balance the load better but cost more overhead. */
+  private static final int CUBES_PER_THREAD = 4;
+
+  /** Time to wait for the workers to stop when this instance is closed. */
+  private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+  /** Value of a predicate in an encoded model, 0 means that the predicate has no value. */
+  private static final byte TRUE = 1;
+  private static final byte FALSE = -1;
+
+  private final SolverContext context;
+  private final Configuration config;
+  private final LogManager logger;
+  private final ShutdownNotifier shutdownNotifier;
+  private final int numThreads;
+
+  private final ExecutorService executor;
+
+  /** Solver contexts that are not used by any thread at the moment. */
+  private final BlockingQueue<SolverContext> idleContexts;
+
+  private final List<SolverContext> workerContexts = new ArrayList<>();
+
+  /**
+   * Create a new instance for ALLSAT queries in the given context. The worker contexts use the same
+   * solver and configuration.
+   */
+  public ParallelAllSat(
+      SolverContext pContext,
+      Configuration pConfig,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier,
+      int pNumThreads) {
+    checkArgument(pNumThreads > 0, "at least one thread is required");
+    context = pContext;
+    config = pConfig;
+    logger = pLogger;
+    shutdownNotifier = pShutdownNotifier;
+    numThreads = pNumThreads;
+    idleContexts = new ArrayBlockingQueue<>(pNumThreads);
+    executor =
+        Executors.newFixedThreadPool(
+            pNumThreads,
+            new ThreadFactoryBuilder().setNameFormat("parallel-allsat-%d").setDaemon(true).build());
+  }
+
+  /**
+   * Compute all satisfying assignments of the important predicates for the conjunction of the given
+   * assertions, see {@link ProverEnvironment#allSat}.
+   *
+   * @param assertions formulas from the context of this instance.
+   * @param options options for the provers of the worker contexts, {@link
+   *     ProverOptions#GENERATE_ALL_SAT} is always added.
+   */
+  public <R> R allSat(
+      Collection<BooleanFormula> assertions,
+      AllSatCallback<R> callback,
+      List<BooleanFormula> importantPredicates,
+      ProverOptions... options)
+      throws InterruptedException, SolverException {
+    ImmutableList<BooleanFormula> predicates = ImmutableList.copyOf(importantPredicates);
+    int numSplit = getNumberOfSplitPredicates(predicates.size());
+
+    // the negated predicates are built before the workers start, because the workers translate
+    // from the main context concurrently.
+    ImmutableList.Builder<BooleanFormula> negatedPredicates = ImmutableList.builder();
+    synchronized (context) {
+      BooleanFormulaManager bmgr = context.getFormulaManager().getBooleanFormulaManager();
+      for (BooleanFormula predicate : predicates) {
+        negatedPredicates.add(bmgr.not(predicate));
+      }
+    }
+    ImmutableList<BooleanFormula> negated = negatedPredicates.build();
+
+    List<Future<List<byte[]>>> results = new ArrayList<>();
+    for (int cube = 0; cube < 1 << numSplit; cube++) {
+      results.add(executor.submit(new CubeTask(assertions, predicates, numSplit, cube, options)));
+    }
+
+    // wait for all cubes before the first callback, such that no worker uses the main context
+    // while the callback creates formulas in it.
+    List<List<byte[]>> models = new ArrayList<>();
+    try {
+      for (Future<List<byte[]>> result : results) {
+        models.add(result.get());
+      }
+    } catch (ExecutionException e) {
+      results.forEach(r -> r.cancel(true));
+      Throwable cause = e.getCause();
+      if (cause instanceof SolverException) {
+        throw (SolverException) cause;
+      } else if (cause instanceof InterruptedException) {
+        throw (InterruptedException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new SolverException("Parallel ALLSAT computation failed", cause);
+    } catch (InterruptedException e) {
+      results.forEach(r -> r.cancel(true));
+      throw e;
+    }
+
+    for (List<byte[]> modelsOfCube : models) {
+      for (byte[] model : modelsOfCube) {
+        ImmutableList.Builder<BooleanFormula> valuesOfModel = ImmutableList.builder();
+        for (int i = 0; i < predicates.size(); i++) {
+          if (model[i] == TRUE) {
+            valuesOfModel.add(predicates.get(i));
+          } else if (model[i] == FALSE) {
+            valuesOfModel.add(negated.get(i));
+          }
+        }
+        callback.apply(valuesOfModel.build());
+      }
+    }
+    return callback.getResult();
+  }
+
+  /** Split enough predicates to have some cubes per thread, if there is more than one thread. */
+  private int getNumberOfSplitPredicates(int numPredicates) {
+    int numCubes = numThreads == 1 ? 1 : numThreads * CUBES_PER_THREAD;
+    int numSplit = 32 - Integer.numberOfLeadingZeros(numCubes - 1); // ceil(log2(numCubes))
+    return Math.min(numSplit, numPredicates);
+  }
+
+  /** Returns an idle worker context, or creates a new one if all are in use. */
+  private SolverContext acquireContext() throws InvalidConfigurationException {
+    SolverContext workerContext = idleContexts.poll();
+    if (workerContext == null) {
+      workerContext =
+          SolverContextFactory.createSolverContext(
+              config, logger, shutdownNotifier, context.getSolverName());
+      synchronized (workerContexts) {
+        workerContexts.add(workerContext);
+      }
+    }
+    return workerContext;
+  }
+
+  private void releaseContext(SolverContext workerContext) {
+    // there are at most as many contexts as threads, thus the queue never overflows.
+    checkState(idleContexts.offer(workerContext));
+  }
+
+  /** Solve one cube on a worker context and return the models as values per predicate. */
+  private final class CubeTask implements Callable<List<byte[]>> {
+
+    private final Collection<BooleanFormula> assertions;
+    private final List<BooleanFormula> predicates;
+    private final int numSplit;
+    private final int cube;
+    private final ProverOptions[] options;
+
+    CubeTask(
+        Collection<BooleanFormula> pAssertions,
+        List<BooleanFormula> pPredicates,
+        int pNumSplit,
+        int pCube,
+        ProverOptions[] pOptions) {
+      assertions = pAssertions;
+      predicates = pPredicates;
+      numSplit = pNumSplit;
+      cube = pCube;
+      options = pOptions;
+    }
+
+    @Override
+    public List<byte[]> call()
+        throws InvalidConfigurationException, InterruptedException, SolverException {
+      SolverContext workerContext = acquireContext();
+      try {
+        return solve(workerContext);
+      } finally {
+        releaseContext(workerContext);
+      }
+    }
+
+    private List<byte[]> solve(SolverContext workerContext)
+        throws InterruptedException, SolverException {
+      FormulaManager fmgr = context.getFormulaManager();
+      FormulaManager workerFmgr = workerContext.getFormulaManager();
+      BooleanFormulaManager workerBmgr = workerFmgr.getBooleanFormulaManager();
+
+      List<BooleanFormula> translatedAssertions = new ArrayList<>();
+      List<BooleanFormula> translatedPredicates = new ArrayList<>();
+      // all worker contexts read from the main context, which must not be used concurrently.
+      synchronized (context) {
+        for (BooleanFormula assertion : assertions) {
+          translatedAssertions.add(workerFmgr.translateFrom(assertion, fmgr));
+        }
+        for (BooleanFormula predicate : predicates) {
+          translatedPredicates.add(workerFmgr.translateFrom(predicate, fmgr));
+        }
+      }
+
+      // the values of the cube, and the index of each literal of the remaining predicates
+      byte[] prefix = new byte[predicates.size()];
+      List<BooleanFormula> cubeLiterals = new ArrayList<>();
+      for (int i = 0; i < numSplit; i++) {
+        boolean value = (cube & (1 << i)) != 0;
+        prefix[i] = value ? TRUE : FALSE;
+        BooleanFormula predicate = translatedPredicates.get(i);
+        cubeLiterals.add(value ? predicate : workerBmgr.not(predicate));
+      }
+      Map<BooleanFormula, Integer> literalIndex = new HashMap<>();
+      for (int i = numSplit; i < predicates.size(); i++) {
+        BooleanFormula predicate = translatedPredicates.get(i);
+        literalIndex.put(predicate, 2 * i);
+        literalIndex.put(workerBmgr.not(predicate), 2 * i + 1);
+      }
+
+      ProverOptions[] proverOptions = new ProverOptions[options.length + 1];
+      System.arraycopy(options, 0, proverOptions, 0, options.length);
+      proverOptions[options.length] = ProverOptions.GENERATE_ALL_SAT;
+      try (ProverEnvironment prover = workerContext.newProverEnvironment(proverOptions)) {
+        for (BooleanFormula assertion : translatedAssertions) {
+          prover.addConstraint(assertion);
+        }
+        for (BooleanFormula literal : cubeLiterals) {
+          prover.addConstraint(literal);
+        }
+        return prover.allSat(
+            new AllSatCallback<>() {
+              private final List<byte[]> models = new ArrayList<>();
+
+              @Override
+              public void apply(List<BooleanFormula> model) {
+                byte[] values = prefix.clone();
+                for (BooleanFormula literal : model) {
+                  Integer index = literalIndex.get(literal);
+                  checkState(index != null, "unexpected literal %s in model", literal);
+                  values[index / 2] = index % 2 == 0 ? TRUE : FALSE;
+                }
+                models.add(values);
+              }
+
+              @Override
+              public List<byte[]> getResult() {
+                return models;
+              }
+            },
+            translatedPredicates.subList(numSplit, predicates.size()));
+      }
+    }
+  }
+
+  /**
+   * Stop the worker threads and close the worker contexts. A worker context is only closed after
+   * all workers stopped, because a worker can still be inside native code of its solver. If the
+   * workers do not stop in time, e.g., because a solver ignores interrupts, the contexts are left
+   * open.
+   */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+    try {
+      if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        logger.log(
+            Level.WARNING,
+            "Parallel ALLSAT workers did not stop within",
+            CLOSE_TIMEOUT_SECONDS,
+            "seconds, their solver contexts are not closed.");
+        return;
+      }
+    } catch (InterruptedException e) {
+      logger.log(Level.WARNING, "Interrupted while waiting for parallel ALLSAT workers to stop.");
+      Thread.currentThread().interrupt();
+      return;
+    }
+    synchronized (workerContexts) {
+      workerContexts.forEach(SolverContext::close);
+      workerContexts.clear();
+    }
+  }
+}
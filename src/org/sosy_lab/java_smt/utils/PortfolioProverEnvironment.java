@@ -0,0 +1,646 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.utils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.ShutdownNotifier.ShutdownRequestListener;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * A prover that races several solvers on each query. The assertion stack is replicated into one
+ * separate context per solver, asserted formulas are transferred as SMT-LIB. Satisfiability checks
+ * run in parallel on all solvers, the first answer is returned and the other solvers are stopped
+ * via the {@link ShutdownNotifier} of their context.
+ *
+ * <p>The assertion stack is persistent, and each solver is brought up to date only before a query,
+ * by popping and asserting the difference to its own stack. As a shutdown request can not be
+ * undone, a stopped solver gets a new context in the background, where the stack is replayed while
+ * the other solvers continue to answer queries. The new solver joins the races as soon as the
+ * replay is finished.
+ *
+ * <p>Models and unsat cores are retrieved from the solver that answered the last query and are
+ * translated back into the context of this prover. A model is computed by asserting the translated
+ * value assignments in a prover of that context, thus it is only as complete as the model of the
+ * winning solver.
+ *
+ * <p>This prover must be used by one thread at a time, like all other provers. The solvers for the
+ * portfolio must be available on the system, and they must support all operations of the queries.
+ */
+public final class PortfolioProverEnvironment implements ProverEnvironment {
+
+  private final SolverContext context;
+  private final FormulaManager fmgr;
+  private final Configuration config;
+  private final LogManager logger;
+  private final ShutdownNotifier shutdownNotifier;
+  private final ProverOptions[] options;
+
+  private final ExecutorService executor;
+
+  /** The solvers of the portfolio, a stopped solver is replaced in the background. */
+  private final List<Member> members = new ArrayList<>();
+
+  /** The pending replacement for each stopped solver, or null. */
+  private final List<@Nullable Future<Member>> replacements = new ArrayList<>();
+
+  /** The replacements that are replaying the stack at the moment, guarded by {@code this}. */
+  private final Set<Member> replaying = new HashSet<>();
+
+  /** The top of the assertion stack. */
+  private StackElement top = StackElement.BOTTOM;
+
+  /** The push operations on the assertion stack, the most recent one first. */
+  private final Deque<StackElement> pushes = new ArrayDeque<>();
+
+  /** The solver that answered the last query, or null if the stack was modified afterwards. */
+  private @Nullable Member winner = null;
+
+  /** The prover for the model of the winner, if a model was requested. */
+  private @Nullable ProverEnvironment modelProver = null;
+
+  private final Map<Solvers, Integer> wins = new LinkedHashMap<>();
+  private int races = 0;
+  private int replaced = 0;
+
+  /** Guarded by {@code this}, as the replacements check it in the background. */
+  private boolean closed = false;
+
+  /**
+   * Create a new portfolio prover for formulas of the given context.
+   *
+   * @param pSolvers the solvers that race on each query, their contexts use the given configuration
+   *     and are stopped if the shutdown notifier requests a shutdown.
+   * @param pOptions the options for the provers of all solvers.
+   */
+  public PortfolioProverEnvironment(
+      SolverContext pContext,
+      Configuration pConfig,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier,
+      List<Solvers> pSolvers,
+      ProverOptions... pOptions)
+      throws InvalidConfigurationException {
+    checkArgument(!pSolvers.isEmpty(), "at least one solver is required");
+    context = pContext;
+    fmgr = pContext.getFormulaManager();
+    config = pConfig;
+    logger = pLogger;
+    shutdownNotifier = pShutdownNotifier;
+    options = pOptions.clone();
+    executor =
+        Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("portfolio-%d").setDaemon(true).build());
+    try {
+      for (Solvers solver : pSolvers) {
+        members.add(new Member(solver));
+        replacements.add(null);
+      }
+    } catch (InvalidConfigurationException | RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  @Override
+  public void push() {
+    checkState(!isClosed());
+    resetResult();
+    top = new StackElement(top, null, null);
+    pushes.push(top);
+  }
+
+  @Override
+  public void pop() {
+    checkState(!isClosed());
+    checkState(size() > 0, "pop on empty stack");
+    resetResult();
+    top = checkNotNull(pushes.pop().previous);
+  }
+
+  @Override
+  public @Nullable Void addConstraint(BooleanFormula constraint) {
+    checkState(!isClosed());
+    resetResult();
+    // the solvers replay the stack in other threads, where the context of this prover is not
+    // available, thus the formula is stored as SMT-LIB.
+    top = new StackElement(top, constraint, fmgr.dumpFormula(constraint).toString());
+    return null;
+  }
+
+  @Override
+  public int size() {
+    checkState(!isClosed());
+    return pushes.size();
+  }
+
+  @Override
+  public boolean isUnsat() throws SolverException, InterruptedException {
+    return race(ImmutableList.of(), (member, assumptions) -> member.prover.isUnsat());
+  }
+
+  @Override
+  public boolean isUnsatWithAssumptions(Collection<BooleanFormula> pAssumptions)
+      throws SolverException, InterruptedException {
+    return race(
+        pAssumptions,
+        (member, assumptions) -> member.prover.isUnsatWithAssumptions(assumptions));
+  }
+
+  @Override
+  public Optional<List<BooleanFormula>> unsatCoreOverAssumptions(
+      Collection<BooleanFormula> pAssumptions) throws SolverException, InterruptedException {
+    Optional<List<BooleanFormula>> core =
+        race(
+            pAssumptions,
+            (member, assumptions) -> member.prover.unsatCoreOverAssumptions(assumptions));
+    Member answered = checkNotNull(winner);
+    return core.map(answered::translateBack);
+  }
+
+  @Override
+  public List<BooleanFormula> getUnsatCore() {
+    checkState(!isClosed());
+    checkState(winner != null, "unsat core is only available after an unsatisfiable query");
+    return winner.translateBack(winner.prover.getUnsatCore());
+  }
+
+  @Override
+  public Model getModel() throws SolverException {
+    checkState(!isClosed());
+    checkState(winner != null, NO_MODEL_HELP);
+    closeModelProver();
+    List<BooleanFormula> assignments = new ArrayList<>();
+    for (Model.ValueAssignment assignment : winner.prover.getModelAssignments()) {
+      assignments.add(
+          fmgr.translateFrom(
+              assignment.getAssignmentAsFormula(), winner.memberFmgr));
+    }
+    modelProver = context.newProverEnvironment(ProverOptions.GENERATE_MODELS);
+    try {
+      for (BooleanFormula assignment : assignments) {
+        modelProver.addConstraint(assignment);
+      }
+      checkState(!modelProver.isUnsat(), "model of %s is inconsistent", winner.solver);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolverException("Model computation was interrupted", e);
+    }
+    return modelProver.getModel();
+  }
+
+  @Override
+  public <R> R allSat(AllSatCallback<R> callback, List<BooleanFormula> important)
+      throws InterruptedException, SolverException {
+    checkState(!isClosed());
+    resetResult();
+    Member member = getRunnableMembers().get(0);
+    List<BooleanFormula> translated = member.translate(important);
+    return member.prover.allSat(
+        new AllSatCallback<>() {
+          @Override
+          public void apply(List<BooleanFormula> model) {
+            callback.apply(member.translateBack(model));
+          }
+
+          @Override
+          public R getResult() throws InterruptedException {
+            return callback.getResult();
+          }
+        },
+        translated);
+  }
+
+  /** Returns how often each solver answered first, and the number of races. */
+  @Override
+  public ImmutableMap<String, String> getStatistics() {
+    ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+    builder.put("races", Integer.toString(races));
+    builder.put("replaced solvers", Integer.toString(replaced));
+    for (Map.Entry<Solvers, Integer> entry : wins.entrySet()) {
+      builder.put("wins of " + entry.getKey(), Integer.toString(entry.getValue()));
+    }
+    return builder.buildOrThrow();
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      // interrupt the replays, the replacements are closed below
+      for (Member member : replaying) {
+        member.stop("The portfolio prover was closed");
+      }
+    }
+    closeModelProver();
+    for (Member member : members) {
+      member.stop(null);
+    }
+    members.clear();
+    for (Future<Member> replacement : replacements) {
+      if (replacement != null) {
+        try {
+          Uninterruptibles.getUninterruptibly(replacement).stop(null);
+        } catch (ExecutionException e) {
+          logger.logDebugException(e.getCause(), "Replacement of a solver failed");
+        }
+      }
+    }
+    replacements.clear();
+    executor.shutdown();
+  }
+
+  private synchronized boolean isClosed() {
+    return closed;
+  }
+
+  private void resetResult() {
+    winner = null;
+    closeModelProver();
+  }
+
+  private void closeModelProver() {
+    if (modelProver != null) {
+      modelProver.close();
+      modelProver = null;
+    }
+  }
+
+  /**
+   * Return the solvers that are not stopped, with their stack brought up to date. Replacements that
+   * have finished their replay join the solvers, and if there is no other solver, this method waits
+   * for the replacements.
+   */
+  private List<Member> getRunnableMembers() throws InterruptedException, SolverException {
+    List<Member> runnable = collectRunnableMembers(false);
+    if (runnable.isEmpty()) {
+      runnable = collectRunnableMembers(true);
+    }
+    if (runnable.isEmpty()) {
+      throw new SolverException("No solver of the portfolio is available");
+    }
+    for (Member member : runnable) {
+      member.syncTo(top);
+    }
+    return runnable;
+  }
+
+  private List<Member> collectRunnableMembers(boolean waitForReplacements)
+      throws InterruptedException {
+    List<Member> runnable = new ArrayList<>(members.size());
+    for (int i = 0; i < members.size(); i++) {
+      Future<Member> replacement = replacements.get(i);
+      if (replacement != null && (waitForReplacements || replacement.isDone())) {
+        replacements.set(i, null);
+        try {
+          members.set(i, replacement.get());
+          replaced++;
+        } catch (ExecutionException e) {
+          // the solver is replaced again below
+          logger.logDebugException(e.getCause(), "Replacement of " + members.get(i).solver);
+        }
+      }
+      if (!members.get(i).isStopped()) {
+        runnable.add(members.get(i));
+      }
+    }
+    replaceStoppedMembers();
+    return runnable;
+  }
+
+  /** Start a replacement for each stopped solver, which replays the current stack. */
+  private void replaceStoppedMembers() {
+    StackElement snapshot = top;
+    for (int i = 0; i < members.size(); i++) {
+      if (members.get(i).isStopped() && replacements.get(i) == null) {
+        Solvers solver = members.get(i).solver;
+        replacements.set(i, executor.submit(() -> newReplacement(solver, snapshot)));
+      }
+    }
+  }
+
+  /** Create a new context for the solver and replay the given stack, in a background thread. */
+  private Member newReplacement(Solvers solver, StackElement snapshot)
+      throws InvalidConfigurationException, InterruptedException {
+    Member replacement = new Member(solver);
+    synchronized (this) {
+      if (closed) {
+        replacement.stop(null);
+        throw new CancellationException("The portfolio prover was closed");
+      }
+      replacement.startQuery();
+      replaying.add(replacement);
+    }
+    try {
+      replacement.syncTo(snapshot);
+    } finally {
+      synchronized (this) {
+        replaying.remove(replacement);
+      }
+      replacement.finishQuery();
+    }
+    return replacement;
+  }
+
+  /** A query that is executed on the prover of one solver. */
+  private interface Query<R> {
+    R run(Member member, List<BooleanFormula> assumptions)
+        throws SolverException, InterruptedException;
+  }
+
+  /**
+   * Run the query on all solvers and return the first answer. The other solvers are stopped, unless
+   * they have already failed. If all solvers fail, the first exception is thrown.
+   */
+  private <R> R race(Collection<BooleanFormula> assumptions, Query<R> query)
+      throws SolverException, InterruptedException {
+    checkState(!isClosed());
+    resetResult();
+    shutdownNotifier.shutdownIfNecessary();
+
+    // formulas are translated in this thread, as the context of this prover is not thread-safe.
+    List<Member> runnable = getRunnableMembers();
+    Map<Member, List<BooleanFormula>> translatedAssumptions = new HashMap<>();
+    for (Member member : runnable) {
+      translatedAssumptions.put(member, member.translate(assumptions));
+    }
+
+    races++;
+    CompletionService<R> completionService = new ExecutorCompletionService<>(executor);
+    Map<Future<R>, Member> running = new HashMap<>();
+    for (Member member : runnable) {
+      List<BooleanFormula> memberAssumptions = translatedAssumptions.get(member);
+      member.startQuery();
+      running.put(
+          completionService.submit(
+              () -> {
+                try {
+                  return query.run(member, memberAssumptions);
+                } finally {
+                  member.finishQuery();
+                }
+              }),
+          member);
+    }
+
+    Throwable firstFailure = null;
+    try {
+      for (int i = 0; i < running.size(); i++) {
+        Future<R> future = completionService.take();
+        try {
+          R result = future.get();
+          winner = running.get(future);
+          wins.merge(winner.solver, 1, Integer::sum);
+          return result;
+        } catch (ExecutionException e) {
+          Solvers failed = running.get(future).solver;
+          logger.logDebugException(e.getCause(), "Solver " + failed + " failed");
+          if (firstFailure == null) {
+            firstFailure = e.getCause();
+          }
+        }
+      }
+    } finally {
+      for (Map.Entry<Future<R>, Member> entry : running.entrySet()) {
+        if (!entry.getKey().isDone()) {
+          entry.getValue().stop("Another solver of the portfolio was faster");
+        }
+      }
+      replaceStoppedMembers();
+    }
+
+    Throwables.throwIfInstanceOf(firstFailure, SolverException.class);
+    Throwables.throwIfInstanceOf(firstFailure, InterruptedException.class);
+    Throwables.throwIfUnchecked(firstFailure);
+    throw new SolverException("All solvers of the portfolio failed", firstFailure);
+  }
+
+  /** One solver of the portfolio with its own context. */
+  private final class Member {
+
+    private final Solvers solver;
+    private final ShutdownManager shutdownManager = ShutdownManager.create();
+    private final ShutdownRequestListener shutdownListener = shutdownManager::requestShutdown;
+    private final SolverContext memberContext;
+    private final FormulaManager memberFmgr;
+    private final ProverEnvironment prover;
+
+    /** The top of the assertion stack that the prover of this solver contains. */
+    private StackElement asserted = StackElement.BOTTOM;
+
+    /** The original formulas of the translated formulas, for translating results back. */
+    private final Map<BooleanFormula, BooleanFormula> originals = new HashMap<>();
+
+    /** Whether a query is running, and whether this solver was stopped, guarded by {@code this}. */
+    private boolean running = false;
+
+    private boolean stopped = false;
+
+    Member(Solvers pSolver) throws InvalidConfigurationException {
+      solver = pSolver;
+      memberContext =
+          SolverContextFactory.createSolverContext(
+              config, logger, shutdownManager.getNotifier(), solver);
+      memberFmgr = memberContext.getFormulaManager();
+      prover = memberContext.newProverEnvironment(options);
+      shutdownNotifier.registerAndCheckImmediately(shutdownListener);
+    }
+
+    /**
+     * Bring the prover of this solver to the given stack: pop the levels that are not part of the
+     * given stack, and then push and assert the missing elements. Only the context of this solver
+     * is used, thus this method can run in any thread, as long as the solver is not used otherwise.
+     */
+    void syncTo(StackElement target) throws InterruptedException {
+      StackElement base = StackElement.commonBase(asserted, target);
+      // the prover is at an element of the given stack as soon as it is not above the base
+      StackElement state = asserted;
+      StackElement element = asserted;
+      while (state.depth > base.depth) {
+        StackElement below = checkNotNull(element.previous, "the base level can not be popped");
+        if (element.isPush()) {
+          prover.pop();
+          state = below;
+        }
+        element = below;
+      }
+      Deque<StackElement> missing = new ArrayDeque<>();
+      for (StackElement e = target; e != state; e = checkNotNull(e.previous)) {
+        missing.push(e);
+      }
+      for (StackElement e : missing) {
+        if (e.isPush()) {
+          prover.push();
+        } else {
+          BooleanFormula translated = memberFmgr.parse(checkNotNull(e.smtlib));
+          originals.putIfAbsent(translated, checkNotNull(e.formula));
+          prover.addConstraint(translated);
+        }
+      }
+      asserted = target;
+    }
+
+    BooleanFormula translate(BooleanFormula formula) {
+      BooleanFormula translated = memberFmgr.translateFrom(formula, fmgr);
+      originals.putIfAbsent(translated, formula);
+      return translated;
+    }
+
+    List<BooleanFormula> translate(Collection<BooleanFormula> formulas) {
+      List<BooleanFormula> translated = new ArrayList<>(formulas.size());
+      for (BooleanFormula formula : formulas) {
+        translated.add(translate(formula));
+      }
+      return translated;
+    }
+
+    List<BooleanFormula> translateBack(List<BooleanFormula> formulas) {
+      List<BooleanFormula> result = new ArrayList<>(formulas.size());
+      for (BooleanFormula formula : formulas) {
+        BooleanFormula original = originals.get(formula);
+        result.add(original != null ? original : fmgr.translateFrom(formula, memberFmgr));
+      }
+      return result;
+    }
+
+    synchronized boolean isStopped() {
+      return stopped;
+    }
+
+    synchronized void startQuery() {
+      running = true;
+    }
+
+    synchronized void finishQuery() {
+      running = false;
+      if (stopped) {
+        closeContext();
+      }
+    }
+
+    /**
+     * Stop this solver. A running query is interrupted with the given reason and the context is
+     * closed when the query returns.
+     */
+    synchronized void stop(@Nullable String reason) {
+      if (stopped) {
+        return;
+      }
+      stopped = true;
+      if (running) {
+        if (reason != null) {
+          // some solvers block the shutdown request until the running query returns
+          executor.execute(() -> shutdownManager.requestShutdown(reason));
+        }
+      } else {
+        closeContext();
+      }
+    }
+
+    private void closeContext() {
+      shutdownNotifier.unregister(shutdownListener);
+      prover.close();
+      memberContext.close();
+    }
+  }
+
+  /**
+   * An element of the assertion stack, either an asserted formula or a push. The stack is
+   * persistent: each element points to the element below it and is never changed, thus a snapshot
+   * of the stack is just its top element, which can be replayed in any thread.
+   */
+  private static final class StackElement {
+
+    /** The bottom of each stack, it is not an element itself. */
+    private static final StackElement BOTTOM = new StackElement(null, null, null);
+
+    private final @Nullable StackElement previous;
+
+    /** The number of elements up to and including this one. */
+    private final int depth;
+
+    /** The asserted formula and its SMT-LIB representation, or null for a push. */
+    private final @Nullable BooleanFormula formula;
+
+    private final @Nullable String smtlib;
+
+    StackElement(
+        @Nullable StackElement pPrevious,
+        @Nullable BooleanFormula pFormula,
+        @Nullable String pSmtlib) {
+      previous = pPrevious;
+      depth = pPrevious == null ? 0 : pPrevious.depth + 1;
+      formula = pFormula;
+      smtlib = pSmtlib;
+    }
+
+    boolean isPush() {
+      return formula == null;
+    }
+
+    /** Returns the topmost element that both stacks share. */
+    static StackElement commonBase(StackElement pFirst, StackElement pSecond) {
+      StackElement first = pFirst;
+      StackElement second = pSecond;
+      while (first.depth > second.depth) {
+        first = checkNotNull(first.previous);
+      }
+      while (second.depth > first.depth) {
+        second = checkNotNull(second.previous);
+      }
+      while (first != second) {
+        first = checkNotNull(first.previous);
+        second = checkNotNull(second.previous);
+      }
+      return first;
+    }
+  }
+}
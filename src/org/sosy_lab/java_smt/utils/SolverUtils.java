@@ -25,6 +25,16 @@ public final class SolverUtils {
     return new UfElimination(pFormulaManager);
   }
 
+  /**
+   * Creates a new {@link IncrementalUfElimination} instance.
+   *
+   * @param pFormulaManager the {@link FormulaManager} to be used
+   * @return a new {@link IncrementalUfElimination} instance
+   */
+  public static IncrementalUfElimination incrementalUfElimination(FormulaManager pFormulaManager) {
+    return new IncrementalUfElimination(pFormulaManager);
+  }
+
   /**
    * Creates a new {@link PrettyPrinter} instance.
    *
@@ -172,10 +172,11 @@ public class UfElimination {
            */
           Verify.verify(args.size() == otherArgs.size());
           BooleanFormula argumentsEquality =
-              Streams.zip(args.stream(), otherArgs.stream(), this::makeEqual)
+              Streams.zip(args.stream(), otherArgs.stream(), (a, b) -> makeEqual(fmgr, a, b))
                   .collect(bfmgr.toConjunction());
 
-          BooleanFormula functionEquality = makeEqual(substitution, application2.getSubstitution());
+          BooleanFormula functionEquality =
+              makeEqual(fmgr, substitution, application2.getSubstitution());
           extraConstraints.add(bfmgr.implication(argumentsEquality, functionEquality));
         }
       }
@@ -213,26 +214,30 @@ public class UfElimination {
 
   @SuppressWarnings("unchecked")
   @CheckReturnValue
-  private BooleanFormula makeEqual(Formula pLhs, Formula pRhs) {
+  static BooleanFormula makeEqual(FormulaManager pFmgr, Formula pLhs, Formula pRhs) {
+    BooleanFormulaManager bfmgr = pFmgr.getBooleanFormulaManager();
     BooleanFormula t;
     if (pLhs instanceof BooleanFormula && pRhs instanceof BooleanFormula) {
       t = bfmgr.equivalence((BooleanFormula) pLhs, (BooleanFormula) pRhs);
     } else if (pLhs instanceof IntegerFormula && pRhs instanceof IntegerFormula) {
-      t = fmgr.getIntegerFormulaManager().equal((IntegerFormula) pLhs, (IntegerFormula) pRhs);
+      t = pFmgr.getIntegerFormulaManager().equal((IntegerFormula) pLhs, (IntegerFormula) pRhs);
     } else if (pLhs instanceof StringFormula && pRhs instanceof StringFormula) {
-      t = fmgr.getStringFormulaManager().equal((StringFormula) pLhs, (StringFormula) pRhs);
+      t = pFmgr.getStringFormulaManager().equal((StringFormula) pLhs, (StringFormula) pRhs);
     } else if (pLhs instanceof NumeralFormula && pRhs instanceof NumeralFormula) {
-      t = fmgr.getRationalFormulaManager().equal((NumeralFormula) pLhs, (NumeralFormula) pRhs);
+      t = pFmgr.getRationalFormulaManager().equal((NumeralFormula) pLhs, (NumeralFormula) pRhs);
     } else if (pLhs instanceof BitvectorFormula) {
-      t = fmgr.getBitvectorFormulaManager().equal((BitvectorFormula) pLhs, (BitvectorFormula) pRhs);
+      t =
+          pFmgr
+              .getBitvectorFormulaManager()
+              .equal((BitvectorFormula) pLhs, (BitvectorFormula) pRhs);
     } else if (pLhs instanceof FloatingPointFormula && pRhs instanceof FloatingPointFormula) {
-      FloatingPointFormulaManager fpfmgr = fmgr.getFloatingPointFormulaManager();
+      FloatingPointFormulaManager fpfmgr = pFmgr.getFloatingPointFormulaManager();
       t = fpfmgr.equalWithFPSemantics((FloatingPointFormula) pLhs, (FloatingPointFormula) pRhs);
     } else if (pLhs instanceof ArrayFormula<?, ?> && pRhs instanceof ArrayFormula<?, ?>) {
       ArrayFormula<?, ?> lhs = (ArrayFormula<?, ?>) pLhs;
       @SuppressWarnings("rawtypes")
       ArrayFormula rhs = (ArrayFormula) pRhs;
-      t = fmgr.getArrayFormulaManager().equivalence(lhs, rhs);
+      t = pFmgr.getArrayFormulaManager().equivalence(lhs, rhs);
     } else {
       throw new IllegalArgumentException("Not supported interface");
     }
@@ -327,7 +332,11 @@ public class UfElimination {
   }
 
   private Formula freshUfReplaceVariable(FormulaType<?> pType) {
-    return fmgr.makeVariable(pType, prefix + UNIQUE_ID_GENERATOR.getFreshId());
+    return freshUfReplaceVariable(fmgr, pType);
+  }
+
+  static Formula freshUfReplaceVariable(FormulaManager pFmgr, FormulaType<?> pType) {
+    return pFmgr.makeVariable(pType, prefix + UNIQUE_ID_GENERATOR.getFreshId());
   }
 
   @AutoValue